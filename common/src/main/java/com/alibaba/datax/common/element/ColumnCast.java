@@ -57,6 +57,8 @@ class StringCast {
 
 	static TimeZone timeZoner;
 
+	static StringDateParser dateParser;
+
 	static String encoding = "UTF-8";
 
 	static void init(final Configuration configuration) {
@@ -80,40 +82,34 @@ class StringCast {
 		StringCast.timeFormatter = FastDateFormat.getInstance(
 				StringCast.timeFormat, StringCast.timeZoner);
 
+		List<String> patterns = new ArrayList<String>();
+		patterns.add(StringCast.datetimeFormat);
+		patterns.add(StringCast.dateFormat);
+		patterns.add(StringCast.timeFormat);
+		patterns.addAll(StringCast.extraFormats);
+		StringCast.dateParser = new StringDateParser(patterns,
+				StringCast.timeZoner);
+
 		StringCast.encoding = configuration.getString("common.column.encoding",
 				StringCast.encoding);
 	}
 
+	/**
+	 * 依次尝试 datetimeFormat, dateFormat, timeFormat 以及 extraFormats, 使用第一个能解析的格式,
+	 * 只有全部格式都不匹配时才抛出 ParseException
+	 */
 	static Date asDate(final StringColumn column) throws ParseException {
-		if (null == column.asString()) {
+		String source = column.asString();
+		if (null == source) {
 			return null;
 		}
 
-		try {
-			return StringCast.datetimeFormatter.parse(column.asString());
-		} catch (ParseException ignored) {
-		}
-
-		try {
-			return StringCast.dateFormatter.parse(column.asString());
-		} catch (ParseException ignored) {
-		}
-
-		ParseException e;
-		try {
-			return StringCast.timeFormatter.parse(column.asString());
-		} catch (ParseException ignored) {
-			e = ignored;
-		}
-
-		for (String format : StringCast.extraFormats) {
-			try{
-				return FastDateFormat.getInstance(format, StringCast.timeZoner).parse(column.asString());
-			} catch (ParseException ignored){
-				e = ignored;
-			}
+		Date date = StringCast.dateParser.parse(source);
+		if (null == date) {
+			throw new ParseException(String.format("Unparseable date: %s",
+					source), 0);
 		}
-		throw e;
+		return date;
 	}
 
 	static byte[] asBytes(final StringColumn column)
@@ -13,6 +13,29 @@ import com.alibaba.datax.common.exception.DataXException;
 
 public class StringColumn extends Column {
 
+	/**
+	 * long 能容纳的十进制位数, 不超过该位数的数字不会溢出
+	 */
+	private static final int MAX_FAST_DIGITS = 18;
+
+	/**
+	 * double 可以精确表示的最大整数, 尾数不超过该值时一次除法即可得到正确舍入的结果
+	 */
+	private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+
+	private static final long[] LONG_POWERS_OF_TEN = new long[MAX_FAST_DIGITS + 1];
+
+	private static final double[] DOUBLE_POWERS_OF_TEN = new double[MAX_FAST_DIGITS + 1];
+
+	static {
+		LONG_POWERS_OF_TEN[0] = 1L;
+		DOUBLE_POWERS_OF_TEN[0] = 1.0d;
+		for (int i = 1; i <= MAX_FAST_DIGITS; i++) {
+			LONG_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i - 1] * 10;
+			DOUBLE_POWERS_OF_TEN[i] = DOUBLE_POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
 	public StringColumn() {
 		this((String) null);
 	}
@@ -42,12 +65,69 @@ public class StringColumn extends Column {
 		return;
 	}
 
+	/**
+	 * 判断是否为不带指数、数字位数不超过 MAX_FAST_DIGITS 的十进制数, 即 [+-]?[0-9]*(.[0-9]*)? 且至少有一位数字,
+	 * 这类字符串不经过 BigDecimal 直接按 long 计算, 结果与 BigDecimal 完全一致
+	 *
+	 * @return 小数点后的位数, 不满足条件时返回 -1, 交由 BigDecimal 处理(科学计数法, 超长数字, 非 ASCII 数字等)
+	 */
+	private static int plainDecimalScale(final String data) {
+		int length = data.length();
+		int i = 0;
+		if (length > 0 && ('-' == data.charAt(0) || '+' == data.charAt(0))) {
+			i++;
+		}
+
+		int digits = 0;
+		int scale = 0;
+		boolean point = false;
+		for (; i < length; i++) {
+			char c = data.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits++;
+				if (point) {
+					scale++;
+				}
+			} else if ('.' == c && !point) {
+				point = true;
+			} else {
+				return -1;
+			}
+		}
+
+		if (0 == digits || digits > MAX_FAST_DIGITS) {
+			return -1;
+		}
+		return scale;
+	}
+
+	/**
+	 * @return 去掉小数点后的数字, 即 BigDecimal 的 unscaledValue, 调用前需经过 plainDecimalScale 校验
+	 */
+	private static long plainDecimalUnscaledValue(final String data) {
+		long value = 0;
+		for (int i = 0; i < data.length(); i++) {
+			char c = data.charAt(i);
+			if (c >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+			}
+		}
+		return '-' == data.charAt(0) ? -value : value;
+	}
+
 	@Override
 	public BigInteger asBigInteger() {
 		if (null == this.getRawData()) {
 			return null;
 		}
 
+		String data = (String) this.getRawData();
+		int scale = plainDecimalScale(data);
+		if (scale >= 0) {
+			return BigInteger.valueOf(plainDecimalUnscaledValue(data)
+					/ LONG_POWERS_OF_TEN[scale]);
+		}
+
 		this.validateDoubleSpecific((String) this.getRawData());
 
 		try {
@@ -65,6 +145,13 @@ public class StringColumn extends Column {
 			return null;
 		}
 
+		// 与 BigDecimal.toBigInteger 一样向零截断
+		String data = (String) this.getRawData();
+		int scale = plainDecimalScale(data);
+		if (scale >= 0) {
+			return plainDecimalUnscaledValue(data) / LONG_POWERS_OF_TEN[scale];
+		}
+
 		this.validateDoubleSpecific((String) this.getRawData());
 
 		try {
@@ -84,6 +171,12 @@ public class StringColumn extends Column {
 			return null;
 		}
 
+		String data = (String) this.getRawData();
+		int scale = plainDecimalScale(data);
+		if (scale >= 0) {
+			return BigDecimal.valueOf(plainDecimalUnscaledValue(data), scale);
+		}
+
 		this.validateDoubleSpecific((String) this.getRawData());
 
 		try {
@@ -114,6 +207,19 @@ public class StringColumn extends Column {
 			return Double.NEGATIVE_INFINITY;
 		}
 
+		// 尾数和 10 的 scale 次方都能被 double 精确表示, 一次除法的结果与 BigDecimal.doubleValue 相同;
+		// BigDecimal 没有负零, 这里同样返回 0.0
+		int scale = plainDecimalScale(data);
+		if (scale >= 0) {
+			long unscaled = plainDecimalUnscaledValue(data);
+			if (0 == unscaled) {
+				return 0.0d;
+			}
+			if (Math.abs(unscaled) < MAX_EXACT_DOUBLE_MANTISSA) {
+				return unscaled / DOUBLE_POWERS_OF_TEN[scale];
+			}
+		}
+
 		BigDecimal decimal = this.asBigDecimal();
 		OverFlowUtil.validateDoubleNotOverFlow(decimal);
 
@@ -0,0 +1,400 @@
+package com.alibaba.datax.common.element;
+
+import org.apache.commons.lang3.time.FastDateFormat;
+
+import java.text.ParsePosition;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * StringColumn 转 Date 使用的解析器, 按给定顺序依次尝试各个格式, 结果与逐个调用 FastDateFormat.parse(String) 相同,
+ * 区别在于解析过程中不抛出异常:
+ * <ol>
+ * <li>只由 yyyy, MM, dd, HH, mm, ss, SSS 等数字字段和分隔符组成的格式编译为定长解析, 直接计算时间戳,
+ * 遇到超出范围的字段或夏令时切换附近的时间再交给 FastDateFormat 处理;</li>
+ * <li>FastDateFormat 统一使用 parse(String, ParsePosition), 不匹配时返回 null 而不是抛出 ParseException;</li>
+ * <li>对于只含数字字段的格式, 能否解析只取决于字符串的"形状"(数字统一替换为 0 后的字符串),
+ * 因此按形状缓存最终匹配的格式下标, 同一列的值通常形状相同, 之后直接用该格式解析。</li>
+ * </ol>
+ * 线程安全, 缓存项不可变, 并发写入时最多导致一次缓存未命中。
+ */
+final class StringDateParser {
+	private static final int CACHE_SIZE = 16;
+
+	private static final int NO_MATCH = -1;
+
+	private final FastDateFormat[] formatters;
+
+	private final CompiledFormat[] compiledFormats;
+
+	/**
+	 * 前 shapeDeterminedCount 个格式的匹配结果只取决于字符串的形状
+	 */
+	private final int shapeDeterminedCount;
+
+	private final ShapeEntry[] cache = new ShapeEntry[CACHE_SIZE];
+
+	StringDateParser(final List<String> patterns, final TimeZone timeZone) {
+		int size = patterns.size();
+		this.formatters = new FastDateFormat[size];
+		this.compiledFormats = new CompiledFormat[size];
+		// FastDateFormat 按默认 Locale 的 Calendar 解析, 非公历时不做编译
+		Locale locale = Locale.getDefault();
+		boolean gregorian = Calendar.getInstance(timeZone, locale).getClass() == GregorianCalendar.class;
+		int shapeDeterminedCount = 0;
+		boolean shapeDetermined = true;
+		for (int i = 0; i < size; i++) {
+			String pattern = patterns.get(i);
+			this.formatters[i] = FastDateFormat.getInstance(pattern, timeZone, locale);
+			if (gregorian) {
+				this.compiledFormats[i] = CompiledFormat.compile(pattern, timeZone);
+			}
+			shapeDetermined = shapeDetermined && isShapeDetermined(pattern);
+			if (shapeDetermined) {
+				shapeDeterminedCount++;
+			}
+		}
+		this.shapeDeterminedCount = shapeDeterminedCount;
+	}
+
+	/**
+	 * @return 解析结果, 所有格式都不匹配时返回 null
+	 */
+	Date parse(final String source) {
+		int hash = shapeHash(source);
+		int slot = hash & (CACHE_SIZE - 1);
+		ShapeEntry entry = this.cache[slot];
+		if (null != entry && entry.hash == hash && entry.matches(source)) {
+			return NO_MATCH == entry.formatIndex ? null : parse(entry.formatIndex, source);
+		}
+
+		int matched = NO_MATCH;
+		Date date = null;
+		for (int i = 0; i < this.formatters.length; i++) {
+			date = parse(i, source);
+			if (null != date) {
+				matched = i;
+				break;
+			}
+		}
+		// 匹配的格式以及排在它前面的格式都只取决于形状时, 相同形状的字符串一定得到相同的匹配结果
+		boolean cacheable = NO_MATCH == matched ? this.shapeDeterminedCount == this.formatters.length
+				: matched < this.shapeDeterminedCount;
+		if (cacheable) {
+			this.cache[slot] = new ShapeEntry(hash, toShape(source), matched);
+		}
+		return date;
+	}
+
+	private Date parse(final int formatIndex, final String source) {
+		CompiledFormat compiledFormat = this.compiledFormats[formatIndex];
+		if (null != compiledFormat) {
+			Date date = compiledFormat.parse(source);
+			if (null != date) {
+				return date;
+			}
+		}
+		return this.formatters[formatIndex].parse(source, new ParsePosition(0));
+	}
+
+	private static boolean isAsciiDigit(final char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static char shapeOf(final char c) {
+		return isAsciiDigit(c) ? '0' : c;
+	}
+
+	private static int shapeHash(final String source) {
+		int hash = 0;
+		for (int i = 0; i < source.length(); i++) {
+			hash = 31 * hash + shapeOf(source.charAt(i));
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static String toShape(final String source) {
+		char[] shape = new char[source.length()];
+		for (int i = 0; i < shape.length; i++) {
+			shape[i] = shapeOf(source.charAt(i));
+		}
+		return new String(shape);
+	}
+
+	/**
+	 * FastDateFormat 对数字字段只用 \p{Nd} 匹配, 文本字段(月份名, 星期, 上下午, 时区等)则与具体取值有关
+	 */
+	private static boolean isShapeDetermined(final String pattern) {
+		boolean quoted = false;
+		for (int i = 0; i < pattern.length(); ) {
+			char c = pattern.charAt(i);
+			if ('\'' == c) {
+				quoted = !quoted;
+				i++;
+				continue;
+			}
+			int count = 1;
+			while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+				count++;
+			}
+			i += count;
+			if (quoted || !isLetter(c)) {
+				continue;
+			}
+			if ("yMdHhKkmsSDFwW".indexOf(c) < 0 || ('M' == c && count > 2)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isLetter(final char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static final class ShapeEntry {
+		private final int hash;
+
+		private final String shape;
+
+		private final int formatIndex;
+
+		ShapeEntry(final int hash, final String shape, final int formatIndex) {
+			this.hash = hash;
+			this.shape = shape;
+			this.formatIndex = formatIndex;
+		}
+
+		boolean matches(final String source) {
+			if (source.length() != this.shape.length()) {
+				return false;
+			}
+			for (int i = 0; i < source.length(); i++) {
+				if (shapeOf(source.charAt(i)) != this.shape.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * 数字字段加分隔符的格式编译后的解析器, 字段宽度与 FastDateFormat 一致:
+	 * 后面紧跟数字字段时按格式中的字母个数定长截取, 否则尽可能多地取数字; 格式之后多余的字符忽略。
+	 * 只处理可以确定与 FastDateFormat 结果相同的输入, 其余返回 null 交给 FastDateFormat。
+	 */
+	private static final class CompiledFormat {
+		private static final int LITERAL = 0;
+		private static final int YEAR = 1;
+		private static final int MONTH = 2;
+		private static final int DAY = 3;
+		private static final int HOUR = 4;
+		private static final int MINUTE = 5;
+		private static final int SECOND = 6;
+		private static final int MILLISECOND = 7;
+
+		private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+		/**
+		 * 儒略历与格里高利历切换之前的日期交给 Calendar 处理
+		 */
+		private static final int MIN_YEAR = 1600;
+
+		private static final int MAX_YEAR = 9999;
+
+		private static final int MAX_DIGITS = 9;
+
+		private final int[] kinds;
+
+		/**
+		 * 数字字段的定长宽度, 0 表示尽可能多地取数字; 分隔符为其字符值
+		 */
+		private final int[] values;
+
+		private final TimeZone timeZone;
+
+		private CompiledFormat(final int[] kinds, final int[] values, final TimeZone timeZone) {
+			this.kinds = kinds;
+			this.values = values;
+			this.timeZone = timeZone;
+		}
+
+		static CompiledFormat compile(final String pattern, final TimeZone timeZone) {
+			List<int[]> segments = new ArrayList<int[]>();
+			for (int i = 0; i < pattern.length(); ) {
+				char c = pattern.charAt(i);
+				if ('\'' == c) {
+					return null;
+				}
+				if (!isLetter(c)) {
+					segments.add(new int[] { LITERAL, c });
+					i++;
+					continue;
+				}
+				int count = 1;
+				while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+					count++;
+				}
+				i += count;
+				int kind;
+				switch (c) {
+				case 'y':
+					kind = 2 == count ? LITERAL : YEAR;
+					break;
+				case 'M':
+					kind = count > 2 ? LITERAL : MONTH;
+					break;
+				case 'd':
+					kind = DAY;
+					break;
+				case 'H':
+					kind = HOUR;
+					break;
+				case 'm':
+					kind = MINUTE;
+					break;
+				case 's':
+					kind = SECOND;
+					break;
+				case 'S':
+					kind = MILLISECOND;
+					break;
+				default:
+					kind = LITERAL;
+					break;
+				}
+				if (LITERAL == kind) {
+					return null;
+				}
+				segments.add(new int[] { kind, count });
+			}
+
+			int[] kinds = new int[segments.size()];
+			int[] values = new int[segments.size()];
+			for (int i = 0; i < kinds.length; i++) {
+				int[] segment = segments.get(i);
+				kinds[i] = segment[0];
+				if (LITERAL == kinds[i]) {
+					values[i] = segment[1];
+				} else {
+					boolean nextNumber = i + 1 < kinds.length && LITERAL != segments.get(i + 1)[0];
+					values[i] = nextNumber ? segment[1] : 0;
+				}
+			}
+			return new CompiledFormat(kinds, values, timeZone);
+		}
+
+		Date parse(final String source) {
+			int year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0, millisecond = 0;
+			int length = source.length();
+			int position = 0;
+			for (int i = 0; i < this.kinds.length; i++) {
+				if (LITERAL == this.kinds[i]) {
+					if (position >= length || source.charAt(position) != this.values[i]) {
+						return null;
+					}
+					position++;
+					continue;
+				}
+
+				int end;
+				if (this.values[i] > 0) {
+					end = position + this.values[i];
+					if (end > length) {
+						return null;
+					}
+					for (int j = position; j < end; j++) {
+						if (!isAsciiDigit(source.charAt(j))) {
+							return null;
+						}
+					}
+				} else {
+					end = position;
+					while (end < length && isAsciiDigit(source.charAt(end))) {
+						end++;
+					}
+					// 其他 unicode 数字 FastDateFormat 也会匹配
+					if (end == position || (end < length && Character.isDigit(source.charAt(end)))) {
+						return null;
+					}
+				}
+				if (end - position > MAX_DIGITS) {
+					return null;
+				}
+				int value = 0;
+				for (int j = position; j < end; j++) {
+					value = value * 10 + (source.charAt(j) - '0');
+				}
+				position = end;
+
+				switch (this.kinds[i]) {
+				case YEAR:
+					year = value;
+					break;
+				case MONTH:
+					month = value;
+					break;
+				case DAY:
+					day = value;
+					break;
+				case HOUR:
+					hour = value;
+					break;
+				case MINUTE:
+					minute = value;
+					break;
+				case SECOND:
+					second = value;
+					break;
+				default:
+					millisecond = value;
+					break;
+				}
+			}
+
+			// 超出范围的字段由 Calendar 按 lenient 方式进位, 这里不做处理
+			if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12 || day < 1
+					|| day > daysInMonth(year, month) || hour > 23 || minute > 59 || second > 59
+					|| millisecond > 999) {
+				return null;
+			}
+
+			long localMillis = daysFromEpoch(year, month, day) * MILLIS_PER_DAY
+					+ ((hour * 60L + minute) * 60L + second) * 1000L + millisecond;
+			int offset = this.timeZone.getOffset(localMillis - this.timeZone.getRawOffset());
+			long millis = localMillis - offset;
+			// 前后一天内有时区偏移变化(夏令时切换等)时交给 Calendar 处理
+			if (this.timeZone.getOffset(millis) != offset
+					|| this.timeZone.getOffset(millis - MILLIS_PER_DAY) != offset
+					|| this.timeZone.getOffset(millis + MILLIS_PER_DAY) != offset) {
+				return null;
+			}
+			return new Date(millis);
+		}
+
+		private static int daysInMonth(final int year, final int month) {
+			if (2 == month) {
+				boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+				return leap ? 29 : 28;
+			}
+			return (4 == month || 6 == month || 9 == month || 11 == month) ? 30 : 31;
+		}
+
+		/**
+		 * 公历日期距 1970-01-01 的天数, year 为正数
+		 */
+		private static long daysFromEpoch(final int year, final int month, final int day) {
+			int y = month <= 2 ? year - 1 : year;
+			int era = y / 400;
+			int yearOfEra = y - era * 400;
+			int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+			int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+			return era * 146097L + dayOfEra - 719468;
+		}
+	}
+}
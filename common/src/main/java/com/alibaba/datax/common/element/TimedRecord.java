@@ -0,0 +1,22 @@
+package com.alibaba.datax.common.element;
+
+/**
+ * 可以记录 reader 调用 sendToWriter 时刻的 record, 用于统计 record 从 reader 到 writer 的延迟。
+ * 框架按采样间隔打点, 未被采样或者时刻已被消费的 record 时刻为0。
+ * reader 可能反复发送同一个 record 对象, 时刻由 reader 线程写入、writer 线程清零, 因此需要 compareAndSet。
+ */
+public interface TimedRecord {
+
+	/**
+	 * @param sendNanoTime System.nanoTime() 的取值, 0 表示未采样
+	 */
+	public void setSendNanoTime(long sendNanoTime);
+
+	public long getSendNanoTime();
+
+	/**
+	 * @return 当前时刻等于 expect 并已更新为 update 时返回 true
+	 */
+	public boolean compareAndSetSendNanoTime(long expect, long update);
+
+}
@@ -26,6 +26,12 @@ public abstract class Writer extends BaseObject {
 		 * 
 		 * */
 		public abstract List<Configuration> split(int mandatoryNumber);
+
+		/**
+		 * 是否支持 split 粒度的断点恢复(job.setting.checkpoint.dir)。恢复运行时不再执行 prepare, 也不再运行已成功的 task,
+		 * 只有每个 task 结束前自行提交数据、且 task 不依赖 prepare 中生成的状态(如临时目录)的 writer 才能返回 true。
+		 * */
+		public boolean supportResume(){return false;}
 	}
 
 	/**
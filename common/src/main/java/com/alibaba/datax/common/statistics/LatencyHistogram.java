@@ -0,0 +1,129 @@
+package com.alibaba.datax.common.statistics;
+
+import java.util.Arrays;
+
+/**
+ * 对数分桶的延迟直方图(与 HdrHistogram 类似): 小于32的值每个值一个桶, 之后每个2的幂次区间等分为32个桶,
+ * 分位数的相对误差不超过 1/32, 占用内存固定。
+ * 非线程安全, 多个线程的数据需要各自记录后再 merge。
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT];
+
+    private long totalCount = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    /**
+     * @param value 小于0时按0记录
+     */
+    public void recordValue(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.counts[bucketIndex(value)]++;
+        this.totalCount++;
+        this.sum += value;
+        if (value < this.min) {
+            this.min = value;
+        }
+        if (value > this.max) {
+            this.max = value;
+        }
+    }
+
+    public void merge(LatencyHistogram other) {
+        if (null == other || 0 == other.totalCount) {
+            return;
+        }
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] += other.counts[i];
+        }
+        this.totalCount += other.totalCount;
+        this.sum += other.sum;
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(this.counts, 0L);
+        this.totalCount = 0;
+        this.sum = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    public long getMin() {
+        return 0 == this.totalCount ? 0 : this.min;
+    }
+
+    public long getMax() {
+        return this.max;
+    }
+
+    public double getMean() {
+        return 0 == this.totalCount ? 0 : (double) this.sum / this.totalCount;
+    }
+
+    /**
+     * @param percentile 0 到 100 之间, 如 99.9
+     * @return 不小于该比例的记录值所在桶的上界, 不超过最大值; 没有记录时为0
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (0 == this.totalCount) {
+            return 0;
+        }
+        long target = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * this.totalCount);
+        target = Math.max(1, target);
+        long cumulative = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            cumulative += this.counts[i];
+            if (cumulative >= target) {
+                return Math.max(this.getMin(), Math.min(bucketUpperBound(i), this.max));
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * 以毫秒输出纳秒延迟的摘要
+     */
+    public String toMillisSummary() {
+        return String.format("count=%d, mean=%.3fms, p50=%.3fms, p90=%.3fms, p99=%.3fms, p999=%.3fms, max=%.3fms",
+                this.totalCount, this.getMean() / 1000000D, this.getValueAtPercentile(50) / 1000000D,
+                this.getValueAtPercentile(90) / 1000000D, this.getValueAtPercentile(99) / 1000000D,
+                this.getValueAtPercentile(99.9) / 1000000D, this.max / 1000000D);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = ((long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT)) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
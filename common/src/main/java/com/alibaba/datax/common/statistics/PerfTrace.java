@@ -45,6 +45,11 @@ public class PerfTrace {
     private Configuration jobInfo;
     private final Set<PerfRecord> needReportPool4NotEnd = new HashSet<PerfRecord>();
     private final List<PerfRecord> totalEndReport = new ArrayList<PerfRecord>();
+    // 所有task的channel延迟合并后的直方图, 以及p99最大的task
+    private final LatencyHistogram channelLatency = new LatencyHistogram();
+    private long maxChannelLatencyP99 = -1;
+    private int maxChannelLatencyTaskId = -1;
+    private int maxChannelLatencyTGID = -1;
 
     /**
      * 单实例
@@ -156,6 +161,24 @@ public class PerfTrace {
         }
     }
 
+    /**
+     * task结束时登记其channel的延迟直方图(纳秒), 在summarize中输出
+     */
+    public void traceChannelLatency(int taskGroupId, int taskId, LatencyHistogram latency) {
+        if (!enable || latency == null || latency.getTotalCount() == 0) {
+            return;
+        }
+        synchronized (channelLatency) {
+            channelLatency.merge(latency);
+            long p99 = latency.getValueAtPercentile(99);
+            if (p99 > maxChannelLatencyP99) {
+                maxChannelLatencyP99 = p99;
+                maxChannelLatencyTaskId = taskId;
+                maxChannelLatencyTGID = taskGroupId;
+            }
+        }
+    }
+
     private boolean needReport(PerfRecord perfRecord) {
         switch (perfRecord.getPhase()) {
             case TASK_TOTAL:
@@ -233,6 +256,18 @@ public class PerfTrace {
                     , PHASE.READ_TASK_DATA, averageRecords, unitSize(averageBytes), maxRecord, unitSize(maxByte), jobId + "-" + maxTGID4Records + "-" + maxTaskId4Records, taskDetails.get(maxTaskId4Records)));
 
         }
+
+        synchronized (channelLatency) {
+            if (channelLatency.getTotalCount() > 0) {
+                info.append("\n\n 3. channel latency (sampled, reader sendToWriter -> writer pull) :\n\n");
+                info.append(String.format("%-20s | %18s | %18s | %18s | %18s | %18s | %18s | %-100s\n", "SAMPLES", "P50", "P90", "P99", "MAX", "MAX P99", "MAX P99 TASK ID", "MAX P99 TASK INFO"));
+                info.append(String.format("%-20s | %18s | %18s | %18s | %18s | %18s | %18s | %-100s\n",
+                        channelLatency.getTotalCount(), unitLatency(channelLatency.getValueAtPercentile(50)),
+                        unitLatency(channelLatency.getValueAtPercentile(90)), unitLatency(channelLatency.getValueAtPercentile(99)),
+                        unitLatency(channelLatency.getMax()), unitLatency(maxChannelLatencyP99),
+                        jobId + "-" + maxChannelLatencyTGID + "-" + maxChannelLatencyTaskId, taskDetails.get(maxChannelLatencyTaskId)));
+            }
+        }
         return info.toString();
     }
 
@@ -245,6 +280,11 @@ public class PerfTrace {
         return String.format("%,.3fs", ((float) timeUnit.toNanos(time)) / 1000000000);
     }
 
+    //纳秒延迟, 以毫秒输出
+    private static String unitLatency(long nanos) {
+        return String.format("%,.3fms", nanos / 1000000D);
+    }
+
     public static String unitSize(long size) {
         if (size > 1000000000) {
             return String.format("%,.2fG", (float) size / 1000000000);
@@ -188,6 +188,24 @@ public class VMInfo {
         }
     }
 
+    public int getTotalProcessorCount() {
+        return totalProcessorCount;
+    }
+
+    /**
+     * @return 进程累计使用的cpu时间(纳秒), 不支持时为-1
+     */
+    public long getProcessCpuTime() {
+        if (!VMInfo.isSunOsMBean(osMXBean)) {
+            return -1;
+        }
+        return getLongFromOperatingSystem(osMXBean, "getProcessCpuTime");
+    }
+
+    public List<GarbageCollectorMXBean> getGarbageCollectorMXBeanList() {
+        return garbageCollectorMXBeanList;
+    }
+
     public static boolean isSunOsMBean(OperatingSystemMXBean operatingSystem) {
         final String className = operatingSystem.getClass().getName();
 
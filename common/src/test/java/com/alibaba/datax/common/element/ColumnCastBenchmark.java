@@ -0,0 +1,92 @@
+package com.alibaba.datax.common.element;
+
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.commons.lang3.time.FastDateFormat;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * StringColumn 转 Date 时逐个格式捕获 ParseException 的旧实现与 StringDateParser 的吞吐对比, 直接运行 main 方法:
+ *
+ * <pre>
+ * java -cp ... ColumnCastBenchmark [行数] [轮数]
+ * </pre>
+ */
+public class ColumnCastBenchmark {
+	private static final String[] FORMATS = new String[] {
+			"yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd", "HH:mm:ss", "yyyyMMdd" };
+
+	public static void main(String[] args) throws ParseException {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		Configuration configuration = Configuration.newDefault();
+		List<String> extraFormats = new ArrayList<String>();
+		extraFormats.add(FORMATS[3]);
+		configuration.set("common.column.extraFormats", extraFormats);
+		ColumnCast.bind(configuration);
+
+		for (int format = 0; format < FORMATS.length; format++) {
+			StringColumn[] columns = generate(rows, FORMATS[format]);
+			System.out.println("format: " + FORMATS[format]);
+			for (int round = 0; round < rounds; round++) {
+				long legacy = run(columns, true);
+				long fast = run(columns, false);
+				System.out.println(String.format(
+						"round %d: legacy %d ms (%.0f rows/s), StringDateParser %d ms (%.0f rows/s)",
+						round, legacy, rows * 1000.0 / legacy, fast, rows
+								* 1000.0 / fast));
+			}
+		}
+	}
+
+	private static long run(StringColumn[] columns, boolean legacy)
+			throws ParseException {
+		long checksum = 0;
+		long start = System.currentTimeMillis();
+		for (StringColumn column : columns) {
+			Date date = legacy ? legacyAsDate(column) : StringCast
+					.asDate(column);
+			checksum += date.getTime();
+		}
+		long cost = Math.max(1, System.currentTimeMillis() - start);
+		if (0 == checksum) {
+			System.out.println("checksum: " + checksum);
+		}
+		return cost;
+	}
+
+	/**
+	 * StringDateParser 之前 StringCast.asDate 的实现
+	 */
+	private static Date legacyAsDate(StringColumn column)
+			throws ParseException {
+		ParseException e = null;
+		for (String format : FORMATS) {
+			try {
+				return FastDateFormat.getInstance(format, StringCast.timeZoner)
+						.parse(column.asString());
+			} catch (ParseException ignored) {
+				e = ignored;
+			}
+		}
+		throw e;
+	}
+
+	private static StringColumn[] generate(int rows, String format) {
+		FastDateFormat formatter = FastDateFormat.getInstance(format,
+				StringCast.timeZoner);
+		Random random = new Random(0);
+		long base = 946656000000L;
+		StringColumn[] columns = new StringColumn[rows];
+		for (int i = 0; i < rows; i++) {
+			long millis = base + (long) (random.nextDouble() * 20 * 365 * 24
+					* 3600 * 1000L);
+			columns[i] = new StringColumn(formatter.format(millis));
+		}
+		return columns;
+	}
+}
@@ -4,6 +4,7 @@ import com.alibaba.datax.common.util.Configuration;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateFormatUtils;
+import org.apache.commons.lang3.time.FastDateFormat;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -56,6 +57,43 @@ public class ColumnCastTest {
 
 	}
 
+	@Test
+	public void test_string_sameAsFastDateFormat() throws IOException,
+			ParseException {
+		Configuration configuration = this.produce();
+		configuration.set("common.column.timeZone", "America/New_York");
+		StringCast.init(configuration);
+
+		String[] values = new String[] { "2014-09-18 16:00:00",
+				"2014-09-18", "20140918", "16:00:00", "2014-9-8 6:00:00",
+				"2014-13-45", "2014-09-18abc", "2014-03-09 02:30:00",
+				"2014-11-02 01:30:00", "1500-01-01" };
+		String[] formats = new String[] { "yyyy-MM-dd HH:mm:ss",
+				"yyyy-MM-dd", "HH:mm:ss", "yyyyMMdd" };
+		// 同一个值重复解析两次, 第二次走按形状缓存的格式
+		for (int i = 0; i < 2; i++) {
+			for (String value : values) {
+				java.util.Date expected = null;
+				for (String format : formats) {
+					try {
+						expected = FastDateFormat.getInstance(format,
+								StringCast.timeZoner).parse(value);
+						break;
+					} catch (ParseException ignored) {
+					}
+				}
+				Assert.assertEquals(value, expected,
+						StringCast.asDate(new StringColumn(value)));
+			}
+		}
+
+		try {
+			StringCast.asDate(new StringColumn("2014/09/18"));
+			Assert.fail();
+		} catch (ParseException expected) {
+		}
+	}
+
 	@Test
 	public void test_date() throws IOException {
 		Assert.assertTrue(DateCast.asString(
@@ -8,6 +8,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import com.alibaba.datax.common.base.BaseTest;
+import com.alibaba.datax.common.exception.CommonErrorCode;
 import com.alibaba.datax.common.exception.DataXException;
 
 public class StringColumnTest extends BaseTest {
@@ -203,6 +204,36 @@ public class StringColumnTest extends BaseTest {
 		}
 	}
 
+	@Test
+	public void test_plainDecimal() {
+		String[] values = new String[] { "0", "-0", "+12", "-12.99", "12.",
+				".5", "-.5", "-0.0", "000123", "123456789012345678",
+				"-999999999999999.999", "1234567890123456789", "1e3",
+				"3.14159265358979" };
+		for (String value : values) {
+			StringColumn column = new StringColumn(value);
+			BigDecimal expected = new BigDecimal(value);
+			Assert.assertEquals(value, expected, column.asBigDecimal());
+			Assert.assertEquals(value, expected.toBigInteger(),
+					column.asBigInteger());
+			Assert.assertEquals(value, (Long) expected.longValue(),
+					column.asLong());
+			Assert.assertEquals(value, (Double) expected.doubleValue(),
+					column.asDouble());
+		}
+
+		for (String value : new String[] { ".", "-", "+", "1.2.3", " 1",
+				"1-", "0x10" }) {
+			try {
+				new StringColumn(value).asLong();
+				Assert.fail(value);
+			} catch (DataXException e) {
+				Assert.assertEquals(value, CommonErrorCode.CONVERT_NOT_SUPPORT,
+						e.getErrorCode());
+			}
+		}
+	}
+
     @Test
     public void testEmptyString() {
         StringColumn column = new StringColumn("");
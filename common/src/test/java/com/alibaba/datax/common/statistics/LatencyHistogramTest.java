@@ -0,0 +1,62 @@
+package com.alibaba.datax.common.statistics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBounds() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456789L, Long.MAX_VALUE}) {
+            long upperBound = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(value));
+            Assert.assertTrue(upperBound >= value);
+            Assert.assertTrue(upperBound - value <= value / 32);
+        }
+    }
+
+    @Test
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long i = 1; i <= 10000; i++) {
+            histogram.recordValue(i * 1000);
+        }
+        Assert.assertEquals(10000, histogram.getTotalCount());
+        Assert.assertEquals(1000, histogram.getMin());
+        Assert.assertEquals(10000000, histogram.getMax());
+        Assert.assertEquals(5000500, histogram.getMean(), 0.001);
+        assertNear(5000000, histogram.getValueAtPercentile(50));
+        assertNear(9900000, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(10000000, histogram.getValueAtPercentile(100));
+        assertNear(1000, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void testMerge() {
+        Random random = new Random(0);
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int i = 0; i < 100000; i++) {
+            long value = (long) (Math.abs(random.nextGaussian()) * 1000000);
+            all.recordValue(value);
+            (i % 2 == 0 ? first : second).recordValue(value);
+        }
+        LatencyHistogram merged = first.copy();
+        merged.merge(second);
+        Assert.assertEquals(all.getTotalCount(), merged.getTotalCount());
+        Assert.assertEquals(all.getMax(), merged.getMax());
+        Assert.assertEquals(all.getMin(), merged.getMin());
+        Assert.assertEquals(all.getValueAtPercentile(99.9), merged.getValueAtPercentile(99.9));
+
+        merged.reset();
+        Assert.assertEquals(0, merged.getTotalCount());
+        Assert.assertEquals(0, merged.getMin());
+    }
+
+    private static void assertNear(long expected, long actual) {
+        Assert.assertTrue(actual + " != " + expected, Math.abs(actual - expected) <= expected / 32);
+    }
+}
@@ -7,6 +7,7 @@ import com.alibaba.datax.common.statistics.PerfTrace;
 import com.alibaba.datax.common.statistics.VMInfo;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.job.JobContainer;
+import com.alibaba.datax.core.statistics.metrics.DataXMetrics;
 import com.alibaba.datax.core.taskgroup.TaskGroupContainer;
 import com.alibaba.datax.core.util.ConfigParser;
 import com.alibaba.datax.core.util.ConfigurationValidate;
@@ -89,8 +90,19 @@ public class Engine {
         //初始化PerfTrace
         PerfTrace perfTrace = PerfTrace.getInstance(isJob, instanceId, taskGroupId, priority, traceEnable);
         perfTrace.setJobInfo(jobInfoConfig,perfReportEnable,channelNumber);
-        container.start();
+        startContainer(container, allConf, instanceId, isJob);
+    }
 
+    /**
+     * 运行容器, 并在运行期间导出指标; 指标导出的启停失败不会影响容器, 也不会掩盖容器本身抛出的异常
+     */
+    static void startContainer(AbstractContainer container, Configuration allConf, long instanceId, boolean isJob) {
+        DataXMetrics.start(allConf, instanceId, isJob);
+        try {
+            container.start();
+        } finally {
+            DataXMetrics.stop();
+        }
     }
 
 
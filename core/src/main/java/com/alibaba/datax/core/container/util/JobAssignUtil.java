@@ -128,6 +128,11 @@ public final class JobAssignUtil {
      */
     private static List<Configuration> doAssign(LinkedHashMap<String, List<Integer>> resourceMarkAndTaskIdMap, Configuration jobConfiguration, int taskGroupNumber) {
         List<Configuration> contentConfig = jobConfiguration.getListConfiguration(CoreConstant.DATAX_JOB_CONTENT);
+        // 断点续传时 content 只包含未完成的 task, taskId 不再等于其在 content 中的下标
+        Map<Integer, Configuration> taskIdConfigMap = new HashMap<Integer, Configuration>();
+        for (Configuration taskConfig : contentConfig) {
+            taskIdConfigMap.put(taskConfig.getInt(CoreConstant.TASK_ID), taskConfig);
+        }
 
         Configuration taskGroupTemplate = jobConfiguration.clone();
         taskGroupTemplate.remove(CoreConstant.DATAX_JOB_CONTENT);
@@ -154,7 +159,7 @@ public final class JobAssignUtil {
             for (String resourceMark : resourceMarks) {
                 if (resourceMarkAndTaskIdMap.get(resourceMark).size() > 0) {
                     int taskId = resourceMarkAndTaskIdMap.get(resourceMark).get(0);
-                    taskGroupConfigList.get(taskGroupIndex % taskGroupNumber).add(contentConfig.get(taskId));
+                    taskGroupConfigList.get(taskGroupIndex % taskGroupNumber).add(taskIdConfigMap.get(taskId));
                     taskGroupIndex++;
 
                     resourceMarkAndTaskIdMap.get(resourceMark).remove(0);
@@ -0,0 +1,223 @@
+package com.alibaba.datax.core.job;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * split 粒度的 job 断点: 配置 job.setting.checkpoint.dir 后, 首次运行把 split 的结果(job.content)一次性写入断点文件,
+ * 每个 task 成功后把其 taskId 追加到单独的 finished 文件中; job 失败后以相同的 jobId 和相同的 job 配置重跑时, 直接使用上次 split 的结果,
+ * 跳过已经成功的 task, 并且不再执行 reader/writer 的 prepare(如 preSql), 避免清掉已经写入的数据。
+ * job 成功(post 完成)后删除断点文件。
+ * <p/>
+ * 只对声明了 {@link com.alibaba.datax.common.spi.Writer.Job#supportResume()} 的 writer(如各 rdbms writer)生效,
+ * 其他 writer(如在 prepare 中生成临时目录、在 post 中才提交数据的 hdfswriter/ftpwriter)配置了断点目录时忽略断点, 完整运行;
+ * split 内部不支持从中间位置续传。
+ */
+public class JobCheckpoint {
+    private static final Logger LOG = LoggerFactory.getLogger(JobCheckpoint.class);
+
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String KEY_CONTENT = "content";
+
+    private final File file;
+    private final File finishedFile;
+    private final String fingerprint;
+    private Writer finishedWriter;
+    private List<Configuration> content;
+    private final Set<Integer> finishedTaskIds = new TreeSet<Integer>();
+
+    private JobCheckpoint(File file, String fingerprint) {
+        this.file = file;
+        this.finishedFile = new File(file.getPath() + ".finished");
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @param configuration       split 之前的 job 配置
+     * @param writerSupportResume writer 是否声明支持断点恢复
+     * @return 没有配置 checkpoint 目录或不能使用断点时返回 null
+     */
+    public static JobCheckpoint open(Configuration configuration, long jobId, boolean writerSupportResume) {
+        String dir = configuration.getString(CoreConstant.DATAX_JOB_SETTING_CHECKPOINT_DIR);
+        if (dir == null || dir.trim().isEmpty()) {
+            return null;
+        }
+        if (!writerSupportResume) {
+            LOG.warn("writer[{}] 不支持断点恢复(恢复时会跳过 prepare), 忽略 {} 配置, 完整运行.",
+                    configuration.getString(CoreConstant.DATAX_JOB_CONTENT_WRITER_NAME),
+                    CoreConstant.DATAX_JOB_SETTING_CHECKPOINT_DIR);
+            return null;
+        }
+        if (configuration.getList(CoreConstant.DATAX_JOB_SETTING_SHUFFLE_COLUMNS) != null) {
+            LOG.warn("shuffle 模式下 writer 的数据来自同批的所有 reader, 单个 task 成功不代表其数据已经提交, 不使用断点.");
+            return null;
+        }
+
+        String fingerprint = fingerprint(configuration.getConfiguration(CoreConstant.DATAX_JOB_CONTENT));
+        JobCheckpoint checkpoint = new JobCheckpoint(new File(dir,
+                String.format("job-%d-%s.checkpoint.json", jobId, fingerprint.substring(0, 8))), fingerprint);
+        checkpoint.load();
+        return checkpoint;
+    }
+
+    /**
+     * @return 是否存在同一个 job 上次运行留下的断点
+     */
+    public synchronized boolean isResume() {
+        return this.content != null;
+    }
+
+    /**
+     * @return 上次 split 的结果中尚未成功的 task
+     */
+    public synchronized List<Configuration> getRemainingContent() {
+        List<Configuration> remaining = new ArrayList<Configuration>();
+        for (Configuration taskConfig : this.content) {
+            if (!this.finishedTaskIds.contains(taskConfig.getInt(CoreConstant.TASK_ID))) {
+                remaining.add(taskConfig);
+            }
+        }
+        LOG.info("从断点[{}]恢复: 共 {} 个 task, 已成功 {} 个, 本次运行 {} 个.", this.file.getAbsolutePath(),
+                this.content.size(), this.content.size() - remaining.size(), remaining.size());
+        return remaining;
+    }
+
+    public synchronized void saveContent(List<Configuration> content) {
+        this.content = content;
+        this.finishedTaskIds.clear();
+        closeFinishedWriter();
+        if (this.finishedFile.exists() && !this.finishedFile.delete()) {
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR,
+                    String.format("删除断点文件[%s]失败.", this.finishedFile.getAbsolutePath()));
+        }
+        save();
+    }
+
+    /**
+     * 只追加一行 taskId, 不重写 split 的结果
+     */
+    public synchronized void markFinished(int taskId) {
+        if (this.content == null || !this.finishedTaskIds.add(taskId)) {
+            return;
+        }
+        try {
+            if (this.finishedWriter == null) {
+                this.finishedWriter = new OutputStreamWriter(new FileOutputStream(this.finishedFile, true), "UTF-8");
+            }
+            this.finishedWriter.write(taskId + "\n");
+            this.finishedWriter.flush();
+        } catch (IOException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR,
+                    String.format("写断点文件[%s]失败.", this.finishedFile.getAbsolutePath()), e);
+        }
+    }
+
+    /**
+     * job 成功后删除断点
+     */
+    public synchronized void complete() {
+        closeFinishedWriter();
+        for (File f : new File[]{this.file, this.finishedFile}) {
+            if (f.exists() && !f.delete()) {
+                LOG.warn("删除断点文件[{}]失败.", f.getAbsolutePath());
+            }
+        }
+        this.content = null;
+        this.finishedTaskIds.clear();
+    }
+
+    private void load() {
+        if (!this.file.exists()) {
+            return;
+        }
+        Configuration saved = Configuration.from(this.file);
+        if (!this.fingerprint.equals(saved.getString(KEY_FINGERPRINT))) {
+            LOG.warn("断点文件[{}]对应的 job 配置与本次不同, 忽略该断点并重新开始.", this.file.getAbsolutePath());
+            return;
+        }
+        this.content = saved.getListConfiguration(KEY_CONTENT);
+        if (!this.finishedFile.exists()) {
+            return;
+        }
+        try {
+            String finished = FileUtils.readFileToString(this.finishedFile, "UTF-8");
+            // 进程中断时最后一行可能不完整, 只认以换行结束的行, 对应的 task 会重跑
+            String[] lines = finished.split("\n", -1);
+            for (int i = 0; i < lines.length - 1; i++) {
+                if (lines[i].matches("\\d+")) {
+                    this.finishedTaskIds.add(Integer.valueOf(lines[i]));
+                }
+            }
+            if (!finished.endsWith("\n") && finished.length() > 0) {
+                // 去掉不完整的行, 以免之后追加的 taskId 与其拼在一起
+                FileUtils.writeStringToFile(this.finishedFile,
+                        finished.substring(0, finished.lastIndexOf('\n') + 1), "UTF-8");
+            }
+        } catch (IOException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR,
+                    String.format("读断点文件[%s]失败.", this.finishedFile.getAbsolutePath()), e);
+        }
+    }
+
+    private void closeFinishedWriter() {
+        if (this.finishedWriter != null) {
+            IOUtils.closeQuietly(this.finishedWriter);
+            this.finishedWriter = null;
+        }
+    }
+
+    /**
+     * 先写临时文件再改名, 中途失败不会留下不完整的断点; 断点中含有数据源的连接信息, 只允许所有者读写
+     */
+    private void save() {
+        Configuration saved = Configuration.newDefault();
+        saved.set(KEY_FINGERPRINT, this.fingerprint);
+        saved.set(KEY_CONTENT, this.content);
+
+        File tmp = new File(this.file.getPath() + ".tmp");
+        try {
+            FileUtils.writeStringToFile(tmp, saved.toJSON(), "UTF-8");
+            tmp.setReadable(false, false);
+            tmp.setReadable(true, true);
+            tmp.setWritable(false, false);
+            tmp.setWritable(true, true);
+            if (this.file.exists() && !this.file.delete()) {
+                throw new IOException("无法覆盖 " + this.file.getAbsolutePath());
+            }
+            if (!tmp.renameTo(this.file)) {
+                throw new IOException("无法改名为 " + this.file.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR,
+                    String.format("写断点文件[%s]失败.", this.file.getAbsolutePath()), e);
+        }
+    }
+
+    private static String fingerprint(Configuration jobContent) {
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            byte[] digest = md5.digest(jobContent.toJSON().getBytes("UTF-8"));
+            return String.format("%032x", new BigInteger(1, digest));
+        } catch (Exception e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR, "计算 job 配置摘要失败.", e);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.alibaba.datax.common.plugin.AbstractJobPlugin;
 import com.alibaba.datax.common.plugin.JobPluginCollector;
 import com.alibaba.datax.common.spi.Reader;
 import com.alibaba.datax.common.spi.Writer;
+import com.alibaba.datax.common.statistics.LatencyHistogram;
 import com.alibaba.datax.common.statistics.PerfTrace;
 import com.alibaba.datax.common.statistics.VMInfo;
 import com.alibaba.datax.common.util.Configuration;
@@ -37,6 +38,10 @@ import org.slf4j.LoggerFactory;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * Created by jingxing on 14-8-24.
@@ -54,6 +59,16 @@ public class JobContainer extends AbstractContainer {
     private ClassLoaderSwapper classLoaderSwapper = ClassLoaderSwapper
             .newCurrentThreadClassLoaderSwapper();
 
+    /**
+     * writer 的 init、prepare 可能与 reader 在不同线程中同时执行, 需要单独保存各自线程的 classLoader
+     */
+    private ClassLoaderSwapper writerClassLoaderSwapper = ClassLoaderSwapper
+            .newCurrentThreadClassLoaderSwapper();
+
+    private boolean parallelPrepare;
+
+    private Future<Void> writerPrepareFuture;
+
     private long jobId;
 
     private String readerPluginName;
@@ -83,6 +98,8 @@ public class JobContainer extends AbstractContainer {
 
     private ErrorRecordChecker errorLimit;
 
+    private JobCheckpoint checkpoint;
+
     public JobContainer(Configuration configuration) {
         super(configuration);
 
@@ -112,8 +129,13 @@ public class JobContainer extends AbstractContainer {
 
                 LOG.debug("jobContainer starts to do init ...");
                 this.init();
-                LOG.info("jobContainer starts to do prepare ...");
-                this.prepare();
+                this.checkpoint = JobCheckpoint.open(this.configuration, this.jobId, this.jobWriter.supportResume());
+                if (this.checkpoint != null && this.checkpoint.isResume()) {
+                    LOG.info("jobContainer resumes from checkpoint, skip prepare ...");
+                } else {
+                    LOG.info("jobContainer starts to do prepare ...");
+                    this.prepare();
+                }
                 LOG.info("jobContainer starts to do split ...");
                 this.totalStage = this.split();
                 if(totalStage>0)
@@ -128,6 +150,9 @@ public class JobContainer extends AbstractContainer {
 
                 LOG.debug("jobContainer starts to do post ...");
                 this.post();
+                if (this.checkpoint != null) {
+                    this.checkpoint.complete();
+                }
 
                 LOG.debug("jobContainer starts to do postHandle ...");
                 this.postHandle();
@@ -306,16 +331,127 @@ public class JobContainer extends AbstractContainer {
 
         Thread.currentThread().setName("job-" + this.jobId);
 
-        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(
+        this.readerPluginName = this.configuration.getString(
+                CoreConstant.DATAX_JOB_CONTENT_READER_NAME);
+        this.writerPluginName = this.configuration.getString(
+                CoreConstant.DATAX_JOB_CONTENT_WRITER_NAME);
+        this.parallelPrepare = this.configuration.getBool(
+                CoreConstant.DATAX_JOB_SETTING_PARALLELPREPARE, false);
+
+        final JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(
                 this.getContainerCommunicator());
-        //必须先Reader ，后Writer
-        this.jobReader = this.initJobReader(jobPluginCollector);
-        this.jobWriter = this.initJobWriter(jobPluginCollector);
+        if (!this.parallelPrepare) {
+            //必须先Reader ，后Writer
+            this.jobReader = this.initJobReader(jobPluginCollector);
+            this.jobWriter = this.initJobWriter(jobPluginCollector);
+            return;
+        }
+
+        // reader 和 writer 各自使用独立的配置和 classLoader, init 可以同时进行
+        Future<Writer.Job> writerInitFuture = this.startParallelPhase("writer-init",
+                new Callable<Writer.Job>() {
+                    @Override
+                    public Writer.Job call() {
+                        return initJobWriter(jobPluginCollector);
+                    }
+                });
+        boolean readerInited = false;
+        try {
+            this.jobReader = this.initJobReader(jobPluginCollector);
+            readerInited = true;
+        } finally {
+            if (!readerInited) {
+                this.jobWriter = this.awaitParallelPhaseQuietly(writerInitFuture);
+            }
+        }
+        this.jobWriter = this.awaitParallelPhase(writerInitFuture);
     }
 
+    /**
+     * 开启 parallelPrepare 时 writer 的 prepare(如 preSql、truncate)在单独的线程中执行,
+     * 与 reader 的 prepare 和 split 重叠, writer split 之前等待其完成
+     */
     private void prepare() {
-        this.prepareJobReader();
-        this.prepareJobWriter();
+        if (!this.parallelPrepare) {
+            this.prepareJobReader();
+            this.prepareJobWriter();
+            return;
+        }
+
+        this.writerPrepareFuture = this.startParallelPhase("writer-prepare",
+                new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        prepareJobWriter();
+                        return null;
+                    }
+                });
+        boolean readerPrepared = false;
+        try {
+            this.prepareJobReader();
+            readerPrepared = true;
+        } finally {
+            if (!readerPrepared) {
+                this.awaitWriterPrepareQuietly();
+            }
+        }
+    }
+
+    private void awaitWriterPrepare() {
+        if (this.writerPrepareFuture != null) {
+            Future<Void> future = this.writerPrepareFuture;
+            this.writerPrepareFuture = null;
+            this.awaitParallelPhase(future);
+        }
+    }
+
+    private void awaitWriterPrepareQuietly() {
+        if (this.writerPrepareFuture != null) {
+            Future<Void> future = this.writerPrepareFuture;
+            this.writerPrepareFuture = null;
+            this.awaitParallelPhaseQuietly(future);
+        }
+    }
+
+    /**
+     * 出错时主线程会等待该阶段结束后再退出, 设为 daemon 线程, 避免插件阻塞不返回时 jvm 无法退出
+     */
+    private <T> Future<T> startParallelPhase(String phaseName, Callable<T> callable) {
+        FutureTask<T> future = new FutureTask<T>(callable);
+        Thread thread = new Thread(future, String.format("job-%d-%s", this.jobId, phaseName));
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    private <T> T awaitParallelPhase(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR, cause);
+        }
+    }
+
+    /**
+     * 出错退出前等待另一个线程中的阶段结束, 它的异常只打印, 以免覆盖当前的异常
+     */
+    private <T> T awaitParallelPhaseQuietly(Future<T> future) {
+        try {
+            return this.awaitParallelPhase(future);
+        } catch (Throwable e) {
+            LOG.warn("parallel job phase failed too, " + e.getMessage(), e);
+            return null;
+        }
     }
 
     private void preHandle() {
@@ -399,8 +535,22 @@ public class JobContainer extends AbstractContainer {
             this.needChannelNumber = 1;
         }
 
-        List<Configuration> readerTaskConfigs = this
-                .doReaderSplit(this.needChannelNumber);
+        if (this.checkpoint != null && this.checkpoint.isResume()) {
+            // 沿用上次的切分结果, splitPk 区间、文件列表等不随源端数据变化而改变
+            List<Configuration> remainingConfig = this.checkpoint.getRemainingContent();
+            this.configuration.set(CoreConstant.DATAX_JOB_CONTENT, remainingConfig);
+            return remainingConfig.size();
+        }
+
+        List<Configuration> readerTaskConfigs = null;
+        try {
+            readerTaskConfigs = this.doReaderSplit(this.needChannelNumber);
+        } finally {
+            if (readerTaskConfigs == null) {
+                this.awaitWriterPrepareQuietly();
+            }
+        }
+        this.awaitWriterPrepare();
         //LOG.info("Reader Task配置如下: "+ JSON.toJSONString(readerTaskConfigs));
         int taskNumber = readerTaskConfigs.size();
         if(taskNumber==0)
@@ -426,6 +576,9 @@ public class JobContainer extends AbstractContainer {
         //LOG.info("合并后的配置如下: "+ JSON.toJSONString(contentConfig));
 
         this.configuration.set(CoreConstant.DATAX_JOB_CONTENT, contentConfig);
+        if (this.checkpoint != null) {
+            this.checkpoint.saveContent(contentConfig);
+        }
 
         return contentConfig.size();
     }
@@ -570,7 +723,7 @@ public class JobContainer extends AbstractContainer {
         AbstractContainerCommunicator containerCommunicator = new StandAloneJobContainerCommunicator(configuration);
         super.setContainerCommunicator(containerCommunicator);
 
-        return new StandAloneScheduler(containerCommunicator);
+        return new StandAloneScheduler(containerCommunicator, this.checkpoint);
     }
 
     private void post() {
@@ -579,6 +732,8 @@ public class JobContainer extends AbstractContainer {
     }
 
     private void destroy() {
+        // reader prepare 失败时 writer prepare 可能仍在执行
+        this.awaitWriterPrepareQuietly();
         if (this.jobWriter != null) {
             this.jobWriter.destroy();
             this.jobWriter = null;
@@ -701,6 +856,13 @@ public class JobContainer extends AbstractContainer {
             ));
         }
 
+        LatencyHistogram channelLatency = communication.getChannelLatency();
+        if (channelLatency != null) {
+            LOG.info(String.format("\n" + "%-26s: %s\n",
+                    "Channel内延迟(采样)",
+                    channelLatency.toMillisSummary()));
+        }
+
         logJson(totalCosts,totalReadRecords,totalErrorRecords,totalTransformerSuccessRecords,totalTransformerFailedRecords,totalTransformerFilterRecords,byteSpeedPerSecond,recordSpeedPerSecond,communication);
 
     }
@@ -712,8 +874,6 @@ public class JobContainer extends AbstractContainer {
      */
     private Reader.Job initJobReader(
             JobPluginCollector jobPluginCollector) {
-        this.readerPluginName = this.configuration.getString(
-                CoreConstant.DATAX_JOB_CONTENT_READER_NAME);
         classLoaderSwapper.setCurrentThreadClassLoader(LoadUtil.getJarLoader(
                 PluginType.READER, this.readerPluginName));
 
@@ -742,9 +902,7 @@ public class JobContainer extends AbstractContainer {
      */
     private Writer.Job initJobWriter(
             JobPluginCollector jobPluginCollector) {
-        this.writerPluginName = this.configuration.getString(
-                CoreConstant.DATAX_JOB_CONTENT_WRITER_NAME);
-        classLoaderSwapper.setCurrentThreadClassLoader(LoadUtil.getJarLoader(
+        writerClassLoaderSwapper.setCurrentThreadClassLoader(LoadUtil.getJarLoader(
                 PluginType.WRITER, this.writerPluginName));
 
         Writer.Job jobWriter = (Writer.Job) LoadUtil.loadJobPlugin(
@@ -761,7 +919,7 @@ public class JobContainer extends AbstractContainer {
         jobWriter.setPeerPluginName(this.readerPluginName);
         jobWriter.setJobPluginCollector(jobPluginCollector);
         jobWriter.init();
-        classLoaderSwapper.restoreCurrentThreadClassLoader();
+        writerClassLoaderSwapper.restoreCurrentThreadClassLoader();
 
         return jobWriter;
     }
@@ -776,12 +934,12 @@ public class JobContainer extends AbstractContainer {
     }
 
     private void prepareJobWriter() {
-        classLoaderSwapper.setCurrentThreadClassLoader(LoadUtil.getJarLoader(
+        writerClassLoaderSwapper.setCurrentThreadClassLoader(LoadUtil.getJarLoader(
                 PluginType.WRITER, this.writerPluginName));
         LOG.info(String.format("DataX Writer.Job [%s] do prepare work .",
                 this.writerPluginName));
         this.jobWriter.prepare();
-        classLoaderSwapper.restoreCurrentThreadClassLoader();
+        writerClassLoaderSwapper.restoreCurrentThreadClassLoader();
     }
 
     // TODO: 如果源头就是空数据
@@ -2,6 +2,7 @@ package com.alibaba.datax.core.job.scheduler.processinner;
 
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.job.JobCheckpoint;
 import com.alibaba.datax.core.job.scheduler.AbstractScheduler;
 import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
 import com.alibaba.datax.core.taskgroup.TaskGroupContainer;
@@ -16,8 +17,18 @@ public abstract class ProcessInnerScheduler extends AbstractScheduler {
 
     private ExecutorService taskGroupContainerExecutorService;
 
+    /**
+     * taskGroup 与 job 在同一个 jvm 中, taskGroup 把成功的 task 直接登记到 job 的断点中, 可以为 null
+     */
+    private final JobCheckpoint checkpoint;
+
     public ProcessInnerScheduler(AbstractContainerCommunicator containerCommunicator) {
+        this(containerCommunicator, null);
+    }
+
+    public ProcessInnerScheduler(AbstractContainerCommunicator containerCommunicator, JobCheckpoint checkpoint) {
         super(containerCommunicator);
+        this.checkpoint = checkpoint;
     }
 
     @Override
@@ -52,7 +63,7 @@ public abstract class ProcessInnerScheduler extends AbstractScheduler {
 
     private TaskGroupContainerRunner newTaskGroupContainerRunner(
             Configuration configuration) {
-        TaskGroupContainer taskGroupContainer = new TaskGroupContainer(configuration);
+        TaskGroupContainer taskGroupContainer = new TaskGroupContainer(configuration, this.checkpoint);
 
         return new TaskGroupContainerRunner(taskGroupContainer);
     }
@@ -1,5 +1,6 @@
 package com.alibaba.datax.core.job.scheduler.processinner;
 
+import com.alibaba.datax.core.job.JobCheckpoint;
 import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
 
 /**
@@ -11,6 +12,10 @@ public class StandAloneScheduler extends ProcessInnerScheduler{
         super(containerCommunicator);
     }
 
+    public StandAloneScheduler(AbstractContainerCommunicator containerCommunicator, JobCheckpoint checkpoint) {
+        super(containerCommunicator, checkpoint);
+    }
+
     @Override
     protected boolean isJobKilling(Long jobId) {
         return false;
@@ -1,24 +1,32 @@
 package com.alibaba.datax.core.statistics.communication;
 
 import com.alibaba.datax.common.base.BaseObject;
+import com.alibaba.datax.common.statistics.LatencyHistogram;
 import com.alibaba.datax.dataxservice.face.domain.enums.State;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * DataX所有的状态及统计信息交互类，job、taskGroup、task等的消息汇报都走该类
  */
 public class Communication extends BaseObject implements Cloneable {
     /**
-     * 所有的数值key-value对 *
+     * {@link CommunicationCounter} 中的固定 counter, 按枚举序号存放, 无锁累加 *
      */
-    private Map<String, Number> counter;
+    private final StripedCounters fixedCounter = new StripedCounters(CommunicationCounter.values().length);
+
+    /**
+     * 其他数值key-value对(动态key及double型) *
+     */
+    private final ConcurrentMap<String, Number> counter = new ConcurrentHashMap<String, Number>();
 
     /**
      * 运行状态 *
@@ -38,26 +46,44 @@ public class Communication extends BaseObject implements Cloneable {
     /**
      * task给job的信息 *
      */
-    Map<String, List<String>> message;
+    final Map<String, List<String>> message = new ConcurrentHashMap<String, List<String>>();
+
+    /**
+     * record 从 reader 调用 sendToWriter 到 writer 端从 channel 取出的延迟(纳秒, 采样), 没有数据时为 null *
+     */
+    private transient LatencyHistogram channelLatency;
 
     public Communication() {
-        this.init();
+        this.state = State.RUNNING;
+        this.timestamp = System.currentTimeMillis();
     }
 
-    public synchronized void reset() {
-        this.init();
+    /**
+     * counter 原地清零, 不加锁, 与之并发的累加要么被清掉, 要么完整保留, 不会累加到已丢弃的对象上
+     */
+    public void reset() {
+        this.fixedCounter.reset();
+        this.counter.clear();
+        this.message.clear();
+        this.resetStatus();
+        this.timestamp = System.currentTimeMillis();
     }
 
-    private void init() {
-        this.counter = new ConcurrentHashMap<String, Number>();
+    private synchronized void resetStatus() {
         this.state = State.RUNNING;
         this.throwable = null;
-        this.message = new ConcurrentHashMap<String, List<String>>();
-        this.timestamp = System.currentTimeMillis();
+        this.channelLatency = null;
     }
 
+    /**
+     * @return 所有counter的快照, 固定counter总是包含, 值为0时也包含
+     */
     public Map<String, Number> getCounter() {
-        return this.counter;
+        Map<String, Number> snapshot = new HashMap<String, Number>(this.counter);
+        for (CommunicationCounter each : CommunicationCounter.values()) {
+            snapshot.put(each.getKey(), this.fixedCounter.get(each.ordinal()));
+        }
+        return snapshot;
     }
 
     public State getState() {
@@ -123,34 +149,116 @@ public class Communication extends BaseObject implements Cloneable {
         valueList.add(value);
     }
 
-    public synchronized Long getLongCounter(final String key) {
+    /**
+     * counter的读写不加锁, 不会阻塞channel上的统计, 也不会被mergeFrom/clone阻塞
+     */
+    public Long getLongCounter(final String key) {
+        CommunicationCounter fixed = CommunicationCounter.fromKey(key);
+        if (fixed != null) {
+            return getLongCounter(fixed);
+        }
         Number value = this.counter.get(key);
 
         return value == null ? 0 : value.longValue();
     }
 
-    public synchronized void setLongCounter(final String key, final long value) {
+    public long getLongCounter(final CommunicationCounter key) {
+        return this.fixedCounter.get(key.ordinal());
+    }
+
+    public void setLongCounter(final String key, final long value) {
         Validate.isTrue(StringUtils.isNotBlank(key), "设置counter的key不能为空");
+        CommunicationCounter fixed = CommunicationCounter.fromKey(key);
+        if (fixed != null) {
+            setLongCounter(fixed, value);
+            return;
+        }
         this.counter.put(key, value);
     }
 
-    public synchronized Double getDoubleCounter(final String key) {
+    public void setLongCounter(final CommunicationCounter key, final long value) {
+        this.fixedCounter.set(key.ordinal(), value);
+    }
+
+    public Double getDoubleCounter(final String key) {
+        CommunicationCounter fixed = CommunicationCounter.fromKey(key);
+        if (fixed != null) {
+            return (double) getLongCounter(fixed);
+        }
         Number value = this.counter.get(key);
 
         return value == null ? 0.0d : value.doubleValue();
     }
 
-    public synchronized void setDoubleCounter(final String key, final double value) {
+    /**
+     * 固定counter为long型, 设置时取整
+     */
+    public void setDoubleCounter(final String key, final double value) {
         Validate.isTrue(StringUtils.isNotBlank(key), "设置counter的key不能为空");
+        CommunicationCounter fixed = CommunicationCounter.fromKey(key);
+        if (fixed != null) {
+            setLongCounter(fixed, (long) value);
+            return;
+        }
         this.counter.put(key, value);
     }
 
-    public synchronized void increaseCounter(final String key, final long deltaValue) {
+    public void increaseCounter(final String key, final long deltaValue) {
         Validate.isTrue(StringUtils.isNotBlank(key), "增加counter的key不能为空");
+        CommunicationCounter fixed = CommunicationCounter.fromKey(key);
+        if (fixed != null) {
+            increaseCounter(fixed, deltaValue);
+            return;
+        }
+        increaseMapCounter(key, deltaValue);
+    }
 
-        long value = this.getLongCounter(key);
+    public void increaseCounter(final CommunicationCounter key, final long deltaValue) {
+        this.fixedCounter.add(key.ordinal(), deltaValue);
+    }
+
+    private void increaseMapCounter(final String key, final long deltaValue) {
+        while (true) {
+            Number value = this.counter.get(key);
+            if (value == null) {
+                if (this.counter.putIfAbsent(key, deltaValue) == null) {
+                    return;
+                }
+            } else if (this.counter.replace(key, value, value.longValue() + deltaValue)) {
+                return;
+            }
+        }
+    }
 
-        this.counter.put(key, value + deltaValue);
+    /**
+     * 累加 channel 在一个汇报周期内记录的延迟, 不持有传入的直方图
+     */
+    public synchronized void addChannelLatency(final LatencyHistogram latency) {
+        if (latency == null || latency.getTotalCount() == 0) {
+            return;
+        }
+        if (this.channelLatency == null) {
+            this.channelLatency = new LatencyHistogram();
+        }
+        this.channelLatency.merge(latency);
+    }
+
+    /**
+     * @return channel 延迟直方图的拷贝, 没有采样数据时为 null
+     */
+    public synchronized LatencyHistogram getChannelLatency() {
+        return this.channelLatency == null ? null : this.channelLatency.copy();
+    }
+
+    private void mergeChannelLatency(final LatencyHistogram otherLatency) {
+        if (otherLatency == null) {
+            return;
+        }
+        if (this.channelLatency == null) {
+            this.channelLatency = otherLatency;
+        } else {
+            this.channelLatency.merge(otherLatency);
+        }
     }
 
     @Override
@@ -160,21 +268,23 @@ public class Communication extends BaseObject implements Cloneable {
         /**
          * clone counter
          */
-        if (this.counter != null) {
-            for (Map.Entry<String, Number> entry : this.counter.entrySet()) {
-                String key = entry.getKey();
-                Number value = entry.getValue();
-                if (value instanceof Long) {
-                    communication.setLongCounter(key, (Long) value);
-                } else if (value instanceof Double) {
-                    communication.setDoubleCounter(key, (Double) value);
-                }
+        for (CommunicationCounter each : CommunicationCounter.values()) {
+            communication.fixedCounter.add(each.ordinal(), this.fixedCounter.get(each.ordinal()));
+        }
+        for (Map.Entry<String, Number> entry : this.counter.entrySet()) {
+            String key = entry.getKey();
+            Number value = entry.getValue();
+            if (value instanceof Long) {
+                communication.setLongCounter(key, (Long) value);
+            } else if (value instanceof Double) {
+                communication.setDoubleCounter(key, (Double) value);
             }
         }
 
         communication.setState(this.state, true);
         communication.setThrowable(this.throwable, true);
         communication.setTimestamp(this.timestamp);
+        communication.mergeChannelLatency(this.getChannelLatency());
 
         /**
          * clone message
@@ -201,7 +311,10 @@ public class Communication extends BaseObject implements Cloneable {
          * counter的合并，将otherComm的值累加到this中，不存在的则创建
          * 同为long
          */
-        for (Entry<String, Number> entry : otherComm.getCounter().entrySet()) {
+        for (CommunicationCounter each : CommunicationCounter.values()) {
+            this.fixedCounter.add(each.ordinal(), otherComm.fixedCounter.get(each.ordinal()));
+        }
+        for (Entry<String, Number> entry : otherComm.counter.entrySet()) {
             String key = entry.getKey();
             Number otherValue = entry.getValue();
             if (otherValue == null) {
@@ -215,7 +328,7 @@ public class Communication extends BaseObject implements Cloneable {
                 if (value instanceof Long && otherValue instanceof Long) {
                     value = value.longValue() + otherValue.longValue();
                 } else {
-                    value = value.doubleValue() + value.doubleValue();
+                    value = value.doubleValue() + otherValue.doubleValue();
                 }
             }
 
@@ -231,6 +344,11 @@ public class Communication extends BaseObject implements Cloneable {
          */
         this.throwable = this.throwable == null ? otherComm.getThrowable() : this.throwable;
 
+        /**
+         * channel延迟直方图按桶累加
+         */
+        mergeChannelLatency(otherComm.getChannelLatency());
+
         /**
          * timestamp是整个一次合并的时间戳，单独两两communication不作合并
          */
@@ -0,0 +1,64 @@
+package com.alibaba.datax.core.statistics.communication;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Communication 中固定存在的 long 型 counter, 每个 counter 占用 {@link StripedCounters} 中的一个槽位,
+ * key 与 {@link CommunicationTool} 中的常量一致。其他 key 的 counter 仍然存放在 map 中。
+ */
+public enum CommunicationCounter {
+    STAGE("stage"),
+    BYTE_SPEED("byteSpeed"),
+    RECORD_SPEED("recordSpeed"),
+
+    READ_SUCCEED_RECORDS("readSucceedRecords"),
+    READ_SUCCEED_BYTES("readSucceedBytes"),
+    READ_FAILED_RECORDS("readFailedRecords"),
+    READ_FAILED_BYTES("readFailedBytes"),
+
+    WRITE_RECEIVED_RECORDS("writeReceivedRecords"),
+    WRITE_RECEIVED_BYTES("writeReceivedBytes"),
+    WRITE_FAILED_RECORDS("writeFailedRecords"),
+    WRITE_FAILED_BYTES("writeFailedBytes"),
+
+    TOTAL_READ_RECORDS("totalReadRecords"),
+    TOTAL_READ_BYTES("totalReadBytes"),
+    TOTAL_ERROR_RECORDS("totalErrorRecords"),
+    TOTAL_ERROR_BYTES("totalErrorBytes"),
+    WRITE_SUCCEED_RECORDS("writeSucceedRecords"),
+    WRITE_SUCCEED_BYTES("writeSucceedBytes"),
+
+    WAIT_WRITER_TIME("waitWriterTime"),
+    WAIT_READER_TIME("waitReaderTime"),
+
+    TRANSFORMER_USED_TIME("totalTransformerUsedTime"),
+    TRANSFORMER_SUCCEED_RECORDS("totalTransformerSuccessRecords"),
+    TRANSFORMER_FAILED_RECORDS("totalTransformerFailedRecords"),
+    TRANSFORMER_FILTER_RECORDS("totalTransformerFilterRecords");
+
+    private static final Map<String, CommunicationCounter> BY_KEY = new HashMap<String, CommunicationCounter>();
+
+    static {
+        for (CommunicationCounter counter : values()) {
+            BY_KEY.put(counter.key, counter);
+        }
+    }
+
+    private final String key;
+
+    CommunicationCounter(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * @return 不是固定 counter 时返回 null
+     */
+    public static CommunicationCounter fromKey(String key) {
+        return BY_KEY.get(key);
+    }
+}
@@ -1,5 +1,6 @@
 package com.alibaba.datax.core.statistics.communication;
 
+import com.alibaba.datax.common.statistics.LatencyHistogram;
 import com.alibaba.datax.common.statistics.PerfTrace;
 import com.alibaba.datax.common.util.StrUtil;
 import com.alibaba.fastjson.JSON;
@@ -130,6 +131,12 @@ public final class CommunicationTool {
             sb.append(" All Task WaitReaderTime ");
             sb.append(PerfTrace.unitTime(communication.getLongCounter(WAIT_READER_TIME)));
             sb.append(" | ");
+            LatencyHistogram channelLatency = communication.getChannelLatency();
+            if (channelLatency != null) {
+                sb.append("Channel Latency ");
+                sb.append(getChannelLatency(channelLatency));
+                sb.append(" | ");
+            }
             if (communication.getLongCounter(CommunicationTool.TRANSFORMER_USED_TIME) > 0
                     || communication.getLongCounter(CommunicationTool.TRANSFORMER_SUCCEED_RECORDS) > 0
                     ||communication.getLongCounter(CommunicationTool.TRANSFORMER_FAILED_RECORDS) > 0
@@ -170,6 +177,13 @@ public final class CommunicationTool {
                     communication.getLongCounter(TOTAL_ERROR_BYTES));
         }
 
+        private static String getChannelLatency(final LatencyHistogram channelLatency) {
+            return String.format("p50 %.3fms, p99 %.3fms, max %.3fms",
+                    channelLatency.getValueAtPercentile(50) / 1000000D,
+                    channelLatency.getValueAtPercentile(99) / 1000000D,
+                    channelLatency.getMax() / 1000000D);
+        }
+
         private static String getPercentage(final Communication communication) {
             return df.format(communication.getDoubleCounter(PERCENTAGE) * 100) + "%";
         }
@@ -215,6 +229,13 @@ public final class CommunicationTool {
             pair = getWaitWriterTime(communication);
             state.put((String) pair.getKey(), pair.getValue());
 
+            LatencyHistogram channelLatency = communication.getChannelLatency();
+            if (channelLatency != null) {
+                state.put("channelLatencyP50", channelLatency.getValueAtPercentile(50));
+                state.put("channelLatencyP99", channelLatency.getValueAtPercentile(99));
+                state.put("channelLatencyMax", channelLatency.getMax());
+            }
+
             return JSON.toJSONString(state);
         }
 
@@ -0,0 +1,98 @@
+package com.alibaba.datax.core.statistics.communication;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定个数的 long 型 counter, 与 LongAdder 类似按线程分散到多个 stripe 上累加, 读取时求和。
+ * 同一个 Communication 的 reader 线程和 writer 线程落在不同的 stripe 上, 各自的 CAS 不会互相干扰,
+ * stripe 之间留有间隔, 避免落在同一个 cache line 上。读取和累加都不加锁, 读到的是近似同一时刻的值。
+ */
+final class StripedCounters {
+
+    private static final int STRIPES = 4;
+
+    // 8个long = 64字节, 隔开相邻stripe
+    private static final int PADDING = 8;
+
+    private final int slots;
+
+    private final int stride;
+
+    private final AtomicLongArray cells;
+
+    StripedCounters(int slots) {
+        this.slots = slots;
+        this.stride = slots + PADDING;
+        this.cells = new AtomicLongArray(STRIPES * this.stride);
+    }
+
+    void add(int slot, long delta) {
+        this.cells.getAndAdd(stripeBase() + slot, delta);
+    }
+
+    long get(int slot) {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += this.cells.get(i * this.stride + slot);
+        }
+        return sum;
+    }
+
+    /**
+     * 把与当前值的差累加到当前线程的 stripe 上, 不会覆盖其他 stripe 上并发的 add:
+     * 每个并发的 add 要么计入 set 之前(被 set 覆盖), 要么计入 set 之后(保留)。
+     * set 之间需要互斥, 否则两个 set 会基于同一个当前值各自累加差值; 只有 set 之间加锁, add 和读取仍不加锁
+     */
+    synchronized void set(int slot, long value) {
+        this.cells.getAndAdd(stripeBase() + slot, value - get(slot));
+    }
+
+    /**
+     * 原地清零所有槽位, 语义同 {@link #set(int, long)}
+     */
+    synchronized void reset() {
+        int base = stripeBase();
+        for (int i = 0; i < this.slots; i++) {
+            this.cells.getAndAdd(base + i, -get(i));
+        }
+    }
+
+    private int stripeBase() {
+        return (int) (Thread.currentThread().getId() & (STRIPES - 1)) * this.stride;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof StripedCounters) || ((StripedCounters) other).slots != this.slots) {
+            return false;
+        }
+        for (int i = 0; i < this.slots; i++) {
+            if (get(i) != ((StripedCounters) other).get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < this.slots; i++) {
+            long value = get(i);
+            hash = 31 * hash + (int) (value ^ (value >>> 32));
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < this.slots; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(get(i));
+        }
+        return sb.append(']').toString();
+    }
+}
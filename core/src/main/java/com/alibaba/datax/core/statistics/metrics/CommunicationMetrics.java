@@ -0,0 +1,91 @@
+package com.alibaba.datax.core.statistics.metrics;
+
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * taskGroupId 小于0时表示整个 job
+ */
+public class CommunicationMetrics implements CommunicationMetricsMBean {
+
+    private final int taskGroupId;
+
+    public CommunicationMetrics(int taskGroupId) {
+        this.taskGroupId = taskGroupId;
+    }
+
+    @Override
+    public long getReadRecords() {
+        return get(MetricsRegistry.Metric.READ_RECORDS);
+    }
+
+    @Override
+    public long getReadBytes() {
+        return get(MetricsRegistry.Metric.READ_BYTES);
+    }
+
+    @Override
+    public long getWriteReceivedRecords() {
+        return get(MetricsRegistry.Metric.WRITE_RECORDS);
+    }
+
+    @Override
+    public long getWriteReceivedBytes() {
+        return get(MetricsRegistry.Metric.WRITE_BYTES);
+    }
+
+    @Override
+    public long getDirtyRecords() {
+        return get(MetricsRegistry.Metric.DIRTY_RECORDS);
+    }
+
+    @Override
+    public long getWaitReaderTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(get(MetricsRegistry.Metric.WAIT_READER_TIME));
+    }
+
+    @Override
+    public long getWaitWriterTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(get(MetricsRegistry.Metric.WAIT_WRITER_TIME));
+    }
+
+    @Override
+    public long getTransformerUsedTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(get(MetricsRegistry.Metric.TRANSFORMER_TIME));
+    }
+
+    @Override
+    public int getUnfinishedTasks() {
+        return MetricsRegistry.countUnfinishedTasks(this.taskGroupId);
+    }
+
+    @Override
+    public long getRecordSpeed() {
+        return getReported(CommunicationTool.RECORD_SPEED);
+    }
+
+    @Override
+    public long getByteSpeed() {
+        return getReported(CommunicationTool.BYTE_SPEED);
+    }
+
+    private long get(MetricsRegistry.Metric metric) {
+        return MetricsRegistry.sum(this.taskGroupId)[metric.ordinal()];
+    }
+
+    private long getReported(String key) {
+        long value = 0;
+        for (Integer id : MetricsRegistry.getTaskGroupIds()) {
+            if (this.taskGroupId >= 0 && this.taskGroupId != id) {
+                continue;
+            }
+            Communication reported = MetricsRegistry.getReportedCommunication(id);
+            if (reported != null) {
+                value += MetricsRegistry.getCounter(reported, key);
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,33 @@
+package com.alibaba.datax.core.statistics.metrics;
+
+/**
+ * job 或单个 taskGroup 的运行指标, 累计值包含已结束的 task, 时间单位为毫秒
+ */
+public interface CommunicationMetricsMBean {
+
+    long getReadRecords();
+
+    long getReadBytes();
+
+    long getWriteReceivedRecords();
+
+    long getWriteReceivedBytes();
+
+    long getDirtyRecords();
+
+    long getWaitReaderTimeMs();
+
+    long getWaitWriterTimeMs();
+
+    long getTransformerUsedTimeMs();
+
+    int getUnfinishedTasks();
+
+    /**
+     * 最近一次汇报时计算的速度, 未汇报过时为0
+     */
+    long getRecordSpeed();
+
+    long getByteSpeed();
+
+}
@@ -0,0 +1,155 @@
+package com.alibaba.datax.core.statistics.metrics;
+
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 运行指标的对外出口: core.metrics.httpPort 大于0时在该端口以 prometheus text format 提供 /metrics,
+ * core.metrics.jmxEnable 为 true 时把 job 及每个 taskGroup 注册为 MBean(com.alibaba.datax:type=...)。
+ * 指标导出失败不影响任务运行。
+ */
+public final class DataXMetrics {
+    private static final Logger LOG = LoggerFactory.getLogger(DataXMetrics.class);
+
+    private static final String DOMAIN = "com.alibaba.datax";
+
+    private static HttpServer httpServer;
+
+    private static boolean jmxEnable = false;
+
+    private static final List<ObjectName> registeredMBeans = new ArrayList<ObjectName>();
+
+    private DataXMetrics() {
+    }
+
+    /**
+     * 指标导出的任何失败都只打印日志, 不会抛出异常
+     */
+    public static synchronized void start(Configuration configuration, long jobId, boolean isJob) {
+        try {
+            doStart(configuration, jobId, isJob);
+        } catch (Exception e) {
+            LOG.warn("no need care, the fail is ignored : metrics exporter start failed, " + e.getMessage(), e);
+        }
+    }
+
+    private static void doStart(Configuration configuration, long jobId, boolean isJob) {
+        MetricsRegistry.setJobId(jobId);
+
+        jmxEnable = configuration.getBool(CoreConstant.DATAX_CORE_METRICS_JMXENABLE, false);
+        if (jmxEnable && isJob) {
+            registerMBean(String.format("%s:type=Job,jobId=%d", DOMAIN, jobId), new CommunicationMetrics(-1));
+        }
+
+        int port = configuration.getInt(CoreConstant.DATAX_CORE_METRICS_HTTPPORT, -1);
+        if (port > 0 && httpServer == null) {
+            try {
+                HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+                server.createContext("/metrics", new MetricsHandler());
+                server.setExecutor(Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "datax-metrics-http");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }));
+                server.start();
+                httpServer = server;
+                LOG.info("DataX metrics exporter started at http://0.0.0.0:{}/metrics", port);
+            } catch (Exception e) {
+                LOG.warn("no need care, the fail is ignored : metrics exporter start failed on port " + port
+                        + ", " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 与 start 相同, 不会抛出异常, 以免掩盖容器本身的异常
+     */
+    public static synchronized void stop() {
+        try {
+            if (httpServer != null) {
+                httpServer.stop(0);
+            }
+        } catch (Exception e) {
+            LOG.warn("no need care, the fail is ignored : metrics exporter stop failed, " + e.getMessage(), e);
+        } finally {
+            httpServer = null;
+        }
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName name : registeredMBeans) {
+                try {
+                    mBeanServer.unregisterMBean(name);
+                } catch (Exception e) {
+                    LOG.warn("unregister MBean {} failed, {}", name, e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            LOG.warn("no need care, the fail is ignored : unregister MBeans failed, " + e.getMessage(), e);
+        } finally {
+            registeredMBeans.clear();
+            MetricsRegistry.clear();
+        }
+    }
+
+    static synchronized void registerTaskGroupMBean(int taskGroupId) {
+        if (!jmxEnable) {
+            return;
+        }
+        registerMBean(String.format("%s:type=TaskGroup,jobId=%d,taskGroupId=%d", DOMAIN,
+                MetricsRegistry.getJobId(), taskGroupId), new CommunicationMetrics(taskGroupId));
+    }
+
+    private static void registerMBean(String objectName, Object mBean) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+                registeredMBeans.remove(name);
+            }
+            mBeanServer.registerMBean(mBean, name);
+            registeredMBeans.add(name);
+        } catch (Exception e) {
+            LOG.warn("no need care, the fail is ignored : register MBean " + objectName + " failed, "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private static class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                byte[] body = MetricsRegistry.scrape().getBytes("UTF-8");
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            } catch (Exception e) {
+                LOG.warn("metrics scrape failed, " + e.getMessage(), e);
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.alibaba.datax.core.statistics.metrics;
+
+import com.alibaba.datax.common.statistics.LatencyHistogram;
+import com.alibaba.datax.common.statistics.VMInfo;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.communication.LocalTGCommunicationManager;
+import com.alibaba.datax.dataxservice.face.domain.enums.State;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 运行中各 taskGroup 的 task Communication 登记处, 供 http exporter 和 JMX 读取。
+ * Communication 的 counter 读取不加锁, 因此不会与 channel/exchanger 上的统计争用;
+ * 读到的各个 counter 之间不保证是同一时刻的值。
+ */
+public final class MetricsRegistry {
+
+    private static final Map<Integer, TaskGroupMetrics> taskGroups =
+            new ConcurrentHashMap<Integer, TaskGroupMetrics>();
+
+    private static volatile long jobId = -1;
+
+    private MetricsRegistry() {
+    }
+
+    public static void setJobId(long jobId) {
+        MetricsRegistry.jobId = jobId;
+    }
+
+    public static long getJobId() {
+        return jobId;
+    }
+
+    /**
+     * @param taskCommunicationMap taskGroup 内 taskId 到 Communication 的映射, task 重试时其中的 Communication 会被替换
+     * @param channelCapacity      每个 channel 的容量(record 条数)
+     */
+    public static void registerTaskGroup(int taskGroupId, Map<Integer, Communication> taskCommunicationMap,
+                                         int channelCapacity) {
+        taskGroups.put(taskGroupId, new TaskGroupMetrics(taskGroupId, taskCommunicationMap, channelCapacity));
+        DataXMetrics.registerTaskGroupMBean(taskGroupId);
+    }
+
+    public static List<Integer> getTaskGroupIds() {
+        List<Integer> ids = new ArrayList<Integer>(taskGroups.keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    public static void clear() {
+        taskGroups.clear();
+    }
+
+    static long getCounter(Communication communication, String key) {
+        return communication.getLongCounter(key);
+    }
+
+    /**
+     * @param taskGroupId 小于0时累加所有 taskGroup
+     * @return 按 {@link Metric} 的顺序累加的 counter
+     */
+    static long[] sum(int taskGroupId) {
+        long[] values = new long[Metric.values().length];
+        for (TaskGroupMetrics taskGroup : taskGroups.values()) {
+            if (taskGroupId >= 0 && taskGroup.taskGroupId != taskGroupId) {
+                continue;
+            }
+            for (Communication communication : taskGroup.taskCommunicationMap.values()) {
+                for (Metric metric : Metric.values()) {
+                    values[metric.ordinal()] += metric.get(communication);
+                }
+            }
+        }
+        return values;
+    }
+
+    static int countUnfinishedTasks(int taskGroupId) {
+        int unfinished = 0;
+        for (TaskGroupMetrics taskGroup : taskGroups.values()) {
+            if (taskGroupId >= 0 && taskGroup.taskGroupId != taskGroupId) {
+                continue;
+            }
+            for (Communication communication : taskGroup.taskCommunicationMap.values()) {
+                if (isUnfinished(communication)) {
+                    unfinished++;
+                }
+            }
+        }
+        return unfinished;
+    }
+
+    /**
+     * taskGroup 最近一次汇报的 Communication(standalone 模式), 速度等派生值只在汇报时计算
+     */
+    static Communication getReportedCommunication(int taskGroupId) {
+        return LocalTGCommunicationManager.getTaskGroupCommunicationMap().get(taskGroupId);
+    }
+
+    private static boolean isUnfinished(Communication communication) {
+        State state = communication.getState();
+        return state != null && state.isRunning();
+    }
+
+    /**
+     * 以 prometheus text format(0.0.4) 输出当前所有指标
+     */
+    static String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        String jobLabel = "job=\"" + jobId + "\"";
+        List<TaskGroupMetrics> groups = new ArrayList<TaskGroupMetrics>();
+        for (Integer taskGroupId : getTaskGroupIds()) {
+            TaskGroupMetrics taskGroup = taskGroups.get(taskGroupId);
+            if (taskGroup != null) {
+                groups.add(taskGroup);
+            }
+        }
+
+        // taskGroup 级别包含所有 task(含已结束的), task 级别(datax_task_*)只输出未结束的 task
+        for (Metric metric : Metric.values()) {
+            writeHeader(sb, metric.name, metric.help, "counter");
+            for (TaskGroupMetrics taskGroup : groups) {
+                long total = 0;
+                for (Communication communication : taskGroup.taskCommunicationMap.values()) {
+                    total += metric.get(communication);
+                }
+                writeSample(sb, metric.name, jobLabel + ",taskGroup=\"" + taskGroup.taskGroupId + "\"",
+                        metric.scale(total));
+            }
+        }
+        for (Metric metric : Metric.values()) {
+            String taskMetricName = metric.getTaskMetricName();
+            writeHeader(sb, taskMetricName, metric.help, "counter");
+            for (TaskGroupMetrics taskGroup : groups) {
+                for (Map.Entry<Integer, Communication> entry : taskGroup.taskCommunicationMap.entrySet()) {
+                    if (isUnfinished(entry.getValue())) {
+                        writeSample(sb, taskMetricName, taskLabels(jobLabel, taskGroup, entry.getKey()),
+                                metric.scale(metric.get(entry.getValue())));
+                    }
+                }
+            }
+        }
+
+        writeHeader(sb, "datax_task_channel_pending_records",
+                "Records pushed into the channel and not yet pulled by the writer.", "gauge");
+        for (TaskGroupMetrics taskGroup : groups) {
+            for (Map.Entry<Integer, Communication> entry : taskGroup.taskCommunicationMap.entrySet()) {
+                if (isUnfinished(entry.getValue())) {
+                    Communication communication = entry.getValue();
+                    long pending = getCounter(communication, CommunicationTool.READ_SUCCEED_RECORDS)
+                            - getCounter(communication, CommunicationTool.WRITE_RECEIVED_RECORDS);
+                    writeSample(sb, "datax_task_channel_pending_records", taskLabels(jobLabel, taskGroup, entry.getKey()),
+                            Math.max(0, pending));
+                }
+            }
+        }
+
+        writeHeader(sb, "datax_channel_capacity_records", "Capacity of each channel in records.", "gauge");
+        for (TaskGroupMetrics taskGroup : groups) {
+            writeSample(sb, "datax_channel_capacity_records",
+                    jobLabel + ",taskGroup=\"" + taskGroup.taskGroupId + "\"", taskGroup.channelCapacity);
+        }
+
+        writeHeader(sb, "datax_unfinished_tasks", "Tasks not finished yet, including those waiting for a channel.",
+                "gauge");
+        for (TaskGroupMetrics taskGroup : groups) {
+            writeSample(sb, "datax_unfinished_tasks", jobLabel + ",taskGroup=\"" + taskGroup.taskGroupId + "\"",
+                    countUnfinishedTasks(taskGroup.taskGroupId));
+        }
+
+        writeReported(sb, jobLabel, groups);
+        writeVm(sb, jobLabel);
+        return sb.toString();
+    }
+
+    /**
+     * taskGroup 汇报时计算的速度与 channel 延迟, 读取的是汇报后不再修改的快照
+     */
+    private static void writeReported(StringBuilder sb, String jobLabel, List<TaskGroupMetrics> groups) {
+        StringBuilder recordSpeed = new StringBuilder();
+        StringBuilder byteSpeed = new StringBuilder();
+        StringBuilder latency = new StringBuilder();
+        for (TaskGroupMetrics taskGroup : groups) {
+            Communication reported = getReportedCommunication(taskGroup.taskGroupId);
+            if (reported == null) {
+                continue;
+            }
+            String labels = jobLabel + ",taskGroup=\"" + taskGroup.taskGroupId + "\"";
+            writeSample(recordSpeed, "datax_speed_records_per_second", labels,
+                    getCounter(reported, CommunicationTool.RECORD_SPEED));
+            writeSample(byteSpeed, "datax_speed_bytes_per_second", labels,
+                    getCounter(reported, CommunicationTool.BYTE_SPEED));
+            LatencyHistogram histogram = reported.getChannelLatency();
+            if (histogram != null) {
+                for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+                    writeSample(latency, "datax_channel_latency_seconds", labels + ",quantile=\"" + quantile + "\"",
+                            histogram.getValueAtPercentile(quantile * 100) / 1e9);
+                }
+                writeSample(latency, "datax_channel_latency_seconds_sum", labels,
+                        histogram.getMean() * histogram.getTotalCount() / 1e9);
+                writeSample(latency, "datax_channel_latency_seconds_count", labels, histogram.getTotalCount());
+            }
+        }
+        if (recordSpeed.length() > 0) {
+            writeHeader(sb, "datax_speed_records_per_second", "Record speed computed at the last task group report.",
+                    "gauge");
+            sb.append(recordSpeed);
+            writeHeader(sb, "datax_speed_bytes_per_second", "Byte speed computed at the last task group report.",
+                    "gauge");
+            sb.append(byteSpeed);
+        }
+        if (latency.length() > 0) {
+            writeHeader(sb, "datax_channel_latency_seconds",
+                    "Sampled time from sendToWriter until the writer pulls the record from the channel.", "summary");
+            sb.append(latency);
+        }
+    }
+
+    private static void writeVm(StringBuilder sb, String jobLabel) {
+        VMInfo vmInfo = VMInfo.getVmInfo();
+        if (vmInfo == null) {
+            return;
+        }
+        long cpuTime = vmInfo.getProcessCpuTime();
+        if (cpuTime >= 0) {
+            writeHeader(sb, "datax_process_cpu_seconds_total", "Process cpu time.", "counter");
+            writeSample(sb, "datax_process_cpu_seconds_total", jobLabel, cpuTime / 1e9);
+        }
+        writeHeader(sb, "datax_process_cpu_count", "Available processors.", "gauge");
+        writeSample(sb, "datax_process_cpu_count", jobLabel, vmInfo.getTotalProcessorCount());
+
+        writeHeader(sb, "datax_gc_collections_total", "GC count by collector.", "counter");
+        for (GarbageCollectorMXBean gc : vmInfo.getGarbageCollectorMXBeanList()) {
+            writeSample(sb, "datax_gc_collections_total", jobLabel + ",gc=\"" + escape(gc.getName()) + "\"",
+                    gc.getCollectionCount());
+        }
+        writeHeader(sb, "datax_gc_seconds_total", "GC time by collector.", "counter");
+        for (GarbageCollectorMXBean gc : vmInfo.getGarbageCollectorMXBeanList()) {
+            writeSample(sb, "datax_gc_seconds_total", jobLabel + ",gc=\"" + escape(gc.getName()) + "\"",
+                    gc.getCollectionTime() / 1e3);
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        writeHeader(sb, "datax_heap_used_bytes", "Used heap.", "gauge");
+        writeSample(sb, "datax_heap_used_bytes", jobLabel, heap.getUsed());
+        writeHeader(sb, "datax_heap_max_bytes", "Max heap.", "gauge");
+        writeSample(sb, "datax_heap_max_bytes", jobLabel, heap.getMax());
+    }
+
+    private static String taskLabels(String jobLabel, TaskGroupMetrics taskGroup, Integer taskId) {
+        return jobLabel + ",taskGroup=\"" + taskGroup.taskGroupId + "\",task=\"" + taskId + "\"";
+    }
+
+    private static void writeHeader(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(StringBuilder sb, String name, String labels, long value) {
+        writeSample(sb, name, labels, String.valueOf(value));
+    }
+
+    private static void writeSample(StringBuilder sb, String name, String labels, double value) {
+        writeSample(sb, name, labels, String.valueOf(value));
+    }
+
+    private static void writeSample(StringBuilder sb, String name, String labels, String value) {
+        sb.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * 从 task Communication 导出的累计值, 时间类 counter 为纳秒, 输出时换算为秒
+     */
+    enum Metric {
+        READ_RECORDS("datax_read_records_total", "Records read successfully.", false,
+                CommunicationTool.READ_SUCCEED_RECORDS),
+        READ_BYTES("datax_read_bytes_total", "Bytes read successfully.", false,
+                CommunicationTool.READ_SUCCEED_BYTES),
+        WRITE_RECORDS("datax_write_received_records_total", "Records received by the writer.", false,
+                CommunicationTool.WRITE_RECEIVED_RECORDS),
+        WRITE_BYTES("datax_write_received_bytes_total", "Bytes received by the writer.", false,
+                CommunicationTool.WRITE_RECEIVED_BYTES),
+        DIRTY_RECORDS("datax_dirty_records_total", "Records failed on read or write.", false,
+                CommunicationTool.READ_FAILED_RECORDS, CommunicationTool.WRITE_FAILED_RECORDS),
+        WAIT_READER_TIME("datax_wait_reader_seconds_total", "Time the writer waited for records.", true,
+                CommunicationTool.WAIT_READER_TIME),
+        WAIT_WRITER_TIME("datax_wait_writer_seconds_total", "Time the reader waited for channel space.", true,
+                CommunicationTool.WAIT_WRITER_TIME),
+        TRANSFORMER_TIME("datax_transformer_seconds_total", "Time spent in transformers.", true,
+                CommunicationTool.TRANSFORMER_USED_TIME);
+
+        private final String name;
+        private final String help;
+        private final boolean nanos;
+        private final String[] keys;
+
+        Metric(String name, String help, boolean nanos, String... keys) {
+            this.name = name;
+            this.help = help;
+            this.nanos = nanos;
+            this.keys = keys;
+        }
+
+        long get(Communication communication) {
+            long value = 0;
+            for (String key : this.keys) {
+                value += getCounter(communication, key);
+            }
+            return value;
+        }
+
+        String getTaskMetricName() {
+            return "datax_task_" + this.name.substring("datax_".length());
+        }
+
+        String scale(long value) {
+            return this.nanos ? String.valueOf(value / 1e9) : String.valueOf(value);
+        }
+    }
+
+    private static class TaskGroupMetrics {
+        private final int taskGroupId;
+        private final Map<Integer, Communication> taskCommunicationMap;
+        private final int channelCapacity;
+
+        TaskGroupMetrics(int taskGroupId, Map<Integer, Communication> taskCommunicationMap, int channelCapacity) {
+            this.taskGroupId = taskGroupId;
+            this.taskCommunicationMap = taskCommunicationMap;
+            this.channelCapacity = channelCapacity;
+        }
+    }
+}
@@ -10,8 +10,10 @@ import com.alibaba.datax.common.statistics.PerfTrace;
 import com.alibaba.datax.common.statistics.VMInfo;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.AbstractContainer;
+import com.alibaba.datax.core.job.JobCheckpoint;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.metrics.MetricsRegistry;
 import com.alibaba.datax.core.statistics.container.communicator.taskgroup.StandaloneTGContainerCommunicator;
 import com.alibaba.datax.core.statistics.plugin.task.AbstractTaskPluginCollector;
 import com.alibaba.datax.core.taskgroup.runner.AbstractRunner;
@@ -20,6 +22,8 @@ import com.alibaba.datax.core.taskgroup.runner.WriterRunner;
 import com.alibaba.datax.core.transport.channel.Channel;
 import com.alibaba.datax.core.transport.exchanger.BufferedRecordExchanger;
 import com.alibaba.datax.core.transport.exchanger.BufferedRecordTransformerExchanger;
+import com.alibaba.datax.core.transport.exchanger.ShuffleGroup;
+import com.alibaba.datax.core.transport.exchanger.ShuffleRecordExchanger;
 import com.alibaba.datax.core.transport.transformer.TransformerExecution;
 import com.alibaba.datax.core.util.ClassUtil;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
@@ -60,8 +64,18 @@ public class TaskGroupContainer extends AbstractContainer {
 
     private TaskMonitor taskMonitor = TaskMonitor.getInstance();
 
+    /**
+     * 所属 job 的断点, 没有使用断点或 taskGroup 单独运行时为 null
+     */
+    private final JobCheckpoint checkpoint;
+
     public TaskGroupContainer(Configuration configuration) {
+        this(configuration, null);
+    }
+
+    public TaskGroupContainer(Configuration configuration, JobCheckpoint checkpoint) {
         super(configuration);
+        this.checkpoint = checkpoint;
 
         initCommunicator(configuration);
 
@@ -132,9 +146,27 @@ public class TaskGroupContainer extends AbstractContainer {
                     "taskGroupId=[%d] start [%d] channels for [%d] tasks.",
                     this.taskGroupId, channelNumber, taskCountInThisTaskGroup));
 
+            /**
+             * shuffle模式下同时启动的一批task组成一个ShuffleGroup, 一批task全部结束后再启动下一批
+             * (writer 要等同批所有 reader 结束才能结束, 下一批的 reader 无法提前向其发送数据);
+             * 一个writer的数据来自同批的所有reader, 单个task无法单独重试, 因此不做failover
+             */
+            int[] shuffleColumns = getShuffleColumns(taskConfigs);
+            if (shuffleColumns != null) {
+                if (taskMaxRetryTimes > 1) {
+                    LOG.warn("taskGroup[{}] shuffle 模式下不支持 task failover, 忽略配置 {}={}.", this.taskGroupId,
+                            CoreConstant.DATAX_CORE_CONTAINER_TASK_FAILOVER_MAXRETRYTIMES, taskMaxRetryTimes);
+                    taskMaxRetryTimes = 1;
+                }
+                LOG.info("taskGroup[{}] shuffle records by columns{} in batches of {} tasks, task failover is disabled.",
+                        this.taskGroupId, Arrays.toString(shuffleColumns), Math.min(channelNumber, taskCountInThisTaskGroup));
+            }
+
             //Container里面有ContainerCommunicator, ContainerCommunicator里面有Collector和Reporter
             //Collector里有Map<TaskID,Communication>, registerCommunication就是把Communication按TaskID放入这个Map中
             this.containerCommunicator.registerCommunication(taskConfigs);
+            MetricsRegistry.registerTaskGroup(this.taskGroupId, this.containerCommunicator.getCommunicationMap(),
+                    this.configuration.getInt(CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_CAPACITY, 2048));
 
             Map<Integer, Configuration> taskConfigMap = buildTaskConfigMap(taskConfigs); //taskId与task配置
             List<Configuration> taskQueue = buildRemainTasks(taskConfigs); //待运行task列表
@@ -170,6 +202,10 @@ public class TaskGroupContainer extends AbstractContainer {
             				Configuration taskConfig = taskConfigMap.get(taskId);
             				taskQueue.add(taskConfig); //重新加入任务列表
             			}else{
+                            if (shuffleColumns != null) {
+                                // 同批的 reader 会一直阻塞在已经没有 writer 消费的 channel 上, 结束整批 task
+                                shutdownShuffleBatch(taskExecutor, runTasks);
+                            }
             				failedOrKilled = true;
                 			break;
             			}
@@ -184,6 +220,10 @@ public class TaskGroupContainer extends AbstractContainer {
                                     this.taskGroupId, taskId, usedTime);
                             //usedTime*1000*1000 转换成PerfRecord记录的ns，这里主要是简单登记，进行最长任务的打印。因此增加特定静态方法
                             PerfRecord.addPerfRecord(taskGroupId, taskId, PerfRecord.PHASE.TASK_TOTAL,taskStartTime, usedTime * 1000L * 1000L);
+                            PerfTrace.getInstance().traceChannelLatency(taskGroupId, taskId, taskCommunication.getChannelLatency());
+                            if (this.checkpoint != null) {
+                                this.checkpoint.markFinished(taskId);
+                            }
                             taskStartTimeMap.remove(taskId);
                             taskConfigMap.remove(taskId);
                         }
@@ -200,8 +240,11 @@ public class TaskGroupContainer extends AbstractContainer {
                 }
                 
                 //3.有任务未执行，且正在运行的任务数小于最大通道限制
+                if (shuffleColumns != null && runTasks.isEmpty() && !taskQueue.isEmpty()) {
+                    startShuffleTasks(taskQueue, runTasks, taskStartTimeMap, channelNumber, shuffleColumns);
+                }
                 Iterator<Configuration> iterator = taskQueue.iterator();
-                while(iterator.hasNext() && runTasks.size() < channelNumber){
+                while(shuffleColumns == null && iterator.hasNext() && runTasks.size() < channelNumber){
                     Configuration taskConfig = iterator.next();
                     Integer taskId = taskConfig.getInt(CoreConstant.TASK_ID);
                     int attemptCount = 1;
@@ -300,6 +343,65 @@ public class TaskGroupContainer extends AbstractContainer {
         }
     }
     
+    /**
+     * writer 按列分区写入(如 hdfswriter 的 colIndexes)时, shuffle 列必须与分区列相同, 否则同一分区的数据仍会分散到多个 writer
+     */
+    private int[] getShuffleColumns(List<Configuration> taskConfigs) {
+        List<Integer> columns = this.configuration.getList(
+                CoreConstant.DATAX_JOB_SETTING_SHUFFLE_COLUMNS, Integer.class);
+        if (columns == null || columns.isEmpty()) {
+            return null;
+        }
+        for (Configuration taskConfig : taskConfigs) {
+            List<Integer> partitionColumns = taskConfig.getList(
+                    CoreConstant.JOB_WRITER_PARAMETER_PARTITION_COLUMNS, Integer.class);
+            if (partitionColumns != null && !partitionColumns.isEmpty()
+                    && !new HashSet<Integer>(partitionColumns).equals(new HashSet<Integer>(columns))) {
+                throw DataXException.asDataXException(CommonErrorCode.CONFIG_ERROR, String.format(
+                        "shuffle 列%s与 writer 的分区列%s不一致, 请将 %s 配置为与分区列相同.", columns,
+                        partitionColumns, CoreConstant.DATAX_JOB_SETTING_SHUFFLE_COLUMNS));
+            }
+        }
+        int[] shuffleColumns = new int[columns.size()];
+        for (int i = 0; i < shuffleColumns.length; i++) {
+            shuffleColumns[i] = columns.get(i);
+        }
+        return shuffleColumns;
+    }
+
+    /**
+     * 启动一批共享ShuffleGroup的task: 先创建全部TaskExecutor使channel注册完成, 再依次启动
+     */
+    private void startShuffleTasks(List<Configuration> taskQueue, List<TaskExecutor> runTasks,
+                                   Map<Integer, Long> taskStartTimeMap, int channelNumber, int[] shuffleColumns) {
+        int batchSize = Math.min(channelNumber, taskQueue.size());
+        ShuffleGroup shuffleGroup = new ShuffleGroup(shuffleColumns, batchSize);
+        List<TaskExecutor> batch = new ArrayList<TaskExecutor>(batchSize);
+        Iterator<Configuration> iterator = taskQueue.iterator();
+        while (batch.size() < batchSize) {
+            batch.add(new TaskExecutor(iterator.next(), 1, shuffleGroup));
+            iterator.remove();
+        }
+
+        for (TaskExecutor taskExecutor : batch) {
+            Integer taskId = taskExecutor.getTaskId();
+            taskStartTimeMap.put(taskId, System.currentTimeMillis());
+            taskExecutor.doStart();
+            runTasks.add(taskExecutor);
+            taskMonitor.registerTask(taskId, this.containerCommunicator.getCommunication(taskId));
+            LOG.info("taskGroup[{}] taskId[{}] is started with shuffle", this.taskGroupId, taskId);
+        }
+    }
+
+    private void shutdownShuffleBatch(TaskExecutor failedExecutor, List<TaskExecutor> runTasks) {
+        LOG.warn("taskGroup[{}] taskId[{}] failed in shuffle mode, shutdown {} running tasks of the same batch.",
+                this.taskGroupId, failedExecutor.getTaskId(), runTasks.size());
+        failedExecutor.shutdown();
+        for (TaskExecutor taskExecutor : runTasks) {
+            taskExecutor.shutdown();
+        }
+    }
+
     private Map<Integer, Configuration> buildTaskConfigMap(List<Configuration> configurations){
     	Map<Integer, Configuration> map = new HashMap<Integer, Configuration>();
     	for(Configuration taskConfig : configurations){
@@ -373,6 +475,11 @@ public class TaskGroupContainer extends AbstractContainer {
         
         private WriterRunner writerRunner;
 
+        /**
+         * 非shuffle模式下为null
+         */
+        private ShuffleGroup shuffleGroup;
+
         /**
          * 该处的taskCommunication在多处用到：
          * 1. channel
@@ -382,8 +489,13 @@ public class TaskGroupContainer extends AbstractContainer {
         private Communication taskCommunication;
 
         public TaskExecutor(Configuration taskConf, int attemptCount) {
+            this(taskConf, attemptCount, null);
+        }
+
+        public TaskExecutor(Configuration taskConf, int attemptCount, ShuffleGroup shuffleGroup) {
             // 获取该taskExecutor的配置
             this.taskConfig = taskConf;
+            this.shuffleGroup = shuffleGroup;
             Validate.isTrue(null != this.taskConfig.getConfiguration(CoreConstant.JOB_READER)
                             && null != this.taskConfig.getConfiguration(CoreConstant.JOB_WRITER),
                     "[reader|writer]的插件参数不能为空!");
@@ -403,6 +515,9 @@ public class TaskGroupContainer extends AbstractContainer {
             this.channel = ClassUtil.instantiate(channelClazz,
                     Channel.class, configuration);
             this.channel.setCommunication(this.taskCommunication);
+            if (this.shuffleGroup != null) {
+                this.shuffleGroup.addChannel(this.channel);
+            }
 
             /**
              * 获取transformer的参数
@@ -482,7 +597,10 @@ public class TaskGroupContainer extends AbstractContainer {
                             PluginType.READER);
 
                     RecordSender recordSender;
-                    if (transformerInfoExecs != null && transformerInfoExecs.size() > 0) {
+                    if (this.shuffleGroup != null) {
+                        recordSender = new ShuffleRecordExchanger(taskGroupId, this.taskId, this.shuffleGroup,
+                                this.channel.getConfiguration(), this.taskCommunication, pluginCollector, transformerInfoExecs);
+                    } else if (transformerInfoExecs != null && transformerInfoExecs.size() > 0) {
                         //Communication用于统计Transformer处理数据的信息
                         recordSender = new BufferedRecordTransformerExchanger(taskGroupId, this.taskId, this.channel,this.taskCommunication ,pluginCollector, transformerInfoExecs);
                     } else {
@@ -1,8 +1,11 @@
 package com.alibaba.datax.core.transport.channel;
 
 import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.TimedRecord;
+import com.alibaba.datax.common.statistics.LatencyHistogram;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationCounter;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
 import com.alibaba.datax.core.transport.record.TerminateRecord;
 import com.alibaba.datax.core.util.container.CoreConstant;
@@ -10,6 +13,7 @@ import org.apache.commons.lang.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -47,6 +51,22 @@ public abstract class Channel {
 
     private Communication lastCommunication = new Communication();
 
+    // 上一次 pull 中已统计延迟的 record 及其时刻, writer 处理完(下一次 pull)时清零, 只由 writer 线程访问
+    private TimedRecord[] consumedTimedRecords = new TimedRecord[16];
+
+    private long[] consumedSendNanoTimes = new long[16];
+
+    private int consumedCount = 0;
+
+    private long lastSendNanoTime = 0;
+
+    // writer 线程记录的延迟, 每个汇报周期或读到结束标记时才合并到 currentCommunication, 只由 writer 线程访问
+    private final LatencyHistogram channelLatency = new LatencyHistogram();
+
+    private final long latencyMergeInterval;
+
+    private long lastLatencyMergeTime = System.currentTimeMillis();
+
     public Channel(final Configuration configuration) {
         //channel的queue里默认record为1万条。原来为512条
         int capacity = configuration.getInt(
@@ -81,6 +101,8 @@ public abstract class Channel {
         //channel的queue默认大小为8M，原来为64M
         this.byteCapacity = configuration.getInt(
                 CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_CAPACITY_BYTE, 8 * 1024 * 1024);
+        this.latencyMergeInterval = configuration.getLong(
+                CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_REPORTINTERVAL, 10000);
         this.configuration = configuration;
     }
 
@@ -140,15 +162,26 @@ public abstract class Channel {
     }
 
     public Record pull() {
+        this.clearConsumedSendTimes();
         Record record = this.doPull();
         this.statPull(1L, record.getByteSize());
+        this.statLatency(record, System.nanoTime());
+        this.mergeChannelLatency(record instanceof TerminateRecord);
         return record;
     }
 
     public void pullAll(final Collection<Record> rs) {
         Validate.notNull(rs);
+        this.clearConsumedSendTimes();
         this.doPullAll(rs);
         this.statPull(rs.size(), this.getByteSize(rs));
+        long now = System.nanoTime();
+        boolean isTerminated = false;
+        for (final Record each : rs) {
+            this.statLatency(each, now);
+            isTerminated |= each instanceof TerminateRecord;
+        }
+        this.mergeChannelLatency(isTerminated);
     }
 
     protected abstract void doPush(Record r);
@@ -174,14 +207,14 @@ public abstract class Channel {
     }
 
     private void statPush(long recordSize, long byteSize) {
-        currentCommunication.increaseCounter(CommunicationTool.READ_SUCCEED_RECORDS,
+        currentCommunication.increaseCounter(CommunicationCounter.READ_SUCCEED_RECORDS,
                 recordSize);
-        currentCommunication.increaseCounter(CommunicationTool.READ_SUCCEED_BYTES,
+        currentCommunication.increaseCounter(CommunicationCounter.READ_SUCCEED_BYTES,
                 byteSize);
         //在读的时候进行统计waitCounter即可，因为写（pull）的时候可能正在阻塞，但读的时候已经能读到这个阻塞的counter数
 
-        currentCommunication.setLongCounter(CommunicationTool.WAIT_READER_TIME, waitReaderTime);
-        currentCommunication.setLongCounter(CommunicationTool.WAIT_WRITER_TIME, waitWriterTime);
+        currentCommunication.setLongCounter(CommunicationCounter.WAIT_READER_TIME, waitReaderTime);
+        currentCommunication.setLongCounter(CommunicationCounter.WAIT_WRITER_TIME, waitWriterTime);
 
         boolean isChannelByteSpeedLimit = (this.byteSpeed > 0);
         boolean isChannelRecordSpeedLimit = (this.recordSpeed > 0);
@@ -238,11 +271,60 @@ public abstract class Channel {
         }
     }
 
+    /**
+     * 统计被 exchanger 采样打点的 record 从 sendToWriter 到被 writer 端取出的时间, 即在 reader 端缓冲和 channel 中停留的时间
+     */
+    private void statLatency(final Record record, long now) {
+        if (record instanceof TimedRecord) {
+            TimedRecord timedRecord = (TimedRecord) record;
+            long sendNanoTime = timedRecord.getSendNanoTime();
+            // 同一对象被重复发送时, 一批中的多个引用带有相同的时刻, 只统计一次
+            if (sendNanoTime != 0 && sendNanoTime != this.lastSendNanoTime) {
+                this.lastSendNanoTime = sendNanoTime;
+                if (this.consumedCount == this.consumedTimedRecords.length) {
+                    this.consumedTimedRecords = Arrays.copyOf(this.consumedTimedRecords, this.consumedCount * 2);
+                    this.consumedSendNanoTimes = Arrays.copyOf(this.consumedSendNanoTimes, this.consumedCount * 2);
+                }
+                this.consumedTimedRecords[this.consumedCount] = timedRecord;
+                this.consumedSendNanoTimes[this.consumedCount] = sendNanoTime;
+                this.consumedCount++;
+                this.channelLatency.recordValue(now - sendNanoTime);
+            }
+        }
+    }
+
+    /**
+     * 将本 channel 记录的延迟合并到 currentCommunication, 避免每条采样 record 都竞争 Communication 的锁
+     */
+    private void mergeChannelLatency(boolean isTerminated) {
+        if (this.channelLatency.getTotalCount() == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (isTerminated || now - this.lastLatencyMergeTime >= this.latencyMergeInterval) {
+            currentCommunication.addChannelLatency(this.channelLatency);
+            this.channelLatency.reset();
+            this.lastLatencyMergeTime = now;
+        }
+    }
+
+    /**
+     * writer 已处理完上一次 pull 的 record, 清零其中已统计的时刻, 使 reader 重复发送的对象可以再次被采样;
+     * reader 已重新打点的对象不会被清零
+     */
+    private void clearConsumedSendTimes() {
+        for (int i = 0; i < this.consumedCount; i++) {
+            this.consumedTimedRecords[i].compareAndSetSendNanoTime(this.consumedSendNanoTimes[i], 0L);
+            this.consumedTimedRecords[i] = null;
+        }
+        this.consumedCount = 0;
+    }
+
     private void statPull(long recordSize, long byteSize) {
         currentCommunication.increaseCounter(
-                CommunicationTool.WRITE_RECEIVED_RECORDS, recordSize);
+                CommunicationCounter.WRITE_RECEIVED_RECORDS, recordSize);
         currentCommunication.increaseCounter(
-                CommunicationTool.WRITE_RECEIVED_BYTES, byteSize);
+                CommunicationCounter.WRITE_RECEIVED_BYTES, byteSize);
     }
 
 }
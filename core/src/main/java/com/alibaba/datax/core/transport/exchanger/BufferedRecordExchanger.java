@@ -39,6 +39,8 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 
 	private volatile boolean shutdown = false;
 
+	private final SendTimeSampler sendTimeSampler;
+
 	private final TaskPluginCollector pluginCollector;
 
 	@SuppressWarnings("unchecked")
@@ -49,6 +51,7 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 		this.channel = channel;
 		this.pluginCollector = pluginCollector;
 		this.configuration = channel.getConfiguration();
+		this.sendTimeSampler = new SendTimeSampler(this.configuration);
 
 		this.bufferSize = configuration
 				.getInt(CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE);
@@ -97,6 +100,7 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 			flush();
 		}
 
+		this.sendTimeSampler.mark(record);
 		this.buffer.add(record);
 		this.bufferIndex++;
 		memoryBytes.addAndGet(record.getMemorySize());
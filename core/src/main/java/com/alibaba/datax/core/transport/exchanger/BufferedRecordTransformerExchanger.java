@@ -39,6 +39,8 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
 
     private volatile boolean shutdown = false;
 
+    private final SendTimeSampler sendTimeSampler;
+
 
     @SuppressWarnings("unchecked")
     public BufferedRecordTransformerExchanger(final int taskGroupId, final int taskId,
@@ -51,6 +53,7 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
 
         this.channel = channel;
         this.configuration = channel.getConfiguration();
+        this.sendTimeSampler = new SendTimeSampler(this.configuration);
 
         this.bufferSize = configuration
                 .getInt(CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE);
@@ -105,6 +108,7 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
             flush();
         }
 
+        this.sendTimeSampler.mark(record);
         this.buffer.add(record);
         this.bufferIndex++;
         memoryBytes.addAndGet(record.getMemorySize());
@@ -42,12 +42,15 @@ public class RecordExchanger extends TransformerExchanger implements RecordSende
 
 	private volatile boolean shutdown = false;
 
+	private final SendTimeSampler sendTimeSampler;
+
 	@SuppressWarnings("unchecked")
 	public RecordExchanger(final int taskGroupId, final int taskId,final Channel channel, final Communication communication,List<TransformerExecution> transformerExecs, final TaskPluginCollector pluginCollector) {
 		super(taskGroupId,taskId,communication,transformerExecs, pluginCollector);
 		assert channel != null;
 		this.channel = channel;
 		this.configuration = channel.getConfiguration();
+		this.sendTimeSampler = new SendTimeSampler(this.configuration);
 		try {
 			RecordExchanger.RECORD_CLASS = (Class<? extends Record>) Class
 					.forName(configuration.getString(
@@ -87,6 +90,7 @@ public class RecordExchanger extends TransformerExchanger implements RecordSende
 		if (record == null) {
 			return;
 		}
+		this.sendTimeSampler.mark(record);
 		this.channel.push(record);
 		//和channel的统计保持同步
 		doStat();
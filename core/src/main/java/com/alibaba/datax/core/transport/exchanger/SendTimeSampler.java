@@ -0,0 +1,35 @@
+package com.alibaba.datax.core.transport.exchanger;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.TimedRecord;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.util.container.CoreConstant;
+
+/**
+ * reader 调用 sendToWriter 时, 每 latencySampleInterval 条 record 记录一次当时的 System.nanoTime(),
+ * 供 writer 端统计 record 从 reader 到 writer 的延迟, 配置为0时不采样。
+ * reader 可能反复发送同一个 record 对象, 缓冲和 channel 中的多个引用指向同一对象, 因此只在时刻为0时打点,
+ * 不覆盖尚未被消费的时刻; 时刻由 Channel 在 writer 处理完该对象后清零(streamwriter 的 discard 模式读取后即清零)。
+ * 每个 exchanger 一个实例, 只由 reader 线程调用。
+ */
+class SendTimeSampler {
+
+	private final int sampleInterval;
+
+	private int count = 0;
+
+	SendTimeSampler(Configuration configuration) {
+		this.sampleInterval = configuration.getInt(
+				CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_LATENCYSAMPLEINTERVAL, 64);
+	}
+
+	void mark(Record record) {
+		if (this.sampleInterval <= 0 || !(record instanceof TimedRecord)) {
+			return;
+		}
+		if (++this.count >= this.sampleInterval) {
+			this.count = 0;
+			((TimedRecord) record).compareAndSetSendNanoTime(0L, System.nanoTime());
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.alibaba.datax.core.transport.exchanger;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.record.TerminateRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一组同时运行的task共享的shuffle信息:
+ * 组内每个task的reader按shuffle列的hash把record发送到组内某个task的channel,
+ * 相同shuffle列取值的record总是由同一个writer写出。
+ * 所有reader都结束后才向每个channel发送TerminateRecord, writer收到后正常结束。
+ */
+public class ShuffleGroup {
+
+    private final int[] shuffleColumns;
+
+    private final List<Channel> channels = new ArrayList<Channel>();
+
+    private final AtomicInteger runningSenders;
+
+    public ShuffleGroup(final int[] shuffleColumns, final int senderCount) {
+        this.shuffleColumns = shuffleColumns;
+        this.runningSenders = new AtomicInteger(senderCount);
+    }
+
+    /**
+     * 组内task创建时注册各自的channel, 必须在任何reader启动前全部注册完成
+     */
+    public synchronized void addChannel(final Channel channel) {
+        this.channels.add(channel);
+    }
+
+    public synchronized List<Channel> getChannels() {
+        return Collections.unmodifiableList(new ArrayList<Channel>(this.channels));
+    }
+
+    public int selectChannel(final Record record, final int channelCount) {
+        int hash = 1;
+        for (int index : this.shuffleColumns) {
+            hash = 31 * hash + hashColumn(record.getColumn(index));
+        }
+        return (hash & Integer.MAX_VALUE) % channelCount;
+    }
+
+    /**
+     * 某个reader结束, 最后一个结束的reader负责通知所有writer
+     */
+    public void senderTerminated() {
+        if (this.runningSenders.decrementAndGet() == 0) {
+            for (Channel channel : this.getChannels()) {
+                channel.pushTerminate(TerminateRecord.get());
+            }
+        }
+    }
+
+    private static int hashColumn(final Column column) {
+        if (null == column || null == column.getRawData()) {
+            return 0;
+        }
+        Object rawData = column.getRawData();
+        if (rawData instanceof byte[]) {
+            return Arrays.hashCode((byte[]) rawData);
+        }
+        return rawData.hashCode();
+    }
+}
@@ -0,0 +1,177 @@
+package com.alibaba.datax.core.transport.exchanger;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.CommonErrorCode;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.RecordSender;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.transformer.TransformerExecution;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.apache.commons.lang.Validate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * reader端按shuffle列把record分发到ShuffleGroup中各个task的channel,
+ * 每个目标channel一个缓冲区, 单个缓冲区的字节上限为byteCapacity按channel个数均分,
+ * 保证每个reader缓存的数据量与不做shuffle时相同。
+ */
+public class ShuffleRecordExchanger extends TransformerExchanger implements RecordSender {
+
+    private final ShuffleGroup shuffleGroup;
+
+    private List<Channel> channels;
+
+    private List<List<Record>> buffers;
+
+    private int[] bufferBytes;
+
+    private final int bufferSize;
+
+    protected final int byteCapacity;
+
+    private int channelByteCapacity;
+
+    private static Class<? extends Record> RECORD_CLASS;
+
+    private volatile boolean shutdown = false;
+
+    private final SendTimeSampler sendTimeSampler;
+
+    @SuppressWarnings("unchecked")
+    public ShuffleRecordExchanger(final int taskGroupId, final int taskId,
+                                  final ShuffleGroup shuffleGroup, final Configuration configuration,
+                                  final Communication communication,
+                                  final TaskPluginCollector pluginCollector,
+                                  final List<TransformerExecution> tInfoExecs) {
+        super(taskGroupId, taskId, communication,
+                null == tInfoExecs ? Collections.<TransformerExecution>emptyList() : tInfoExecs,
+                pluginCollector);
+        this.shuffleGroup = shuffleGroup;
+        this.sendTimeSampler = new SendTimeSampler(configuration);
+
+        this.bufferSize = configuration
+                .getInt(CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE);
+
+        //channel的queue默认大小为8M，原来为64M
+        this.byteCapacity = configuration.getInt(
+                CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_CAPACITY_BYTE, 8 * 1024 * 1024);
+
+        try {
+            ShuffleRecordExchanger.RECORD_CLASS = ((Class<? extends Record>) Class
+                    .forName(configuration.getString(
+                            CoreConstant.DATAX_CORE_TRANSPORT_RECORD_CLASS,
+                            "com.alibaba.datax.core.transport.record.DefaultRecord")));
+        } catch (Exception e) {
+            throw DataXException.asDataXException(
+                    FrameworkErrorCode.CONFIG_ERROR, e);
+        }
+    }
+
+    @Override
+    public Record createRecord() {
+        try {
+            return ShuffleRecordExchanger.RECORD_CLASS.newInstance();
+        } catch (Exception e) {
+            throw DataXException.asDataXException(
+                    FrameworkErrorCode.CONFIG_ERROR, e);
+        }
+    }
+
+    @Override
+    public void sendToWriter(Record record) {
+        if (shutdown) {
+            throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
+        }
+
+        Validate.notNull(record, "record不能为空.");
+
+        record = doTransformer(record);
+
+        if (record == null) {
+            return;
+        }
+
+        if (record.getMemorySize() > this.byteCapacity) {
+            this.pluginCollector.collectDirtyRecord(record, new Exception(String.format("单条记录超过大小限制，当前限制为:%s", this.byteCapacity)));
+            return;
+        }
+
+        initBuffers();
+        int target = this.shuffleGroup.selectChannel(record, this.channels.size());
+        List<Record> buffer = this.buffers.get(target);
+
+        boolean isFull = (buffer.size() >= this.bufferSize || this.bufferBytes[target] + record.getMemorySize() > this.channelByteCapacity);
+        if (isFull && !buffer.isEmpty()) {
+            flush(target);
+        }
+
+        this.sendTimeSampler.mark(record);
+        buffer.add(record);
+        this.bufferBytes[target] += record.getMemorySize();
+    }
+
+    @Override
+    public void flush() {
+        if (shutdown) {
+            throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
+        }
+        if (null == this.channels) {
+            return;
+        }
+        for (int i = 0; i < this.channels.size(); i++) {
+            if (!this.buffers.get(i).isEmpty()) {
+                flush(i);
+            }
+        }
+    }
+
+    @Override
+    public void terminate() {
+        if (shutdown) {
+            throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
+        }
+        flush();
+        this.shuffleGroup.senderTerminated();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (null != this.buffers) {
+            for (List<Record> buffer : this.buffers) {
+                buffer.clear();
+            }
+        }
+    }
+
+    private void flush(int target) {
+        this.channels.get(target).pushAll(this.buffers.get(target));
+        //和channel的统计保持同步
+        doStat();
+        this.buffers.get(target).clear();
+        this.bufferBytes[target] = 0;
+    }
+
+    /**
+     * 第一次发送时组内channel已全部注册, 这里才确定目标channel列表
+     */
+    private void initBuffers() {
+        if (null != this.channels) {
+            return;
+        }
+        this.channels = this.shuffleGroup.getChannels();
+        this.buffers = new ArrayList<List<Record>>(this.channels.size());
+        for (int i = 0; i < this.channels.size(); i++) {
+            this.buffers.add(new ArrayList<Record>());
+        }
+        this.bufferBytes = new int[this.channels.size()];
+        this.channelByteCapacity = Math.max(this.byteCapacity / this.channels.size(), 1);
+    }
+}
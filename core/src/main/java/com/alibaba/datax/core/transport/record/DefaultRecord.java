@@ -2,6 +2,7 @@ package com.alibaba.datax.core.transport.record;
 
 import com.alibaba.datax.common.element.Column;
 import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.TimedRecord;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.core.util.ClassSize;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
@@ -11,15 +12,19 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Created by jingxing on 14-8-24.
  */
 
-public class DefaultRecord implements Record {
+public class DefaultRecord implements Record, TimedRecord {
 
 	private static final int RECORD_AVERGAE_COLUMN_NUMBER = 16;
 
+	private static final AtomicLongFieldUpdater<DefaultRecord> SEND_NANO_TIME_UPDATER =
+			AtomicLongFieldUpdater.newUpdater(DefaultRecord.class, "sendNanoTime");
+
 	private List<Column> columns;
 
 	private int byteSize;
@@ -27,6 +32,9 @@ public class DefaultRecord implements Record {
 	// 首先是Record本身需要的内存
 	private int memorySize = ClassSize.DefaultRecordHead;
 
+	// reader 调用 sendToWriter 的时刻, 未采样时为0
+	private volatile long sendNanoTime;
+
 	public DefaultRecord() {
 		this.columns = new ArrayList<Column>(RECORD_AVERGAE_COLUMN_NUMBER);
 	}
@@ -83,6 +91,21 @@ public class DefaultRecord implements Record {
 		return memorySize;
 	}
 
+	@Override
+	public void setSendNanoTime(long sendNanoTime) {
+		this.sendNanoTime = sendNanoTime;
+	}
+
+	@Override
+	public long getSendNanoTime() {
+		return sendNanoTime;
+	}
+
+	@Override
+	public boolean compareAndSetSendNanoTime(long expect, long update) {
+		return SEND_NANO_TIME_UPDATER.compareAndSet(this, expect, update);
+	}
+
 	private void decrByteSize(final Column column) {
 		if (null == column) {
 			return;
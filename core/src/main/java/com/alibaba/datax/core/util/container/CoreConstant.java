@@ -61,8 +61,14 @@ public class CoreConstant {
 
 	public static final String DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE = "core.transport.exchanger.bufferSize";
 
+	public static final String DATAX_CORE_TRANSPORT_EXCHANGER_LATENCYSAMPLEINTERVAL = "core.transport.exchanger.latencySampleInterval";
+
     public static final String DATAX_CORE_TRANSPORT_RECORD_CLASS = "core.transport.record.class";
 
+	public static final String DATAX_CORE_METRICS_HTTPPORT = "core.metrics.httpPort";
+
+	public static final String DATAX_CORE_METRICS_JMXENABLE = "core.metrics.jmxEnable";
+
 	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_TASKCLASS = "core.statistics.collector.plugin.taskClass";
 
 	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_MAXDIRTYNUM = "core.statistics.collector.plugin.maxDirtyNumber";
@@ -97,6 +103,17 @@ public class CoreConstant {
 
     public static final String DATAX_JOB_SETTING_DRYRUN = "job.setting.dryRun";
 
+    // 按指定列的hash把record分发到同一批运行的writer task, 分区写入时减少小文件;
+    // 同一 taskGroup 内的 task 按 channel 数分批, 一批全部结束后才启动下一批
+    public static final String DATAX_JOB_SETTING_SHUFFLE_COLUMNS = "job.setting.shuffle.columns";
+
+    // 断点文件目录, 配置后 job 失败重跑时跳过已经成功的 task
+    public static final String DATAX_JOB_SETTING_CHECKPOINT_DIR = "job.setting.checkpoint.dir";
+
+    // 设为 true 时 writer 的 init、prepare 与 reader 的 init、prepare、split 并行执行, 默认关闭;
+    // writer 的 prepare(如 preSql、truncate)会影响 reader 读取的数据时(如操作同一张表)不能开启
+    public static final String DATAX_JOB_SETTING_PARALLELPREPARE = "job.setting.parallelPrepare";
+
     public static final String DATAX_JOB_PREHANDLER_PLUGINTYPE = "job.preHandler.pluginType";
 
     public static final String DATAX_JOB_PREHANDLER_PLUGINNAME = "job.preHandler.pluginName";
@@ -119,6 +136,9 @@ public class CoreConstant {
 
 	public static final String JOB_WRITER_PARAMETER = "writer.parameter";
 
+	// writer 分区写入时的分区列下标(hdfswriter 的 colIndexes), shuffle 时用来校验 shuffle 列
+	public static final String JOB_WRITER_PARAMETER_PARTITION_COLUMNS = "writer.parameter.colIndexes";
+
 	public static final String TRANSFORMER_PARAMETER_COLUMNINDEX = "parameter.columnIndex";
 	public static final String TRANSFORMER_PARAMETER_PARAS = "parameter.paras";
 	public static final String TRANSFORMER_PARAMETER_CONTEXT = "parameter.context";
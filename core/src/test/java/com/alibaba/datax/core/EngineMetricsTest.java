@@ -0,0 +1,102 @@
+package com.alibaba.datax.core;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.Scanner;
+
+/**
+ * 指标导出的启停不影响容器运行, 也不会掩盖容器抛出的异常
+ */
+public class EngineMetricsTest {
+
+    @Test
+    public void testContainerExceptionNotMaskedByMetrics() throws Exception {
+        final int port = freePort();
+        Configuration configuration = Configuration.newDefault();
+        configuration.set(CoreConstant.DATAX_CORE_METRICS_HTTPPORT, port);
+        configuration.set(CoreConstant.DATAX_CORE_METRICS_JMXENABLE, true);
+        final RuntimeException failure = new RuntimeException("container failed");
+        final String[] scraped = new String[1];
+
+        try {
+            Engine.startContainer(new AbstractContainer(configuration) {
+                @Override
+                public void start() {
+                    scraped[0] = scrape(port);
+                    throw failure;
+                }
+            }, configuration, 9, true);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertSame(failure, e);
+        }
+        Assert.assertTrue(scraped[0], scraped[0].contains("# TYPE datax_read_records_total counter"));
+
+        // 容器结束后 exporter 已经关闭, 端口可以再次使用
+        new ServerSocket(port).close();
+    }
+
+    @Test
+    public void testInvalidMetricsConfiguration() {
+        Configuration configuration = Configuration.newDefault();
+        configuration.set(CoreConstant.DATAX_CORE_METRICS_JMXENABLE, "yes");
+        configuration.set(CoreConstant.DATAX_CORE_METRICS_HTTPPORT, "abc");
+        final DataXException failure = DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR,
+                "container failed");
+
+        try {
+            Engine.startContainer(new AbstractContainer(configuration) {
+                @Override
+                public void start() {
+                    throw failure;
+                }
+            }, configuration, 9, true);
+            Assert.fail();
+        } catch (DataXException e) {
+            Assert.assertSame(failure, e);
+        }
+
+        final boolean[] started = new boolean[1];
+        Engine.startContainer(new AbstractContainer(configuration) {
+            @Override
+            public void start() {
+                started[0] = true;
+            }
+        }, configuration, 9, true);
+        Assert.assertTrue(started[0]);
+    }
+
+    private static int freePort() throws Exception {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static String scrape(int port) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/metrics")
+                    .openConnection();
+            Assert.assertEquals(200, connection.getResponseCode());
+            InputStream in = connection.getInputStream();
+            try {
+                return new Scanner(in, "UTF-8").useDelimiter("\\A").next();
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,10 +2,15 @@ package com.alibaba.datax.core.container;
 
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.container.util.JobAssignUtil;
+import com.alibaba.datax.core.util.container.CoreConstant;
 import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class JobAssignUtilTest {
@@ -53,4 +58,34 @@ public class JobAssignUtilTest {
 
 //        System.out.println(configuration);
     }
+
+    /**
+     * 断点续传时 content 只剩未完成的 task, 且 taskId 不连续
+     */
+    @Test
+    public void test_resumeWithSparseTaskIds() {
+        Configuration configuration = Configuration.newDefault();
+        List<Configuration> content = new ArrayList<Configuration>();
+        for (int taskId : new int[]{1, 2, 4}) {
+            Configuration taskConfig = Configuration.newDefault();
+            taskConfig.set(CoreConstant.TASK_ID, taskId);
+            taskConfig.set("reader.parameter.split", "split-" + taskId);
+            taskConfig.set("reader.parameter.loadBalanceResourceMark", "db");
+            content.add(taskConfig);
+        }
+        configuration.set(CoreConstant.DATAX_JOB_CONTENT, content);
+
+        List<Configuration> result = JobAssignUtil.assignFairly(configuration, 2, 1);
+
+        List<Integer> assignedTaskIds = new ArrayList<Integer>();
+        for (Configuration taskGroupConfig : result) {
+            for (Configuration taskConfig : taskGroupConfig.getListConfiguration(CoreConstant.DATAX_JOB_CONTENT)) {
+                int taskId = taskConfig.getInt(CoreConstant.TASK_ID);
+                Assert.assertEquals("split-" + taskId, taskConfig.getString("reader.parameter.split"));
+                assignedTaskIds.add(taskId);
+            }
+        }
+        Collections.sort(assignedTaskIds);
+        Assert.assertEquals(Arrays.asList(1, 2, 4), assignedTaskIds);
+    }
 }
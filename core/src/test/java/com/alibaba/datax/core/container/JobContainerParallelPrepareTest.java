@@ -0,0 +1,271 @@
+package com.alibaba.datax.core.container;
+
+import com.alibaba.datax.common.plugin.RecordReceiver;
+import com.alibaba.datax.common.plugin.RecordSender;
+import com.alibaba.datax.common.spi.Reader;
+import com.alibaba.datax.common.spi.Writer;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.job.JobContainer;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.alibaba.datax.core.util.container.LoadUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 开启 parallelPrepare 时 writer 的 init/prepare 与 reader 并行执行,
+ * reader 出错时等待 writer 的阶段结束后再抛出 reader 的异常
+ */
+public class JobContainerParallelPrepareTest {
+    private static final String READER_NAME = "parallelpreparereader";
+    private static final String WRITER_NAME = "parallelpreparewriter";
+
+    private static final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    private static final Map<String, CountDownLatch> readerStarted = new HashMap<String, CountDownLatch>();
+    private static volatile String readerFailPhase;
+    private static volatile String writerWaitPhase;
+    private static volatile boolean writerFails;
+
+    private File pluginDir;
+    private Configuration configuration;
+
+    @Before
+    public void setUp() throws Exception {
+        events.clear();
+        synchronized (readerStarted) {
+            readerStarted.clear();
+            for (String phase : new String[]{"init", "prepare", "split"}) {
+                readerStarted.put(phase, new CountDownLatch(1));
+            }
+        }
+        readerFailPhase = null;
+        writerWaitPhase = "split";
+        writerFails = false;
+
+        this.pluginDir = File.createTempFile("datax-plugin", "");
+        Assert.assertTrue(this.pluginDir.delete() && this.pluginDir.mkdir());
+
+        this.configuration = Configuration.newDefault();
+        this.configuration.set(CoreConstant.DATAX_CORE_CONTAINER_JOB_ID, 0);
+        this.configuration.set(CoreConstant.DATAX_JOB_SETTING_PARALLELPREPARE, true);
+        this.configuration.set(CoreConstant.DATAX_JOB_SETTING_SPEED_CHANNEL, 2);
+        this.configuration.set(CoreConstant.DATAX_JOB_CONTENT_READER_NAME, READER_NAME);
+        this.configuration.set(CoreConstant.DATAX_JOB_CONTENT_READER_PARAMETER, Configuration.newDefault());
+        this.configuration.set(CoreConstant.DATAX_JOB_CONTENT_WRITER_NAME, WRITER_NAME);
+        this.configuration.set(CoreConstant.DATAX_JOB_CONTENT_WRITER_PARAMETER, Configuration.newDefault());
+        this.configuration.set("plugin.reader." + READER_NAME + ".class", SlowReader.class.getName());
+        this.configuration.set("plugin.reader." + READER_NAME + ".path", this.pluginDir.getAbsolutePath());
+        this.configuration.set("plugin.writer." + WRITER_NAME + ".class", SlowWriter.class.getName());
+        this.configuration.set("plugin.writer." + WRITER_NAME + ".path", this.pluginDir.getAbsolutePath());
+        LoadUtil.bind(this.configuration);
+    }
+
+    @After
+    public void tearDown() {
+        this.pluginDir.delete();
+    }
+
+    @Test
+    public void testWriterPrepareOverlapsReaderSplit() throws Exception {
+        JobContainer jobContainer = new JobContainer(this.configuration);
+        invoke(jobContainer, "init");
+        invoke(jobContainer, "prepare");
+        Assert.assertEquals(2, invoke(jobContainer, "split"));
+
+        // writer prepare 等到 reader split 开始后才结束, writer split 在 writer prepare 之后
+        Assert.assertTrue(events.toString(), events.indexOf("reader-split") < events.indexOf("writer-prepare-done"));
+        Assert.assertTrue(events.toString(), events.indexOf("writer-prepare-done") < events.indexOf("writer-split"));
+        Assert.assertTrue(events.toString(), events.contains("writer-init-daemon:job-0-writer-init"));
+        Assert.assertTrue(events.toString(), events.contains("writer-prepare-daemon:job-0-writer-prepare"));
+        Assert.assertEquals(2, this.configuration.getListConfiguration(CoreConstant.DATAX_JOB_CONTENT).size());
+    }
+
+    @Test
+    public void testReaderInitFailsWhileWriterInitRunning() throws Exception {
+        readerFailPhase = "init";
+        JobContainer jobContainer = new JobContainer(this.configuration);
+
+        assertReaderFailure(jobContainer, "init");
+        Assert.assertTrue(events.toString(), events.contains("writer-init-done"));
+    }
+
+    @Test
+    public void testReaderPrepareFailsWhileWriterPrepareRunning() throws Exception {
+        readerFailPhase = "prepare";
+        writerWaitPhase = "prepare";
+        JobContainer jobContainer = new JobContainer(this.configuration);
+        invoke(jobContainer, "init");
+
+        assertReaderFailure(jobContainer, "prepare");
+        Assert.assertTrue(events.toString(), events.contains("writer-prepare-done"));
+    }
+
+    @Test
+    public void testReaderSplitFailsWhileWriterPrepareRunning() throws Exception {
+        readerFailPhase = "split";
+        JobContainer jobContainer = new JobContainer(this.configuration);
+        invoke(jobContainer, "init");
+        invoke(jobContainer, "prepare");
+
+        assertReaderFailure(jobContainer, "split");
+        Assert.assertTrue(events.toString(), events.contains("writer-prepare-done"));
+        Assert.assertFalse(events.toString(), events.contains("writer-split"));
+    }
+
+    @Test
+    public void testReaderFailureNotMaskedByWriterFailure() throws Exception {
+        readerFailPhase = "split";
+        JobContainer jobContainer = new JobContainer(this.configuration);
+        invoke(jobContainer, "init");
+        writerFails = true;
+        invoke(jobContainer, "prepare");
+
+        assertReaderFailure(jobContainer, "split");
+        Assert.assertTrue(events.toString(), events.contains("writer-prepare-done"));
+    }
+
+    private static void assertReaderFailure(JobContainer jobContainer, String phase) throws Exception {
+        try {
+            invoke(jobContainer, phase);
+            Assert.fail();
+        } catch (InvocationTargetException e) {
+            Assert.assertEquals("reader " + phase + " failed", e.getCause().getMessage());
+        }
+    }
+
+    private static Object invoke(JobContainer jobContainer, String methodName) throws Exception {
+        Method method = JobContainer.class.getDeclaredMethod(methodName);
+        method.setAccessible(true);
+        return method.invoke(jobContainer);
+    }
+
+    private static void readerPhase(String phase) {
+        events.add("reader-" + phase);
+        synchronized (readerStarted) {
+            readerStarted.get(phase).countDown();
+        }
+        if (phase.equals(readerFailPhase)) {
+            throw new RuntimeException("reader " + phase + " failed");
+        }
+    }
+
+    /**
+     * 等待 reader 进入对应阶段后再稍作停留, 保证 reader 出错时 writer 的阶段仍在执行
+     */
+    private static void writerPhase(String phase, String waitFor) {
+        Thread thread = Thread.currentThread();
+        events.add("writer-" + phase + (thread.isDaemon() ? "-daemon:" : "-nondaemon:") + thread.getName());
+        CountDownLatch latch;
+        synchronized (readerStarted) {
+            latch = readerStarted.get(waitFor);
+        }
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                events.add("writer-" + phase + "-timeout");
+            }
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        events.add("writer-" + phase + "-done");
+        if (writerFails) {
+            throw new RuntimeException("writer " + phase + " failed");
+        }
+    }
+
+    public static class SlowReader extends Reader {
+        public static class Job extends Reader.Job {
+            @Override
+            public void init() {
+                readerPhase("init");
+            }
+
+            @Override
+            public void prepare() {
+                readerPhase("prepare");
+            }
+
+            @Override
+            public List<Configuration> split(int adviceNumber) {
+                readerPhase("split");
+                List<Configuration> configurations = new ArrayList<Configuration>();
+                for (int i = 0; i < adviceNumber; i++) {
+                    configurations.add(Configuration.newDefault());
+                }
+                return configurations;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        }
+
+        public static class Task extends Reader.Task {
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public void startRead(RecordSender recordSender) {
+            }
+
+            @Override
+            public void destroy() {
+            }
+        }
+    }
+
+    public static class SlowWriter extends Writer {
+        public static class Job extends Writer.Job {
+            @Override
+            public void init() {
+                writerPhase("init", "init");
+            }
+
+            @Override
+            public void prepare() {
+                writerPhase("prepare", writerWaitPhase);
+            }
+
+            @Override
+            public List<Configuration> split(int mandatoryNumber) {
+                events.add("writer-split");
+                List<Configuration> configurations = new ArrayList<Configuration>();
+                for (int i = 0; i < mandatoryNumber; i++) {
+                    configurations.add(Configuration.newDefault());
+                }
+                return configurations;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        }
+
+        public static class Task extends Writer.Task {
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public void startWrite(RecordReceiver lineReceiver) {
+            }
+
+            @Override
+            public void destroy() {
+            }
+        }
+    }
+}
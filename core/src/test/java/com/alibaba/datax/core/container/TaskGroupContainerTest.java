@@ -106,6 +106,30 @@ public class TaskGroupContainerTest extends CaseInitializer {
         Assert.assertTrue("task finished", state.equals(State.SUCCEEDED));
     }
 
+    @Test
+    public void testShuffle() throws InterruptedException {
+        this.configuration.set(CoreConstant.DATAX_JOB_SETTING_SHUFFLE_COLUMNS, new int[]{0});
+        TaskGroupContainer taskGroupContainer = new TaskGroupContainer(this.configuration);
+        taskGroupContainer.start();
+
+        AbstractContainerCommunicator collector = taskGroupContainer.getContainerCommunicator();
+        Communication totalTaskCommunication = collector.collect();
+        Assert.assertEquals(State.SUCCEEDED, totalTaskCommunication.getState());
+        Assert.assertTrue(CommunicationTool.getTotalReadRecords(totalTaskCommunication) > 0);
+        Assert.assertEquals(CommunicationTool.getTotalReadRecords(totalTaskCommunication),
+                totalTaskCommunication.getLongCounter(CommunicationTool.WRITE_RECEIVED_RECORDS).longValue());
+    }
+
+    @Test(expected = RuntimeException.class, timeout = 60000)
+    public void testShuffleWriterException() {
+        // writer 失败后同批 reader 不能一直阻塞在其 channel 上
+        this.configuration.set(CoreConstant.DATAX_JOB_SETTING_SHUFFLE_COLUMNS, new int[]{0});
+        this.configuration.set("plugin.writer.fakewriter.class",
+                FakeExceptionWriter.class.getName());
+        TaskGroupContainer taskGroupContainer = new TaskGroupContainer(this.configuration);
+        taskGroupContainer.start();
+    }
+
     @Test(expected = RuntimeException.class)
     public void testReaderException() {
         this.configuration.set("plugin.reader.fakereader.class",
@@ -0,0 +1,90 @@
+package com.alibaba.datax.core.job;
+
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JobCheckpointTest {
+    private File dir;
+
+    @Before
+    public void setUp() {
+        dir = new File(System.getProperty("java.io.tmpdir"), "datax-checkpoint-" + System.nanoTime());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void resumeTest() throws Exception {
+        Configuration jobConf = newJobConf("select 1");
+        Assert.assertNull(JobCheckpoint.open(Configuration.from("{\"job\":{\"content\":[]}}"), 1, true));
+
+        JobCheckpoint checkpoint = JobCheckpoint.open(jobConf, 1, true);
+        Assert.assertFalse(checkpoint.isResume());
+        checkpoint.saveContent(newTasks(3));
+        File contentFile = dir.listFiles()[0];
+        String content = readFile(contentFile);
+        checkpoint.markFinished(1);
+        checkpoint.markFinished(1);
+
+        // 完成的 task 只追加到 finished 文件, 不重写 split 的结果
+        Assert.assertEquals(content, readFile(contentFile));
+        File finishedFile = new File(contentFile.getPath() + ".finished");
+        Assert.assertEquals("1\n", readFile(finishedFile));
+        // 中断时写了一半的行不算完成
+        FileUtils.writeStringToFile(finishedFile, "2", "UTF-8", true);
+
+        JobCheckpoint resumed = JobCheckpoint.open(newJobConf("select 1"), 1, true);
+        Assert.assertTrue(resumed.isResume());
+        List<Configuration> remaining = resumed.getRemainingContent();
+        Assert.assertEquals(2, remaining.size());
+        Assert.assertEquals(0, (int) remaining.get(0).getInt(CoreConstant.TASK_ID));
+        Assert.assertEquals(2, (int) remaining.get(1).getInt(CoreConstant.TASK_ID));
+        Assert.assertEquals("where id < 0", remaining.get(0).getString("reader.parameter.where"));
+        resumed.markFinished(0);
+        Assert.assertEquals("1\n0\n", readFile(finishedFile));
+
+        // job 配置改变后不使用旧断点
+        Assert.assertFalse(JobCheckpoint.open(newJobConf("select 2"), 1, true).isResume());
+
+        // writer 不支持断点恢复时即使有断点也完整运行
+        Assert.assertNull(JobCheckpoint.open(newJobConf("select 1"), 1, false));
+
+        resumed.complete();
+        Assert.assertEquals(0, dir.listFiles().length);
+        Assert.assertFalse(JobCheckpoint.open(newJobConf("select 1"), 1, true).isResume());
+    }
+
+    private String readFile(File file) throws Exception {
+        return FileUtils.readFileToString(file, "UTF-8");
+    }
+
+    private Configuration newJobConf(String querySql) {
+        Configuration jobConf = Configuration.newDefault();
+        jobConf.set(CoreConstant.DATAX_JOB_SETTING_CHECKPOINT_DIR, dir.getAbsolutePath());
+        jobConf.set(CoreConstant.DATAX_JOB_CONTENT + "[0].reader.parameter.querySql", querySql);
+        return jobConf;
+    }
+
+    private List<Configuration> newTasks(int count) {
+        List<Configuration> tasks = new ArrayList<Configuration>();
+        for (int i = 0; i < count; i++) {
+            Configuration task = Configuration.newDefault();
+            task.set(CoreConstant.TASK_ID, i);
+            task.set("reader.parameter.where", "where id < " + i);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
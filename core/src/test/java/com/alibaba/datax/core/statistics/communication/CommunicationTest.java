@@ -1,5 +1,6 @@
 package com.alibaba.datax.core.statistics.communication;
 
+import com.alibaba.datax.common.statistics.LatencyHistogram;
 import com.alibaba.datax.dataxservice.face.domain.enums.State;
 import org.junit.Assert;
 import org.junit.Test;
@@ -97,6 +98,149 @@ public class CommunicationTest {
         Assert.assertEquals(2, comm.getMessage("message").size());
     }
 
+    @Test
+    public void channelLatencyTest() {
+        Communication comm1 = new Communication();
+        Assert.assertNull(comm1.getChannelLatency());
+        LatencyHistogram latency = new LatencyHistogram();
+        latency.recordValue(1000);
+        comm1.addChannelLatency(latency);
+        latency.reset();
+        latency.recordValue(3000);
+        comm1.addChannelLatency(latency);
+        latency.reset();
+        comm1.addChannelLatency(latency);
+        Assert.assertEquals(2, comm1.getChannelLatency().getTotalCount());
+
+        Communication comm2 = new Communication();
+        latency.recordValue(2000);
+        comm2.addChannelLatency(latency);
+
+        Communication comm = new Communication();
+        comm.mergeFrom(comm1);
+        comm.mergeFrom(comm2);
+        Assert.assertEquals(3, comm.getChannelLatency().getTotalCount());
+        Assert.assertEquals(1000, comm.getChannelLatency().getMin());
+        Assert.assertEquals(3000, comm.getChannelLatency().getMax());
+        Assert.assertEquals(2, comm1.getChannelLatency().getTotalCount());
+
+        Assert.assertEquals(3, comm.clone().getChannelLatency().getTotalCount());
+
+        comm.reset();
+        Assert.assertNull(comm.getChannelLatency());
+    }
+
+    @Test
+    public void fixedCounterTest() throws InterruptedException {
+        Assert.assertEquals(CommunicationCounter.READ_SUCCEED_RECORDS,
+                CommunicationCounter.fromKey(CommunicationTool.READ_SUCCEED_RECORDS));
+        Assert.assertEquals(CommunicationCounter.WAIT_READER_TIME,
+                CommunicationCounter.fromKey(CommunicationTool.WAIT_READER_TIME));
+        Assert.assertEquals(CommunicationCounter.TRANSFORMER_USED_TIME,
+                CommunicationCounter.fromKey(CommunicationTool.TRANSFORMER_USED_TIME));
+        Assert.assertNull(CommunicationCounter.fromKey("long"));
+
+        final Communication comm = new Communication();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100000; j++) {
+                        comm.increaseCounter(CommunicationCounter.READ_SUCCEED_RECORDS, 1);
+                        comm.increaseCounter("dynamic", 1);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(400000, (long) comm.getLongCounter(CommunicationTool.READ_SUCCEED_RECORDS));
+        Assert.assertEquals(400000, (long) comm.getLongCounter("dynamic"));
+
+        comm.setLongCounter(CommunicationTool.READ_SUCCEED_RECORDS, 7);
+        Assert.assertEquals(7, comm.getLongCounter(CommunicationCounter.READ_SUCCEED_RECORDS));
+        Assert.assertEquals(7L, comm.getCounter().get(CommunicationTool.READ_SUCCEED_RECORDS));
+        Assert.assertEquals(0L, comm.getCounter().get(CommunicationTool.READ_FAILED_RECORDS));
+        Assert.assertEquals(400000L, comm.getCounter().get("dynamic"));
+
+        Communication merged = comm.clone().mergeFrom(comm);
+        Assert.assertEquals(14, merged.getLongCounter(CommunicationCounter.READ_SUCCEED_RECORDS));
+        Assert.assertEquals(800000, (long) merged.getLongCounter("dynamic"));
+    }
+
+    @Test
+    public void concurrentSetTest() throws InterruptedException {
+        final Communication comm = new Communication();
+        Thread[] threads = new Thread[4];
+        final long[] values = new long[]{1, 10, 100, 1000};
+        for (int i = 0; i < threads.length; i++) {
+            final long value = values[i];
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 200000; j++) {
+                        comm.setLongCounter(CommunicationCounter.WAIT_READER_TIME, value);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        // 任何时刻读到的都是某一次 set 的值, 不会是多次 set 叠加或部分清零的结果
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads) {
+                running |= thread.isAlive();
+            }
+            long value = comm.getLongCounter(CommunicationCounter.WAIT_READER_TIME);
+            Assert.assertTrue(String.valueOf(value),
+                    value == 0 || value == 1 || value == 10 || value == 100 || value == 1000);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    public void resetTest() throws InterruptedException {
+        final Communication comm = new Communication();
+        final int adds = 200000;
+        Thread adder = new Thread() {
+            @Override
+            public void run() {
+                for (int j = 0; j < adds; j++) {
+                    comm.increaseCounter(CommunicationCounter.READ_SUCCEED_RECORDS, 1);
+                }
+            }
+        };
+        adder.start();
+        while (adder.isAlive()) {
+            comm.reset();
+            // 原地清零后的值只会来自清零之后的累加
+            long value = comm.getLongCounter(CommunicationCounter.READ_SUCCEED_RECORDS);
+            Assert.assertTrue(String.valueOf(value), value >= 0 && value <= adds);
+        }
+        adder.join();
+
+        comm.increaseCounter("dynamic", 1);
+        comm.addMessage("message", "m");
+        comm.setState(State.FAILED);
+        comm.setThrowable(new RuntimeException());
+        comm.reset();
+        comm.increaseCounter(CommunicationCounter.READ_SUCCEED_RECORDS, 3);
+        Assert.assertEquals(3, comm.getLongCounter(CommunicationCounter.READ_SUCCEED_RECORDS));
+        Assert.assertEquals(State.RUNNING, comm.getState());
+        Assert.assertNull(comm.getThrowable());
+        Assert.assertTrue(comm.getMessage().isEmpty());
+        Assert.assertFalse(comm.getCounter().containsKey("dynamic"));
+        // 固定 counter 在清零后仍然全部输出
+        Assert.assertEquals(CommunicationCounter.values().length, comm.getCounter().size());
+        Assert.assertEquals(0L, comm.getCounter().get(CommunicationTool.WRITE_RECEIVED_RECORDS));
+    }
+
     @Test
     public void testMergeStateFrom() {
         Communication comm1 = new Communication();
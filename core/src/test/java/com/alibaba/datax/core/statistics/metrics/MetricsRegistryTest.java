@@ -0,0 +1,220 @@
+package com.alibaba.datax.core.statistics.metrics;
+
+import com.alibaba.datax.common.statistics.LatencyHistogram;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.communication.LocalTGCommunicationManager;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.alibaba.datax.dataxservice.face.domain.enums.State;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用已知 counter 的 Communication 验证 prometheus 输出与 MBean 取值
+ */
+public class MetricsRegistryTest {
+    private static final long JOB_ID = 7;
+
+    private Communication runningTask;
+
+    @Before
+    public void setUp() {
+        MetricsRegistry.setJobId(JOB_ID);
+
+        Map<Integer, Communication> taskGroup0 = new ConcurrentHashMap<Integer, Communication>();
+        this.runningTask = communication(State.RUNNING, 10, 100, 4);
+        this.runningTask.setLongCounter(CommunicationTool.WAIT_READER_TIME, 1500000000L);
+        this.runningTask.setLongCounter(CommunicationTool.TRANSFORMER_USED_TIME, 2000000L);
+        taskGroup0.put(0, this.runningTask);
+        taskGroup0.put(1, communication(State.SUCCEEDED, 5, 50, 5));
+        MetricsRegistry.registerTaskGroup(0, taskGroup0, 2048);
+
+        Map<Integer, Communication> taskGroup1 = new ConcurrentHashMap<Integer, Communication>();
+        Communication dirtyTask = communication(State.RUNNING, 0, 0, 0);
+        dirtyTask.setLongCounter(CommunicationTool.READ_FAILED_RECORDS, 2);
+        dirtyTask.setLongCounter(CommunicationTool.WRITE_FAILED_RECORDS, 1);
+        taskGroup1.put(0, dirtyTask);
+        MetricsRegistry.registerTaskGroup(1, taskGroup1, 512);
+
+        Communication reported = new Communication();
+        reported.setLongCounter(CommunicationTool.RECORD_SPEED, 100);
+        reported.setLongCounter(CommunicationTool.BYTE_SPEED, 1000);
+        LatencyHistogram latency = new LatencyHistogram();
+        latency.recordValue(1000000);
+        latency.recordValue(3000000);
+        reported.addChannelLatency(latency);
+        LocalTGCommunicationManager.registerTaskGroupCommunication(0, reported);
+    }
+
+    @After
+    public void tearDown() {
+        DataXMetrics.stop();
+        LocalTGCommunicationManager.clear();
+    }
+
+    @Test
+    public void testScrape() {
+        String text = MetricsRegistry.scrape();
+
+        // taskGroup 级别包含已结束的 task
+        assertSample(text, "datax_read_records_total{job=\"7\",taskGroup=\"0\"} 15");
+        assertSample(text, "datax_read_bytes_total{job=\"7\",taskGroup=\"0\"} 150");
+        assertSample(text, "datax_write_received_records_total{job=\"7\",taskGroup=\"0\"} 9");
+        assertSample(text, "datax_read_records_total{job=\"7\",taskGroup=\"1\"} 0");
+        assertSample(text, "datax_dirty_records_total{job=\"7\",taskGroup=\"1\"} 3");
+        assertSample(text, "datax_wait_reader_seconds_total{job=\"7\",taskGroup=\"0\"} 1.5");
+        assertSample(text, "datax_transformer_seconds_total{job=\"7\",taskGroup=\"0\"} 0.002");
+
+        // task 级别只包含未结束的 task
+        assertSample(text, "datax_task_read_records_total{job=\"7\",taskGroup=\"0\",task=\"0\"} 10");
+        Assert.assertFalse(text, text.contains("taskGroup=\"0\",task=\"1\""));
+        assertSample(text, "datax_task_channel_pending_records{job=\"7\",taskGroup=\"0\",task=\"0\"} 6");
+        assertSample(text, "datax_task_channel_pending_records{job=\"7\",taskGroup=\"1\",task=\"0\"} 0");
+
+        assertSample(text, "datax_channel_capacity_records{job=\"7\",taskGroup=\"0\"} 2048");
+        assertSample(text, "datax_channel_capacity_records{job=\"7\",taskGroup=\"1\"} 512");
+        assertSample(text, "datax_unfinished_tasks{job=\"7\",taskGroup=\"0\"} 1");
+        assertSample(text, "datax_unfinished_tasks{job=\"7\",taskGroup=\"1\"} 1");
+
+        // 只有已汇报的 taskGroup 有速度和延迟
+        assertSample(text, "datax_speed_records_per_second{job=\"7\",taskGroup=\"0\"} 100");
+        assertSample(text, "datax_speed_bytes_per_second{job=\"7\",taskGroup=\"0\"} 1000");
+        assertSample(text, "datax_channel_latency_seconds_count{job=\"7\",taskGroup=\"0\"} 2");
+        assertSample(text, "datax_channel_latency_seconds_sum{job=\"7\",taskGroup=\"0\"} 0.004");
+        Assert.assertFalse(text, text.contains("datax_speed_records_per_second{job=\"7\",taskGroup=\"1\"}"));
+
+        Assert.assertTrue(text.indexOf("datax_read_records_total{job=\"7\",taskGroup=\"0\"}")
+                < text.indexOf("datax_read_records_total{job=\"7\",taskGroup=\"1\"}"));
+        assertWellFormed(text);
+    }
+
+    @Test
+    public void testTaskGroupRegistration() {
+        // 读取的是登记的 map 本身, counter 的变化在下一次 scrape 中可见
+        this.runningTask.increaseCounter(CommunicationTool.READ_SUCCEED_RECORDS, 5);
+        assertSample(MetricsRegistry.scrape(), "datax_read_records_total{job=\"7\",taskGroup=\"0\"} 20");
+
+        // 重新登记同一个 taskGroup 时替换原来的 map
+        Map<Integer, Communication> replaced = new ConcurrentHashMap<Integer, Communication>();
+        replaced.put(3, communication(State.RUNNING, 20, 200, 0));
+        MetricsRegistry.registerTaskGroup(1, replaced, 256);
+        Map<Integer, Communication> added = new ConcurrentHashMap<Integer, Communication>();
+        added.put(0, communication(State.SUCCEEDED, 1, 1, 1));
+        MetricsRegistry.registerTaskGroup(2, added, 128);
+        Assert.assertEquals("[0, 1, 2]", MetricsRegistry.getTaskGroupIds().toString());
+
+        String text = MetricsRegistry.scrape();
+        assertSample(text, "datax_read_records_total{job=\"7\",taskGroup=\"1\"} 20");
+        assertSample(text, "datax_task_read_records_total{job=\"7\",taskGroup=\"1\",task=\"3\"} 20");
+        Assert.assertFalse(text, text.contains("taskGroup=\"1\",task=\"0\""));
+        assertSample(text, "datax_channel_capacity_records{job=\"7\",taskGroup=\"1\"} 256");
+        assertSample(text, "datax_read_records_total{job=\"7\",taskGroup=\"2\"} 1");
+        assertSample(text, "datax_unfinished_tasks{job=\"7\",taskGroup=\"2\"} 0");
+        assertWellFormed(text);
+
+        // 清除后只剩 vm 指标
+        MetricsRegistry.clear();
+        Assert.assertTrue(MetricsRegistry.getTaskGroupIds().isEmpty());
+        text = MetricsRegistry.scrape();
+        Assert.assertFalse(text, text.contains("taskGroup="));
+        Assert.assertTrue(text, text.contains("# TYPE datax_read_records_total counter"));
+        assertWellFormed(text);
+    }
+
+    @Test
+    public void testCommunicationMetrics() {
+        CommunicationMetrics job = new CommunicationMetrics(-1);
+        Assert.assertEquals(15, job.getReadRecords());
+        Assert.assertEquals(150, job.getReadBytes());
+        Assert.assertEquals(9, job.getWriteReceivedRecords());
+        Assert.assertEquals(141, job.getWriteReceivedBytes());
+        Assert.assertEquals(3, job.getDirtyRecords());
+        Assert.assertEquals(1500, job.getWaitReaderTimeMs());
+        Assert.assertEquals(0, job.getWaitWriterTimeMs());
+        Assert.assertEquals(2, job.getTransformerUsedTimeMs());
+        Assert.assertEquals(2, job.getUnfinishedTasks());
+        Assert.assertEquals(100, job.getRecordSpeed());
+        Assert.assertEquals(1000, job.getByteSpeed());
+
+        CommunicationMetrics taskGroup1 = new CommunicationMetrics(1);
+        Assert.assertEquals(0, taskGroup1.getReadRecords());
+        Assert.assertEquals(3, taskGroup1.getDirtyRecords());
+        Assert.assertEquals(0, taskGroup1.getWaitReaderTimeMs());
+        Assert.assertEquals(1, taskGroup1.getUnfinishedTasks());
+        Assert.assertEquals(0, taskGroup1.getRecordSpeed());
+
+        this.runningTask.setState(State.SUCCEEDED);
+        Assert.assertEquals(1, job.getUnfinishedTasks());
+        Assert.assertEquals(0, new CommunicationMetrics(0).getUnfinishedTasks());
+    }
+
+    @Test
+    public void testMBeanRegistration() throws Exception {
+        Configuration configuration = Configuration.newDefault();
+        configuration.set(CoreConstant.DATAX_CORE_METRICS_JMXENABLE, true);
+        DataXMetrics.start(configuration, JOB_ID, true);
+        Map<Integer, Communication> taskGroup2 = new ConcurrentHashMap<Integer, Communication>();
+        taskGroup2.put(0, communication(State.RUNNING, 30, 300, 0));
+        MetricsRegistry.registerTaskGroup(2, taskGroup2, 128);
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName jobName = new ObjectName("com.alibaba.datax:type=Job,jobId=7");
+        ObjectName taskGroupName = new ObjectName("com.alibaba.datax:type=TaskGroup,jobId=7,taskGroupId=2");
+        Assert.assertEquals(45L, mBeanServer.getAttribute(jobName, "ReadRecords"));
+        Assert.assertEquals(30L, mBeanServer.getAttribute(taskGroupName, "ReadRecords"));
+        Assert.assertEquals(1, mBeanServer.getAttribute(taskGroupName, "UnfinishedTasks"));
+
+        DataXMetrics.stop();
+        Assert.assertFalse(mBeanServer.isRegistered(jobName));
+        Assert.assertFalse(mBeanServer.isRegistered(taskGroupName));
+        Assert.assertTrue(MetricsRegistry.getTaskGroupIds().isEmpty());
+    }
+
+    private static Communication communication(State state, long readRecords, long readBytes,
+                                               long writeReceivedRecords) {
+        Communication communication = new Communication();
+        communication.setState(state);
+        communication.setLongCounter(CommunicationTool.READ_SUCCEED_RECORDS, readRecords);
+        communication.setLongCounter(CommunicationTool.READ_SUCCEED_BYTES, readBytes);
+        communication.setLongCounter(CommunicationTool.WRITE_RECEIVED_RECORDS, writeReceivedRecords);
+        communication.setLongCounter(CommunicationTool.WRITE_RECEIVED_BYTES, readBytes - writeReceivedRecords);
+        return communication;
+    }
+
+    private static void assertSample(String text, String sample) {
+        Assert.assertTrue(sample + " not in:\n" + text, text.contains("\n" + sample + "\n"));
+    }
+
+    /**
+     * 每个指标只有一组 HELP/TYPE 且位于其样本之前, 样本行为 name{labels} value
+     */
+    private static void assertWellFormed(String text) {
+        Assert.assertTrue(text.endsWith("\n"));
+        Set<String> typed = new HashSet<String>();
+        String currentType = null;
+        for (String line : text.split("\n")) {
+            if (line.startsWith("# HELP ")) {
+                continue;
+            }
+            if (line.startsWith("# TYPE ")) {
+                currentType = line.split(" ")[2];
+                Assert.assertTrue(line, typed.add(currentType));
+                continue;
+            }
+            Assert.assertTrue(line, line.matches("[a-z_]+\\{job=\"7\"(,[a-zA-Z]+=\"[^\"]*\")*\\} -?[0-9.E]+"));
+            String name = line.substring(0, line.indexOf('{'));
+            Assert.assertTrue(line, name.equals(currentType) || name.startsWith(currentType + "_"));
+        }
+    }
+}
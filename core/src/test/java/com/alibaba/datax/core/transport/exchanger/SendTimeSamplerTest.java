@@ -0,0 +1,114 @@
+package com.alibaba.datax.core.transport.exchanger;
+
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.statistics.LatencyHistogram;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.channel.memory.MemoryChannel;
+import com.alibaba.datax.core.transport.record.DefaultRecord;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+
+public class SendTimeSamplerTest {
+
+	private static final int SAMPLE_INTERVAL = 5;
+
+	// 99 条, 每 32 条 flush 一次, flush 前最后一条都不是采样点
+	private static final int RECORD_NUMBER = 99;
+
+	@Test
+	public void testReusedRecord() {
+		Communication communication = new Communication();
+		Channel channel = newChannel(communication);
+		BufferedRecordExchanger readerExchanger = new BufferedRecordExchanger(channel, mock(TaskPluginCollector.class));
+		BufferedRecordExchanger writerExchanger = new BufferedRecordExchanger(channel, mock(TaskPluginCollector.class));
+
+		Record record = readerExchanger.createRecord();
+		record.addColumn(new LongColumn(1));
+		for (int i = 0; i < RECORD_NUMBER; i++) {
+			readerExchanger.sendToWriter(record);
+		}
+		readerExchanger.terminate();
+
+		int received = 0;
+		while (writerExchanger.getFromReader() != null) {
+			received++;
+		}
+		Assert.assertEquals(RECORD_NUMBER, received);
+
+		// 同一个对象在被 writer 处理完之前只打点一次, 也只统计一次
+		LatencyHistogram latency = communication.getChannelLatency();
+		Assert.assertNotNull(latency);
+		Assert.assertEquals(1, latency.getTotalCount());
+		Assert.assertTrue(latency.getMin() > 0);
+		Assert.assertEquals(0L, ((DefaultRecord) record).getSendNanoTime());
+
+		// writer 处理完后, 同一个对象可以再次被采样
+		for (int i = 0; i < SAMPLE_INTERVAL; i++) {
+			readerExchanger.sendToWriter(record);
+		}
+		readerExchanger.terminate();
+		while (writerExchanger.getFromReader() != null) {
+		}
+		Assert.assertEquals(2, communication.getChannelLatency().getTotalCount());
+	}
+
+	@Test
+	public void testNewRecordPerSend() {
+		Communication communication = new Communication();
+		Channel channel = newChannel(communication);
+		BufferedRecordExchanger readerExchanger = new BufferedRecordExchanger(channel, mock(TaskPluginCollector.class));
+		BufferedRecordExchanger writerExchanger = new BufferedRecordExchanger(channel, mock(TaskPluginCollector.class));
+
+		for (int i = 0; i < RECORD_NUMBER; i++) {
+			Record record = readerExchanger.createRecord();
+			record.addColumn(new LongColumn(i));
+			readerExchanger.sendToWriter(record);
+		}
+		readerExchanger.terminate();
+		while (writerExchanger.getFromReader() != null) {
+		}
+
+		Assert.assertEquals(RECORD_NUMBER / SAMPLE_INTERVAL, communication.getChannelLatency().getTotalCount());
+	}
+
+	@Test
+	public void testLatencyMergedOnTerminate() {
+		Communication communication = new Communication();
+		Channel channel = newChannel(communication);
+		BufferedRecordExchanger readerExchanger = new BufferedRecordExchanger(channel, mock(TaskPluginCollector.class));
+		BufferedRecordExchanger writerExchanger = new BufferedRecordExchanger(channel, mock(TaskPluginCollector.class));
+
+		for (int i = 0; i < RECORD_NUMBER; i++) {
+			Record record = readerExchanger.createRecord();
+			record.addColumn(new LongColumn(i));
+			readerExchanger.sendToWriter(record);
+		}
+		readerExchanger.flush();
+		for (int i = 0; i < RECORD_NUMBER; i++) {
+			Assert.assertNotNull(writerExchanger.getFromReader());
+		}
+		// 汇报周期未到时延迟只记录在 channel 中
+		Assert.assertNull(communication.getChannelLatency());
+
+		readerExchanger.terminate();
+		Assert.assertNull(writerExchanger.getFromReader());
+		Assert.assertEquals(RECORD_NUMBER / SAMPLE_INTERVAL, communication.getChannelLatency().getTotalCount());
+	}
+
+	private Channel newChannel(Communication communication) {
+		Configuration configuration = Configuration.newDefault();
+		configuration.set(CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ID, 1);
+		configuration.set(CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE, 32);
+		configuration.set(CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_LATENCYSAMPLEINTERVAL, SAMPLE_INTERVAL);
+		Channel channel = new MemoryChannel(configuration);
+		channel.setCommunication(communication);
+		return channel;
+	}
+}
@@ -0,0 +1,88 @@
+package com.alibaba.datax.core.transport.exchanger;
+
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.scaffold.ConfigurationProducer;
+import com.alibaba.datax.core.scaffold.base.CaseInitializer;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.channel.memory.MemoryChannel;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.powermock.api.mockito.PowerMockito.mock;
+
+public class ShuffleRecordExchangerTest extends CaseInitializer {
+
+	private Configuration configuration = null;
+
+	@Before
+	public void before() {
+		this.configuration = ConfigurationProducer.produce();
+		this.configuration.set(CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ID, 1);
+		// 测试中先写完再读, channel需要能容纳全部record
+		this.configuration.set(CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_CAPACITY, 1024);
+	}
+
+	@Test
+	public void testSamePartitionToSameChannel() {
+		int channelCount = 3;
+		ShuffleGroup shuffleGroup = new ShuffleGroup(new int[]{1}, 2);
+		List<Channel> channels = new ArrayList<Channel>();
+		for (int i = 0; i < channelCount; i++) {
+			Channel channel = new MemoryChannel(configuration);
+			channel.setCommunication(new Communication());
+			shuffleGroup.addChannel(channel);
+			channels.add(channel);
+		}
+
+		TaskPluginCollector pluginCollector = mock(TaskPluginCollector.class);
+		ShuffleRecordExchanger sender1 = new ShuffleRecordExchanger(1, 0, shuffleGroup,
+				configuration, new Communication(), pluginCollector, null);
+		ShuffleRecordExchanger sender2 = new ShuffleRecordExchanger(1, 1, shuffleGroup,
+				configuration, new Communication(), pluginCollector, null);
+
+		int recordCount = 200;
+		for (int i = 0; i < recordCount; i++) {
+			ShuffleRecordExchanger sender = i % 2 == 0 ? sender1 : sender2;
+			Record record = sender.createRecord();
+			record.addColumn(new LongColumn(i));
+			record.addColumn(new StringColumn("p" + (i % 7)));
+			sender.sendToWriter(record);
+		}
+
+		sender1.terminate();
+		// 还有reader没有结束, writer不能收到结束标记
+		for (Channel channel : channels) {
+			Assert.assertTrue(channel.size() > 0);
+		}
+		sender2.terminate();
+
+		Map<String, Integer> partitionToChannel = new HashMap<String, Integer>();
+		int received = 0;
+		for (int i = 0; i < channelCount; i++) {
+			BufferedRecordExchanger receiver = new BufferedRecordExchanger(
+					channels.get(i), pluginCollector);
+			Record record;
+			while ((record = receiver.getFromReader()) != null) {
+				String partition = record.getColumn(1).asString();
+				Integer channel = partitionToChannel.get(partition);
+				Assert.assertTrue(channel == null || channel == i);
+				partitionToChannel.put(partition, i);
+				received++;
+			}
+		}
+		Assert.assertEquals(recordCount, received);
+		Assert.assertEquals(7, partitionToChannel.size());
+	}
+}
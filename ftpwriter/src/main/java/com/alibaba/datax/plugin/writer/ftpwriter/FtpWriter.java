@@ -6,6 +6,7 @@ import com.alibaba.datax.common.plugin.RecordReceiver;
 import com.alibaba.datax.common.spi.Writer;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.common.util.RetryUtil;
+import com.alibaba.datax.plugin.unstructuredstorage.writer.OutputStreamProvider;
 import com.alibaba.datax.plugin.unstructuredstorage.writer.TextCsvWriterManager;
 import com.alibaba.datax.plugin.unstructuredstorage.writer.UnstructuredStorageWriterErrorCode;
 import com.alibaba.datax.plugin.unstructuredstorage.writer.UnstructuredStorageWriterUtil;
@@ -409,22 +410,35 @@ public class FtpWriter extends Writer {
                             "无法创建待写文件 ");
                 }
             }else {
-                String fileFullPath = UnstructuredStorageWriterUtil.buildFilePath(
-                        this.path, this.fileName, this.suffix);
-                LOG.info(String.format("write to file : [%s]", fileFullPath));
-
-                OutputStream outputStream = null;
                 try {
-                    outputStream = this.ftpHelper.getOutputStream(fileFullPath);
+                    // 配置了 maxFileSize 或 maxRecordsPerFile 时按序号滚动写出多个文件
                     UnstructuredStorageWriterUtil.writeToStream(lineReceiver,
-                            outputStream, this.writerSliceConfig, this.fileName,
+                            new OutputStreamProvider() {
+                                @Override
+                                public OutputStream open(int rollingNumber) {
+                                    String fileName = Task.this.fileName;
+                                    if (0 != rollingNumber) {
+                                        // 上一个文件的写出流已关闭, ftp 需要先完成上一次传输
+                                        Task.this.ftpHelper
+                                                .completePendingCommand();
+                                        fileName = String.format("%s_%s",
+                                                fileName, rollingNumber);
+                                    }
+                                    String fileFullPath = UnstructuredStorageWriterUtil
+                                            .buildFilePath(Task.this.path,
+                                                    fileName, Task.this.suffix);
+                                    LOG.info(String.format(
+                                            "write to file : [%s]",
+                                            fileFullPath));
+                                    return Task.this.ftpHelper
+                                            .getOutputStream(fileFullPath);
+                                }
+                            }, this.writerSliceConfig, this.fileName,
                             this.getTaskPluginCollector());
                 } catch (Exception e) {
                     throw DataXException.asDataXException(
                             FtpWriterErrorCode.WRITE_FILE_IO_ERROR,
                             String.format("无法创建待写文件 : [%s]", this.fileName), e);
-                } finally {
-                    IOUtils.closeQuietly(outputStream);
                 }
                 LOG.info("end do write");
             }
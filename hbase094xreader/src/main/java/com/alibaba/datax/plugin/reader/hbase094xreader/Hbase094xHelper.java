@@ -7,7 +7,11 @@ import com.alibaba.fastjson.TypeReference;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.ClusterStatus;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HServerLoad;
+import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.ResultScanner;
@@ -19,9 +23,11 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 
 /**
@@ -262,8 +268,13 @@ public class Hbase094xHelper {
             if (null == regionRanges) {
                 throw DataXException.asDataXException(Hbase094xReaderErrorCode.SPLIT_ERROR, "获取源头 Hbase 表的 rowkey 范围失败.");
             }
+            int splitRegionSizeMB = configuration.getInt(Key.SPLIT_REGION_SIZE_MB, Constant.DEFAULT_SPLIT_REGION_SIZE_MB);
+            Map<byte[], Integer> regionSizes = new TreeMap<byte[], Integer>(Bytes.BYTES_COMPARATOR);
+            if (splitRegionSizeMB > 0) {
+                regionSizes = Hbase094xHelper.getRegionSizeMB(configuration, htable);
+            }
             resultConfigurations = Hbase094xHelper.doSplit(configuration, startRowkeyByte, endRowkeyByte,
-                    regionRanges);
+                    regionRanges, regionSizes, splitRegionSizeMB);
             LOG.info("HBaseReader split job into {} tasks.", resultConfigurations.size());
             return resultConfigurations;
         } catch (Exception e) {
@@ -273,9 +284,39 @@ public class Hbase094xHelper {
         }
     }
 
+    /**
+     * 从集群状态中获取表的各个 region 的 storefile 大小(MB), key 为 region 的 startKey。
+     * 获取失败时只打印警告并返回已获取到的部分, 缺少大小信息的 region 不做切分。
+     */
+    private static Map<byte[], Integer> getRegionSizeMB(Configuration configuration, HTable htable) {
+        Map<byte[], Integer> regionSizes = new TreeMap<byte[], Integer>(Bytes.BYTES_COMPARATOR);
+        HBaseAdmin admin = null;
+        try {
+            admin = new HBaseAdmin(Hbase094xHelper.getHbaseConf(configuration.getString(Key.HBASE_CONFIG)));
+            Map<byte[], Integer> sizeByRegionName = new TreeMap<byte[], Integer>(Bytes.BYTES_COMPARATOR);
+            ClusterStatus clusterStatus = admin.getClusterStatus();
+            for (ServerName serverName : clusterStatus.getServers()) {
+                for (Map.Entry<byte[], HServerLoad.RegionLoad> regionLoad : clusterStatus.getLoad(serverName).getRegionsLoad().entrySet()) {
+                    sizeByRegionName.put(regionLoad.getKey(), regionLoad.getValue().getStorefileSizeMB());
+                }
+            }
+            for (HRegionInfo regionInfo : htable.getRegionLocations().keySet()) {
+                Integer sizeMB = sizeByRegionName.get(regionInfo.getRegionName());
+                if (null != sizeMB) {
+                    regionSizes.put(regionInfo.getStartKey(), sizeMB);
+                }
+            }
+        } catch (Exception e) {
+            LOG.warn("获取源头 Hbase 表的 region 大小失败, region 将不会被进一步切分.", e);
+        } finally {
+            Hbase094xHelper.closeAdmin(admin);
+        }
+        return regionSizes;
+    }
 
     private static List<Configuration> doSplit(Configuration config, byte[] startRowkeyByte,
-                                               byte[] endRowkeyByte, Pair<byte[][], byte[][]> regionRanges) {
+                                               byte[] endRowkeyByte, Pair<byte[][], byte[][]> regionRanges,
+                                               Map<byte[], Integer> regionSizes, int splitRegionSizeMB) {
 
         List<Configuration> configurations = new ArrayList<Configuration>();
 
@@ -307,24 +348,41 @@ public class Hbase094xHelper {
                 continue;
             }
 
-            Configuration p = config.clone();
+            byte[] thisStartKey = getStartKey(startRowkeyByte, regionStartKey);
+
+            byte[] thisEndKey = getEndKey(endRowkeyByte, regionEndKey);
 
-            String thisStartKey = getStartKey(startRowkeyByte, regionStartKey);
+            // 过大的 region 切分成多个区间, 每个区间一个 task
+            int subSplitNumber = 1;
+            Integer regionSizeMB = regionSizes.get(regionStartKey);
+            if (splitRegionSizeMB > 0 && regionSizeMB != null && regionSizeMB > splitRegionSizeMB) {
+                subSplitNumber = (regionSizeMB + splitRegionSizeMB - 1) / splitRegionSizeMB;
+            }
+            List<byte[]> boundaries = splitKeyRange(thisStartKey, thisEndKey, subSplitNumber);
+            if (boundaries.size() > 2) {
+                LOG.info("region [{}] 大小为 {}MB, 切分为 {} 个 task.", Bytes.toStringBinary(regionStartKey),
+                        regionSizeMB, boundaries.size() - 1);
+            }
 
-            String thisEndKey = getEndKey(endRowkeyByte, regionEndKey);
+            for (int j = 0; j + 1 < boundaries.size(); j++) {
+                Configuration p = config.clone();
 
-            p.set(Key.START_ROWKEY, thisStartKey);
-            p.set(Key.END_ROWKEY, thisEndKey);
+                String subStartKey = Bytes.toStringBinary(boundaries.get(j));
+                String subEndKey = Bytes.toStringBinary(boundaries.get(j + 1));
 
-            LOG.debug("startRowkey:[{}], endRowkey:[{}] .", thisStartKey, thisEndKey);
+                p.set(Key.START_ROWKEY, subStartKey);
+                p.set(Key.END_ROWKEY, subEndKey);
 
-            configurations.add(p);
+                LOG.debug("startRowkey:[{}], endRowkey:[{}] .", subStartKey, subEndKey);
+
+                configurations.add(p);
+            }
         }
 
         return configurations;
     }
 
-    private static String getEndKey(byte[] endRowkeyByte, byte[] regionEndKey) {
+    private static byte[] getEndKey(byte[] endRowkeyByte, byte[] regionEndKey) {
         if (endRowkeyByte == null) {// 由于之前处理过，所以传入的userStartKey不可能为null
             throw new IllegalArgumentException("userEndKey should not be null!");
         }
@@ -344,10 +402,10 @@ public class Hbase094xHelper {
             }
         }
 
-        return Bytes.toStringBinary(tempEndRowkeyByte);
+        return tempEndRowkeyByte;
     }
 
-    private static String getStartKey(byte[] startRowkeyByte, byte[] regionStarKey) {
+    private static byte[] getStartKey(byte[] startRowkeyByte, byte[] regionStarKey) {
         if (startRowkeyByte == null) {// 由于之前处理过，所以传入的userStartKey不可能为null
             throw new IllegalArgumentException(
                     "userStartKey should not be null!");
@@ -361,7 +419,44 @@ public class Hbase094xHelper {
             tempStartRowkeyByte = startRowkeyByte;
         }
 
-        return Bytes.toStringBinary(tempStartRowkeyByte);
+        return tempStartRowkeyByte;
+    }
+
+    /**
+     * 在 [startKey, endKey) 之间按字节均匀插值, 切分为最多 splitNumber 个首尾相接的区间, 返回包含首尾在内的区间边界。
+     * endKey 为空(表的最后一个 region)时以全 0xFF 作为插值的上界, 最后一个区间的结束仍然为空。
+     * rowkey 分布不均匀时各区间的数据量也会不均匀, 但不会重复或遗漏数据。
+     */
+    static List<byte[]> splitKeyRange(byte[] startKey, byte[] endKey, int splitNumber) {
+        List<byte[]> boundaries = new ArrayList<byte[]>();
+        boundaries.add(startKey);
+        if (splitNumber > 1) {
+            byte[] upperKey = endKey;
+            if (endKey.length == 0) {
+                upperKey = new byte[Math.max(startKey.length, 1)];
+                Arrays.fill(upperKey, (byte) 0xFF);
+            }
+            if (Bytes.compareTo(startKey, upperKey) < 0) {
+                byte[][] splitKeys = null;
+                try {
+                    splitKeys = Bytes.split(startKey, upperKey, splitNumber - 1);
+                } catch (IllegalArgumentException e) {
+                    // 补齐长度后首尾相同(如 a 与 a\x00)时无法插值, 不做切分
+                    LOG.warn("rowkey 区间[{}, {})无法切分: {}", Bytes.toStringBinary(startKey), Bytes.toStringBinary(endKey), e.getMessage());
+                }
+                if (splitKeys != null) {
+                    // splitKeys 的首尾为 startKey 和 upperKey, 插值出的边界可能与前一个相同, 需要跳过
+                    for (int i = 1; i < splitKeys.length - 1; i++) {
+                        if (Bytes.compareTo(splitKeys[i], boundaries.get(boundaries.size() - 1)) > 0
+                                && Bytes.compareTo(splitKeys[i], upperKey) < 0) {
+                            boundaries.add(splitKeys[i]);
+                        }
+                    }
+                }
+            }
+        }
+        boundaries.add(endKey);
+        return boundaries;
     }
 
 
@@ -399,6 +494,12 @@ public class Hbase094xHelper {
 
         int scanBatchSize = originalConfig.getInt(Key.SCAN_BATCH_SIZE,Constant.DEFAULT_SCAN_BATCH_SIZE);
         originalConfig.set(Key.SCAN_BATCH_SIZE,scanBatchSize);
+
+        int splitRegionSizeMB = originalConfig.getInt(Key.SPLIT_REGION_SIZE_MB, Constant.DEFAULT_SPLIT_REGION_SIZE_MB);
+        if (splitRegionSizeMB < 0) {
+            throw DataXException.asDataXException(Hbase094xReaderErrorCode.ILLEGAL_VALUE, String.format("Hbasereader 中 splitRegionSizeMB 不能小于0, 您配置的值为:[%s]", splitRegionSizeMB));
+        }
+        originalConfig.set(Key.SPLIT_REGION_SIZE_MB, splitRegionSizeMB);
     }
 
     private static String validateMode(Configuration  originalConfig) {
@@ -12,5 +12,7 @@ public final class Constant {
     public static final int DEFAULT_SCAN_CACHE_SIZE = 256;
 
     public static final int DEFAULT_SCAN_BATCH_SIZE = 100;
+
+    public static final int DEFAULT_SPLIT_REGION_SIZE_MB = 0;
     
 }
@@ -13,6 +13,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public abstract class HbaseAbstractTask {
     private final static Logger LOG = LoggerFactory.getLogger(HbaseAbstractTask.class);
@@ -24,11 +31,16 @@ public abstract class HbaseAbstractTask {
     protected String encoding;
     protected int scanCacheSize;
     protected int  scanBatchSize;
+    protected boolean scanPrefetch;
 
     protected Result lastResult = null;
     protected Scan scan;
     protected ResultScanner resultScanner;
 
+    //scanner 最后返回的一行, 出错重建 scanner 时从这一行开始。开启预读时 scanner 会领先于 lastResult
+    private Result lastScannedResult = null;
+    private ScanPrefetcher scanPrefetcher;
+
 
     public HbaseAbstractTask(com.alibaba.datax.common.util.Configuration configuration) {
 
@@ -39,6 +51,7 @@ public abstract class HbaseAbstractTask {
         this.endKey =  Hbase11xHelper.convertInnerEndRowkey(configuration);
         this.scanCacheSize = configuration.getInt(Key.SCAN_CACHE_SIZE,Constant.DEFAULT_SCAN_CACHE_SIZE);
         this.scanBatchSize = configuration.getInt(Key.SCAN_BATCH_SIZE,Constant.DEFAULT_SCAN_BATCH_SIZE);
+        this.scanPrefetch = configuration.getBool(Key.SCAN_PREFETCH, false);
     }
 
     public abstract boolean fetchLine(Record record) throws Exception;
@@ -62,32 +75,140 @@ public abstract class HbaseAbstractTask {
         initScan(this.scan);
 
         this.resultScanner = this.htable.getScanner(this.scan);
+        if (this.scanPrefetch) {
+            this.scanPrefetcher = new ScanPrefetcher();
+            this.scanPrefetcher.start();
+        }
     }
 
     public void close()  {
+        if (this.scanPrefetcher != null) {
+            this.scanPrefetcher.close();
+        }
         Hbase11xHelper.closeResultScanner(this.resultScanner);
         Hbase11xHelper.closeTable(this.htable);
     }
 
     protected Result getNextHbaseRow() throws IOException {
+        Result result;
+        if (this.scanPrefetcher != null) {
+            result = this.scanPrefetcher.next();
+        } else {
+            result = nextFromScanner();
+        }
+        lastResult = result;
+        // may be null
+        return result;
+    }
+
+    private Result nextFromScanner() throws IOException {
         Result result;
         try {
             result = resultScanner.next();
         } catch (IOException e) {
-            if (lastResult != null) {
-                this.scan.setStartRow(lastResult.getRow());
+            if (lastScannedResult != null) {
+                this.scan.setStartRow(lastScannedResult.getRow());
             }
             resultScanner = this.htable.getScanner(scan);
             result = resultScanner.next();
-            if (lastResult != null && Bytes.equals(lastResult.getRow(), result.getRow())) {
+            if (lastScannedResult != null && Bytes.equals(lastScannedResult.getRow(), result.getRow())) {
                 result = resultScanner.next();
             }
         }
-        lastResult = result;
-        // may be null
+        lastScannedResult = result;
         return result;
     }
 
+    /**
+     * 后台线程按 scanCacheSize 一批预先从 scanner 读取数据, 当前批次转换为 record 的同时下一批的 rpc 已经在进行。
+     * scanner 只由后台线程访问, 最多缓存2批数据。
+     */
+    private class ScanPrefetcher implements Runnable {
+        private final Object endOfScan = new Object();
+        private final BlockingQueue<Object> batches = new ArrayBlockingQueue<Object>(2);
+        private final Thread thread;
+        private volatile boolean closed = false;
+        private Iterator<Result> currentBatch = Collections.<Result>emptyList().iterator();
+        private boolean finished = false;
+
+        ScanPrefetcher() {
+            this.thread = new Thread(this, "hbase-scan-prefetch");
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            this.thread.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!this.closed) {
+                    List<Result> batch = new ArrayList<Result>(scanCacheSize);
+                    Result result = null;
+                    while (batch.size() < scanCacheSize && (result = nextFromScanner()) != null) {
+                        batch.add(result);
+                    }
+                    if (!batch.isEmpty()) {
+                        this.batches.put(batch);
+                    }
+                    if (result == null) {
+                        this.batches.put(this.endOfScan);
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // close() 中断, 直接退出
+            } catch (Throwable e) {
+                try {
+                    this.batches.put(e);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Result next() throws IOException {
+            while (!this.currentBatch.hasNext()) {
+                if (this.finished) {
+                    return null;
+                }
+                Object batch;
+                try {
+                    batch = this.batches.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待预读的 Hbase 数据时被中断.");
+                }
+                if (batch == this.endOfScan) {
+                    this.finished = true;
+                    return null;
+                }
+                if (batch instanceof IOException) {
+                    throw (IOException) batch;
+                }
+                if (batch instanceof Throwable) {
+                    throw new IOException("预读 Hbase 数据失败.", (Throwable) batch);
+                }
+                this.currentBatch = ((List<Result>) batch).iterator();
+            }
+            return this.currentBatch.next();
+        }
+
+        /**
+         * 停止后台线程, 并等待其退出后再关闭 scanner
+         */
+        void close() {
+            this.closed = true;
+            this.thread.interrupt();
+            try {
+                this.thread.join(10000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     public Column convertBytesToAssignType(ColumnType columnType, byte[] byteArray,String dateformat) throws Exception {
         Column column;
         switch (columnType) {
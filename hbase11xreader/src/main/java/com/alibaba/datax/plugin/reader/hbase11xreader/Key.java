@@ -48,4 +48,14 @@ public final class Key {
 
     public final static String SCAN_BATCH_SIZE = "scanBatchSize";
 
+    /**
+     * storefile 大小超过该值(MB)的 region 会按 rowkey 插值切分成多个 task, 默认为0不切分
+     */
+    public final static String SPLIT_REGION_SIZE_MB = "splitRegionSizeMB";
+
+    /**
+     * 是否由后台线程预先读取下一批数据, 默认为 false
+     */
+    public final static String SCAN_PREFETCH = "scanPrefetch";
+
 }
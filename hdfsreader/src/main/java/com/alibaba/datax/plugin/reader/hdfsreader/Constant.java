@@ -10,4 +10,10 @@ public class Constant {
     public static final String CSV = "CSV";
     public static final String SEQ = "SEQ";
     public static final String RC = "RC";
+    public static final String PARQUET = "PARQUET";
+    // 文件内切分后, 分片在文件中的起始位置与长度
+    public static final String SPLIT_START = "splitStart";
+    public static final String SPLIT_LENGTH = "splitLength";
+    // 文件内切分的默认分片大小, 单位MB
+    public static final long DEFAULT_SPLIT_SIZE = 128;
 }
@@ -11,13 +11,11 @@ import com.alibaba.datax.plugin.unstructuredstorage.reader.UnstructuredStorageRe
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.fs.BlockLocation;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
-import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
-import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.io.RCFile;
 import org.apache.hadoop.hive.ql.io.RCFileRecordReader;
 import org.apache.hadoop.hive.ql.io.orc.OrcFile;
@@ -25,20 +23,40 @@ import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
 import org.apache.hadoop.hive.ql.io.orc.Reader;
 import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
+import org.apache.hadoop.hive.ql.io.parquet.timestamp.NanoTime;
+import org.apache.hadoop.hive.ql.io.parquet.timestamp.NanoTimeUtils;
 import org.apache.hadoop.hive.serde2.columnar.BytesRefWritable;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.io.*;
 import org.apache.hadoop.mapred.*;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.orc.StripeInformation;
 import org.apache.orc.TypeDescription;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetInputFormat;
+import org.apache.parquet.hadoop.ParquetRecordReader;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
@@ -212,6 +230,88 @@ public class DFSUtil {
         }
     }
 
+    /**
+     * 把单个文件切分为多个分片: ORC按stripe边界切分, PARQUET按row group边界切分, 其他格式按HDFS block边界切分,
+     * 相邻的stripe/block合并到不小于splitSize后作为一个分片。分片的locations为分片起始位置所在block的副本主机。
+     *
+     * @param filePath      文件路径
+     * @param fileType      文件类型
+     * @param splitSize     分片大小, 单位字节
+     * @return 切分结果, 文件只有一个stripe/row group/block或者不足splitSize时只返回一个分片
+     */
+    public List<FileSplit> getFileSplits(String filePath, String fileType, long splitSize) {
+        Path path = new Path(filePath);
+        try {
+            FileSystem fs = FileSystem.get(hadoopConf);
+            FileStatus status = fs.getFileStatus(path);
+            BlockLocation[] blocks = fs.getFileBlockLocations(status, 0, status.getLen());
+
+            // 可以作为分片边界的区间, [offset, length]
+            List<long[]> units = new ArrayList<long[]>();
+            if (StringUtils.equalsIgnoreCase(fileType, Constant.ORC)) {
+                Reader reader = OrcFile.createReader(path, OrcFile.readerOptions(hadoopConf));
+                for (StripeInformation stripe : reader.getStripes()) {
+                    units.add(new long[]{stripe.getOffset(), stripe.getLength()});
+                }
+            } else if (StringUtils.equalsIgnoreCase(fileType, Constant.PARQUET)) {
+                // 读取时由parquet选取中点落在分片内的row group
+                for (BlockMetaData block : ParquetFileReader.readFooter(hadoopConf, path,
+                        ParquetMetadataConverter.NO_FILTER).getBlocks()) {
+                    units.add(new long[]{block.getStartingPos(), block.getCompressedSize()});
+                }
+            } else {
+                for (BlockLocation block : blocks) {
+                    units.add(new long[]{block.getOffset(), block.getLength()});
+                }
+            }
+
+            List<FileSplit> splits = new ArrayList<FileSplit>();
+            long start = -1;
+            long end = -1;
+            for (long[] unit : units) {
+                if (start < 0) {
+                    start = unit[0];
+                }
+                end = unit[0] + unit[1];
+                if (end - start >= splitSize) {
+                    splits.add(new FileSplit(path, start, end - start, getSplitHosts(blocks, start)));
+                    start = -1;
+                }
+            }
+            if (start >= 0) {
+                splits.add(new FileSplit(path, start, end - start, getSplitHosts(blocks, start)));
+            }
+            return splits;
+        } catch (IOException e) {
+            String message = String.format("切分文件[%s]时出错,请确认文件存在且配置的用户有权限读取", filePath);
+            LOG.error(message);
+            throw DataXException.asDataXException(HdfsReaderErrorCode.READ_FILE_ERROR, message, e);
+        }
+    }
+
+    private String[] getSplitHosts(BlockLocation[] blocks, long start) throws IOException {
+        for (BlockLocation block : blocks) {
+            if (start >= block.getOffset() && start < block.getOffset() + block.getLength()) {
+                return block.getHosts();
+            }
+        }
+        return new String[0];
+    }
+
+    /**
+     * 打开文本文件中[start, start + length)对应的行, 行边界的处理见{@link LineRangeInputStream}
+     */
+    public InputStream getInputStream(String filepath, long start, long length) {
+        Path path = new Path(filepath);
+        try {
+            FileSystem fs = FileSystem.get(hadoopConf);
+            return new LineRangeInputStream(fs.open(path), start, length);
+        } catch (IOException e) {
+            String message = String.format("读取文件 : [%s] 时出错,请确认文件：[%s]存在且配置的用户有权限读取", filepath, filepath);
+            throw DataXException.asDataXException(HdfsReaderErrorCode.READ_FILE_ERROR, message, e);
+        }
+    }
+
     public InputStream getInputStream(String filepath) {
         InputStream inputStream;
         Path path = new Path(filepath);
@@ -229,7 +329,18 @@ public class DFSUtil {
 
     public void sequenceFileStartRead(String sourceSequenceFilePath, Configuration readerSliceConfig,
                                       RecordSender recordSender, TaskPluginCollector taskPluginCollector) {
-        LOG.info(String.format("Start Read sequence file [%s].", sourceSequenceFilePath));
+        sequenceFileStartRead(sourceSequenceFilePath, 0, -1, readerSliceConfig, recordSender, taskPluginCollector);
+    }
+
+    /**
+     * 读取sequence file中[start, start + length)范围内的记录, length小于0时读取整个文件。
+     * 从start之后的第一个sync点开始读, 读到越过分片结束位置后的第一个sync点为止, 与Hadoop SequenceFileRecordReader一致
+     */
+    public void sequenceFileStartRead(String sourceSequenceFilePath, long start, long length,
+                                      Configuration readerSliceConfig, RecordSender recordSender,
+                                      TaskPluginCollector taskPluginCollector) {
+        LOG.info(String.format("Start Read sequence file [%s], start [%s], length [%s].",
+                sourceSequenceFilePath, start, length));
 
         Path seqFilePath = new Path(sourceSequenceFilePath);
         SequenceFile.Reader reader = null;
@@ -240,7 +351,15 @@ public class DFSUtil {
             //获取key 与 value
             Writable key = (Writable) ReflectionUtils.newInstance(reader.getKeyClass(), this.hadoopConf);
             Text value = new Text();
-            while (reader.next(key, value)) {
+            long end = length < 0 ? Long.MAX_VALUE : start + length;
+            if (start > reader.getPosition()) {
+                reader.sync(start);
+            }
+            while (true) {
+                long position = reader.getPosition();
+                if (!reader.next(key, value) || (position >= end && reader.syncSeen())) {
+                    break;
+                }
                 if (StringUtils.isNotBlank(value.toString())) {
                     UnstructuredStorageReaderUtil.transportOneRecord(recordSender,
                             readerSliceConfig, taskPluginCollector, value.toString());
@@ -259,7 +378,15 @@ public class DFSUtil {
 
     public void rcFileStartRead(String sourceRcFilePath, Configuration readerSliceConfig,
                                 RecordSender recordSender, TaskPluginCollector taskPluginCollector) {
-        LOG.info(String.format("Start Read rcfile [%s].", sourceRcFilePath));
+        rcFileStartRead(sourceRcFilePath, 0, -1, readerSliceConfig, recordSender, taskPluginCollector);
+    }
+
+    /**
+     * 读取rcfile中[start, start + length)范围内的记录, length小于0时读取整个文件
+     */
+    public void rcFileStartRead(String sourceRcFilePath, long start, long length, Configuration readerSliceConfig,
+                                RecordSender recordSender, TaskPluginCollector taskPluginCollector) {
+        LOG.info(String.format("Start Read rcfile [%s], start [%s], length [%s].", sourceRcFilePath, start, length));
         List<ColumnEntry> column = UnstructuredStorageReaderUtil
                 .getListColumnEntry(readerSliceConfig, com.alibaba.datax.plugin.unstructuredstorage.reader.Key.COLUMN);
         // warn: no default value '\N'
@@ -270,8 +397,10 @@ public class DFSUtil {
         RCFileRecordReader recordReader = null;
         try {
             fs = FileSystem.get(rcFilePath.toUri(), hadoopConf);
-            long fileLen = fs.getFileStatus(rcFilePath).getLen();
-            FileSplit split = new FileSplit(rcFilePath, 0, fileLen, (String[]) null);
+            if (length < 0) {
+                length = fs.getFileStatus(rcFilePath).getLen() - start;
+            }
+            FileSplit split = new FileSplit(rcFilePath, start, length, (String[]) null);
             recordReader = new RCFileRecordReader(hadoopConf, split);
             LongWritable key = new LongWritable();
             BytesRefArrayWritable value = new BytesRefArrayWritable();
@@ -305,111 +434,22 @@ public class DFSUtil {
 
     }
 
-    /*
-    暂时不可用
-     */
-    public void orcFileStartReadNew(String sourceOrcFilePath, Configuration readerSliceConfig,
-                                    RecordSender recordSender, TaskPluginCollector taskPluginCollector)
-    {
-        LOG.info(String.format("New version, Start Read orcfile [%s].", sourceOrcFilePath));
-
-        List<ColumnEntry> column = UnstructuredStorageReaderUtil
-                .getListColumnEntry(readerSliceConfig, com.alibaba.datax.plugin.unstructuredstorage.reader.Key.COLUMN);
-        String nullFormat = readerSliceConfig.getString(com.alibaba.datax.plugin.unstructuredstorage.reader.Key.NULL_FORMAT);
-        StringBuilder allColumns = new StringBuilder();
-        StringBuilder allColumnTypes = new StringBuilder();
-        boolean isReadAllColumns = false;
-        int columnIndexMax = -1;
-        // 判断是否读取所有列
-        if (null == column || column.size() == 0) {
-            int allColumnsCount = getAllColumnsCount(sourceOrcFilePath);
-            columnIndexMax = allColumnsCount - 1;
-            isReadAllColumns = true;
-        } else {
-            columnIndexMax = getMaxIndex(column);
-        }
-        for (int i = 0; i <= columnIndexMax; i++) {
-            allColumns.append("col");
-            allColumnTypes.append("string");
-            if (i != columnIndexMax) {
-                allColumns.append(",");
-                allColumnTypes.append(":");
-            }
-        }
-        if (columnIndexMax >= 0) {
-
-            //JobConf conf = new JobConf(hadoopConf);
-            Path orcFilePath = new Path(sourceOrcFilePath);
-            Properties p = new Properties();
-            p.setProperty("columns", allColumns.toString());
-            p.setProperty("columns.types", allColumnTypes.toString());
-            try {
-                Reader reader = OrcFile.createReader(orcFilePath,OrcFile.readerOptions(hadoopConf));
-                org.apache.hadoop.hive.ql.io.orc.RecordReader rows = reader.rows();
-                VectorizedRowBatch batch = reader.getSchema().createRowBatch();
-                List<Object> recordFields;
-                while (rows.nextBatch(batch)) {
-
-                    for(int r=0; r < batch.size; ++r) {
-                        //Object field = inspector.getStructFieldData(value, fields.get(i));
-                        recordFields = new ArrayList<Object>();
-
-                        for(int i=0; i< batch.cols.length; i++)
-                        {
-                            recordFields.add(((BytesColumnVector)batch.cols[i]).vector[r]);
-                        }
-                        transportOneRecord(column, recordFields, recordSender,
-                                taskPluginCollector, isReadAllColumns, nullFormat);
-                    }
-
-                }
-                rows.close();
-
-
-                /*OrcSerde serde = new OrcSerde();
-                serde.initialize(conf, p);
-                StructObjectInspector inspector = (StructObjectInspector) serde.getObjectInspector();
-                InputFormat<?, ?> in = new OrcInputFormat();
-                FileInputFormat.setInputPaths(conf, orcFilePath.toString());
-
-                //If the network disconnected, will retry 45 times, each time the retry interval for 20 seconds
-                //Each file as a split
-                //TODO multy threads
-                InputSplit[] splits = in.getSplits(conf, 1);
-
-                RecordReader reader = in.getRecordReader(splits[0], conf, Reporter.NULL);
-                Object key = reader.createKey();
-                Object value = reader.createValue();
-                // 获取列信息
-                List<? extends StructField> fields = inspector.getAllStructFieldRefs();
-
-                List<Object> recordFields;
-                while (reader.next(key, value)) {
-                    recordFields = new ArrayList<Object>();
-
-                    for (int i = 0; i <= columnIndexMax; i++) {
-                        Object field = inspector.getStructFieldData(value, fields.get(i));
-                        recordFields.add(field);
-                    }
-                    transportOneRecord(column, recordFields, recordSender,
-                            taskPluginCollector, isReadAllColumns, nullFormat);
-                }
-                reader.close();*/
-            } catch (Exception e) {
-                String message = String.format("从orcfile文件路径[%s]中读取数据发生异常，请联系系统管理员。"
-                        , sourceOrcFilePath);
-                LOG.error(message,e);
-                throw DataXException.asDataXException(HdfsReaderErrorCode.READ_FILE_ERROR, message);
-            }
-        } else {
-            String message = String.format("请确认您所读取的列配置正确！columnIndexMax 小于0,column:%s", JSON.toJSONString(column));
-            throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE, message);
-        }
+    public void orcFileStartRead(String sourceOrcFilePath, Configuration readerSliceConfig,
+                                 RecordSender recordSender, TaskPluginCollector taskPluginCollector) {
+        orcFileStartRead(sourceOrcFilePath, 0, -1, readerSliceConfig, recordSender, taskPluginCollector);
     }
 
-    public void orcFileStartRead(String sourceOrcFilePath, Configuration readerSliceConfig,
+    /**
+     * 读取orcfile中起始位置在[start, start + length)范围内的stripe, length小于0时读取整个文件
+     */
+    public void orcFileStartRead(String sourceOrcFilePath, long start, long length, Configuration readerSliceConfig,
                                  RecordSender recordSender, TaskPluginCollector taskPluginCollector) {
-        LOG.info(String.format("Start Read orcfile [%s].", sourceOrcFilePath));
+        LOG.info(String.format("Start Read orcfile [%s], start [%s], length [%s].", sourceOrcFilePath, start, length));
+        if (readerSliceConfig.getBool(Key.VECTORIZED_READ, false)
+                && orcFileStartReadVectorized(sourceOrcFilePath, start, length, readerSliceConfig,
+                recordSender, taskPluginCollector)) {
+            return;
+        }
         List<ColumnEntry> column = UnstructuredStorageReaderUtil
                 .getListColumnEntry(readerSliceConfig, com.alibaba.datax.plugin.unstructuredstorage.reader.Key.COLUMN);
         String nullFormat = readerSliceConfig.getString(com.alibaba.datax.plugin.unstructuredstorage.reader.Key.NULL_FORMAT);
@@ -447,9 +487,13 @@ public class DFSUtil {
                 FileInputFormat.setInputPaths(conf, orcFilePath.toString());
 
                 //If the network disconnected, will retry 45 times, each time the retry interval for 20 seconds
-                //Each file as a split
-                //TODO multy threads
-                InputSplit[] splits = in.getSplits(conf, 1);
+                //Each file as a split, or the stripes assigned by HdfsReader.Job
+                InputSplit[] splits;
+                if (length < 0) {
+                    splits = in.getSplits(conf, 1);
+                } else {
+                    splits = new InputSplit[]{new FileSplit(orcFilePath, start, length, (String[]) null)};
+                }
 
                 if(splits.length==0)
                 {
@@ -491,6 +535,174 @@ public class DFSUtil {
         }
     }
 
+    /**
+     * 使用{@link OrcBatchReader}向量化读取orcfile, 需要读取的列包含复杂类型时返回false, 由调用方按行读取
+     */
+    private boolean orcFileStartReadVectorized(String sourceOrcFilePath, long start, long length,
+                                               Configuration readerSliceConfig, RecordSender recordSender,
+                                               TaskPluginCollector taskPluginCollector) {
+        OrcBatchReader batchReader = new OrcBatchReader(readerSliceConfig);
+        try {
+            Reader reader = OrcFile.createReader(new Path(sourceOrcFilePath), OrcFile.readerOptions(hadoopConf));
+            if (!batchReader.isSupported(reader.getSchema())) {
+                if (batchReader.hasFilter()) {
+                    String message = String.format("orcfile文件[%s]中需要读取的列包含复杂类型, 无法使用filter", sourceOrcFilePath);
+                    throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE, message);
+                }
+                LOG.warn(String.format("orcfile文件[%s]中需要读取的列包含复杂类型, 将按行读取", sourceOrcFilePath));
+                return false;
+            }
+            batchReader.read(reader, start, length, recordSender, taskPluginCollector);
+            return true;
+        } catch (IOException e) {
+            String message = String.format("从orcfile文件路径[%s]中读取数据发生异常，请联系系统管理员。"
+                    , sourceOrcFilePath);
+            LOG.error(message, e);
+            throw DataXException.asDataXException(HdfsReaderErrorCode.READ_FILE_ERROR, message, e);
+        }
+    }
+
+    /**
+     * 读取parquet文件中中点落在[start, start + length)范围内的row group, length小于0时读取整个文件。
+     * 只读取column和filter中配置的列, 配置了filter时由parquet根据row group的统计信息跳过不满足条件的row group。
+     */
+    public void parquetFileStartRead(String sourceParquetFilePath, long start, long length, Configuration readerSliceConfig,
+                                     RecordSender recordSender, TaskPluginCollector taskPluginCollector) {
+        LOG.info(String.format("Start Read parquetfile [%s], start [%s], length [%s].", sourceParquetFilePath, start, length));
+        List<ColumnEntry> column = UnstructuredStorageReaderUtil
+                .getListColumnEntry(readerSliceConfig, com.alibaba.datax.plugin.unstructuredstorage.reader.Key.COLUMN);
+        String nullFormat = readerSliceConfig.getString(com.alibaba.datax.plugin.unstructuredstorage.reader.Key.NULL_FORMAT);
+        List<Configuration> filterConfigs = readerSliceConfig.getListConfiguration(Key.FILTER);
+        ParquetFilter filter = null == filterConfigs || filterConfigs.isEmpty() ? null : new ParquetFilter(filterConfigs);
+        boolean isReadAllColumns = null == column || column.isEmpty();
+
+        Path path = new Path(sourceParquetFilePath);
+        ParquetRecordReader<Group> reader = null;
+        try {
+            if (length < 0) {
+                start = 0;
+                length = FileSystem.get(hadoopConf).getFileStatus(path).getLen();
+            }
+            MessageType fileSchema = ParquetFileReader.readFooter(hadoopConf, path,
+                    ParquetMetadataConverter.SKIP_ROW_GROUPS).getFileMetaData().getSchema();
+
+            // 需要读取的顶层列, 下标与文件schema一致
+            boolean[] readColumns = new boolean[fileSchema.getFieldCount()];
+            if (isReadAllColumns) {
+                Arrays.fill(readColumns, true);
+            } else {
+                for (ColumnEntry columnConfig : column) {
+                    if (null != columnConfig.getIndex()) {
+                        markParquetColumn(readColumns, columnConfig.getIndex(), fileSchema);
+                    }
+                }
+            }
+            org.apache.hadoop.conf.Configuration conf = new org.apache.hadoop.conf.Configuration(hadoopConf);
+            if (null != filter) {
+                for (Integer index : filter.getColumnIndexes()) {
+                    markParquetColumn(readColumns, index, fileSchema);
+                }
+                ParquetInputFormat.setFilterPredicate(conf, filter.toFilterPredicate(fileSchema));
+            }
+            List<org.apache.parquet.schema.Type> requestedFields = new ArrayList<org.apache.parquet.schema.Type>();
+            for (int i = 0; i < readColumns.length; i++) {
+                if (readColumns[i]) {
+                    requestedFields.add(fileSchema.getType(i));
+                }
+            }
+            conf.set(ReadSupport.PARQUET_READ_SCHEMA, new MessageType(fileSchema.getName(), requestedFields).toString());
+
+            reader = new ParquetRecordReader<Group>(new GroupReadSupport(), ParquetInputFormat.getFilter(conf));
+            reader.initialize(new org.apache.hadoop.mapreduce.lib.input.FileSplit(path, start, length, null),
+                    conf, Reporter.NULL);
+
+            List<Object> recordFields = new ArrayList<Object>(readColumns.length);
+            while (reader.nextKeyValue()) {
+                Group group = reader.getCurrentValue();
+                recordFields.clear();
+                for (int i = 0; i < readColumns.length; i++) {
+                    recordFields.add(readColumns[i] ? getParquetValue(group, fileSchema.getType(i)) : null);
+                }
+                transportOneRecord(column, recordFields, recordSender,
+                        taskPluginCollector, isReadAllColumns, nullFormat);
+            }
+        } catch (DataXException e) {
+            throw e;
+        } catch (Exception e) {
+            String message = String.format("从parquet文件路径[%s]中读取数据发生异常，请联系系统管理员。"
+                    , sourceParquetFilePath);
+            LOG.error(message, e);
+            throw DataXException.asDataXException(HdfsReaderErrorCode.READ_FILE_ERROR, message, e);
+        } finally {
+            if (null != reader) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    LOG.warn(String.format("finally: 关闭ParquetRecordReader失败, %s", e.getMessage()));
+                }
+            }
+        }
+    }
+
+    private void markParquetColumn(boolean[] readColumns, int index, MessageType fileSchema) {
+        if (index >= readColumns.length) {
+            // 与其他格式一致, 超出文件列数的index在转换时作为脏数据处理
+            return;
+        }
+        org.apache.parquet.schema.Type type = fileSchema.getType(index);
+        if (!type.isPrimitive() || type.isRepetition(org.apache.parquet.schema.Type.Repetition.REPEATED)) {
+            String message = String.format("parquet文件中index为[%s]的列[%s]是复杂类型, 暂不支持读取", index, type);
+            throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE, message);
+        }
+        readColumns[index] = true;
+    }
+
+    /**
+     * 按Hive的文本表示取parquet中一列的值, date与timestamp分别转换为yyyy-MM-dd和yyyy-MM-dd HH:mm:ss[.fffffffff]
+     */
+    private static Object getParquetValue(Group group, org.apache.parquet.schema.Type type) {
+        String name = type.getName();
+        if (group.getFieldRepetitionCount(name) == 0) {
+            return null;
+        }
+        PrimitiveType primitiveType = type.asPrimitiveType();
+        OriginalType originalType = type.getOriginalType();
+        switch (primitiveType.getPrimitiveTypeName()) {
+            case INT32:
+                int intValue = group.getInteger(name, 0);
+                if (originalType == OriginalType.DATE) {
+                    return new DateWritable(intValue);
+                } else if (originalType == OriginalType.DECIMAL) {
+                    return BigDecimal.valueOf(intValue, primitiveType.getDecimalMetadata().getScale());
+                }
+                return intValue;
+            case INT64:
+                long longValue = group.getLong(name, 0);
+                if (originalType == OriginalType.TIMESTAMP_MILLIS) {
+                    return new TimestampWritable(new Timestamp(longValue));
+                } else if (originalType == OriginalType.DECIMAL) {
+                    return BigDecimal.valueOf(longValue, primitiveType.getDecimalMetadata().getScale());
+                }
+                return longValue;
+            case INT96:
+                return new TimestampWritable(NanoTimeUtils.getTimestamp(
+                        NanoTime.fromBinary(group.getInt96(name, 0)), false));
+            case FLOAT:
+                return group.getFloat(name, 0);
+            case DOUBLE:
+                return group.getDouble(name, 0);
+            case BOOLEAN:
+                return group.getBoolean(name, 0);
+            default:
+                // BINARY, FIXED_LEN_BYTE_ARRAY
+                if (originalType == OriginalType.DECIMAL) {
+                    return new BigDecimal(new BigInteger(group.getBinary(name, 0).getBytes()),
+                            primitiveType.getDecimalMetadata().getScale());
+                }
+                return group.getBinary(name, 0).toStringUsingUTF8();
+        }
+    }
+
     private Record transportOneRecord(List<ColumnEntry> columnConfigs, List<Object> recordFields
             , RecordSender recordSender, TaskPluginCollector taskPluginCollector, boolean isReadAllColumns, String nullFormat) {
         Record record = recordSender.createRecord();
@@ -508,7 +720,6 @@ public class DFSUtil {
                 }
             } else {
                 for (ColumnEntry columnConfig : columnConfigs) {
-                    String columnType = columnConfig.getType();
                     Integer columnIndex = columnConfig.getIndex();
                     String columnConst = columnConfig.getValue();
 
@@ -520,79 +731,11 @@ public class DFSUtil {
                     } else {
                         columnValue = columnConst;
                     }
-                    Type type = Type.valueOf(columnType.toUpperCase());
                     // it's all ok if nullFormat is null
                     if (StringUtils.equals(columnValue, nullFormat)) {
                         columnValue = null;
                     }
-                    switch (type) {
-                        case STRING:
-                            columnGenerated = new StringColumn(columnValue);
-                            break;
-                        case LONG:
-                            try {
-                                columnGenerated = new LongColumn(columnValue);
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(String.format(
-                                        "类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
-                                        "LONG"));
-                            }
-                            break;
-                        case DOUBLE:
-                            try {
-                                columnGenerated = new DoubleColumn(columnValue);
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(String.format(
-                                        "类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
-                                        "DOUBLE"));
-                            }
-                            break;
-                        case BOOLEAN:
-                            try {
-                                columnGenerated = new BoolColumn(columnValue);
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(String.format(
-                                        "类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
-                                        "BOOLEAN"));
-                            }
-
-                            break;
-                        case DATE:
-                            try {
-                                if (columnValue == null) {
-                                    columnGenerated = new DateColumn((Date) null);
-                                } else {
-                                    String formatString = columnConfig.getFormat();
-                                    if (StringUtils.isNotBlank(formatString)) {
-                                        // 用户自己配置的格式转换
-                                        SimpleDateFormat format = new SimpleDateFormat(
-                                                formatString);
-                                        columnGenerated = new DateColumn(
-                                                format.parse(columnValue));
-                                    } else {
-                                        // 框架尝试转换
-                                        columnGenerated = new DateColumn(
-                                                new StringColumn(columnValue)
-                                                        .asDate());
-                                    }
-                                }
-                            } catch (Exception e) {
-                                throw new IllegalArgumentException(String.format(
-                                        "类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
-                                        "DATE"));
-                            }
-                            break;
-                        default:
-                            String errorMessage = String.format(
-                                    "您配置的列类型暂不支持 : [%s]", columnType);
-                            LOG.error(errorMessage);
-                            throw DataXException
-                                    .asDataXException(
-                                            UnstructuredStorageReaderErrorCode.NOT_SUPPORT_TYPE,
-                                            errorMessage);
-                    }
-
-                    record.addColumn(columnGenerated);
+                    record.addColumn(buildColumn(columnConfig, columnValue));
                 }
             }
             recordSender.sendToWriter(record);
@@ -613,6 +756,82 @@ public class DFSUtil {
         return record;
     }
 
+    /**
+     * 把字符串形式的列值按照column配置的type转换为DataX的Column, 转换失败时抛出IllegalArgumentException
+     */
+    static Column buildColumn(ColumnEntry columnConfig, String columnValue) {
+        String columnType = columnConfig.getType();
+        Type type = Type.valueOf(columnType.toUpperCase());
+        Column columnGenerated;
+        switch (type) {
+            case STRING:
+                columnGenerated = new StringColumn(columnValue);
+                break;
+            case LONG:
+                try {
+                    columnGenerated = new LongColumn(columnValue);
+                } catch (Exception e) {
+                    throw new IllegalArgumentException(String.format(
+                            "类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
+                            "LONG"));
+                }
+                break;
+            case DOUBLE:
+                try {
+                    columnGenerated = new DoubleColumn(columnValue);
+                } catch (Exception e) {
+                    throw new IllegalArgumentException(String.format(
+                            "类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
+                            "DOUBLE"));
+                }
+                break;
+            case BOOLEAN:
+                try {
+                    columnGenerated = new BoolColumn(columnValue);
+                } catch (Exception e) {
+                    throw new IllegalArgumentException(String.format(
+                            "类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
+                            "BOOLEAN"));
+                }
+
+                break;
+            case DATE:
+                try {
+                    if (columnValue == null) {
+                        columnGenerated = new DateColumn((Date) null);
+                    } else {
+                        String formatString = columnConfig.getFormat();
+                        if (StringUtils.isNotBlank(formatString)) {
+                            // 用户自己配置的格式转换
+                            SimpleDateFormat format = new SimpleDateFormat(
+                                    formatString);
+                            columnGenerated = new DateColumn(
+                                    format.parse(columnValue));
+                        } else {
+                            // 框架尝试转换
+                            columnGenerated = new DateColumn(
+                                    new StringColumn(columnValue)
+                                            .asDate());
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalArgumentException(String.format(
+                            "类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
+                            "DATE"));
+                }
+                break;
+            default:
+                String errorMessage = String.format(
+                        "您配置的列类型暂不支持 : [%s]", columnType);
+                LOG.error(errorMessage);
+                throw DataXException
+                        .asDataXException(
+                                UnstructuredStorageReaderErrorCode.NOT_SUPPORT_TYPE,
+                                errorMessage);
+        }
+        return columnGenerated;
+    }
+
     private int getAllColumnsCount(String filePath) {
         int columnsCount;
         final String colFinal = "_col";
@@ -672,8 +891,12 @@ public class DFSUtil {
                 if (isSEQ) {
                     return false;
                 }
-                // 如果不是ORC,RC和SEQ,则默认为是TEXT或CSV类型
-                return !isORC && !isRC && !isSEQ;
+                boolean isParquet = isParquetFile(file, fs, in);// 判断是否是 Parquet File
+                if (isParquet) {
+                    return false;
+                }
+                // 如果不是ORC,RC,SEQ和PARQUET,则默认为是TEXT或CSV类型
+                return !isORC && !isRC && !isSEQ && !isParquet;
 
             } else if (StringUtils.equalsIgnoreCase(specifiedFileType, Constant.ORC)) {
 
@@ -684,10 +907,13 @@ public class DFSUtil {
             } else if (StringUtils.equalsIgnoreCase(specifiedFileType, Constant.SEQ)) {
 
                 return isSequenceFile(filepath, in);
+            } else if (StringUtils.equalsIgnoreCase(specifiedFileType, Constant.PARQUET)) {
+
+                return isParquetFile(file, fs, in);
             }
 
         } catch (Exception e) {
-            String message = String.format("检查文件[%s]类型失败，目前支持ORC,SEQUENCE,RCFile,TEXT,CSV五种格式的文件," +
+            String message = String.format("检查文件[%s]类型失败，目前支持ORC,SEQUENCE,RCFile,TEXT,CSV,PARQUET六种格式的文件," +
                     "请检查您文件类型和文件是否正确。", filepath);
             LOG.error(message);
             throw DataXException.asDataXException(HdfsReaderErrorCode.READ_FILE_ERROR, message, e);
@@ -822,4 +1048,27 @@ public class DFSUtil {
         return false;
     }
 
+    // 判断file是否是Parquet File, 文件头和文件尾都是PAR1
+    private boolean isParquetFile(Path file, FileSystem fs, FSDataInputStream in) {
+        final byte[] PARQUET_MAGIC = new byte[]{(byte) 'P', (byte) 'A', (byte) 'R', (byte) '1'};
+        byte[] magic = new byte[PARQUET_MAGIC.length];
+        try {
+            long size = fs.getFileStatus(file).getLen();
+            if (size < PARQUET_MAGIC.length * 2 + 4) {
+                return false;
+            }
+            in.seek(0);
+            in.readFully(magic);
+            if (!Arrays.equals(magic, PARQUET_MAGIC)) {
+                return false;
+            }
+            in.seek(size - PARQUET_MAGIC.length);
+            in.readFully(magic);
+            return Arrays.equals(magic, PARQUET_MAGIC);
+        } catch (IOException e) {
+            LOG.info(String.format("检查文件类型: [%s] 不是Parquet File.", file.toString()));
+        }
+        return false;
+    }
+
 }
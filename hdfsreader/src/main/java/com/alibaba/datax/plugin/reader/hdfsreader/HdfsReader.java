@@ -1,5 +1,6 @@
 package com.alibaba.datax.plugin.reader.hdfsreader;
 
+import com.alibaba.datax.common.constant.CommonConstant;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordSender;
 import com.alibaba.datax.common.spi.Reader;
@@ -8,12 +9,15 @@ import com.alibaba.datax.plugin.unstructuredstorage.reader.UnstructuredStorageRe
 import com.alibaba.fastjson.JSONObject;
 import org.apache.commons.io.Charsets;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.mapred.FileSplit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -102,9 +106,10 @@ public class HdfsReader extends Reader {
                     !specifiedFileType.equalsIgnoreCase(Constant.TEXT) &&
                     !specifiedFileType.equalsIgnoreCase(Constant.CSV) &&
                     !specifiedFileType.equalsIgnoreCase(Constant.SEQ) &&
-                    !specifiedFileType.equalsIgnoreCase(Constant.RC)){
-                String message = "HdfsReader插件目前支持ORC, TEXT, CSV, SEQUENCE, RC五种格式的文件," +
-                        "请将fileType选项的值配置为ORC, TEXT, CSV, SEQUENCE 或者 RC";
+                    !specifiedFileType.equalsIgnoreCase(Constant.RC) &&
+                    !specifiedFileType.equalsIgnoreCase(Constant.PARQUET)){
+                String message = "HdfsReader插件目前支持ORC, TEXT, CSV, SEQUENCE, RC, PARQUET六种格式的文件," +
+                        "请将fileType选项的值配置为ORC, TEXT, CSV, SEQUENCE, RC 或者 PARQUET";
                 throw DataXException.asDataXException(HdfsReaderErrorCode.FILE_TYPE_ERROR, message);
             }
 
@@ -131,6 +136,20 @@ public class HdfsReader extends Reader {
             // validate the Columns
             validateColumns();
 
+            // filter只在向量化读取orcfile以及读取parquet文件时生效, 这里提前校验配置
+            List<Configuration> filter = this.readerOriginConfig.getListConfiguration(Key.FILTER);
+            if (null != filter && !filter.isEmpty()) {
+                if (this.specifiedFileType.equalsIgnoreCase(Constant.PARQUET)) {
+                    new ParquetFilter(filter);
+                } else if (!this.specifiedFileType.equalsIgnoreCase(Constant.ORC)
+                        || !this.readerOriginConfig.getBool(Key.VECTORIZED_READ, false)) {
+                    throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                            "filter仅支持fileType为PARQUET, 或者fileType为ORC并且开启vectorizedRead的情况");
+                } else {
+                    new OrcFilter(filter);
+                }
+            }
+
             if(this.specifiedFileType.equalsIgnoreCase(Constant.CSV)){
                 //compress校验
                 UnstructuredStorageReaderUtil.validateCompress(this.readerOriginConfig);
@@ -208,7 +227,12 @@ public class HdfsReader extends Reader {
                         //String.format("未能找到待读取的文件,请确认您的配置项path: %s", this.readerOriginConfig.getString(Key.PATH)));
             }
 
-            List<List<String>> splitedSourceFiles = this.splitSourceFiles(new ArrayList<String>(this.sourceFiles), adviceNumber);
+            List<String> wholeFiles = new ArrayList<String>(this.sourceFiles);
+            if (this.readerOriginConfig.getBool(Key.SPLIT_FILE, false)) {
+                wholeFiles = this.splitInsideFiles(readerSplitConfigs);
+            }
+
+            List<List<String>> splitedSourceFiles = this.splitSourceFiles(wholeFiles, adviceNumber);
             for (List<String> files : splitedSourceFiles) {
                 Configuration splitedConfig = this.readerOriginConfig.clone();
                 splitedConfig.set(Constant.SOURCE_FILES, files);
@@ -219,6 +243,60 @@ public class HdfsReader extends Reader {
         }
 
 
+        /**
+         * 把可切分的大文件按stripe/block切分为多个task, 每个task只读取文件的一个分片,
+         * 并把分片起始位置所在block的主机记录为资源标识, 由框架把不同主机上的分片均匀分配到各个taskGroup。
+         *
+         * @return 不需要切分的文件, 仍然按文件粒度分配
+         */
+        private List<String> splitInsideFiles(List<Configuration> readerSplitConfigs) {
+            List<String> wholeFiles = new ArrayList<String>();
+            boolean isText = this.specifiedFileType.equalsIgnoreCase(Constant.TEXT)
+                    || this.specifiedFileType.equalsIgnoreCase(Constant.CSV);
+            String compress = this.readerOriginConfig.getString(
+                    com.alibaba.datax.plugin.unstructuredstorage.reader.Key.COMPRESS);
+            if (isText && StringUtils.isNotBlank(compress)) {
+                LOG.warn(String.format("压缩格式[%s]的文本文件无法在文件内部切分, 将按文件切分", compress));
+                return new ArrayList<String>(this.sourceFiles);
+            }
+
+            long splitSize = this.readerOriginConfig.getLong(Key.SPLIT_SIZE, Constant.DEFAULT_SPLIT_SIZE);
+            if (splitSize <= 0) {
+                throw DataXException.asDataXException(HdfsReaderErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的splitSize[%s]不合法, 必须大于0", splitSize));
+            }
+            splitSize = splitSize * 1024 * 1024;
+
+            for (String sourceFile : this.sourceFiles) {
+                List<FileSplit> fileSplits = this.dfsUtil.getFileSplits(sourceFile, this.specifiedFileType, splitSize);
+                if (fileSplits.size() <= 1) {
+                    wholeFiles.add(sourceFile);
+                    continue;
+                }
+                LOG.info(String.format("文件[%s]切分为[%s]个分片", sourceFile, fileSplits.size()));
+                for (FileSplit fileSplit : fileSplits) {
+                    Configuration splitedConfig = this.readerOriginConfig.clone();
+                    splitedConfig.set(Constant.SOURCE_FILES, Arrays.asList(sourceFile));
+                    splitedConfig.set(Constant.SPLIT_START, fileSplit.getStart());
+                    splitedConfig.set(Constant.SPLIT_LENGTH, fileSplit.getLength());
+                    if (fileSplit.getStart() > 0) {
+                        // 表头只在第一个分片中
+                        splitedConfig.set(com.alibaba.datax.plugin.unstructuredstorage.reader.Key.SKIP_HEADER, false);
+                    }
+                    try {
+                        String[] hosts = fileSplit.getLocations();
+                        if (hosts.length > 0) {
+                            splitedConfig.set(CommonConstant.LOAD_BALANCE_RESOURCE_MARK, hosts[0]);
+                        }
+                    } catch (IOException e) {
+                        LOG.warn(String.format("获取文件[%s]分片的位置信息失败, %s", sourceFile, e.getMessage()));
+                    }
+                    readerSplitConfigs.add(splitedConfig);
+                }
+            }
+            return wholeFiles;
+        }
+
         private <T> List<List<T>> splitSourceFiles(final List<T> sourceList, int adviceNumber) {
             List<List<T>> splitedList = new ArrayList<List<T>>();
             int averageLength = sourceList.size() / adviceNumber;
@@ -278,28 +356,40 @@ public class HdfsReader extends Reader {
         public void startRead(RecordSender recordSender) {
 
             LOG.info("read start");
+            // 文件内切分后的task只包含一个文件, splitLength小于0表示读取整个文件
+            long splitStart = this.taskConfig.getLong(Constant.SPLIT_START, 0L);
+            long splitLength = this.taskConfig.getLong(Constant.SPLIT_LENGTH, -1L);
             for (String sourceFile : this.sourceFiles) {
-                LOG.info(String.format("reading file : [%s]", sourceFile));
+                LOG.info(String.format("reading file : [%s], start : [%s], length : [%s]",
+                        sourceFile, splitStart, splitLength));
 
                 if(specifiedFileType.equalsIgnoreCase(Constant.TEXT)
                         || specifiedFileType.equalsIgnoreCase(Constant.CSV)) {
 
-                    InputStream inputStream = dfsUtil.getInputStream(sourceFile);
+                    InputStream inputStream = splitLength < 0 ? dfsUtil.getInputStream(sourceFile)
+                            : dfsUtil.getInputStream(sourceFile, splitStart, splitLength);
                     UnstructuredStorageReaderUtil.readFromStream(inputStream, sourceFile, this.taskConfig,
                             recordSender, this.getTaskPluginCollector());
                 }else if(specifiedFileType.equalsIgnoreCase(Constant.ORC)){
 
-                    dfsUtil.orcFileStartRead(sourceFile, this.taskConfig, recordSender, this.getTaskPluginCollector());
+                    dfsUtil.orcFileStartRead(sourceFile, splitStart, splitLength, this.taskConfig,
+                            recordSender, this.getTaskPluginCollector());
                 }else if(specifiedFileType.equalsIgnoreCase(Constant.SEQ)){
 
-                    dfsUtil.sequenceFileStartRead(sourceFile, this.taskConfig, recordSender, this.getTaskPluginCollector());
+                    dfsUtil.sequenceFileStartRead(sourceFile, splitStart, splitLength, this.taskConfig,
+                            recordSender, this.getTaskPluginCollector());
                 }else if(specifiedFileType.equalsIgnoreCase(Constant.RC)){
 
-                    dfsUtil.rcFileStartRead(sourceFile, this.taskConfig, recordSender, this.getTaskPluginCollector());
+                    dfsUtil.rcFileStartRead(sourceFile, splitStart, splitLength, this.taskConfig,
+                            recordSender, this.getTaskPluginCollector());
+                }else if(specifiedFileType.equalsIgnoreCase(Constant.PARQUET)){
+
+                    dfsUtil.parquetFileStartRead(sourceFile, splitStart, splitLength, this.taskConfig,
+                            recordSender, this.getTaskPluginCollector());
                 }else {
 
-                    String message = "HdfsReader插件目前支持ORC, TEXT, CSV, SEQUENCE, RC五种格式的文件," +
-                            "请将fileType选项的值配置为ORC, TEXT, CSV, SEQUENCE 或者 RC";
+                    String message = "HdfsReader插件目前支持ORC, TEXT, CSV, SEQUENCE, RC, PARQUET六种格式的文件," +
+                            "请将fileType选项的值配置为ORC, TEXT, CSV, SEQUENCE, RC 或者 PARQUET";
                     throw DataXException.asDataXException(HdfsReaderErrorCode.FILE_TYPE_UNSUPPORT, message);
                 }
 
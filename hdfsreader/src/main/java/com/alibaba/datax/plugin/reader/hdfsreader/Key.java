@@ -15,4 +15,13 @@ public final class Key {
     public static final String HAVE_KERBEROS = "haveKerberos";
     public static final String KERBEROS_KEYTAB_FILE_PATH = "kerberosKeytabFilePath";
     public static final String KERBEROS_PRINCIPAL = "kerberosPrincipal";
+    // not must, default false
+    public static final String SPLIT_FILE = "splitFile";
+    // not must, MB
+    public static final String SPLIT_SIZE = "splitSize";
+    // not must, default false, only for ORC
+    public static final String VECTORIZED_READ = "vectorizedRead";
+    // not must, only for ORC with vectorizedRead or PARQUET
+    public static final String FILTER = "filter";
+    public static final String FILTER_OPERATOR = "operator";
 }
@@ -0,0 +1,87 @@
+package com.alibaba.datax.plugin.reader.hdfsreader;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 按行读取文本文件中 [start, end) 范围对应的数据, 行的归属与 Hadoop LineRecordReader 一致:
+ * <pre>
+ * 1. start 不为 0 时跳过第一个(可能不完整的)行, 该行由上一个分片读取;
+ * 2. 起始位置不超过 end 的行都属于本分片, 最后一行会越过 end 读完整。
+ * </pre>
+ * 只按 '\n' 识别行边界, 因此要求记录内部不包含换行符。
+ */
+public class LineRangeInputStream extends InputStream {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FSDataInputStream in;
+    private final long end;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferLength = 0;
+    private int bufferPosition = 0;
+    // 下一个要返回的字节在文件中的位置
+    private long position;
+    private boolean atLineStart = true;
+    private boolean finished = false;
+
+    public LineRangeInputStream(FSDataInputStream in, long start, long length) throws IOException {
+        this.in = in;
+        this.end = start + length;
+        this.position = start;
+        if (start > 0) {
+            this.in.seek(start);
+            int b;
+            do {
+                b = this.readByte();
+            } while (b >= 0 && b != '\n');
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return this.read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        while (n < len && !this.finished) {
+            if (this.atLineStart && this.position > this.end) {
+                this.finished = true;
+                break;
+            }
+            int c = this.readByte();
+            if (c < 0) {
+                this.finished = true;
+                break;
+            }
+            b[off + n++] = (byte) c;
+            this.atLineStart = (c == '\n');
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    private int readByte() throws IOException {
+        if (this.bufferPosition == this.bufferLength) {
+            this.bufferLength = this.in.read(this.buffer, 0, this.buffer.length);
+            this.bufferPosition = 0;
+            if (this.bufferLength <= 0) {
+                this.bufferLength = 0;
+                return -1;
+            }
+        }
+        this.position++;
+        return this.buffer[this.bufferPosition++] & 0xFF;
+    }
+}
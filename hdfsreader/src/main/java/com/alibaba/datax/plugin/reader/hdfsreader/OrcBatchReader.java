@@ -0,0 +1,325 @@
+package com.alibaba.datax.plugin.reader.hdfsreader;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.RecordSender;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.unstructuredstorage.reader.ColumnEntry;
+import com.alibaba.datax.plugin.unstructuredstorage.reader.UnstructuredStorageReaderUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.orc.Reader;
+import org.apache.orc.RecordReader;
+import org.apache.orc.TypeDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * 基于 org.apache.orc.RecordReader.nextBatch 的 orcfile 向量化读取。
+ *
+ * 只解码 column 中配置的列(列裁剪), 每次读取一个 VectorizedRowBatch, 直接从列向量中取值构造 Record:
+ * 整数列配置为 long、浮点列配置为 double、字符串列配置为 string 时不经过中间对象和字符串转换,
+ * 其他组合先按 Hive 的文本表示转换为字符串, 再按 column 配置的 type 转换, 与逐行读取的结果一致。
+ * 配置了 filter 时由 ORC 根据统计信息跳过不满足条件的 stripe/row group, 剩余的行再逐行过滤。
+ */
+public class OrcBatchReader {
+    private static final Logger LOG = LoggerFactory.getLogger(OrcBatchReader.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final List<ColumnEntry> column;
+    private final String nullFormat;
+    private final OrcFilter filter;
+    private final boolean isReadAllColumns;
+    // nullFormat 可能与数值的文本表示相同时不能跳过字符串转换
+    private final boolean directNumeric;
+
+    public OrcBatchReader(Configuration readerSliceConfig) {
+        this.column = UnstructuredStorageReaderUtil
+                .getListColumnEntry(readerSliceConfig, com.alibaba.datax.plugin.unstructuredstorage.reader.Key.COLUMN);
+        this.nullFormat = readerSliceConfig.getString(com.alibaba.datax.plugin.unstructuredstorage.reader.Key.NULL_FORMAT);
+        List<Configuration> filterConfigs = readerSliceConfig.getListConfiguration(Key.FILTER);
+        this.filter = null == filterConfigs || filterConfigs.isEmpty() ? null : new OrcFilter(filterConfigs);
+        this.isReadAllColumns = null == this.column || this.column.isEmpty();
+        this.directNumeric = null == this.nullFormat || !NumberUtils.isNumber(this.nullFormat.trim());
+    }
+
+    /**
+     * 判断文件能否向量化读取: 需要读取的列都是基本类型(binary 除外)
+     */
+    public boolean isSupported(TypeDescription schema) {
+        List<TypeDescription> children = schema.getChildren();
+        if (this.isReadAllColumns) {
+            for (TypeDescription child : children) {
+                if (!isPrimitive(child)) {
+                    return false;
+                }
+            }
+        } else {
+            for (ColumnEntry columnEntry : this.column) {
+                Integer index = columnEntry.getIndex();
+                if (null != index && index < children.size() && !isPrimitive(children.get(index))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public boolean hasFilter() {
+        return null != this.filter;
+    }
+
+    /**
+     * 读取文件中起始位置在 [start, start + length) 范围内的 stripe, length 小于 0 时读取整个文件
+     */
+    public void read(Reader reader, long start, long length, RecordSender recordSender,
+                     TaskPluginCollector taskPluginCollector) throws IOException {
+        TypeDescription schema = reader.getSchema();
+        List<TypeDescription> children = schema.getChildren();
+
+        boolean[] include = new boolean[schema.getMaximumId() + 1];
+        include[0] = true;
+        if (this.isReadAllColumns) {
+            for (TypeDescription child : children) {
+                includeColumn(include, child);
+            }
+        } else {
+            for (ColumnEntry columnEntry : this.column) {
+                Integer index = columnEntry.getIndex();
+                if (null != index) {
+                    if (index < 0 || index >= children.size()) {
+                        throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                                String.format("您column中配置的index[%s]超出了文件的列数[%s]", index, children.size()));
+                    }
+                    includeColumn(include, children.get(index));
+                }
+            }
+        }
+
+        if (null != this.filter) {
+            this.filter.bind(schema);
+            for (Integer index : this.filter.getColumnIndexes()) {
+                includeColumn(include, children.get(index));
+            }
+        }
+
+        Reader.Options options = new Reader.Options().include(include);
+        if (length >= 0) {
+            options.range(start, length);
+        }
+        if (null != this.filter) {
+            options.searchArgument(this.filter.toSearchArgument(), this.filter.getColumnNames());
+        }
+
+        ColumnReader[] columnReaders = this.createColumnReaders(children);
+        RecordReader rows = reader.rows(options);
+        VectorizedRowBatch batch = schema.createRowBatch();
+        long filtered = 0;
+        try {
+            while (rows.nextBatch(batch)) {
+                for (int r = 0; r < batch.size; r++) {
+                    int row = batch.selectedInUse ? batch.selected[r] : r;
+                    if (null != this.filter && !this.filter.accept(batch, row)) {
+                        filtered++;
+                        continue;
+                    }
+                    this.transportOneRecord(batch, row, columnReaders, recordSender, taskPluginCollector);
+                }
+            }
+        } finally {
+            rows.close();
+        }
+        if (null != this.filter) {
+            LOG.info(String.format("filter过滤掉的记录数: [%s]", filtered));
+        }
+    }
+
+    private ColumnReader[] createColumnReaders(List<TypeDescription> children) {
+        if (this.isReadAllColumns) {
+            ColumnReader[] columnReaders = new ColumnReader[children.size()];
+            for (int i = 0; i < children.size(); i++) {
+                columnReaders[i] = new ColumnReader(null, i, children.get(i));
+            }
+            return columnReaders;
+        }
+        ColumnReader[] columnReaders = new ColumnReader[this.column.size()];
+        for (int i = 0; i < this.column.size(); i++) {
+            ColumnEntry columnEntry = this.column.get(i);
+            Integer index = columnEntry.getIndex();
+            columnReaders[i] = new ColumnReader(columnEntry, null == index ? -1 : index,
+                    null == index ? null : children.get(index));
+        }
+        return columnReaders;
+    }
+
+    private void transportOneRecord(VectorizedRowBatch batch, int row, ColumnReader[] columnReaders,
+                                    RecordSender recordSender, TaskPluginCollector taskPluginCollector) {
+        Record record = recordSender.createRecord();
+        try {
+            for (ColumnReader columnReader : columnReaders) {
+                record.addColumn(columnReader.read(batch, row));
+            }
+            recordSender.sendToWriter(record);
+        } catch (IllegalArgumentException iae) {
+            taskPluginCollector.collectDirtyRecord(record, iae.getMessage());
+        } catch (IndexOutOfBoundsException ioe) {
+            taskPluginCollector.collectDirtyRecord(record, ioe.getMessage());
+        } catch (Exception e) {
+            if (e instanceof DataXException) {
+                throw (DataXException) e;
+            }
+            // 每一种转换失败都是脏数据处理,包括数字格式 & 日期格式
+            taskPluginCollector.collectDirtyRecord(record, e.getMessage());
+        }
+    }
+
+    /**
+     * 预先确定每一列的取值方式, 避免逐行判断列类型
+     */
+    private class ColumnReader {
+        private final ColumnEntry columnEntry;
+        private final int index;
+        private final TypeDescription.Category category;
+        private final boolean directLong;
+        private final boolean directDouble;
+        private final boolean directString;
+
+        ColumnReader(ColumnEntry columnEntry, int index, TypeDescription type) {
+            this.columnEntry = columnEntry;
+            this.index = index;
+            this.category = null == type ? null : type.getCategory();
+            String columnType = null == columnEntry ? null : columnEntry.getType();
+            boolean isIntegral = this.category == TypeDescription.Category.BYTE
+                    || this.category == TypeDescription.Category.SHORT
+                    || this.category == TypeDescription.Category.INT
+                    || this.category == TypeDescription.Category.LONG;
+            boolean isFloating = this.category == TypeDescription.Category.FLOAT
+                    || this.category == TypeDescription.Category.DOUBLE;
+            boolean isString = this.category == TypeDescription.Category.STRING
+                    || this.category == TypeDescription.Category.VARCHAR
+                    || this.category == TypeDescription.Category.CHAR;
+            this.directLong = directNumeric && isIntegral && "long".equalsIgnoreCase(columnType);
+            this.directDouble = directNumeric && isFloating && "double".equalsIgnoreCase(columnType);
+            this.directString = isString && "string".equalsIgnoreCase(columnType);
+        }
+
+        Column read(VectorizedRowBatch batch, int row) {
+            if (this.index < 0) {
+                // 常量列
+                String columnValue = this.columnEntry.getValue();
+                if (StringUtils.equals(columnValue, nullFormat)) {
+                    columnValue = null;
+                }
+                return DFSUtil.buildColumn(this.columnEntry, columnValue);
+            }
+
+            ColumnVector vector = batch.cols[this.index];
+            int i = vector.isRepeating ? 0 : row;
+            boolean isNull = !vector.noNulls && vector.isNull[i];
+            if (null == this.columnEntry) {
+                // 读取所有列时都按 String 类型读取
+                return new StringColumn(isNull ? null : stringValue(vector, this.category, i));
+            }
+            if (this.directLong) {
+                return isNull ? new LongColumn((String) null) : new LongColumn(((LongColumnVector) vector).vector[i]);
+            }
+            if (this.directDouble) {
+                if (isNull) {
+                    return new DoubleColumn((String) null);
+                }
+                double value = ((DoubleColumnVector) vector).vector[i];
+                // 与 FloatWritable.toString 保持一致, 避免 float 转 double 引入的精度尾数
+                return this.category == TypeDescription.Category.FLOAT
+                        ? new DoubleColumn((float) value) : new DoubleColumn(value);
+            }
+
+            String columnValue = isNull ? null : stringValue(vector, this.category, i);
+            // it's all ok if nullFormat is null
+            if (StringUtils.equals(columnValue, nullFormat)) {
+                columnValue = null;
+            }
+            if (this.directString) {
+                return new StringColumn(columnValue);
+            }
+            return DFSUtil.buildColumn(this.columnEntry, columnValue);
+        }
+    }
+
+    /**
+     * 与 Hive 对应 Writable 的 toString 结果保持一致
+     */
+    private static String stringValue(ColumnVector vector, TypeDescription.Category category, int i) {
+        switch (category) {
+            case BOOLEAN:
+                return ((LongColumnVector) vector).vector[i] == 0 ? "false" : "true";
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return Long.toString(((LongColumnVector) vector).vector[i]);
+            case DATE:
+                return new DateWritable((int) ((LongColumnVector) vector).vector[i]).toString();
+            case FLOAT:
+                return Float.toString((float) ((DoubleColumnVector) vector).vector[i]);
+            case DOUBLE:
+                return Double.toString(((DoubleColumnVector) vector).vector[i]);
+            case STRING:
+            case VARCHAR:
+            case CHAR:
+                BytesColumnVector bytes = (BytesColumnVector) vector;
+                return new String(bytes.vector[i], bytes.start[i], bytes.length[i], UTF_8);
+            case DECIMAL:
+                return ((DecimalColumnVector) vector).vector[i].toString();
+            case TIMESTAMP:
+                String timestamp = ((TimestampColumnVector) vector).asScratchTimestamp(i).toString();
+                // TimestampWritable 在纳秒为 0 时不输出小数部分
+                return timestamp.endsWith(".0") ? timestamp.substring(0, timestamp.length() - 2) : timestamp;
+            default:
+                throw new IllegalArgumentException(String.format("不支持的ORC列类型: [%s]", category));
+        }
+    }
+
+    private static boolean isPrimitive(TypeDescription type) {
+        switch (type.getCategory()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+            case STRING:
+            case VARCHAR:
+            case CHAR:
+            case DATE:
+            case TIMESTAMP:
+            case DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void includeColumn(boolean[] include, TypeDescription type) {
+        for (int id = type.getId(); id <= type.getMaximumId(); id++) {
+            include[id] = true;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.alibaba.datax.plugin.reader.hdfsreader;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.sarg.PredicateLeaf;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.orc.TypeDescription;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * orcfile 向量化读取的过滤条件, 对应配置项 filter, 多个条件之间为 AND 关系:
+ * <pre>
+ * "filter": [
+ *     {"index": 0, "operator": ">=", "value": "100"},
+ *     {"index": 3, "operator": "isNotNull"}
+ * ]
+ * </pre>
+ * 过滤条件会转换为 ORC 的 SearchArgument, 读取时利用 stripe/row group 的统计信息跳过不满足条件的数据;
+ * 统计信息只能排除整块数据, 剩余的行再逐行按条件过滤。
+ * 目前支持整数(tinyint/smallint/int/bigint)、浮点数(float/double)、字符串(string/varchar/char)和 date 类型的列。
+ */
+public class OrcFilter {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private enum Operator {
+        EQUALS("="), NOT_EQUALS("!="), LESS_THAN("<"), LESS_THAN_EQUALS("<="),
+        GREATER_THAN(">"), GREATER_THAN_EQUALS(">="), IS_NULL("isNull"), IS_NOT_NULL("isNotNull");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator of(String symbol) {
+            for (Operator operator : values()) {
+                if (operator.symbol.equalsIgnoreCase(symbol)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class Predicate {
+        private final int index;
+        private final Operator operator;
+        private final String value;
+
+        // bind 之后得到的 ORC 列 id 以及按列类型解析的字面量
+        private int columnId;
+        private PredicateLeaf.Type leafType;
+        private Object literal;
+        private long longLiteral;
+        private double doubleLiteral;
+        private byte[] bytesLiteral;
+
+        Predicate(int index, Operator operator, String value) {
+            this.index = index;
+            this.operator = operator;
+            this.value = value;
+        }
+    }
+
+    private final List<Predicate> predicates = new ArrayList<Predicate>();
+    private String[] columnNames;
+
+    /**
+     * 解析并校验 filter 配置, 配置不合法时抛出 DataXException
+     */
+    public OrcFilter(List<Configuration> filterConfigs) {
+        for (Configuration filterConfig : filterConfigs) {
+            Integer index = filterConfig.getInt(com.alibaba.datax.plugin.unstructuredstorage.reader.Key.INDEX);
+            String symbol = filterConfig.getString(Key.FILTER_OPERATOR);
+            String value = filterConfig.getString(com.alibaba.datax.plugin.unstructuredstorage.reader.Key.VALUE);
+            Operator operator = Operator.of(symbol);
+            if (null == index || index < 0 || null == operator) {
+                throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                        String.format("您配置的filter[%s]不合法, 需要配置index以及operator, operator支持 =, !=, <, <=, >, >=, isNull, isNotNull",
+                                filterConfig.toJSON()));
+            }
+            if (null == value && operator != Operator.IS_NULL && operator != Operator.IS_NOT_NULL) {
+                throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                        String.format("您配置的filter[%s]缺少value", filterConfig.toJSON()));
+            }
+            this.predicates.add(new Predicate(index, operator, value));
+        }
+    }
+
+    /**
+     * 按照文件的 schema 解析过滤条件中的字面量, 每个文件读取前调用一次
+     */
+    public void bind(TypeDescription schema) {
+        List<TypeDescription> children = schema.getChildren();
+        this.columnNames = new String[schema.getMaximumId() + 1];
+        for (int i = 0; i < children.size(); i++) {
+            this.columnNames[children.get(i).getId()] = schema.getFieldNames().get(i);
+        }
+
+        for (Predicate predicate : this.predicates) {
+            if (predicate.index >= children.size()) {
+                throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                        String.format("filter中配置的index[%s]超出了文件的列数[%s]", predicate.index, children.size()));
+            }
+            TypeDescription type = children.get(predicate.index);
+            predicate.columnId = type.getId();
+            try {
+                switch (type.getCategory()) {
+                    case BYTE:
+                    case SHORT:
+                    case INT:
+                    case LONG:
+                        predicate.leafType = PredicateLeaf.Type.LONG;
+                        if (null != predicate.value) {
+                            predicate.longLiteral = Long.parseLong(predicate.value.trim());
+                            predicate.literal = predicate.longLiteral;
+                        }
+                        break;
+                    case FLOAT:
+                    case DOUBLE:
+                        predicate.leafType = PredicateLeaf.Type.FLOAT;
+                        if (null != predicate.value) {
+                            predicate.doubleLiteral = Double.parseDouble(predicate.value.trim());
+                            predicate.literal = predicate.doubleLiteral;
+                        }
+                        break;
+                    case STRING:
+                    case VARCHAR:
+                    case CHAR:
+                        predicate.leafType = PredicateLeaf.Type.STRING;
+                        if (null != predicate.value) {
+                            predicate.bytesLiteral = predicate.value.getBytes(UTF_8);
+                            predicate.literal = predicate.value;
+                        }
+                        break;
+                    case DATE:
+                        predicate.leafType = PredicateLeaf.Type.DATE;
+                        if (null != predicate.value) {
+                            java.sql.Date date = java.sql.Date.valueOf(predicate.value.trim());
+                            predicate.longLiteral = DateWritable.dateToDays(date);
+                            predicate.literal = date;
+                        }
+                        break;
+                    default:
+                        throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                                String.format("filter暂不支持[%s]类型的列, index:[%s]", type, predicate.index));
+                }
+            } catch (IllegalArgumentException e) {
+                throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                        String.format("filter中的value[%s]无法转换为列[%s]的类型[%s]", predicate.value,
+                                predicate.index, type), e);
+            }
+        }
+    }
+
+    public SearchArgument toSearchArgument() {
+        SearchArgument.Builder builder = SearchArgumentFactory.newBuilder().startAnd();
+        for (Predicate predicate : this.predicates) {
+            String name = this.columnNames[predicate.columnId];
+            switch (predicate.operator) {
+                case EQUALS:
+                    builder.equals(name, predicate.leafType, predicate.literal);
+                    break;
+                case NOT_EQUALS:
+                    builder.startNot().equals(name, predicate.leafType, predicate.literal).end();
+                    break;
+                case LESS_THAN:
+                    builder.lessThan(name, predicate.leafType, predicate.literal);
+                    break;
+                case LESS_THAN_EQUALS:
+                    builder.lessThanEquals(name, predicate.leafType, predicate.literal);
+                    break;
+                case GREATER_THAN:
+                    builder.startNot().lessThanEquals(name, predicate.leafType, predicate.literal).end();
+                    break;
+                case GREATER_THAN_EQUALS:
+                    builder.startNot().lessThan(name, predicate.leafType, predicate.literal).end();
+                    break;
+                case IS_NULL:
+                    builder.isNull(name, predicate.leafType);
+                    break;
+                case IS_NOT_NULL:
+                    builder.startNot().isNull(name, predicate.leafType).end();
+                    break;
+            }
+        }
+        return builder.end().build();
+    }
+
+    /**
+     * @return 以 ORC 列 id 为下标的列名, 与 SearchArgument 一起传给 Reader.Options
+     */
+    public String[] getColumnNames() {
+        return this.columnNames;
+    }
+
+    /**
+     * @return 过滤条件涉及的顶层列下标
+     */
+    public List<Integer> getColumnIndexes() {
+        List<Integer> indexes = new ArrayList<Integer>();
+        for (Predicate predicate : this.predicates) {
+            indexes.add(predicate.index);
+        }
+        return indexes;
+    }
+
+    public boolean accept(VectorizedRowBatch batch, int row) {
+        for (Predicate predicate : this.predicates) {
+            if (!accept(predicate, batch.cols[predicate.index], row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean accept(Predicate predicate, ColumnVector vector, int row) {
+        int i = vector.isRepeating ? 0 : row;
+        boolean isNull = !vector.noNulls && vector.isNull[i];
+        if (predicate.operator == Operator.IS_NULL) {
+            return isNull;
+        }
+        if (predicate.operator == Operator.IS_NOT_NULL) {
+            return !isNull;
+        }
+        if (isNull) {
+            return false;
+        }
+
+        int compare;
+        if (predicate.leafType == PredicateLeaf.Type.FLOAT) {
+            compare = Double.compare(((DoubleColumnVector) vector).vector[i], predicate.doubleLiteral);
+        } else if (predicate.leafType == PredicateLeaf.Type.STRING) {
+            BytesColumnVector bytes = (BytesColumnVector) vector;
+            compare = WritableComparator.compareBytes(bytes.vector[i], bytes.start[i], bytes.length[i],
+                    predicate.bytesLiteral, 0, predicate.bytesLiteral.length);
+        } else {
+            long value = ((LongColumnVector) vector).vector[i];
+            compare = value < predicate.longLiteral ? -1 : (value == predicate.longLiteral ? 0 : 1);
+        }
+
+        switch (predicate.operator) {
+            case EQUALS:
+                return compare == 0;
+            case NOT_EQUALS:
+                return compare != 0;
+            case LESS_THAN:
+                return compare < 0;
+            case LESS_THAN_EQUALS:
+                return compare <= 0;
+            case GREATER_THAN:
+                return compare > 0;
+            default:
+                return compare >= 0;
+        }
+    }
+}
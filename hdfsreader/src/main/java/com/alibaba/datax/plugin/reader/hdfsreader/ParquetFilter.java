@@ -0,0 +1,198 @@
+package com.alibaba.datax.plugin.reader.hdfsreader;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * parquet 文件读取的过滤条件, 配置项与 {@link OrcFilter} 相同, 多个条件之间为 AND 关系。
+ * 过滤条件会转换为 parquet 的 FilterPredicate, 读取时利用 row group 的统计信息跳过不满足条件的 row group,
+ * 剩余的行再由 parquet 逐行过滤。
+ * 与 OrcFilter 一致, 除 isNull 以外的条件都不匹配 null 值。
+ * 目前支持 int32/int64(含 date)、float、double、boolean(只支持 = 和 !=) 以及字符串类型的 binary 列。
+ */
+public class ParquetFilter {
+
+    private enum Operator {
+        EQUALS("="), NOT_EQUALS("!="), LESS_THAN("<"), LESS_THAN_EQUALS("<="),
+        GREATER_THAN(">"), GREATER_THAN_EQUALS(">="), IS_NULL("isNull"), IS_NOT_NULL("isNotNull");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator of(String symbol) {
+            for (Operator operator : values()) {
+                if (operator.symbol.equalsIgnoreCase(symbol)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class Predicate {
+        private final int index;
+        private final Operator operator;
+        private final String value;
+
+        Predicate(int index, Operator operator, String value) {
+            this.index = index;
+            this.operator = operator;
+            this.value = value;
+        }
+    }
+
+    private final List<Predicate> predicates = new ArrayList<Predicate>();
+
+    /**
+     * 解析并校验 filter 配置, 配置不合法时抛出 DataXException
+     */
+    public ParquetFilter(List<Configuration> filterConfigs) {
+        for (Configuration filterConfig : filterConfigs) {
+            Integer index = filterConfig.getInt(com.alibaba.datax.plugin.unstructuredstorage.reader.Key.INDEX);
+            String symbol = filterConfig.getString(Key.FILTER_OPERATOR);
+            String value = filterConfig.getString(com.alibaba.datax.plugin.unstructuredstorage.reader.Key.VALUE);
+            Operator operator = Operator.of(symbol);
+            if (null == index || index < 0 || null == operator) {
+                throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                        String.format("您配置的filter[%s]不合法, 需要配置index以及operator, operator支持 =, !=, <, <=, >, >=, isNull, isNotNull",
+                                filterConfig.toJSON()));
+            }
+            if (null == value && operator != Operator.IS_NULL && operator != Operator.IS_NOT_NULL) {
+                throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                        String.format("您配置的filter[%s]缺少value", filterConfig.toJSON()));
+            }
+            this.predicates.add(new Predicate(index, operator, value));
+        }
+    }
+
+    /**
+     * @return 过滤条件涉及的顶层列下标
+     */
+    public List<Integer> getColumnIndexes() {
+        List<Integer> indexes = new ArrayList<Integer>();
+        for (Predicate predicate : this.predicates) {
+            indexes.add(predicate.index);
+        }
+        return indexes;
+    }
+
+    /**
+     * 按照文件的 schema 解析过滤条件中的字面量并生成 FilterPredicate, 每个文件读取前调用一次
+     */
+    public FilterPredicate toFilterPredicate(MessageType schema) {
+        FilterPredicate result = null;
+        for (Predicate predicate : this.predicates) {
+            FilterPredicate current = toFilterPredicate(schema, predicate);
+            result = null == result ? current : FilterApi.and(result, current);
+        }
+        return result;
+    }
+
+    private static FilterPredicate toFilterPredicate(MessageType schema, Predicate predicate) {
+        if (predicate.index >= schema.getFieldCount()) {
+            throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                    String.format("filter中配置的index[%s]超出了文件的列数[%s]", predicate.index, schema.getFieldCount()));
+        }
+        Type type = schema.getType(predicate.index);
+        if (!type.isPrimitive() || type.isRepetition(Type.Repetition.REPEATED)) {
+            throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                    String.format("filter暂不支持[%s]类型的列, index:[%s]", type, predicate.index));
+        }
+        String name = type.getName();
+        String value = null == predicate.value ? null : predicate.value.trim();
+        try {
+            switch (type.asPrimitiveType().getPrimitiveTypeName()) {
+                case INT32:
+                    Integer intLiteral = null;
+                    if (null != value) {
+                        intLiteral = type.getOriginalType() == OriginalType.DATE
+                                ? DateWritable.dateToDays(java.sql.Date.valueOf(value)) : Integer.valueOf(value);
+                    }
+                    return compare(FilterApi.intColumn(name), predicate.operator, intLiteral);
+                case INT64:
+                    return compare(FilterApi.longColumn(name), predicate.operator,
+                            null == value ? null : Long.valueOf(value));
+                case FLOAT:
+                    return compare(FilterApi.floatColumn(name), predicate.operator,
+                            null == value ? null : Float.valueOf(value));
+                case DOUBLE:
+                    return compare(FilterApi.doubleColumn(name), predicate.operator,
+                            null == value ? null : Double.valueOf(value));
+                case BOOLEAN:
+                    return equality(FilterApi.booleanColumn(name), predicate.operator,
+                            null == value ? null : Boolean.valueOf(value), type, predicate.index);
+                case BINARY:
+                    if (null != type.getOriginalType() && type.getOriginalType() != OriginalType.UTF8
+                            && type.getOriginalType() != OriginalType.ENUM && type.getOriginalType() != OriginalType.JSON) {
+                        break;
+                    }
+                    // 字符串按原始值比较, 不做trim
+                    return compare(FilterApi.binaryColumn(name), predicate.operator,
+                            null == predicate.value ? null : Binary.fromString(predicate.value));
+                default:
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                    String.format("filter中的value[%s]无法转换为列[%s]的类型[%s]", predicate.value,
+                            predicate.index, type), e);
+        }
+        throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                String.format("filter暂不支持[%s]类型的列, index:[%s]", type, predicate.index));
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt> FilterPredicate compare(
+            C column, Operator operator, T literal) {
+        switch (operator) {
+            case LESS_THAN:
+                return FilterApi.lt(column, literal);
+            case LESS_THAN_EQUALS:
+                return FilterApi.ltEq(column, literal);
+            case GREATER_THAN:
+                return FilterApi.gt(column, literal);
+            case GREATER_THAN_EQUALS:
+                return FilterApi.gtEq(column, literal);
+            default:
+                return equality(column, operator, literal);
+        }
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsEqNotEq> FilterPredicate equality(
+            C column, Operator operator, T literal, Type type, int index) {
+        if (operator != Operator.EQUALS && operator != Operator.NOT_EQUALS
+                && operator != Operator.IS_NULL && operator != Operator.IS_NOT_NULL) {
+            throw DataXException.asDataXException(HdfsReaderErrorCode.BAD_CONFIG_VALUE,
+                    String.format("[%s]类型的列只支持 =, !=, isNull, isNotNull, index:[%s]", type, index));
+        }
+        return equality(column, operator, literal);
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsEqNotEq> FilterPredicate equality(
+            C column, Operator operator, T literal) {
+        switch (operator) {
+            case EQUALS:
+                return FilterApi.eq(column, literal);
+            case NOT_EQUALS:
+                // parquet的notEq会匹配null值, 这里与OrcFilter保持一致排除null
+                return FilterApi.and(FilterApi.notEq(column, literal), FilterApi.notEq(column, (T) null));
+            case IS_NULL:
+                return FilterApi.eq(column, (T) null);
+            default:
+                return FilterApi.notEq(column, (T) null);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.alibaba.datax.plugin.writer.hdfswriter;
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+
+/**
+ * 一个VectorizedRowBatch中字符串列共用的字节缓冲区:
+ * 字符串直接编码到缓冲区中, BytesColumnVector通过setRef引用, 避免每个值都创建一个byte[]并再拷贝一次。
+ * 缓冲区写满时换一块更大的, 已经写入的值仍引用旧的缓冲区; batch写出之后调用reset从头复用。
+ */
+public class ByteSlab {
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_SIZE];
+    private int position = 0;
+
+    public void reset() {
+        this.position = 0;
+    }
+
+    /**
+     * 按UTF-8编码写入并设置到vector的row行, 非法的代理字符与String.getBytes一样替换为'?'
+     */
+    public void setUtf8(BytesColumnVector vector, int row, String value) {
+        int length = value.length();
+        // UTF-8中一个char最多编码为3个字节(代理对4个字节对应2个char)
+        ensureCapacity(length * 3);
+        byte[] bytes = this.buffer;
+        int start = this.position;
+        int offset = start;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[offset++] = (byte) (0xC0 | (c >> 6));
+                bytes[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[offset++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    bytes[offset++] = '?';
+                }
+            } else {
+                bytes[offset++] = (byte) (0xE0 | (c >> 12));
+                bytes[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[offset++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        this.position = offset;
+        vector.setRef(row, bytes, start, offset - start);
+    }
+
+    private void ensureCapacity(int length) {
+        if (this.position + length <= this.buffer.length) {
+            return;
+        }
+        this.buffer = new byte[Math.max(this.buffer.length * 2, length)];
+        this.position = 0;
+    }
+}
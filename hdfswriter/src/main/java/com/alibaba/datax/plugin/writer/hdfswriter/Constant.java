@@ -4,4 +4,9 @@ public class Constant {
 
 	public static final String DEFAULT_ENCODING = "UTF-8";
 	public static final String DEFAULT_NULL_FORMAT = "\\N";
+	public static final int DEFAULT_MAX_OPEN_PARTITION_WRITERS = 64;
+	public static final long DEFAULT_PARTITION_WRITER_MEMORY = 512;
+	public static final int DEFAULT_PARQUET_BLOCK_SIZE = 128 * 1024 * 1024;
+	public static final int DEFAULT_PARQUET_PAGE_SIZE = 1024 * 1024;
+	public static final int DEFAULT_PARQUET_DICTIONARY_PAGE_SIZE = 1024 * 1024;
 }
@@ -17,6 +17,8 @@ import org.apache.hadoop.hive.ql.exec.vector.*;
 import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
 import org.apache.hadoop.hive.ql.io.orc.Writer;
+import org.apache.hadoop.hive.ql.io.parquet.timestamp.NanoTimeUtils;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
@@ -28,9 +30,21 @@ import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.orc.CompressionKind;
 import org.apache.orc.OrcFile;
 import org.apache.orc.TypeDescription;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Types;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -42,7 +56,13 @@ public  class HdfsHelper {
     {
         private VectorizedRowBatch batch;
         private org.apache.orc.Writer writer;
+        //fileType为PARQUET时使用, 此时batch和writer为空
+        private ParquetWriter<Group> parquetWriter;
+        private SimpleGroupFactory groupFactory;
         private String fileName;
+        // 估算的writer内存占用, 计入分区writer的内存预算
+        private long estimatedMemory;
+        private final ByteSlab slab = new ByteSlab();
 
         public VectorizedRowBatch getBatch() {
             return batch;
@@ -60,6 +80,22 @@ public  class HdfsHelper {
             this.writer = writer;
         }
 
+        public ParquetWriter<Group> getParquetWriter() {
+            return parquetWriter;
+        }
+
+        public void setParquetWriter(ParquetWriter<Group> parquetWriter) {
+            this.parquetWriter = parquetWriter;
+        }
+
+        public SimpleGroupFactory getGroupFactory() {
+            return groupFactory;
+        }
+
+        public void setGroupFactory(SimpleGroupFactory groupFactory) {
+            this.groupFactory = groupFactory;
+        }
+
         public String getFileName() {
             return fileName;
         }
@@ -67,6 +103,18 @@ public  class HdfsHelper {
         public void setFileName(String fileName) {
             this.fileName = fileName;
         }
+
+        public ByteSlab getSlab() {
+            return slab;
+        }
+
+        public long getEstimatedMemory() {
+            return estimatedMemory;
+        }
+
+        public void setEstimatedMemory(long estimatedMemory) {
+            this.estimatedMemory = estimatedMemory;
+        }
     }
 
     public FileSystem fileSystem = null;
@@ -74,7 +122,9 @@ public  class HdfsHelper {
     public org.apache.hadoop.conf.Configuration hadoopConf = null;
     public static final String HADOOP_SECURITY_AUTHENTICATION_KEY = "hadoop.security.authentication";
 
-    private Map<String,BufferWriterBatchForPart> writerBatchMap=new HashMap();
+    //按访问顺序排列, 第一个元素即最久未写入的分区
+    private LinkedHashMap<String,BufferWriterBatchForPart> writerBatchMap=new LinkedHashMap<String,BufferWriterBatchForPart>(16,0.75f,true);
+    private long openWriterMemory=0;
 
     // Kerberos
     private Boolean haveKerberos = false;
@@ -716,10 +766,20 @@ public  class HdfsHelper {
         return writer;
     }
 
-    private void transportOrcBatch(VectorizedRowBatch batch,Record record,List<Configuration> columns,int rowCount,TaskPluginCollector taskPluginCollector,String encoding,List<Integer> colIndexes)
+    /**
+     * 把一条record写入batch的rowCount行
+     * LONG/DATE类型的column直接取long值, BYTES类型在UTF-8编码下直接引用原始字节,
+     * 其他字符串编码到slab中并通过setRef引用, 只有无法直接转换的类型才经过字符串解析
+     */
+    private void transportOrcBatch(VectorizedRowBatch batch,Record record,List<Configuration> columns,int rowCount,TaskPluginCollector taskPluginCollector,String encoding,List<Integer> colIndexes,ByteSlab slab)
     {
         int recordLength = record.getColumnNumber();
         if (0 != recordLength) {
+            if (rowCount == 0) {
+                //上一个batch已经写出, slab可以复用
+                slab.reset();
+            }
+            boolean isUtf8 = "UTF-8".equalsIgnoreCase(encoding) || "UTF8".equalsIgnoreCase(encoding);
             Column column;
             int batchColIdx=0;
             for (int i = 0; i < recordLength; i++) {
@@ -731,9 +791,7 @@ public  class HdfsHelper {
                 else
                 {
                     column = record.getColumn(i);
-                    //if (null != column.getRawData()) {
-                    String rowData = column.getRawData()==null?null:column.getRawData().toString();
-                    //Object rowData=column.getRawData();
+                    Object rawData = column.getRawData();
                     Configuration columnConf=null;
                     try {
                         columnConf=columns.get(i);
@@ -747,160 +805,59 @@ public  class HdfsHelper {
                                         "源端字段的index超出目标端字段的数组下标,请确保你配置的源端字段和目标端字段对应,源端字段最好不要使用*号.");
                     }
                     SupportHiveDataType columnType = SupportHiveDataType.valueOf(columnConf.getString(Key.TYPE).toUpperCase());
+                    if(rawData==null)
+                    {
+                        batch.cols[batchColIdx].noNulls=false;
+                        batch.cols[batchColIdx].isNull[rowCount]=true;
+                        batchColIdx++;
+                        continue;
+                    }
                     //根据writer端类型配置做类型转换
                     try {
                         switch (columnType) {
                             case TINYINT:
-                                //recordList.add(Byte.valueOf(rowData));
-                                //((LongColumnVector) batch.cols[i]).vector[rowCount] = (rowData==null?null:Long.valueOf(rowData).longValue());
-                                if(rowData==null)
-                                {
-                                    //((LongColumnVector) batch.cols[i]).fillWithNulls();
-                                    batch.cols[batchColIdx].noNulls=false;
-                                    batch.cols[batchColIdx].isNull[rowCount]=true;
-                                }
-                                else
-                                {
-                                    //((LongColumnVector) batch.cols[i]).fill(Long.valueOf(rowData).longValue());
-                                    ((LongColumnVector) batch.cols[batchColIdx]).vector[rowCount]=Long.valueOf(rowData).longValue();
-                                }
-                                break;
                             case SMALLINT:
-                                if(rowData==null)
-                                {
-                                    //((LongColumnVector) batch.cols[i]).fillWithNulls();
-                                    batch.cols[batchColIdx].noNulls=false;
-                                    batch.cols[batchColIdx].isNull[rowCount]=true;
-                                }
-                                else
-                                {
-                                    //((LongColumnVector) batch.cols[i]).fill(Long.valueOf(rowData).longValue());
-                                    ((LongColumnVector) batch.cols[batchColIdx]).vector[rowCount]=Long.valueOf(rowData).longValue();
-                                }
-                                break;
                             case INT:
-                                if(rowData==null)
-                                {
-                                    //((LongColumnVector) batch.cols[i]).fillWithNulls();
-                                    batch.cols[batchColIdx].noNulls=false;
-                                    batch.cols[batchColIdx].isNull[rowCount]=true;
-                                }
-                                else
-                                {
-                                    //((LongColumnVector) batch.cols[i]).fill(Long.valueOf(rowData).longValue());
-                                    ((LongColumnVector) batch.cols[batchColIdx]).vector[rowCount]=Long.valueOf(rowData).longValue();
-                                }
-                                break;
                             case DATE:
                             case BIGINT:
-                                if(rowData==null)
-                                {
-                                    //((LongColumnVector) batch.cols[i]).fillWithNulls();
-                                    batch.cols[batchColIdx].noNulls=false;
-                                    batch.cols[batchColIdx].isNull[rowCount]=true;
-                                }
-                                else
-                                {
-                                    //((LongColumnVector) batch.cols[i]).fill(Long.valueOf(rowData).longValue());
-                                    ((LongColumnVector) batch.cols[batchColIdx]).vector[rowCount]=Long.valueOf(rowData).longValue();
-                                }
+                                ((LongColumnVector) batch.cols[batchColIdx]).vector[rowCount]=toLong(column,rawData);
                                 break;
                             case FLOAT:
-                                //recordList.add(Float.valueOf(rowData));
-                                //((DoubleColumnVector) batch.cols[i]).vector[rowCount] = rowData==null?null:Double.valueOf(rowData).doubleValue();
-                                if(rowData==null)
-                                {
-                                    //((DoubleColumnVector) batch.cols[i]).fillWithNulls();
-                                    batch.cols[batchColIdx].noNulls=false;
-                                    batch.cols[batchColIdx].isNull[rowCount]=true;
-                                }
-                                else
-                                {
-                                    //((DoubleColumnVector) batch.cols[i]).fill(Double.valueOf(rowData).doubleValue());
-                                    ((DoubleColumnVector) batch.cols[batchColIdx]).vector[rowCount]=Double.valueOf(rowData).doubleValue();
-                                }
-                                break;
                             case DOUBLE:
-                                if(rowData==null)
-                                {
-                                    //((DoubleColumnVector) batch.cols[i]).fillWithNulls();
-                                    batch.cols[batchColIdx].noNulls=false;
-                                    batch.cols[batchColIdx].isNull[rowCount]=true;
-                                }
-                                else
-                                {
-                                    //((DoubleColumnVector) batch.cols[i]).fill(Double.valueOf(rowData).doubleValue());
-                                    ((DoubleColumnVector) batch.cols[batchColIdx]).vector[rowCount]=Double.valueOf(rowData).doubleValue();
-                                }
+                                ((DoubleColumnVector) batch.cols[batchColIdx]).vector[rowCount]=toDouble(column,rawData);
                                 break;
                             case STRING:
                             case VARCHAR:
                             case CHAR:
-                                if(rowData==null)
+                                BytesColumnVector bytesVector=(BytesColumnVector) batch.cols[batchColIdx];
+                                if(isUtf8 && column.getType()==Column.Type.BYTES)
                                 {
-                                    //((BytesColumnVector) batch.cols[i]).fillWithNulls();
-                                    batch.cols[batchColIdx].noNulls=false;
-                                    batch.cols[batchColIdx].isNull[rowCount]=true;
+                                    byte[] bytes=(byte[]) rawData;
+                                    bytesVector.setRef(rowCount,bytes,0,bytes.length);
                                 }
-                                else
-                                {
-                                    //((BytesColumnVector) batch.cols[i]).fill(rowData.getBytes(encoding));
-                                    //((BytesColumnVector) batch.cols[i]).vector[rowCount]=rowData.getBytes();
-                                    ((BytesColumnVector) batch.cols[batchColIdx]).setVal(rowCount,column.asString().getBytes(encoding));
-                                }
-                                break;
-                            /*case BOOLEAN:
-                                //recordList.add(column.asBoolean());
-                                //((DoubleColumnVector) batch.cols[i]).vector[rowCount] = rowData==null?null:Double.valueOf(rowData).doubleValue();
-                                if(rowData==null)
-                                {
-                                    ((LongColumnVector) batch.cols[i]).fillWithNulls();
-                                }
-                                else
+                                else if(isUtf8)
                                 {
-                                    ((LongColumnVector) batch.cols[i]).fill((rowData.equalsIgnoreCase("true")?1:0));
-                                }
-                                break;*/
-                            /*case DATE:
-                                if(rowData==null)
-                                {
-                                    //((LongColumnVector) batch.cols[i]).fillWithNulls();
-                                    batch.cols[i].noNulls=false;
-                                    batch.cols[i].isNull[rowCount]=true;
+                                    slab.setUtf8(bytesVector,rowCount,column.asString());
                                 }
                                 else
                                 {
-                                    //((LongColumnVector) batch.cols[i]).fill(Long.valueOf(rowData).longValue());
-                                    ((LongColumnVector) batch.cols[i]).vector[rowCount]=Long.valueOf(rowData).longValue();
-
-                                    //((TimestampColumnVector) batch.cols[i]).set(rowCount, new Timestamp(Long.valueOf(rowData)));
+                                    byte[] bytes=column.asString().getBytes(encoding);
+                                    bytesVector.setRef(rowCount,bytes,0,bytes.length);
                                 }
-                                break;*/
+                                break;
                             case TIMESTAMP:
-                                //recordList.add(new java.sql.Timestamp(column.asDate().getTime()));
-                                //((TimestampColumnVector) batch.cols[i]).time[rowCount] = rowData==null?null:(Timestamp.valueOf(rowData)).getTime();
-                                if(rowData==null)
-                                {
-                                    //((TimestampColumnVector) batch.cols[i]).setNullValue(i);
-                                    batch.cols[batchColIdx].noNulls=false;
-                                    batch.cols[batchColIdx].isNull[rowCount]=true;
-                                }
-                                else
-                                {
-                                    //((TimestampColumnVector) batch.cols[i]).fill(Timestamp.valueOf(rowData));
-                                    //((TimestampColumnVector) batch.cols[i]).set(rowCount, Timestamp.valueOf(rowData));
-
-                                    ((TimestampColumnVector) batch.cols[batchColIdx]).set(rowCount, new Timestamp(Long.valueOf(rowData)));
-
-                                    //((LongColumnVector) batch.cols[i]).vector[rowCount]=Long.valueOf(rowData).longValue();
-                                }
+                                long millis=toLong(column,rawData);
+                                TimestampColumnVector timestampVector=(TimestampColumnVector) batch.cols[batchColIdx];
+                                //与Timestamp(long)一致: time为毫秒数, nanos为毫秒数中不足1秒的部分
+                                timestampVector.time[rowCount]=millis;
+                                timestampVector.nanos[rowCount]=(int) (((millis % 1000) + 1000) % 1000) * 1000000;
                                 break;
                             default:
                                 throw DataXException
                                         .asDataXException(
                                                 HdfsWriterErrorCode.ILLEGAL_VALUE,
                                                 String.format(
-                                                        "您的配置文件中的列配置信息有误. 因为DataX 不支持数据库写入这种字段类型. 字段名:[%s], 字段类型:[%d]. 请修改表中该字段的类型或者不同步该字段.",
+                                                        "您的配置文件中的列配置信息有误. 因为DataX 不支持数据库写入这种字段类型. 字段名:[%s], 字段类型:[%s]. 请修改表中该字段的类型或者不同步该字段.",
                                                         columnConf.getString(Key.NAME),
                                                         columnConf.getString(Key.TYPE)));
                         }
@@ -908,7 +865,7 @@ public  class HdfsHelper {
                         // warn: 此处认为脏数据
                         String message = String.format(
                                 "字段类型转换错误：你配置的目标字段 [%s] 为 [%s] 类型，实际字段值为 [%s] .",
-                                columnConf.getString(Key.NAME),columnConf.getString(Key.TYPE), rowData);
+                                columnConf.getString(Key.NAME),columnConf.getString(Key.TYPE), rawData);
                         LOG.error("写入数据失败, 将视为脏数据: ",e);
                         taskPluginCollector.collectDirtyRecord(record, message);
                         batch.size--;
@@ -917,15 +874,49 @@ public  class HdfsHelper {
 
                     //字段如果是用于做分区写入的则不会加入到batch的schema里，batch里col的索引也会不一样
                     batchColIdx++;
-
-                    //}else {
-                    // warn: it's all ok if nullFormat is null
-                    //}
                 }
             }
         }
     }
 
+    /**
+     * LongColumn/DateColumn直接取long值, 其余类型按原始值的字符串解析, 与原来的转换规则保持一致
+     */
+    private static long toLong(Column column, Object rawData)
+    {
+        if(column.getType()==Column.Type.LONG || column.getType()==Column.Type.DATE)
+        {
+            return column.asLong();
+        }
+        return Long.valueOf(rawData.toString());
+    }
+
+    /**
+     * parquet的TINYINT/SMALLINT/INT均以int32存储, 超出目标类型范围时抛出异常按脏数据处理, 与text路径的Byte/Short/Integer.valueOf一致, 避免强转静默溢出
+     */
+    private static int toIntInRange(Column column, Object rawData, int min, int max, SupportHiveDataType columnType)
+    {
+        long value=toLong(column,rawData);
+        if(value<min || value>max)
+        {
+            throw new NumberFormatException(String.format("值 [%s] 超出 %s 类型的范围 [%s, %s]", value, columnType, min, max));
+        }
+        return (int) value;
+    }
+
+    private static double toDouble(Column column, Object rawData)
+    {
+        if(column.getType()==Column.Type.LONG)
+        {
+            return ((BigInteger) rawData).doubleValue();
+        }
+        if(rawData instanceof String)
+        {
+            return Double.parseDouble((String) rawData);
+        }
+        return Double.valueOf(rawData.toString());
+    }
+
     /**
      * 新版写orcfile类型文件
      * @param lineReceiver
@@ -939,6 +930,7 @@ public  class HdfsHelper {
         String encoding=config.getString(Key.ENCODING,"UTF-8");
         TypeDescription schema=createOrcSchema(null,columns);
         VectorizedRowBatch batch = schema.createRowBatch();
+        ByteSlab slab = new ByteSlab();
 
         org.apache.orc.Writer writer=createOrcWriter(fileName,hadoopConf,schema,config);
         Record record = null;
@@ -967,7 +959,7 @@ public  class HdfsHelper {
 
                 //startTransTime=System.currentTimeMillis();
 
-                transportOrcBatch(batch, record,columns, rowCount, taskPluginCollector,encoding,null);
+                transportOrcBatch(batch, record,columns, rowCount, taskPluginCollector,encoding,null,slab);
 
                 /*transTimeSum+=System.currentTimeMillis()-startTransTime;
                 if(cnt>=10000)
@@ -1021,6 +1013,273 @@ public  class HdfsHelper {
         }
     }
 
+    /**
+     * 写parquet类型文件
+     * @param lineReceiver
+     * @param config
+     * @param fileName
+     * @param taskPluginCollector
+     */
+    public void parquetFileStartWrite(RecordReceiver lineReceiver, Configuration config, String fileName,
+                                      TaskPluginCollector taskPluginCollector){
+        List<Configuration>  columns = config.getListConfiguration(Key.COLUMN);
+        String encoding=config.getString(Key.ENCODING,"UTF-8");
+        MessageType schema=createParquetSchema(null,columns);
+
+        BufferWriterBatchForPart writerBatch=new BufferWriterBatchForPart();
+        writerBatch.setFileName(fileName);
+        writerBatch.setParquetWriter(createParquetWriter(fileName,schema,config));
+        writerBatch.setGroupFactory(new SimpleGroupFactory(schema));
+
+        Record record = null;
+        while ((record = lineReceiver.getFromReader()) != null) {
+            writeParquetRecord(writerBatch,record,columns,taskPluginCollector,encoding,null);
+        }
+
+        try
+        {
+            writerBatch.getParquetWriter().close();
+        }
+        catch(Exception e)
+        {
+            String message = String.format("关闭文件[%s]时发生IO异常,请检查您的网络是否正常！", fileName);
+            LOG.error(message,e);
+            Path path = new Path(fileName);
+            deleteDir(path.getParent());
+            throw DataXException.asDataXException(HdfsWriterErrorCode.Write_FILE_IO_ERROR, e);
+        }
+    }
+
+    /**
+     * parquet的所有列都是optional的, 整数/浮点数/布尔按对应的基本类型存储,
+     * 字符串为UTF8的binary, date为int32的天数, timestamp与hive一致存储为int96
+     */
+    private MessageType createParquetSchema(List<Integer> colIndexes,List<Configuration> columns)
+    {
+        Types.MessageTypeBuilder builder=Types.buildMessage();
+
+        for (int i=0; i<columns.size(); i++) {
+            //如果是用于subDir的column，则不用写入到文件
+            if(colIndexes!=null && !colIndexes.isEmpty() && colIndexes.contains(i))
+            {
+                continue;
+            }
+            Configuration eachColumnConf=columns.get(i);
+            String columnName=eachColumnConf.getString(Key.NAME);
+            String columnTypeStr=eachColumnConf.getString(Key.TYPE);
+            SupportHiveDataType columnType = SupportHiveDataType.valueOf(columnTypeStr.toUpperCase());
+            switch (columnType) {
+                case TINYINT:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.INT32).as(OriginalType.INT_8).named(columnName));
+                    break;
+                case SMALLINT:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.INT32).as(OriginalType.INT_16).named(columnName));
+                    break;
+                case INT:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.INT32).named(columnName));
+                    break;
+                case BIGINT:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.INT64).named(columnName));
+                    break;
+                case FLOAT:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.FLOAT).named(columnName));
+                    break;
+                case DOUBLE:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.DOUBLE).named(columnName));
+                    break;
+                case STRING:
+                case VARCHAR:
+                case CHAR:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.BINARY).as(OriginalType.UTF8).named(columnName));
+                    break;
+                case BOOLEAN:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.BOOLEAN).named(columnName));
+                    break;
+                case DATE:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.INT32).as(OriginalType.DATE).named(columnName));
+                    break;
+                case TIMESTAMP:
+                    builder.addField(Types.optional(PrimitiveType.PrimitiveTypeName.INT96).named(columnName));
+                    break;
+                default:
+                    throw DataXException
+                            .asDataXException(
+                                    HdfsWriterErrorCode.ILLEGAL_VALUE,
+                                    String.format(
+                                            "您的配置文件中的列配置信息有误. 因为DataX 不支持数据库写入这种字段类型. 字段名:[%s], 字段类型:[%s]. 请修改表中该字段的类型或者不同步该字段.",
+                                            columnName,
+                                            columnTypeStr));
+            }
+        }
+
+        return builder.named("schema");
+    }
+
+    private ParquetWriter<Group> createParquetWriter(String fileName, MessageType schema, Configuration config)
+    {
+        String compress = config.getString(Key.COMPRESS, "NONE");
+        int blockSize=config.getInt(Key.PARQUET_BLOCK_SIZE,Constant.DEFAULT_PARQUET_BLOCK_SIZE);
+        int pageSize=config.getInt(Key.PARQUET_PAGE_SIZE,Constant.DEFAULT_PARQUET_PAGE_SIZE);
+        int dictionaryPageSize=config.getInt(Key.PARQUET_DICTIONARY_PAGE_SIZE,Constant.DEFAULT_PARQUET_DICTIONARY_PAGE_SIZE);
+        boolean enableDictionary=config.getBool(Key.PARQUET_ENABLE_DICTIONARY,true);
+
+        CompressionCodecName codec;
+        if("NONE".equalsIgnoreCase(compress)){
+            codec=CompressionCodecName.UNCOMPRESSED;
+        }else if("SNAPPY".equalsIgnoreCase(compress)){
+            codec=CompressionCodecName.SNAPPY;
+        }else if("GZIP".equalsIgnoreCase(compress)){
+            codec=CompressionCodecName.GZIP;
+        }else if("LZO".equalsIgnoreCase(compress)){
+            codec=CompressionCodecName.LZO;
+        }else {
+            throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("目前不支持您配置的 compress 模式 : [%s]", compress));
+        }
+
+        LOG.info("PARQUET相关配置: blockSize: "+blockSize+", pageSize: "+pageSize+", dictionaryPageSize: "+dictionaryPageSize
+                +", enableDictionary: "+enableDictionary+", compress: "+codec);
+
+        //GroupWriteSupport从conf中取schema, 每个writer使用单独的conf
+        org.apache.hadoop.conf.Configuration writerConf=new org.apache.hadoop.conf.Configuration(hadoopConf);
+        GroupWriteSupport.setSchema(schema,writerConf);
+
+        try
+        {
+            return new ParquetWriter<Group>(new Path(fileName),new GroupWriteSupport(),codec,blockSize,pageSize,
+                    dictionaryPageSize,enableDictionary,false,ParquetProperties.WriterVersion.PARQUET_1_0,writerConf);
+        }
+        catch(IOException e)
+        {
+            LOG.error("创建PARQUET Writer失败: ",e);
+            throw DataXException
+                    .asDataXException(
+                            HdfsWriterErrorCode.CONNECT_HDFS_IO_ERROR,
+                            String.format(
+                                    "创建PARQUET Writer失败:[%s].",
+                                    fileName));
+        }
+    }
+
+    /**
+     * 把一条record转换为parquet的Group并写出, 类型转换失败的record视为脏数据
+     */
+    private void writeParquetRecord(BufferWriterBatchForPart writerBatch,Record record,List<Configuration> columns,TaskPluginCollector taskPluginCollector,String encoding,List<Integer> colIndexes)
+    {
+        int recordLength = record.getColumnNumber();
+        if (0 == recordLength) {
+            return;
+        }
+        boolean isUtf8 = "UTF-8".equalsIgnoreCase(encoding) || "UTF8".equalsIgnoreCase(encoding);
+        Group group=writerBatch.getGroupFactory().newGroup();
+        int fieldIdx=0;
+        for (int i = 0; i < recordLength; i++) {
+            //如果是用于subDir的column，则不用写入到文件
+            if(colIndexes!=null && !colIndexes.isEmpty() && colIndexes.contains(i))
+            {
+                continue;
+            }
+            Column column = record.getColumn(i);
+            Object rawData = column.getRawData();
+            Configuration columnConf=null;
+            try {
+                columnConf=columns.get(i);
+            }
+            catch(IndexOutOfBoundsException e)
+            {
+                LOG.error("源端字段的index超出目标端字段的数组下标,源端字段数量为 [{}], 目标端字段数量为 [{}], 请确保你配置的源端字段和目标端字段对应,源端字段最好不要使用*号.",recordLength,columns.size());
+                throw DataXException
+                        .asDataXException(
+                                HdfsWriterErrorCode.ILLEGAL_VALUE,
+                                "源端字段的index超出目标端字段的数组下标,请确保你配置的源端字段和目标端字段对应,源端字段最好不要使用*号.");
+            }
+            if(rawData==null)
+            {
+                //optional字段不写入即为null
+                fieldIdx++;
+                continue;
+            }
+            SupportHiveDataType columnType = SupportHiveDataType.valueOf(columnConf.getString(Key.TYPE).toUpperCase());
+            //根据writer端类型配置做类型转换
+            try {
+                switch (columnType) {
+                    case TINYINT:
+                        group.add(fieldIdx,toIntInRange(column,rawData,Byte.MIN_VALUE,Byte.MAX_VALUE,columnType));
+                        break;
+                    case SMALLINT:
+                        group.add(fieldIdx,toIntInRange(column,rawData,Short.MIN_VALUE,Short.MAX_VALUE,columnType));
+                        break;
+                    case INT:
+                        group.add(fieldIdx,toIntInRange(column,rawData,Integer.MIN_VALUE,Integer.MAX_VALUE,columnType));
+                        break;
+                    case BIGINT:
+                        group.add(fieldIdx,toLong(column,rawData));
+                        break;
+                    case FLOAT:
+                        group.add(fieldIdx,(float) toDouble(column,rawData));
+                        break;
+                    case DOUBLE:
+                        group.add(fieldIdx,toDouble(column,rawData));
+                        break;
+                    case STRING:
+                    case VARCHAR:
+                    case CHAR:
+                        if(isUtf8 && column.getType()==Column.Type.BYTES)
+                        {
+                            group.add(fieldIdx,Binary.fromConstantByteArray((byte[]) rawData));
+                        }
+                        else if(isUtf8)
+                        {
+                            group.add(fieldIdx,Binary.fromString(column.asString()));
+                        }
+                        else
+                        {
+                            group.add(fieldIdx,Binary.fromConstantByteArray(column.asString().getBytes(encoding)));
+                        }
+                        break;
+                    case BOOLEAN:
+                        group.add(fieldIdx,column.asBoolean().booleanValue());
+                        break;
+                    case DATE:
+                        group.add(fieldIdx,DateWritable.millisToDays(column.asDate().getTime()));
+                        break;
+                    case TIMESTAMP:
+                        group.add(fieldIdx,NanoTimeUtils.getNanoTime(new Timestamp(column.asDate().getTime()),false).toBinary());
+                        break;
+                    default:
+                        throw DataXException
+                                .asDataXException(
+                                        HdfsWriterErrorCode.ILLEGAL_VALUE,
+                                        String.format(
+                                                "您的配置文件中的列配置信息有误. 因为DataX 不支持数据库写入这种字段类型. 字段名:[%s], 字段类型:[%s]. 请修改表中该字段的类型或者不同步该字段.",
+                                                columnConf.getString(Key.NAME),
+                                                columnConf.getString(Key.TYPE)));
+                }
+            } catch (Exception e) {
+                // warn: 此处认为脏数据
+                String message = String.format(
+                        "字段类型转换错误：你配置的目标字段 [%s] 为 [%s] 类型，实际字段值为 [%s] .",
+                        columnConf.getString(Key.NAME),columnConf.getString(Key.TYPE), rawData);
+                LOG.error("写入数据失败, 将视为脏数据: ",e);
+                taskPluginCollector.collectDirtyRecord(record, message);
+                return;
+            }
+            fieldIdx++;
+        }
+
+        try {
+            writerBatch.getParquetWriter().write(group);
+        }
+        catch(Exception e)
+        {
+            String message = String.format("写文件文件[%s]时发生IO异常,请检查您的网络是否正常！", writerBatch.getFileName());
+            LOG.error(message,e);
+            Path path = new Path(writerBatch.getFileName());
+            deleteDir(path.getParent());
+            throw DataXException.asDataXException(HdfsWriterErrorCode.Write_FILE_IO_ERROR, e);
+        }
+    }
+
     /*
     通过record得到子目录
      */
@@ -1079,18 +1338,38 @@ public  class HdfsHelper {
     }
 
     /**
-     * 分区方式写orcfile类型文件
+     * 分区方式写orcfile或parquet类型文件
+     * 每个分区(子目录)对应一个orc/parquet writer, 同时打开的writer个数不超过maxOpenPartitionWriters,
+     * 估算的内存占用之和不超过partitionWriterMemory, 超出时关闭最久未写入的分区writer;
+     * 被关闭的分区再次收到数据时在该分区目录下新建一个文件继续写入。
      * @param lineReceiver
      * @param config
      * @param rootPath
      * @param taskPluginCollector
      */
-    public void orcFileStartWriteByPartition(RecordReceiver lineReceiver, Configuration config, String rootPath,List<Integer> subDirsList,
+    public void fileStartWriteByPartition(RecordReceiver lineReceiver, Configuration config, String rootPath,List<Integer> subDirsList,
                                      TaskPluginCollector taskPluginCollector){
         List<Configuration>  columns = config.getListConfiguration(Key.COLUMN);
         String encoding=config.getString(Key.ENCODING,"UTF-8");
         String fileName = config.getNecessaryValue(Key.FILE_NAME, HdfsWriterErrorCode.REQUIRED_VALUE);
+        int maxOpenWriters=config.getInt(Key.MAX_OPEN_PARTITION_WRITERS,Constant.DEFAULT_MAX_OPEN_PARTITION_WRITERS);
+        long memoryBudget=config.getLong(Key.PARTITION_WRITER_MEMORY,Constant.DEFAULT_PARTITION_WRITER_MEMORY)*1024*1024;
+        long stripeSize=config.getLong(Key.ORC_STRIPE_SIZE,67108864);
+        int bufferSize=config.getInt(Key.ORC_BUFFER_SIZE,262144);
+        boolean isParquet="PARQUET".equalsIgnoreCase(config.getString(Key.FILE_TYPE));
+        MessageType parquetSchema=isParquet?createParquetSchema(subDirsList,columns):null;
+        //parquet每列缓存一个page, row group写出前数据缓存在writer中, 按parquetBlockSize封顶估算
+        long parquetBaseMemory=isParquet?(long)parquetSchema.getFieldCount()*config.getInt(Key.PARQUET_PAGE_SIZE,Constant.DEFAULT_PARQUET_PAGE_SIZE):0;
+        long parquetBlockSize=config.getInt(Key.PARQUET_BLOCK_SIZE,Constant.DEFAULT_PARQUET_BLOCK_SIZE);
+        if(maxOpenWriters<1 || memoryBudget<1)
+        {
+            throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的maxOpenPartitionWriters[%s]或partitionWriterMemory[%s]不合法, 必须大于0",
+                            maxOpenWriters,memoryBudget/1024/1024));
+        }
 
+        Set<String> openedSubDirs=new HashSet<String>();
+        int rolledFiles=0;
         Record record = null;
         while ((record = lineReceiver.getFromReader()) != null) {
 
@@ -1100,68 +1379,172 @@ public  class HdfsHelper {
 
             if(writerBatch==null)
             {
-                writerBatch=new BufferWriterBatchForPart();
-                TypeDescription schema=createOrcSchema(subDirsList,columns);
-                VectorizedRowBatch batch = schema.createRowBatch();
+                TypeDescription schema=null;
+                long baseMemory;
+                if(isParquet)
+                {
+                    baseMemory=parquetBaseMemory;
+                }
+                else
+                {
+                    schema=createOrcSchema(subDirsList,columns);
+                    //每个stream一个压缩缓冲区, 按每列两个stream估算
+                    baseMemory=(long)(schema.getMaximumId()+1)*2*bufferSize;
+                }
+
+                //打开新的writer前, 按LRU关闭超出个数或内存预算的writer
+                while(!this.writerBatchMap.isEmpty() &&
+                        (this.writerBatchMap.size()>=maxOpenWriters || this.openWriterMemory+baseMemory>memoryBudget))
+                {
+                    closeEldestPartitionWriter();
+                }
 
-                writerBatch.setBatch(batch);
+                writerBatch=new BufferWriterBatchForPart();
                 writerBatch.setFileName(buildFileName(rootPath,subDir,fileName));
 
-                org.apache.orc.Writer writer=createOrcWriter(writerBatch.getFileName(),hadoopConf,schema,config);
-                writerBatch.setWriter(writer);
+                if(isParquet)
+                {
+                    writerBatch.setParquetWriter(createParquetWriter(writerBatch.getFileName(),parquetSchema,config));
+                    writerBatch.setGroupFactory(new SimpleGroupFactory(parquetSchema));
+                }
+                else
+                {
+                    VectorizedRowBatch batch = schema.createRowBatch();
+                    writerBatch.setBatch(batch);
+
+                    org.apache.orc.Writer writer=createOrcWriter(writerBatch.getFileName(),hadoopConf,schema,config);
+                    writerBatch.setWriter(writer);
+                }
+                writerBatch.setEstimatedMemory(baseMemory);
 
                 this.writerBatchMap.put(subDir,writerBatch);
+                this.openWriterMemory+=baseMemory;
+                if(!openedSubDirs.add(subDir))
+                {
+                    rolledFiles++;
+                }
             }
+            if(isParquet)
+            {
+                writeParquetRecord(writerBatch,record,columns,taskPluginCollector,encoding,subDirsList);
+
+                long memory=Math.min(writerBatch.getEstimatedMemory()+record.getByteSize(),parquetBaseMemory+parquetBlockSize);
+                this.openWriterMemory+=memory-writerBatch.getEstimatedMemory();
+                writerBatch.setEstimatedMemory(memory);
+
+                //当前分区刚被访问过, 不会被关闭
+                while(this.writerBatchMap.size()>1 && this.openWriterMemory>memoryBudget)
+                {
+                    closeEldestPartitionWriter();
+                }
+                continue;
+            }
+
             int rowCount = writerBatch.getBatch().size++;
 
-            transportOrcBatch(writerBatch.getBatch(), record,columns, rowCount, taskPluginCollector,encoding,subDirsList);
+            transportOrcBatch(writerBatch.getBatch(), record,columns, rowCount, taskPluginCollector,encoding,subDirsList,writerBatch.getSlab());
 
             //batch full
             if (writerBatch.getBatch().size == writerBatch.getBatch().getMaxSize()) {
-                try {
-                    writerBatch.getWriter().addRowBatch(writerBatch.getBatch());
-                }
-                catch(Exception e)
+                //stripe写出前数据缓存在writer中, 按stripeSize封顶估算
+                long baseMemory=(long)writerBatch.getBatch().numCols*2*bufferSize;
+                long memory=Math.min(writerBatch.getEstimatedMemory()+estimateBatchMemory(writerBatch.getBatch()),baseMemory+stripeSize);
+                this.openWriterMemory+=memory-writerBatch.getEstimatedMemory();
+                writerBatch.setEstimatedMemory(memory);
+
+                flushPartitionBatch(writerBatch);
+
+                //当前分区刚被访问过, 不会被关闭
+                while(this.writerBatchMap.size()>1 && this.openWriterMemory>memoryBudget)
                 {
-                    String message = String.format("写文件文件[%s]时发生IO异常,请检查您的网络是否正常！", writerBatch.getFileName());
-                    LOG.error(message,e);
-                    Path path = new Path(writerBatch.getFileName());
-                    deleteDir(path.getParent());
-                    throw DataXException.asDataXException(HdfsWriterErrorCode.Write_FILE_IO_ERROR, e);
+                    closeEldestPartitionWriter();
                 }
-                writerBatch.getBatch().reset();
             }
         }
 
         //flush掉残留的batch并且关闭writer
         for(BufferWriterBatchForPart writerBatch : this.writerBatchMap.values())
         {
-            if(writerBatch.getBatch().size>0){
-                try {
-                    writerBatch.getWriter().addRowBatch(writerBatch.getBatch());
-                }
-                catch(Exception e)
-                {
-                    String message = String.format("写文件文件[%s]时发生IO异常,请检查您的网络是否正常！", writerBatch.getFileName());
-                    LOG.error(message,e);
-                    Path path = new Path(writerBatch.getFileName());
-                    deleteDir(path.getParent());
-                    throw DataXException.asDataXException(HdfsWriterErrorCode.Write_FILE_IO_ERROR, e);
-                }
-                writerBatch.getBatch().reset();
-            }
+            closePartitionWriter(writerBatch);
+        }
+        this.writerBatchMap.clear();
+        this.openWriterMemory=0;
 
-            LOG.info("写入完成, 关闭文件 "+writerBatch.getFileName());
+        LOG.info(String.format("分区写入完成, 共写入%s个分区, 因writer个数或内存限制关闭后重新打开的文件%s个", openedSubDirs.size(), rolledFiles));
+    }
 
-            try
+    private void closeEldestPartitionWriter()
+    {
+        Iterator<Map.Entry<String,BufferWriterBatchForPart>> iterator=this.writerBatchMap.entrySet().iterator();
+        BufferWriterBatchForPart writerBatch=iterator.next().getValue();
+        iterator.remove();
+        this.openWriterMemory-=writerBatch.getEstimatedMemory();
+        closePartitionWriter(writerBatch);
+    }
+
+    private void flushPartitionBatch(BufferWriterBatchForPart writerBatch)
+    {
+        try {
+            writerBatch.getWriter().addRowBatch(writerBatch.getBatch());
+        }
+        catch(Exception e)
+        {
+            String message = String.format("写文件文件[%s]时发生IO异常,请检查您的网络是否正常！", writerBatch.getFileName());
+            LOG.error(message,e);
+            Path path = new Path(writerBatch.getFileName());
+            deleteDir(path.getParent());
+            throw DataXException.asDataXException(HdfsWriterErrorCode.Write_FILE_IO_ERROR, e);
+        }
+        writerBatch.getBatch().reset();
+    }
+
+    private void closePartitionWriter(BufferWriterBatchForPart writerBatch)
+    {
+        if(writerBatch.getBatch()!=null && writerBatch.getBatch().size>0){
+            flushPartitionBatch(writerBatch);
+        }
+
+        LOG.info("写入完成, 关闭文件 "+writerBatch.getFileName());
+
+        try
+        {
+            if(writerBatch.getParquetWriter()!=null)
+            {
+                writerBatch.getParquetWriter().close();
+            }
+            else
             {
                 writerBatch.getWriter().close();
             }
-            catch(Exception e)
+        }
+        catch(Exception e)
+        {
+            LOG.warn("关闭文件失败: "+writerBatch.getFileName(),e);
+        }
+    }
+
+    /**
+     * 估算一个batch的数据量: 字符串列按实际字节数, 其余列每个值按8字节
+     */
+    private static long estimateBatchMemory(VectorizedRowBatch batch)
+    {
+        long memory=0;
+        for(ColumnVector vector : batch.cols)
+        {
+            if(vector instanceof BytesColumnVector)
+            {
+                BytesColumnVector bytesVector=(BytesColumnVector)vector;
+                for(int i=0;i<batch.size;i++)
+                {
+                    memory+=bytesVector.length[i];
+                }
+            }
+            else
             {
-                LOG.warn("关闭文件失败: "+writerBatch.getFileName(),e);
+                memory+=8L*batch.size;
             }
         }
+        return memory;
     }
 
     public List<String> getColumnNames(List<Configuration> columns){
@@ -107,8 +107,9 @@ public class HdfsWriter extends Writer {
 
             //fileType check
             this.fileType = this.writerSliceConfig.getNecessaryValue(Key.FILE_TYPE, HdfsWriterErrorCode.REQUIRED_VALUE);
-            if( !fileType.equalsIgnoreCase("ORC") && !fileType.equalsIgnoreCase("TEXT") && !fileType.equalsIgnoreCase("ORC_NEW")){
-                String message = "HdfsWriter插件目前只支持ORC和TEXT两种格式的文件,请将filetype选项的值配置为ORC或者TEXT";
+            if( !fileType.equalsIgnoreCase("ORC") && !fileType.equalsIgnoreCase("TEXT") && !fileType.equalsIgnoreCase("ORC_NEW")
+                    && !fileType.equalsIgnoreCase("PARQUET")){
+                String message = "HdfsWriter插件目前只支持ORC, TEXT和PARQUET三种格式的文件,请将filetype选项的值配置为ORC, ORC_NEW, TEXT或者PARQUET";
                 throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE, message);
             }
             //path
@@ -202,6 +203,21 @@ public class HdfsWriter extends Writer {
                     }
                 }
 
+            }else if(fileType.equalsIgnoreCase("PARQUET")){
+                Set<String> parquetSupportedCompress = Sets.newHashSet("NONE", "SNAPPY", "GZIP", "LZO");
+                if(null == compress){
+                    this.writerSliceConfig.set(Key.COMPRESS, "NONE");
+                }else {
+                    compress = compress.toUpperCase().trim();
+                    if(!parquetSupportedCompress.contains(compress)){
+                        throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                                String.format("目前PARQUET FILE仅支持SNAPPY,GZIP,LZO压缩, 不支持您配置的 compress 模式 : [%s]",
+                                        compress));
+                    }
+                }
+                validateParquetSize(Key.PARQUET_BLOCK_SIZE);
+                validateParquetSize(Key.PARQUET_PAGE_SIZE);
+                validateParquetSize(Key.PARQUET_DICTIONARY_PAGE_SIZE);
             }
             //Kerberos check
             Boolean haveKerberos = this.writerSliceConfig.getBool(Key.HAVE_KERBEROS, false);
@@ -221,6 +237,15 @@ public class HdfsWriter extends Writer {
             }
         }
 
+        //parquet的row group/page大小以int表示, 必须在(0, Integer.MAX_VALUE]之间
+        private void validateParquetSize(String key) {
+            Long size = this.writerSliceConfig.getLong(key);
+            if (null != size && (size <= 0 || size > Integer.MAX_VALUE)) {
+                throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的%s[%s]不合法, 必须大于0并且不超过%s", key, size, Integer.MAX_VALUE));
+            }
+        }
+
         @Override
         public void prepare() {
             if(!isPartitionWriter)
@@ -500,12 +525,20 @@ public class HdfsWriter extends Writer {
                 //写ORC FILE
                 hdfsHelper.orcFileStartWrite(lineReceiver,this.writerSliceConfig, this.fileName,
                         this.getTaskPluginCollector());
-            }else if(fileType.equalsIgnoreCase("ORC_NEW")){
-                LOG.info("启用了新版ORC文件写入功能,将获得更高的性能.");
+            }else if(fileType.equalsIgnoreCase("ORC_NEW") || fileType.equalsIgnoreCase("PARQUET")){
+                if(fileType.equalsIgnoreCase("ORC_NEW"))
+                {
+                    LOG.info("启用了新版ORC文件写入功能,将获得更高的性能.");
+                }
                 if(this.isPartitionWriter)
                 {
                     LOG.info("使用分区写入的方式.");
-                    hdfsHelper.orcFileStartWriteByPartition(lineReceiver,this.writerSliceConfig, this.rootTmpPath,subDirsList,
+                    hdfsHelper.fileStartWriteByPartition(lineReceiver,this.writerSliceConfig, this.rootTmpPath,subDirsList,
+                            this.getTaskPluginCollector());
+                }
+                else if(fileType.equalsIgnoreCase("PARQUET"))
+                {
+                    hdfsHelper.parquetFileStartWrite(lineReceiver,this.writerSliceConfig, this.fileName,
                             this.getTaskPluginCollector());
                 }
                 else
@@ -11,6 +11,9 @@ public class Key {
     public static final String ROOT_PATH="rootPath";
     public static final String ROOT_TMP_PATH="rootTmpPath";
     public static final String SUBDIRS="colIndexes";
+    // not must, 分区写入时同时打开的writer个数上限以及所有writer的内存预算(MB)
+    public static final String MAX_OPEN_PARTITION_WRITERS="maxOpenPartitionWriters";
+    public static final String PARTITION_WRITER_MEMORY="partitionWriterMemory";
     //must have
     public final static String DEFAULT_FS = "defaultFS";
     // not must, default NULL
@@ -37,6 +40,11 @@ public class Key {
     public static final String ORC_BUFFER_SIZE="orcBufferSize";
     public static final String ORC_BLOCK_SIZE="orcBlockSize";
     public static final String ORC_VERSION="orcVersion";
+    //for parquet, 单位均为字节
+    public static final String PARQUET_BLOCK_SIZE="parquetBlockSize";
+    public static final String PARQUET_PAGE_SIZE="parquetPageSize";
+    public static final String PARQUET_DICTIONARY_PAGE_SIZE="parquetDictionaryPageSize";
+    public static final String PARQUET_ENABLE_DICTIONARY="parquetEnableDictionary";
     // not must, not default \N
     public static final String NULL_FORMAT = "nullFormat";
     // Kerberos
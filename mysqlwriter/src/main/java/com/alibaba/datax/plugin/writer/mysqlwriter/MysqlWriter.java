@@ -55,6 +55,12 @@ public class MysqlWriter extends Writer {
             this.commonRdbmsWriterJob.destroy(this.originalConfig);
         }
 
+        // 每个 task 结束前已提交写入的数据, 断点恢复时可以跳过已成功的 task 和 preSql
+        @Override
+        public boolean supportResume() {
+            return true;
+        }
+
     }
 
     public static class Task extends Writer.Task {
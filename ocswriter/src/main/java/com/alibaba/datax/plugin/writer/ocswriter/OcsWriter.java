@@ -21,6 +21,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -59,14 +60,22 @@ public class OcsWriter extends Writer {
 
     public static class Task extends Writer.Task {
 
+        /**
+         * set/add/replace 是幂等的, 失败后最多提交3次; append/prepend 只提交1次
+         */
+        private static final int MAX_COMMIT_TIMES = 3;
+        private static final long RETRY_INTERVAL_MILLIS = 1000L;
+
         private Configuration configuration;
         private MemcachedClient client;
         private Set<Integer> indexesFromUser = new HashSet<Integer>();
         private String delimiter;
         private int expireTime;
-        //private int batchSize;
+        //同时在途(已发出、未确认)的写请求数上限
+        private int batchSize;
         private ConfigurationChecker.WRITE_MODE writeMode;
         private TaskPluginCollector taskPluginCollector;
+        private final LinkedList<PendingWrite> pendingWrites = new LinkedList<PendingWrite>();
 
         @Override
         public void init() {
@@ -87,7 +96,8 @@ public class OcsWriter extends Writer {
             //如果用户不配置，默认为\u0001
             delimiter = this.configuration.getString(Key.FIELD_DELIMITER, "\u0001");
             expireTime = this.configuration.getInt(Key.EXPIRE_TIME, 0);
-            //todo 此版本不支持批量提交，待ocswriter发布新版本client后支持。batchSize = this.configuration.getInt(Key.BATCH_SIZE, 100);
+            //memcached协议没有批量写, batchSize作为在途请求窗口的大小, 请求异步发出, 不再逐条等待响应
+            batchSize = this.configuration.getInt(Key.BATCH_SIZE, 100);
             writeMode = ConfigurationChecker.WRITE_MODE.valueOf(this.configuration.getString(Key.WRITE_MODE));
 
             String proxy = this.configuration.getString(Key.PROXY);
@@ -125,76 +135,128 @@ public class OcsWriter extends Writer {
         @Override
         public void startWrite(RecordReceiver lineReceiver) {
             Record record;
-            String key;
-            String value;
             while ((record = lineReceiver.getFromReader()) != null) {
                 try {
-                    key = buildKey(record);
-                    value = buildValue(record);
-                    switch (writeMode) {
-                        case set:
-                        case replace:
-                        case add:
-                            commitWithRetry(key, value);
-                            break;
-                        case append:
-                        case prepend:
-                            commit(key, value);
-                            break;
-                        default:
-                            //没有default，因为参数检查的时候已经判断，不可能出现5中模式之外的模式
-                    }
+                    submit(new PendingWrite(record, buildKey(record), buildValue(record)));
                 } catch (Exception e) {
                     this.taskPluginCollector.collectDirtyRecord(record, e);
                 }
+                checkPendingWrites(false);
+            }
+            checkPendingWrites(true);
+        }
+
+        /**
+         * 异步发出写请求, 加入在途队列
+         */
+        private void submit(PendingWrite pendingWrite) {
+            pendingWrite.commitTimes++;
+            pendingWrite.future = null;
+            try {
+                pendingWrite.future = commit(pendingWrite.key, pendingWrite.value);
+            } catch (Exception e) {
+                //client内部队列满等情况下直接抛出异常, 与响应失败一样处理
+                pendingWrite.error = e;
+            }
+            pendingWrites.addLast(pendingWrite);
+        }
+
+        /**
+         * 按提交顺序确认在途的写请求: 已完成的直接确认, 在途请求达到batchSize时阻塞等待最早的请求,
+         * flush为true时等待全部请求完成。
+         * 失败的set/add/replace间隔1秒重新提交, 超过重试次数或者append/prepend失败的记录当做脏数据。
+         * 【注意】重新提交的请求排在窗口的最后, 同一个key在窗口内有多条记录时, 最终值可能不是最后一条记录的值。
+         */
+        private void checkPendingWrites(boolean flush) {
+            while (!pendingWrites.isEmpty()) {
+                PendingWrite pendingWrite = pendingWrites.getFirst();
+                if (!flush && pendingWrites.size() < batchSize
+                        && pendingWrite.future != null && !pendingWrite.future.isDone()) {
+                    return;
+                }
+                pendingWrites.removeFirst();
+                if (isSuccess(pendingWrite)) {
+                    continue;
+                }
+                if (isRetryable() && pendingWrite.commitTimes < MAX_COMMIT_TIMES) {
+                    try {
+                        Thread.sleep(RETRY_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    pendingWrite.error = null;
+                    submit(pendingWrite);
+                } else if (pendingWrite.error != null) {
+                    this.taskPluginCollector.collectDirtyRecord(pendingWrite.record, pendingWrite.error);
+                } else {
+                    this.taskPluginCollector.collectDirtyRecord(pendingWrite.record,
+                            DataXException.asDataXException(OcsWriterErrorCode.COMMIT_FAILED, "提交数据到ocs失败"));
+                }
+            }
+        }
+
+        /**
+         * 阻塞等待请求的响应
+         * 【注意】getStatus()返回为null有可能是因为get()超时导致，此种情况当做脏数据处理。但有可能数据已经成功写入ocs。
+         */
+        private boolean isSuccess(PendingWrite pendingWrite) {
+            if (pendingWrite.future == null) {
+                return false;
+            }
+            try {
+                return pendingWrite.future.getStatus() != null && pendingWrite.future.getStatus().isSuccess();
+            } catch (Exception e) {
+                pendingWrite.error = e;
+                return false;
             }
         }
 
+        private boolean isRetryable() {
+            //幂等原则：相同的输入得到相同的输出，不管调用多少次。
+            //所以set、add和replace是幂等的，可以重试。
+            //todo 【注意】append和prepend重跑任务不能支持幂等，使用需谨慎，不需要重试
+            return writeMode == ConfigurationChecker.WRITE_MODE.set
+                    || writeMode == ConfigurationChecker.WRITE_MODE.add
+                    || writeMode == ConfigurationChecker.WRITE_MODE.replace;
+        }
+
         /**
-         * 没有重试的commit
+         * 发出写请求, 不等待响应
          */
-        private void commit(final String key, final String value) {
-            OperationFuture<Boolean> future;
+        private OperationFuture<Boolean> commit(final String key, final String value) {
             switch (writeMode) {
                 case set:
-                    future = client.set(key, expireTime, value);
-                    break;
+                    return client.set(key, expireTime, value);
                 case add:
-                    //幂等原则：相同的输入得到相同的输出，不管调用多少次。
-                    //所以add和replace是幂等的。
-                    future = client.add(key, expireTime, value);
-                    break;
+                    return client.add(key, expireTime, value);
                 case replace:
-                    future = client.replace(key, expireTime, value);
-                    break;
-                //todo 【注意】append和prepend重跑任务不能支持幂等，使用需谨慎，不需要重试
+                    return client.replace(key, expireTime, value);
                 case append:
-                    future = client.append(0L, key, value);
-                    break;
+                    return client.append(0L, key, value);
                 case prepend:
-                    future = client.prepend(0L, key, value);
-                    break;
+                    return client.prepend(0L, key, value);
                 default:
                     throw DataXException.asDataXException(OcsWriterErrorCode.DIRTY_RECORD, String.format("不支持的写入模式%s", writeMode.toString()));
                     //因为前面参数校验的时候已经判断，不可能存在5中操作之外的类型。
             }
-            //【注意】getStatus()返回为null有可能是因为get()超时导致，此种情况当做脏数据处理。但有可能数据已经成功写入ocs。
-            if (future == null || future.getStatus() == null || !future.getStatus().isSuccess()) {
-                throw DataXException.asDataXException(OcsWriterErrorCode.COMMIT_FAILED, "提交数据到ocs失败");
-            }
         }
 
         /**
-         * 提交数据到ocs，有重试机制
+         * 一条在途的写请求
          */
-        private void commitWithRetry(final String key, final String value) throws Exception {
-            RetryUtil.executeWithRetry(new Callable<Object>() {
-                @Override
-                public Object call() throws Exception {
-                    commit(key, value);
-                    return null;
-                }
-            }, 3, 1000L, false);
+        private static class PendingWrite {
+            private final Record record;
+            private final String key;
+            private final String value;
+            private OperationFuture<Boolean> future;
+            private Exception error;
+            private int commitTimes;
+
+            PendingWrite(Record record, String key, String value) {
+                this.record = record;
+                this.key = key;
+                this.value = value;
+            }
         }
 
         /**
@@ -273,10 +335,14 @@ public class OcsWriter extends Writer {
         }
 
         /**
+         * startWrite异常退出时窗口内仍有在途请求, 先确认完(失败的记录当做脏数据)再关闭client。
          * shutdown中会有数据异步提交，需要重试。
          */
         @Override
         public void destroy() {
+            if (client != null) {
+                checkPendingWrites(true);
+            }
             try {
                 RetryUtil.executeWithRetry(new Callable<Object>() {
                     @Override
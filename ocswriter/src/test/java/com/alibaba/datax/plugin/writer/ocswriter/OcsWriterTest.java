@@ -0,0 +1,390 @@
+package com.alibaba.datax.plugin.writer.ocswriter;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.plugin.RecordReceiver;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.transport.record.DefaultRecord;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用一个只实现二进制协议 SASL 认证和 set/add/replace/append/prepend 的假 memcached 服务端,
+ * 验证在途请求窗口、失败请求进入脏数据以及结束时确认全部在途请求
+ */
+public class OcsWriterTest {
+    private StubMemcachedServer server;
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testInFlightWritesBoundedByBatchSize() throws Exception {
+        server = new StubMemcachedServer(10);
+        CollectingTaskPluginCollector collector = new CollectingTaskPluginCollector();
+        OcsWriter.Task task = newTask("set", 8, collector);
+
+        task.startWrite(new ListRecordReceiver(records("k", 200), -1));
+        // startWrite 返回前已经确认全部请求
+        Assert.assertEquals(server.store.size(), 200);
+        task.post();
+        task.destroy();
+
+        for (int i = 0; i < 200; i++) {
+            Assert.assertEquals(server.store.get("k" + i), "k" + i + "\u0001v" + i);
+        }
+        Assert.assertTrue(collector.dirtyRecords.isEmpty());
+        // 请求流水线发出, 但同时在途的请求数不超过 batchSize
+        Assert.assertTrue(server.maxOutstanding.get() > 1, "max outstanding " + server.maxOutstanding.get());
+        Assert.assertTrue(server.maxOutstanding.get() <= 8, "max outstanding " + server.maxOutstanding.get());
+    }
+
+    @Test
+    public void testBatchSizeOneWritesOneAtATime() throws Exception {
+        server = new StubMemcachedServer(5);
+        OcsWriter.Task task = newTask("set", 1, new CollectingTaskPluginCollector());
+        task.startWrite(new ListRecordReceiver(records("k", 20), -1));
+        task.post();
+        task.destroy();
+
+        Assert.assertEquals(server.store.size(), 20);
+        Assert.assertEquals(server.maxOutstanding.get(), 1);
+    }
+
+    @Test
+    public void testFailedAppendsGoToDirtyCollector() throws Exception {
+        server = new StubMemcachedServer(5);
+        CollectingTaskPluginCollector collector = new CollectingTaskPluginCollector();
+        OcsWriter.Task task = newTask("append", 4, collector);
+
+        List<Record> records = new ArrayList<Record>();
+        for (int i = 0; i < 30; i++) {
+            records.add(record(i % 3 == 0 ? "fail" + i : "k" + i, "v" + i));
+        }
+        task.startWrite(new ListRecordReceiver(records, -1));
+        task.post();
+        task.destroy();
+
+        // append 不重试, 失败的记录各提交一次后进入脏数据
+        Assert.assertEquals(collector.dirtyKeys(), keys("fail", 0, 30, 3));
+        for (int i = 0; i < 30; i += 3) {
+            Assert.assertEquals(server.attempts.get("fail" + i).get(), 1);
+        }
+        Assert.assertEquals(server.store.size(), 20);
+    }
+
+    @Test
+    public void testFailedSetIsRetriedThenDirty() throws Exception {
+        server = new StubMemcachedServer(5);
+        CollectingTaskPluginCollector collector = new CollectingTaskPluginCollector();
+        OcsWriter.Task task = newTask("set", 4, collector);
+
+        List<Record> records = records("k", 10);
+        records.add(5, record("fail", "v"));
+        task.startWrite(new ListRecordReceiver(records, -1));
+        task.post();
+        task.destroy();
+
+        // set 是幂等的, 共提交 3 次后才当做脏数据, 其余记录不受影响
+        Assert.assertEquals(server.attempts.get("fail").get(), 3);
+        Assert.assertEquals(collector.dirtyKeys(), Collections.singletonList("fail"));
+        Assert.assertEquals(server.store.size(), 10);
+    }
+
+    @Test
+    public void testPendingWritesFlushedOnDestroy() throws Exception {
+        server = new StubMemcachedServer(50);
+        CollectingTaskPluginCollector collector = new CollectingTaskPluginCollector();
+        OcsWriter.Task task = newTask("append", 100, collector);
+
+        List<Record> records = new ArrayList<Record>();
+        for (int i = 0; i < 20; i++) {
+            records.add(record(i % 2 == 0 ? "fail" + i : "k" + i, "v" + i));
+        }
+        // 读完 20 条后读端出错, startWrite 异常退出时窗口内的请求都还没有响应
+        try {
+            task.startWrite(new ListRecordReceiver(records, 20));
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+        Assert.assertTrue(collector.dirtyRecords.isEmpty());
+
+        task.destroy();
+        Assert.assertEquals(collector.dirtyKeys(), keys("fail", 0, 20, 2));
+        Assert.assertEquals(server.store.size(), 10);
+    }
+
+    private OcsWriter.Task newTask(String writeMode, int batchSize, TaskPluginCollector collector) {
+        Configuration configuration = Configuration.newDefault();
+        configuration.set(Key.PROXY, "127.0.0.1");
+        configuration.set(Key.PORT, String.valueOf(server.getPort()));
+        configuration.set(Key.USER, "user");
+        configuration.set(Key.PASSWORD, "password");
+        configuration.set(Key.WRITE_MODE, writeMode);
+        configuration.set(Key.BATCH_SIZE, batchSize);
+
+        OcsWriter.Task task = new OcsWriter.Task();
+        task.setPluginJobConf(configuration);
+        task.setTaskPluginCollector(collector);
+        task.init();
+        task.prepare();
+        return task;
+    }
+
+    private static List<Record> records(String keyPrefix, int count) {
+        List<Record> records = new ArrayList<Record>();
+        for (int i = 0; i < count; i++) {
+            records.add(record(keyPrefix + i, "v" + i));
+        }
+        return records;
+    }
+
+    private static Record record(String key, String value) {
+        Record record = new DefaultRecord();
+        record.addColumn(new StringColumn(key));
+        record.addColumn(new StringColumn(value));
+        return record;
+    }
+
+    private static List<String> keys(String prefix, int from, int to, int step) {
+        List<String> keys = new ArrayList<String>();
+        for (int i = from; i < to; i += step) {
+            keys.add(prefix + i);
+        }
+        return keys;
+    }
+
+    /**
+     * 依次返回给定的记录, failAfter 不为 -1 时返回 failAfter 条记录后抛出异常
+     */
+    private static class ListRecordReceiver implements RecordReceiver {
+        private final List<Record> records;
+        private final int failAfter;
+        private int next = 0;
+
+        ListRecordReceiver(List<Record> records, int failAfter) {
+            this.records = records;
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public Record getFromReader() {
+            if (next == failAfter) {
+                throw new IllegalStateException("reader failed");
+            }
+            return next < records.size() ? records.get(next++) : null;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static class CollectingTaskPluginCollector extends TaskPluginCollector {
+        private final List<Record> dirtyRecords = Collections.synchronizedList(new ArrayList<Record>());
+
+        @Override
+        public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage) {
+            dirtyRecords.add(dirtyRecord);
+        }
+
+        @Override
+        public void collectMessage(String key, String value) {
+        }
+
+        List<String> dirtyKeys() {
+            List<String> keys = new ArrayList<String>();
+            for (Record record : dirtyRecords) {
+                keys.add(record.getColumn(0).asString());
+            }
+            return keys;
+        }
+    }
+
+    /**
+     * 二进制协议的假服务端: 每个请求延迟 responseDelayMillis 后按接收顺序响应,
+     * key 以 fail 开头的写请求返回 NOT_STORED, 记录同时在途(已接收未响应)的请求数的最大值
+     */
+    private static class StubMemcachedServer {
+        private static final int HEADER_LENGTH = 24;
+        private static final byte OP_SASL_LIST_MECHS = 0x20;
+        private static final short STATUS_NOT_STORED = 0x0005;
+
+        private final ServerSocket serverSocket;
+        private final long responseDelayMillis;
+        private final ScheduledExecutorService responder = Executors.newSingleThreadScheduledExecutor();
+        private final List<Socket> sockets = Collections.synchronizedList(new ArrayList<Socket>());
+        private final ConcurrentMap<String, String> store = new ConcurrentHashMap<String, String>();
+        private final ConcurrentMap<String, AtomicInteger> attempts = new ConcurrentHashMap<String, AtomicInteger>();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger maxOutstanding = new AtomicInteger();
+
+        StubMemcachedServer(long responseDelayMillis) throws IOException {
+            this.responseDelayMillis = responseDelayMillis;
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            Thread acceptor = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    accept();
+                }
+            }, "stub-memcached-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            synchronized (sockets) {
+                for (Socket socket : sockets) {
+                    socket.close();
+                }
+            }
+            responder.shutdownNow();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    return;
+                }
+                sockets.add(socket);
+                Thread handler = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            serve(socket);
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }, "stub-memcached-conn");
+                handler.setDaemon(true);
+                handler.start();
+            }
+        }
+
+        private void serve(Socket socket) throws IOException {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            final OutputStream out = socket.getOutputStream();
+            byte[] header = new byte[HEADER_LENGTH];
+            int quietPending = 0;
+            while (true) {
+                in.readFully(header);
+                ByteBuffer request = ByteBuffer.wrap(header);
+                final byte opcode = request.get(1);
+                int keyLength = request.getShort(2) & 0xffff;
+                int extrasLength = request.get(4) & 0xff;
+                byte[] body = new byte[request.getInt(8)];
+                final int opaque = request.getInt(12);
+                in.readFully(body);
+
+                String key = new String(body, extrasLength, keyLength, "UTF-8");
+                String value = new String(body, extrasLength + keyLength,
+                        body.length - extrasLength - keyLength, "UTF-8");
+                final short status = handle(opcode, key, value);
+                final byte[] responseBody = OP_SASL_LIST_MECHS == opcode ? "PLAIN".getBytes("UTF-8") : new byte[0];
+
+                // 只统计写请求, 不包括认证以及客户端合并 set 时追加的 noop
+                boolean write = isWrite(opcode);
+                if (write) {
+                    int current = outstanding.incrementAndGet();
+                    for (int max = maxOutstanding.get(); current > max; max = maxOutstanding.get()) {
+                        if (maxOutstanding.compareAndSet(max, current)) {
+                            break;
+                        }
+                    }
+                }
+                // quiet 请求成功时不响应, 随后面请求的响应一起确认
+                if (isQuiet(opcode) && 0 == status) {
+                    quietPending++;
+                    continue;
+                }
+                final int acknowledged = (write ? 1 : 0) + quietPending;
+                quietPending = 0;
+                responder.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        // 先减计数再响应, 客户端收到响应后才可能发出新的请求
+                        outstanding.addAndGet(-acknowledged);
+                        ByteBuffer response = ByteBuffer.allocate(HEADER_LENGTH + responseBody.length);
+                        response.put((byte) 0x81).put(opcode).putShort((short) 0).put((byte) 0).put((byte) 0)
+                                .putShort(status).putInt(responseBody.length).putInt(opaque).putLong(1L)
+                                .put(responseBody);
+                        try {
+                            synchronized (out) {
+                                out.write(response.array());
+                                out.flush();
+                            }
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }, responseDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * 写请求写入 store, 其余请求(SASL 认证、noop 等)直接成功
+         */
+        private short handle(byte opcode, String key, String value) {
+            if (!isWrite(opcode)) {
+                return 0;
+            }
+            attempts.putIfAbsent(key, new AtomicInteger());
+            attempts.get(key).incrementAndGet();
+            if (key.startsWith("fail")) {
+                return STATUS_NOT_STORED;
+            }
+            store.put(key, value);
+            return 0;
+        }
+
+        /**
+         * set(0x01)/add(0x02)/replace(0x03)/append(0x0e)/prepend(0x0f) 及其 quiet 请求
+         */
+        private static boolean isWrite(byte opcode) {
+            switch (opcode) {
+                case 0x01:
+                case 0x02:
+                case 0x03:
+                case 0x0e:
+                case 0x0f:
+                    return true;
+                default:
+                    return isQuiet(opcode);
+            }
+        }
+
+        private static boolean isQuiet(byte opcode) {
+            return opcode == 0x11 || opcode == 0x12 || opcode == 0x13 || opcode == 0x19 || opcode == 0x1a;
+        }
+    }
+}
@@ -57,6 +57,14 @@ public class OracleReader extends Reader {
 								String.format("您配置的 directMode 有误 [%s]，目前只支持range,union模式.",
 										directMode));
 			}
+			int prefetchDepth=originalConfig.getInt(Key.DIRECT_PREFETCH_DEPTH,0);
+			if(prefetchDepth<0)
+			{
+				throw DataXException
+						.asDataXException(DBUtilErrorCode.ILLEGAL_VALUE,
+								String.format("您配置的 directPrefetchDepth 有误 [%s]，不能小于0.",
+										prefetchDepth));
+			}
 			List<Configuration> splitList=null;
 			if(directMode!=null && (directMode.equals("range") || directMode.equals("union")))
 			{
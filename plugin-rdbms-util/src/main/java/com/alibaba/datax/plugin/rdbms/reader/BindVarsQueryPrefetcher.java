@@ -0,0 +1,211 @@
+package com.alibaba.datax.plugin.rdbms.reader;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.statistics.PerfRecord;
+import com.alibaba.datax.plugin.rdbms.util.DBUtil;
+import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
+import com.alibaba.fastjson.JSONArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带绑定变量的查询(oracle direct union 模式)按顺序逐个执行, 当前结果集被读取的同时,
+ * 后面最多 prefetchDepth 个查询已经在其他连接上执行。
+ * 同一时刻最多占用 prefetchDepth + 1 个连接, 结果集读完后其连接才会被后面的查询复用。
+ * 非线程安全, 只能由 reader task 线程调用。
+ */
+class BindVarsQueryPrefetcher {
+    private static final Logger LOG = LoggerFactory.getLogger(BindVarsQueryPrefetcher.class);
+
+    /**
+     * close 时等待正在执行的查询结束的最长时间
+     */
+    private static final long CLOSE_AWAIT_SECONDS = 10;
+
+    private final String querySql;
+    private final JSONArray bindVarsArr;
+    private final int singleBindValsCnt;
+    private final int fetchSize;
+    private final int prefetchDepth;
+    private final int taskGroupId;
+    private final int taskId;
+
+    /**
+     * 创建额外连接(含 session 配置)
+     */
+    private final Callable<Connection> connectionFactory;
+
+    private final BlockingQueue<Connection> idleConnections = new LinkedBlockingQueue<Connection>();
+    private final List<Connection> createdConnections = new ArrayList<Connection>();
+    private final LinkedList<Future<QueryResult>> pendingQueries = new LinkedList<Future<QueryResult>>();
+    private final ExecutorService executor;
+
+    private int submitted = 0;
+    private int consumed = 0;
+    private QueryResult current;
+    private volatile boolean closed = false;
+
+    BindVarsQueryPrefetcher(Connection connection, Callable<Connection> connectionFactory, String querySql,
+                            JSONArray bindVarsArr, int singleBindValsCnt, int fetchSize, int prefetchDepth,
+                            int taskGroupId, int taskId) {
+        this.connectionFactory = connectionFactory;
+        this.querySql = querySql;
+        this.bindVarsArr = bindVarsArr;
+        this.singleBindValsCnt = singleBindValsCnt;
+        this.fetchSize = fetchSize;
+        this.prefetchDepth = prefetchDepth;
+        this.taskGroupId = taskGroupId;
+        this.taskId = taskId;
+        this.idleConnections.add(connection);
+        this.executor = Executors.newFixedThreadPool(prefetchDepth + 1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "bindVars-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 释放上一个结果集及其连接, 返回下一个查询的结果集, 全部读完时返回 null
+     */
+    ResultSet next() {
+        releaseCurrent();
+        while (this.submitted < this.bindVarsArr.size() && this.submitted - this.consumed <= this.prefetchDepth) {
+            final int idx = this.submitted++;
+            this.pendingQueries.add(this.executor.submit(new Callable<QueryResult>() {
+                @Override
+                public QueryResult call() throws Exception {
+                    return execute(idx);
+                }
+            }));
+        }
+        if (this.pendingQueries.isEmpty()) {
+            return null;
+        }
+
+        int idx = this.consumed++;
+        try {
+            this.current = this.pendingQueries.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DataXException.asDataXException(DBUtilErrorCode.ORACLE_QUERY_SQL_ERROR, "等待预先执行的查询时被中断.");
+        } catch (ExecutionException e) {
+            LOG.error("Error in prepareStatement: " + this.bindVarsArr.getJSONArray(idx), e.getCause());
+            throw DataXException
+                    .asDataXException(
+                            DBUtilErrorCode.ORACLE_QUERY_SQL_ERROR,
+                            String.format(
+                                    "有绑定变量,执行SQL语句出错."));
+        }
+        return this.current.resultSet;
+    }
+
+    /**
+     * 关闭所有结果集以及额外创建的连接, reader task 自己的连接由调用方关闭。
+     * 先等待正在执行的查询结束(超时后中断), 再关闭结果集和连接, 避免关闭其他线程仍在使用的连接。
+     */
+    void close() {
+        releaseCurrent();
+        this.closed = true;
+        // 已提交但未开始的查询在 execute 中直接失败, 不再占用连接
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(CLOSE_AWAIT_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warn("等待预先执行的查询结束超时 [{}] 秒, 将中断查询并关闭连接.", CLOSE_AWAIT_SECONDS);
+                this.executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.executor.shutdownNow();
+        }
+        for (Future<QueryResult> pendingQuery : this.pendingQueries) {
+            if (pendingQuery.isDone() && !pendingQuery.isCancelled()) {
+                try {
+                    QueryResult result = pendingQuery.get();
+                    DBUtil.closeDBResources(result.resultSet, result.resultSet.getStatement(), null);
+                } catch (Exception ignored) {
+                }
+            } else {
+                pendingQuery.cancel(true);
+            }
+        }
+        this.pendingQueries.clear();
+        synchronized (this.createdConnections) {
+            for (Connection connection : this.createdConnections) {
+                DBUtil.closeDBResources(null, null, connection);
+            }
+            this.createdConnections.clear();
+        }
+    }
+
+    private QueryResult execute(int idx) throws Exception {
+        if (this.closed) {
+            throw new SQLException("prefetch has been closed.");
+        }
+        Connection connection = this.idleConnections.poll();
+        if (null == connection) {
+            connection = this.connectionFactory.call();
+            synchronized (this.createdConnections) {
+                if (this.closed) {
+                    DBUtil.closeDBResources(null, null, connection);
+                    throw new SQLException("prefetch has been closed.");
+                }
+                this.createdConnections.add(connection);
+            }
+        }
+
+        PerfRecord queryPerfRecord = new PerfRecord(this.taskGroupId, this.taskId, PerfRecord.PHASE.SQL_QUERY);
+        queryPerfRecord.start();
+        ResultSet resultSet;
+        try {
+            resultSet = DBUtil.query(connection, this.querySql, this.bindVarsArr.getJSONArray(idx),
+                    this.singleBindValsCnt, this.fetchSize);
+        } catch (Exception e) {
+            this.idleConnections.add(connection);
+            throw e;
+        }
+        queryPerfRecord.end();
+        return new QueryResult(connection, resultSet);
+    }
+
+    private void releaseCurrent() {
+        if (null == this.current) {
+            return;
+        }
+        try {
+            DBUtil.closeDBResources(this.current.resultSet, this.current.resultSet.getStatement(), null);
+        } catch (SQLException e) {
+            DBUtil.closeDBResources(this.current.resultSet, null, null);
+        }
+        this.idleConnections.add(this.current.connection);
+        this.current = null;
+    }
+
+    private static class QueryResult {
+        private final Connection connection;
+        private final ResultSet resultSet;
+
+        QueryResult(Connection connection, ResultSet resultSet) {
+            this.connection = connection;
+            this.resultSet = resultSet;
+        }
+    }
+}
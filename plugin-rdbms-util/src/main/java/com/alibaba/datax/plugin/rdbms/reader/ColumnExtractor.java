@@ -0,0 +1,16 @@
+package com.alibaba.datax.plugin.rdbms.reader;
+
+import com.alibaba.datax.common.element.Column;
+
+import java.io.UnsupportedEncodingException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 查询结果中某一列的读取方式, 每次查询根据 ResultSetMetaData 为每一列生成一个,
+ * 逐行读取时直接调用, 不再按字段类型做 switch 判断。
+ */
+public interface ColumnExtractor {
+
+    Column extract(ResultSet rs) throws SQLException, UnsupportedEncodingException;
+}
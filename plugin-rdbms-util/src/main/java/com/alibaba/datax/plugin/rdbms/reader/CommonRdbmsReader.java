@@ -2,6 +2,7 @@ package com.alibaba.datax.plugin.rdbms.reader;
 
 import com.alibaba.datax.common.element.BoolColumn;
 import com.alibaba.datax.common.element.BytesColumn;
+import com.alibaba.datax.common.element.Column;
 import com.alibaba.datax.common.element.DateColumn;
 import com.alibaba.datax.common.element.DoubleColumn;
 import com.alibaba.datax.common.element.LongColumn;
@@ -13,6 +14,7 @@ import com.alibaba.datax.common.plugin.TaskPluginCollector;
 import com.alibaba.datax.common.statistics.PerfRecord;
 import com.alibaba.datax.common.statistics.PerfTrace;
 import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.rdbms.reader.util.IncrementalWatermark;
 import com.alibaba.datax.plugin.rdbms.reader.util.OriginalConfPretreatmentUtil;
 import com.alibaba.datax.plugin.rdbms.reader.util.PreCheckTask;
 import com.alibaba.datax.plugin.rdbms.reader.util.ReaderSplitUtil;
@@ -28,10 +30,12 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.UnsupportedEncodingException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -43,14 +47,20 @@ public class CommonRdbmsReader {
         private static final Logger LOG = LoggerFactory
                 .getLogger(Job.class);
 
+        private DataBaseType dataBaseType;
+
+        private IncrementalWatermark incrementalWatermark;
+
         public Job(DataBaseType dataBaseType) {
             OriginalConfPretreatmentUtil.DATABASE_TYPE = dataBaseType;
             SingleTableSplitUtil.DATABASE_TYPE = dataBaseType;
+            this.dataBaseType = dataBaseType;
         }
 
         public void init(Configuration originalConfig) {
 
             OriginalConfPretreatmentUtil.doPretreatment(originalConfig);
+            this.incrementalWatermark = IncrementalWatermark.from(this.dataBaseType, originalConfig);
 
             LOG.debug("After job init(), job config now is:[\n{}\n]",
                     originalConfig.toJSON());
@@ -98,13 +108,21 @@ public class CommonRdbmsReader {
 
         public List<Configuration> split(Configuration originalConfig,
                                          int adviceNumber) {
-            List<Configuration> splitList=ReaderSplitUtil.doSplit(originalConfig, adviceNumber);
+            if (this.incrementalWatermark != null) {
+                this.incrementalWatermark.clearPending();
+            }
+            List<Configuration> splitList=ReaderSplitUtil.doSplit(originalConfig, adviceNumber, this.incrementalWatermark);
+            if (this.incrementalWatermark != null) {
+                this.incrementalWatermark.savePending();
+            }
             LOG.info("Split完成,建议数量为: "+adviceNumber+", 实际数量为: "+splitList.size());
             return splitList;
         }
 
         public void post(Configuration originalConfig) {
-            // do nothing
+            if (this.incrementalWatermark != null) {
+                this.incrementalWatermark.commit();
+            }
         }
 
         public void destroy(Configuration originalConfig) {
@@ -131,6 +149,10 @@ public class CommonRdbmsReader {
         // 作为日志显示信息时，需要附带的通用信息。比如信息所对应的数据库连接等信息，针对哪个表做的操作
         private String basicMsg;
 
+        // columnExtractors 对应的 ResultSetMetaData, 每次查询只生成一次
+        private ResultSetMetaData extractorMetaData;
+        protected ColumnExtractor[] columnExtractors;
+
         public Task(DataBaseType dataBaseType) {
             this(dataBaseType, -1, -1);
         }
@@ -230,7 +252,14 @@ public class CommonRdbmsReader {
             PreparedStatement ps=null;
             ResultSet rs = null;
             int idx=0;
+            BindVarsQueryPrefetcher prefetcher = null;
             try {
+                int prefetchDepth = readerSliceConfig.getInt(Key.DIRECT_PREFETCH_DEPTH, 0);
+                if (!bindVarsArr.isEmpty() && prefetchDepth > 0 && singleBindValsCnt > 0) {
+                    LOG.info("Query with bind variables, prefetch depth: {}.", prefetchDepth);
+                    prefetcher = new BindVarsQueryPrefetcher(conn, newConnectionFactory(readerSliceConfig),
+                            querySql, bindVarsArr, singleBindValsCnt, fetchSize, prefetchDepth, taskGroupId, taskId);
+                }
                 do {
                     //没有绑定变量
                     if(bindVarsArr.isEmpty())
@@ -240,6 +269,11 @@ public class CommonRdbmsReader {
                         rs = DBUtil.query(conn, querySql, fetchSize);
                         queryPerfRecord.end();
                     }
+                    //有绑定变量,由prefetcher在其他连接上预先执行后面的查询
+                    else if(idx<bindVarsArr.size() && prefetcher != null)
+                    {
+                        rs = prefetcher.next();
+                    }
                     //有绑定变量,处理中...
                     else if(idx<bindVarsArr.size())
                     {
@@ -341,10 +375,24 @@ public class CommonRdbmsReader {
             }catch (Exception e) {
                 throw RdbmsException.asQueryException(this.dataBaseType, e, querySql, table, username);
             } finally {
+                if (null != prefetcher) {
+                    prefetcher.close();
+                }
                 DBUtil.closeDBResources(null, conn);
             }
         }
 
+        private Callable<Connection> newConnectionFactory(final Configuration readerSliceConfig) {
+            return new Callable<Connection>() {
+                @Override
+                public Connection call() {
+                    Connection conn = DBUtil.getConnection(dataBaseType, jdbcUrl, username, password);
+                    DBUtil.dealWithSessionConfig(conn, readerSliceConfig, dataBaseType, basicMsg);
+                    return conn;
+                }
+            };
+        }
+
         public void post(Configuration originalConfig) {
             // do nothing
         }
@@ -365,97 +413,12 @@ public class CommonRdbmsReader {
         	Record record = recordSender.createRecord();
 
             try {
-                for (int i = 1; i <= columnNumber; i++) {
-                    switch (metaData.getColumnType(i)) {
-
-                    case Types.CHAR:
-                    case Types.NCHAR:
-                    case Types.VARCHAR:
-                    case Types.LONGVARCHAR:
-                    case Types.NVARCHAR:
-                    case Types.LONGNVARCHAR:
-                        String rawData;
-                        if(StringUtils.isBlank(mandatoryEncoding)){
-                            rawData = rs.getString(i);
-                        }else{
-                            rawData = new String((rs.getBytes(i) == null ? EMPTY_CHAR_ARRAY : 
-                                rs.getBytes(i)), mandatoryEncoding);
-                        }
-                        record.addColumn(new StringColumn(rawData));
-                        break;
-
-                    case Types.CLOB:
-                    case Types.NCLOB:
-                        record.addColumn(new StringColumn(rs.getString(i)));
-                        break;
-
-                    case Types.SMALLINT:
-                    case Types.TINYINT:
-                    case Types.INTEGER:
-                    case Types.BIGINT:
-                        record.addColumn(new LongColumn(rs.getString(i)));
-                        break;
-
-                    case Types.NUMERIC:
-                    case Types.DECIMAL:
-                        record.addColumn(new DoubleColumn(rs.getString(i)));
-                        break;
-
-                    case Types.FLOAT:
-                    case Types.REAL:
-                    case Types.DOUBLE:
-                        record.addColumn(new DoubleColumn(rs.getString(i)));
-                        break;
-
-                    case Types.TIME:
-                        record.addColumn(new DateColumn(rs.getTime(i)));
-                        break;
-
-                    // for mysql bug, see http://bugs.mysql.com/bug.php?id=35115
-                    case Types.DATE:
-                        if (metaData.getColumnTypeName(i).equalsIgnoreCase("year")) {
-                            record.addColumn(new LongColumn(rs.getInt(i)));
-                        } else {
-                            record.addColumn(new DateColumn(rs.getDate(i)));
-                        }
-                        break;
-
-                    case Types.TIMESTAMP:
-                        record.addColumn(new DateColumn(rs.getTimestamp(i)));
-                        break;
-
-                    case Types.BINARY:
-                    case Types.VARBINARY:
-                    case Types.BLOB:
-                    case Types.LONGVARBINARY:
-                        record.addColumn(new BytesColumn(rs.getBytes(i)));
-                        break;
-
-                    // warn: bit(1) -> Types.BIT 可使用BoolColumn
-                    // warn: bit(>1) -> Types.VARBINARY 可使用BytesColumn
-                    case Types.BOOLEAN:
-                    case Types.BIT:
-                        record.addColumn(new BoolColumn(rs.getBoolean(i)));
-                        break;
-
-                    case Types.NULL:
-                        String stringData = null;
-                        if(rs.getObject(i) != null) {
-                            stringData = rs.getObject(i).toString();
-                        }
-                        record.addColumn(new StringColumn(stringData));
-                        break;
-
-                    default:
-                        throw DataXException
-                                .asDataXException(
-                                        DBUtilErrorCode.UNSUPPORTED_TYPE,
-                                        String.format(
-                                                "您的配置文件中的列配置信息有误. 因为DataX 不支持数据库读取这种字段类型. 字段名:[%s], 字段名称:[%s], 字段Java类型:[%s]. 请尝试使用数据库函数将其转换datax支持的类型 或者不同步该字段 .",
-                                                metaData.getColumnName(i),
-                                                metaData.getColumnType(i),
-                                                metaData.getColumnClassName(i)));
-                    }
+                if (metaData != this.extractorMetaData) {
+                    this.columnExtractors = createColumnExtractors(metaData, columnNumber, mandatoryEncoding);
+                    this.extractorMetaData = metaData;
+                }
+                for (int i = 0; i < columnNumber; i++) {
+                    record.addColumn(this.columnExtractors[i].extract(rs));
                 }
             } catch (Exception e) {
                 if (IS_DEBUG) {
@@ -470,6 +433,194 @@ public class CommonRdbmsReader {
             }
             return record;
         }
+
+        protected ColumnExtractor[] createColumnExtractors(ResultSetMetaData metaData, int columnNumber,
+                                                           String mandatoryEncoding) throws SQLException {
+            ColumnExtractor[] extractors = new ColumnExtractor[columnNumber];
+            for (int i = 0; i < columnNumber; i++) {
+                extractors[i] = createColumnExtractor(metaData, i + 1, mandatoryEncoding);
+            }
+            return extractors;
+        }
+
+        /**
+         * 字段类型相关的判断在这里一次完成, 读取方式与之前逐个单元格判断时一致;
+         * 有符号的整数类型用 getLong + wasNull 读取, 无符号 BIGINT 可能超出 long 的范围, 仍然按字符串读取
+         */
+        protected ColumnExtractor createColumnExtractor(ResultSetMetaData metaData, final int columnIndex,
+                                                        final String mandatoryEncoding) throws SQLException {
+            int columnType = metaData.getColumnType(columnIndex);
+            switch (columnType) {
+
+            case Types.CHAR:
+            case Types.NCHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                if (StringUtils.isBlank(mandatoryEncoding)) {
+                    return new StringExtractor(columnIndex);
+                }
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) throws SQLException, UnsupportedEncodingException {
+                        byte[] bytes = rs.getBytes(columnIndex);
+                        return new StringColumn(new String(null == bytes ? EMPTY_CHAR_ARRAY : bytes,
+                                mandatoryEncoding));
+                    }
+                };
+
+            case Types.CLOB:
+            case Types.NCLOB:
+                return new StringExtractor(columnIndex);
+
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                if (Types.BIGINT == columnType && !metaData.isSigned(columnIndex)) {
+                    return new ColumnExtractor() {
+                        @Override
+                        public Column extract(ResultSet rs) throws SQLException {
+                            return new LongColumn(rs.getString(columnIndex));
+                        }
+                    };
+                }
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) throws SQLException {
+                        long value = rs.getLong(columnIndex);
+                        return rs.wasNull() ? new LongColumn() : new DecimalSizedLongColumn(value);
+                    }
+                };
+
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                // 按字符串读取以保留数据库返回的精度
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) throws SQLException {
+                        return new DoubleColumn(rs.getString(columnIndex));
+                    }
+                };
+
+            case Types.TIME:
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) throws SQLException {
+                        return new DateColumn(rs.getTime(columnIndex));
+                    }
+                };
+
+            // for mysql bug, see http://bugs.mysql.com/bug.php?id=35115
+            case Types.DATE:
+                if (metaData.getColumnTypeName(columnIndex).equalsIgnoreCase("year")) {
+                    return new ColumnExtractor() {
+                        @Override
+                        public Column extract(ResultSet rs) throws SQLException {
+                            return new LongColumn(rs.getInt(columnIndex));
+                        }
+                    };
+                }
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) throws SQLException {
+                        return new DateColumn(rs.getDate(columnIndex));
+                    }
+                };
+
+            case Types.TIMESTAMP:
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) throws SQLException {
+                        return new DateColumn(rs.getTimestamp(columnIndex));
+                    }
+                };
+
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.BLOB:
+            case Types.LONGVARBINARY:
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) throws SQLException {
+                        return new BytesColumn(rs.getBytes(columnIndex));
+                    }
+                };
+
+            // warn: bit(1) -> Types.BIT 可使用BoolColumn
+            // warn: bit(>1) -> Types.VARBINARY 可使用BytesColumn
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) throws SQLException {
+                        return new BoolColumn(rs.getBoolean(columnIndex));
+                    }
+                };
+
+            case Types.NULL:
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) throws SQLException {
+                        Object value = rs.getObject(columnIndex);
+                        return new StringColumn(null == value ? null : value.toString());
+                    }
+                };
+
+            default:
+                // 与逐行判断时一样, 读取到数据时才报错
+                final String message = String.format(
+                        "您的配置文件中的列配置信息有误. 因为DataX 不支持数据库读取这种字段类型. 字段名:[%s], 字段名称:[%s], 字段Java类型:[%s]. 请尝试使用数据库函数将其转换datax支持的类型 或者不同步该字段 .",
+                        metaData.getColumnName(columnIndex),
+                        columnType,
+                        metaData.getColumnClassName(columnIndex));
+                return new ColumnExtractor() {
+                    @Override
+                    public Column extract(ResultSet rs) {
+                        throw DataXException.asDataXException(DBUtilErrorCode.UNSUPPORTED_TYPE, message);
+                    }
+                };
+            }
+        }
+
+        private static class StringExtractor implements ColumnExtractor {
+            private final int columnIndex;
+
+            StringExtractor(int columnIndex) {
+                this.columnIndex = columnIndex;
+            }
+
+            @Override
+            public Column extract(ResultSet rs) throws SQLException {
+                return new StringColumn(rs.getString(this.columnIndex));
+            }
+        }
+
+        /**
+         * getLong 读取的整数, byteSize 仍按十进制字符串的长度计算, 与之前 new LongColumn(rs.getString(i)) 的字节统计及按字节限速保持一致
+         */
+        static class DecimalSizedLongColumn extends LongColumn {
+
+            DecimalSizedLongColumn(long value) {
+                super(value);
+                setByteSize(decimalLength(value));
+            }
+
+            static int decimalLength(long value) {
+                if (Long.MIN_VALUE == value) {
+                    return 20;
+                }
+                int length = value < 0 ? 2 : 1;
+                for (long abs = Math.abs(value); abs >= 10; abs /= 10) {
+                    length++;
+                }
+                return length;
+            }
+        }
     }
 
 }
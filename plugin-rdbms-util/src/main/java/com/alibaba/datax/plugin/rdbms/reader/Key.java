@@ -20,6 +20,9 @@ public final class Key {
     //如果direct模式为union,子查询个数
     public final static String DIRECT_UNIONALL_SUBSQL_CNT = "directUnionAllSubSQLCnt";
 
+    //如果direct模式为union,读取当前绑定变量查询结果的同时在其他连接上预先执行的查询个数,默认0不预先执行
+    public final static String DIRECT_PREFETCH_DEPTH = "directPrefetchDepth";
+
     public final static String BINDS="binds";
     //一次绑定变量的个数
     public final static String BIND_VAL_CNT="bindValCnt";
@@ -34,6 +37,12 @@ public final class Key {
     public final static String HINT = "hint";
 
     public final static String SPLIT_PK = "splitPk";
+
+    //增量抽取的水位列, 单调递增的数值或时间列
+    public final static String INCREMENT_COLUMN = "incrementColumn";
+
+    //增量水位的存储文件
+    public final static String WATERMARK_FILE = "watermarkFile";
     
     public final static String SPLIT_MODE = "splitMode";
     
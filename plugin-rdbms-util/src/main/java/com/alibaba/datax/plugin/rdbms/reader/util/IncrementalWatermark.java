@@ -0,0 +1,277 @@
+package com.alibaba.datax.plugin.rdbms.reader.util;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.rdbms.reader.Constant;
+import com.alibaba.datax.plugin.rdbms.reader.Key;
+import com.alibaba.datax.plugin.rdbms.util.DBUtil;
+import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
+import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import com.alibaba.datax.plugin.rdbms.util.RdbmsException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 增量抽取的高水位: 配置 incrementColumn(单调递增的数值或时间列) 和 watermarkFile 后, split 时对每个表查询该列当前最大值,
+ * 只抽取 (上次水位, 当前最大值] 之间的数据, 再按 splitPk 照常切分; 新水位先以 pending 状态写入水位文件, reader post 时才生效。
+ * 因此 job 失败后重跑会重新抽取同一区间(断点续传跳过 split 时, post 同样会使上次的 pending 水位生效)。
+ * <p/>
+ * 水位文件中没有记录的表第一次为全量抽取; incrementColumn 为 NULL 的行不会被增量抽取。仅支持 table 模式。
+ */
+public class IncrementalWatermark {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(IncrementalWatermark.class);
+
+    private static final String KEY_COMMITTED = "watermarks";
+    private static final String KEY_PENDING = "pending";
+
+    private static final String TYPE_NUMBER = "number";
+    private static final String TYPE_TIMESTAMP = "timestamp";
+
+    private final DataBaseType dataBaseType;
+    private final String column;
+    private final File file;
+    private final String username;
+    private final String password;
+
+    private final Map<String, Configuration> committed = new LinkedHashMap<String, Configuration>();
+    private final Map<String, Configuration> pending = new LinkedHashMap<String, Configuration>();
+
+    IncrementalWatermark(DataBaseType dataBaseType, Configuration originalConfig) {
+        this.dataBaseType = dataBaseType;
+        this.column = originalConfig.getString(Key.INCREMENT_COLUMN).trim();
+        this.file = new File(originalConfig.getNecessaryValue(Key.WATERMARK_FILE, DBUtilErrorCode.REQUIRED_VALUE));
+        this.username = originalConfig.getString(Key.USERNAME);
+        this.password = originalConfig.getString(Key.PASSWORD);
+    }
+
+    /**
+     * @return 没有配置 incrementColumn 时返回 null
+     */
+    public static IncrementalWatermark from(DataBaseType dataBaseType, Configuration originalConfig) {
+        if (StringUtils.isBlank(originalConfig.getString(Key.INCREMENT_COLUMN))) {
+            return null;
+        }
+        if (!originalConfig.getBool(Constant.IS_TABLE_MODE, false)) {
+            throw DataXException.asDataXException(DBUtilErrorCode.ILLEGAL_VALUE,
+                    "增量抽取(incrementColumn)仅支持 table 模式, querySql 模式请在 sql 中自行指定增量条件.");
+        }
+        IncrementalWatermark watermark = new IncrementalWatermark(dataBaseType, originalConfig);
+        watermark.load();
+        return watermark;
+    }
+
+    /**
+     * 把表的 where 限定为 (上次水位, 当前最大值], 在切分前调用
+     */
+    public void restrict(Configuration tableSlice, String jdbcUrl, String table) {
+        restrict(tableSlice, jdbcUrl, table, queryMax(jdbcUrl, table, tableSlice.getString(Key.WHERE, null)));
+    }
+
+    /**
+     * @param current 表中增量列的当前最大值, 表中没有数据时为 null
+     */
+    void restrict(Configuration tableSlice, String jdbcUrl, String table, Configuration current) {
+        String key = watermarkKey(jdbcUrl, table);
+        Configuration last = this.committed.get(key);
+        String where = tableSlice.getString(Key.WHERE, null);
+
+        String range;
+        if (current == null) {
+            // 没有数据时保留原水位, 本次不抽取
+            range = "1 = 0";
+        } else {
+            this.pending.put(key, current);
+            String upper = String.format("%s <= %s", this.column, toLiteral(current));
+            range = last == null ? upper
+                    : String.format("%s > %s AND %s", this.column, toLiteral(last), upper);
+        }
+        tableSlice.set(Key.WHERE, StringUtils.isBlank(where) ? range : String.format("(%s) AND %s", where, range));
+        LOG.info("表[{}]增量抽取, 上次水位[{}], 本次水位[{}].", table,
+                last == null ? null : last.getString("value"), current == null ? null : current.getString("value"));
+    }
+
+    /**
+     * 重新 split 前丢弃上次未生效的水位
+     */
+    public void clearPending() {
+        this.pending.clear();
+    }
+
+    /**
+     * split 完成后把新水位以 pending 状态写入水位文件
+     */
+    public void savePending() {
+        save(this.committed, this.pending);
+    }
+
+    /**
+     * reader post 时使 pending 水位生效
+     */
+    public void commit() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        this.committed.putAll(this.pending);
+        this.pending.clear();
+        save(this.committed, this.pending);
+        LOG.info("增量水位已更新到[{}].", this.file.getAbsolutePath());
+    }
+
+    private Configuration queryMax(String jdbcUrl, String table, String where) {
+        String sql = String.format("SELECT MAX(%s) FROM %s", this.column, table);
+        if (StringUtils.isNotBlank(where)) {
+            sql = String.format("%s WHERE (%s)", sql, where);
+        }
+        Connection conn = DBUtil.getConnection(this.dataBaseType, jdbcUrl, this.username, this.password);
+        ResultSet rs = null;
+        try {
+            try {
+                rs = DBUtil.query(conn, sql, 1);
+            } catch (Exception e) {
+                throw RdbmsException.asQueryException(this.dataBaseType, e, sql, table, this.username);
+            }
+            Configuration current = null;
+            while (DBUtil.asyncResultSetNext(rs)) {
+                current = readMax(rs, jdbcUrl, table, this.column);
+            }
+            return current;
+        } catch (DataXException e) {
+            throw e;
+        } catch (Exception e) {
+            throw DataXException.asDataXException(DBUtilErrorCode.SQL_EXECUTE_FAIL,
+                    String.format("查询增量列最大值失败, sql:[%s].", sql), e);
+        } finally {
+            DBUtil.closeDBResources(rs, null, conn);
+        }
+    }
+
+    /**
+     * 按列的 jdbc 类型读取 MAX() 的结果, 不依赖驱动 getObject 返回的类(如 oracle 的 TIMESTAMP 返回 oracle.sql.TIMESTAMP)
+     *
+     * @return 没有数据时返回 null
+     */
+    static Configuration readMax(ResultSet rs, String jdbcUrl, String table, String column) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        String type;
+        String value;
+        switch (metaData.getColumnType(1)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                BigDecimal number = rs.getBigDecimal(1);
+                type = TYPE_NUMBER;
+                value = number == null ? null : number.toPlainString();
+                break;
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                Timestamp timestamp = rs.getTimestamp(1);
+                type = TYPE_TIMESTAMP;
+                value = timestamp == null ? null : timestamp.toString();
+                break;
+            default:
+                throw DataXException.asDataXException(DBUtilErrorCode.ILLEGAL_VALUE,
+                        String.format("增量列[%s]的类型[%s]不支持, 仅支持数值和时间类型.", column,
+                                metaData.getColumnTypeName(1)));
+        }
+        if (value == null) {
+            return null;
+        }
+        Configuration current = Configuration.newDefault();
+        current.set("jdbcUrl", jdbcUrl);
+        current.set("table", table);
+        current.set("column", column);
+        current.set("type", type);
+        current.set("value", value);
+        return current;
+    }
+
+    private String toLiteral(Configuration watermark) {
+        // 水位会拼进 sql, 先按类型重新解析一次, 水位文件被改成其他内容时报错
+        String value = watermark.getString("value");
+        try {
+            if (TYPE_NUMBER.equals(watermark.getString("type"))) {
+                return new BigDecimal(value).toPlainString();
+            }
+            value = Timestamp.valueOf(value).toString();
+        } catch (RuntimeException e) {
+            throw DataXException.asDataXException(DBUtilErrorCode.ILLEGAL_VALUE,
+                    String.format("增量水位文件[%s]中表[%s]的水位[%s]不合法.", this.file.getAbsolutePath(),
+                            watermark.getString("table"), value), e);
+        }
+        if (this.dataBaseType == DataBaseType.Oracle) {
+            return String.format("TO_TIMESTAMP('%s', 'YYYY-MM-DD HH24:MI:SS.FF')", value);
+        }
+        return String.format("'%s'", value);
+    }
+
+    private void load() {
+        if (!this.file.exists()) {
+            return;
+        }
+        Configuration saved = Configuration.from(this.file);
+        addAll(this.committed, saved.getListConfiguration(KEY_COMMITTED));
+        // 上次 split 之后没有走到 post 的水位, 断点续传跳过 split 时由本次 post 使其生效
+        addAll(this.pending, saved.getListConfiguration(KEY_PENDING));
+    }
+
+    private void addAll(Map<String, Configuration> watermarks, List<Configuration> list) {
+        if (list == null) {
+            return;
+        }
+        for (Configuration watermark : list) {
+            watermarks.put(String.format("%s|%s|%s", watermark.getString("jdbcUrl"), watermark.getString("table"),
+                    watermark.getString("column")), watermark);
+        }
+    }
+
+    /**
+     * 先写临时文件再改名, 避免中途失败留下不完整的水位文件
+     */
+    private void save(Map<String, Configuration> committed, Map<String, Configuration> pending) {
+        Configuration saved = Configuration.newDefault();
+        saved.set(KEY_COMMITTED, new ArrayList<Configuration>(committed.values()));
+        saved.set(KEY_PENDING, new ArrayList<Configuration>(pending.values()));
+
+        File tmp = new File(this.file.getPath() + ".tmp");
+        try {
+            FileUtils.writeStringToFile(tmp, saved.toJSON(), "UTF-8");
+            if (this.file.exists() && !this.file.delete()) {
+                throw new IOException("无法覆盖 " + this.file.getAbsolutePath());
+            }
+            if (!tmp.renameTo(this.file)) {
+                throw new IOException("无法改名为 " + this.file.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            throw DataXException.asDataXException(DBUtilErrorCode.CONF_ERROR,
+                    String.format("写增量水位文件[%s]失败.", this.file.getAbsolutePath()), e);
+        }
+    }
+
+    private String watermarkKey(String jdbcUrl, String table) {
+        return String.format("%s|%s|%s", jdbcUrl, table, this.column);
+    }
+}
@@ -19,6 +19,14 @@ public final class ReaderSplitUtil {
 
     public static List<Configuration> doSplit(
             Configuration originalSliceConfig, int adviceNumber) {
+        return doSplit(originalSliceConfig, adviceNumber, null);
+    }
+
+    /**
+     * @param watermark 不为 null 时每个表先按增量水位限定 where, 再切分
+     */
+    public static List<Configuration> doSplit(
+            Configuration originalSliceConfig, int adviceNumber, IncrementalWatermark watermark) {
         boolean isTableMode = originalSliceConfig.getBool(Constant.IS_TABLE_MODE).booleanValue();
         int eachTableShouldSplittedNumber = -1;
         if (isTableMode) {
@@ -74,6 +82,9 @@ public final class ReaderSplitUtil {
                     for (String table : tables) {
                         tempSlice = sliceConfig.clone();
                         tempSlice.set(Key.TABLE, table);
+                        if (watermark != null) {
+                            watermark.restrict(tempSlice, jdbcUrl, table);
+                        }
 
                         List<Configuration> splittedSlices = SingleTableSplitUtil
                                 .splitSingleTable(tempSlice, eachTableShouldSplittedNumber);
@@ -84,8 +95,12 @@ public final class ReaderSplitUtil {
                     for (String table : tables) {
                         tempSlice = sliceConfig.clone();
                         tempSlice.set(Key.TABLE, table);
+                        if (watermark != null) {
+                            watermark.restrict(tempSlice, jdbcUrl, table);
+                        }
                         String queryColumn = HintUtil.buildQueryColumn(jdbcUrl, table, column);
-                        tempSlice.set(Key.QUERY_SQL, SingleTableSplitUtil.buildQuerySql(queryColumn, table, where));
+                        tempSlice.set(Key.QUERY_SQL, SingleTableSplitUtil.buildQuerySql(queryColumn, table,
+                                tempSlice.getString(Key.WHERE, null)));
                         splittedConfigs.add(tempSlice);
                     }
                 }
@@ -660,140 +660,141 @@ public final class DBUtil {
         return false;
     }
 
-    private static ArrayList<JSONObject> assignExtentsByRange(ResultSet rs,int extentsPerSplit) throws Exception
-    {
-        //分配extents
-        ArrayList<JSONObject> result=new ArrayList<JSONObject>();
-        int getExtentsNum=0;
-        String taskStartRowID="";
-        String endRowID=null;
-        //JSONArray rowidPairs=new JSONArray();
-        while(rs.next())
-        {
-            getExtentsNum++;
-            //记一下初次的startROWID
-            if(taskStartRowID.equals(""))
-            {
-                taskStartRowID=rs.getString(1);
+    /**
+     * dba_extents中的一个extent
+     */
+    private static class OracleExtent {
+        private final String startRowID;
+        private final String endRowID;
+        private final Long dataObjectId;
+        private final long relativeFno;
+        private final long blockId;
+        private final long blocks;
+
+        OracleExtent(String startRowID, String endRowID, Long dataObjectId, long relativeFno, long blockId, long blocks) {
+            this.startRowID = startRowID;
+            this.endRowID = endRowID;
+            this.dataObjectId = dataObjectId;
+            this.relativeFno = relativeFno;
+            this.blockId = blockId;
+            this.blocks = blocks;
+        }
+    }
+
+    /**
+     * 按extents的累计block数把extents分配给各个task, 每个task分配到大约 totalBlocks/splitNumber 个block:
+     * 多个小extent合并给同一个task, 超过单个task份额的大extent用 dbms_rowid.rowid_create 在block边界上切开。
+     *
+     * @return 每个task对应的ROWID区间列表(按ROWID顺序), 区间为 [start, end)
+     */
+    private static List<List<String[]>> assignExtentsByBlocks(Connection conn, List<OracleExtent> extents,
+                                                              long blocksPerSplit) throws SQLException {
+        List<List<String[]>> splits = new ArrayList<List<String[]>>();
+        PreparedStatement rowidPs = null;
+        try {
+            List<String[]> current = new ArrayList<String[]>();
+            long currentBlocks = 0;
+            for (OracleExtent extent : extents) {
+                String pieceStart = extent.startRowID;
+                long offset = 0;
+                while (offset < extent.blocks) {
+                    long take = extent.blocks - offset;
+                    // 对象id未知时无法生成中间的ROWID, 整个extent分给当前task
+                    if (null != extent.dataObjectId) {
+                        take = Math.min(take, blocksPerSplit - currentBlocks);
+                    }
+                    offset += take;
+                    currentBlocks += take;
+
+                    String pieceEnd;
+                    if (offset >= extent.blocks) {
+                        pieceEnd = extent.endRowID;
+                    } else {
+                        if (null == rowidPs) {
+                            rowidPs = conn.prepareStatement("select dbms_rowid.rowid_create(1,?,?,?,0) from dual");
+                        }
+                        rowidPs.setLong(1, extent.dataObjectId);
+                        rowidPs.setLong(2, extent.relativeFno);
+                        rowidPs.setLong(3, extent.blockId + offset);
+                        ResultSet rs = rowidPs.executeQuery();
+                        try {
+                            rs.next();
+                            pieceEnd = rs.getString(1);
+                        } finally {
+                            rs.close();
+                        }
+                    }
+                    current.add(new String[]{pieceStart, pieceEnd});
+                    pieceStart = pieceEnd;
+
+                    //一个task分配完了
+                    if (currentBlocks >= blocksPerSplit) {
+                        splits.add(current);
+                        current = new ArrayList<String[]>();
+                        currentBlocks = 0;
+                    }
+                }
             }
-            endRowID=rs.getString(2);
-            //一个task分配完了
-            if(getExtentsNum==extentsPerSplit)
-            {
-                //大于等于extent中的startROWID，小于extent中的endROWID
-                JSONObject pair=new JSONObject();
-                pair.put("start",taskStartRowID);
-                pair.put("startopt",">=");
-                pair.put("end",endRowID);
-                pair.put("endopt","<");
-                result.add(pair);
-
-                taskStartRowID="";
-                getExtentsNum=0;
+
+            //余下的
+            if (!current.isEmpty()) {
+                splits.add(current);
             }
+        } finally {
+            DBUtil.closeDBResources(rowidPs, null);
         }
+        return splits;
+    }
 
-        //余下的
-        if(getExtentsNum>0)
+    private static ArrayList<JSONObject> assignExtentsByRange(List<List<String[]>> splits)
+    {
+        ArrayList<JSONObject> result=new ArrayList<JSONObject>();
+        for (List<String[]> ranges : splits)
         {
+            //大于等于第一个区间的startROWID，小于最后一个区间的endROWID
             JSONObject pair=new JSONObject();
-            pair.put("start",taskStartRowID);
+            pair.put("start",ranges.get(0)[0]);
             pair.put("startopt",">=");
-            pair.put("end",endRowID);
+            pair.put("end",ranges.get(ranges.size()-1)[1]);
             pair.put("endopt","<");
             result.add(pair);
         }
-
         return result;
     }
 
-    private static ArrayList<JSONObject> assignExtentsByUnionAll(ResultSet rs,int subQueryCount,int extentsPerSplice) throws Exception
+    private static ArrayList<JSONObject> assignExtentsByUnionAll(List<List<String[]>> splits,int subQueryCount)
     {
         ArrayList<JSONObject> result=new ArrayList<JSONObject>();
-        JSONObject splitConf=null;
-
-        //一条sql查询对应的start ROWID和end ROWID
-        //JSONObject singleUnionAllPair=null;
-        //一次绑定所需要的ROWID,应该是成对出现,startROWID和endROWID
-        JSONArray rowIDsPerBind=new JSONArray();
-        //一个splice有多次绑定
-        JSONArray binds=new JSONArray();
-
-        //一个splice被分配了多少个extent计数器
-        int extendsCntPerSplice=1;
-        int subQueryCntInBind=1;
-        while(rs.next())
+        for (List<String[]> ranges : splits)
         {
-            //singleUnionAllPair=new JSONObject();
-            //singleUnionAllPair.put("start",rs.getString(1));//startROWID
-            //singleUnionAllPair.put("end",rs.getString(2));//endROWID
-            rowIDsPerBind.add(rs.getString(1));
-            rowIDsPerBind.add(rs.getString(2));
-            //一个bind好了
-            if(subQueryCntInBind==subQueryCount)
+            //一个splice有多次绑定, 一次绑定最多subQueryCount对startROWID和endROWID
+            JSONArray binds=new JSONArray();
+            JSONArray rowIDsPerBind=new JSONArray();
+            for (String[] range : ranges)
             {
-                //添加到binds数组
-                binds.add(rowIDsPerBind);
-                rowIDsPerBind=new JSONArray();
-                subQueryCntInBind=1;
+                rowIDsPerBind.add(range[0]);
+                rowIDsPerBind.add(range[1]);
+                if(rowIDsPerBind.size()==subQueryCount*2)
+                {
+                    binds.add(rowIDsPerBind);
+                    rowIDsPerBind=new JSONArray();
+                }
             }
-
-            //一个splice好了
-            if(extendsCntPerSplice==extentsPerSplice)
+            if(!rowIDsPerBind.isEmpty())
             {
                 binds.add(rowIDsPerBind);
-                rowIDsPerBind=new JSONArray();
-                subQueryCntInBind=1;
-
-                //添加到结果数组里
-                splitConf=new JSONObject();
-                splitConf.put(Key.BIND_VAL_CNT,subQueryCount*2);//startROWID和endROWID
-                splitConf.put(Key.BINDS,binds);
-                //LOG.info("添加一个bind: "+binds);
-                result.add(splitConf);
-                binds=new JSONArray();
-                extendsCntPerSplice=1;
             }
 
-            extendsCntPerSplice++;
-            subQueryCntInBind++;
-        }
-
-        //收尾
-        if(extendsCntPerSplice>1)
-        {
-            binds.add(rowIDsPerBind);
-
-            //添加到结果数组里
-            splitConf=new JSONObject();
+            JSONObject splitConf=new JSONObject();
             splitConf.put(Key.BIND_VAL_CNT,subQueryCount*2);//startROWID和endROWID
             splitConf.put(Key.BINDS,binds);
-            //LOG.info("添加一个bind: "+binds);
             result.add(splitConf);
         }
-
         return result;
     }
 
     public static ArrayList<JSONObject> buildRowIDRangeByNumber(String jdbcUrl,String jdbcUser,String jdbcPwd,String owner,String table,int eachTableShouldSplittedNumber,String directMode,int subQueryCnt)
     {
-        String rowidQuerySQL="select " +
-                "dbms_rowid.rowid_create(1,o.data_object_id,t.RELATIVE_FNO,t.block_id,0) rowidstart, " +
-                "dbms_rowid.rowid_create(1,o.data_object_id,t.RELATIVE_FNO,t.block_id+t.blocks,0) rowidend, " +
-                "o.data_object_id, " +
-                "t.RELATIVE_FNO, " +
-                "t.block_id " +
-                "from dba_extents t " +
-                "left join dba_objects o on o.object_name=t.segment_name " +
-                "and o.owner=t.owner " +
-                "and o.OBJECT_TYPE like 'TABLE%'" +
-                "and (o.SUBOBJECT_NAME=t.PARTITION_NAME or (o.SUBOBJECT_NAME is null and t.PARTITION_NAME is null)) " +
-                "where t.owner =? and t.segment_name=? " +
-                "order by 3,4,5";
-
-        //先查出表有多少个extents
-        String totalExtentsSQL="select count(*) from dba_extents where owner=? and segment_name=?";
-
         Connection conn = null;
         try {
             conn = connect(DataBaseType.Oracle, jdbcUrl, jdbcUser, jdbcPwd);
@@ -805,71 +806,81 @@ public final class DBUtil {
                     String.format("请检查您的jdbcUrl:%s, jdbcUser:%s.", jdbcUrl,jdbcUser));
         }
 
-        PreparedStatement psTotalExtents=null;
-        ResultSet rsTotalExtents=null;
-        int totalExtents=0;
         try {
-            psTotalExtents=conn.prepareStatement(totalExtentsSQL);
-            psTotalExtents.setString(1,owner.toUpperCase());
-            psTotalExtents.setString(2,table.toUpperCase());
-            rsTotalExtents = psTotalExtents.executeQuery();
-            rsTotalExtents.next();
-            totalExtents=rsTotalExtents.getInt(1);
-        }
-        catch(Exception e)
-        {
-            LOG.error("查询表extents数据失败: ",e);
-            DBUtil.closeDBResources(psTotalExtents, conn);
-            throw DataXException.asDataXException(DBUtilErrorCode.ORACLE_QUERY_SELECT_PRI_ERROR,
-                    String.format("查询表 "+owner.toUpperCase()+"."+table.toUpperCase()+" 的extents数量失败,请确认有DBA_EXTENTS,DBA_OBJECTS视图和执行dbms_rowid.rowid_create包的权限."));
-        }
-
-        //计算出每个split对应多少个extents
-        int extentsPerSplit=0;
-        if(totalExtents%eachTableShouldSplittedNumber==0)
-        {
-            extentsPerSplit=totalExtents/eachTableShouldSplittedNumber;
+            return buildRowIDRangeByNumber(conn,owner,table,eachTableShouldSplittedNumber,directMode,subQueryCnt);
         }
-        else
-        {
-            extentsPerSplit=totalExtents/eachTableShouldSplittedNumber+1;
+        finally {
+            DBUtil.closeDBResources(null, conn);
         }
+    }
 
-        LOG.info("查询表extents数据成功,表里一共有 "+totalExtents+" 个extents,将会有 "+eachTableShouldSplittedNumber+" 个task, 每个task将分配到 "+extentsPerSplit+" 个extents.");
-
-        if(extentsPerSplit<=0)
-        {
-            DBUtil.closeDBResources(psTotalExtents, conn);
-            throw DataXException.asDataXException(DBUtilErrorCode.ORACLE_QUERY_SELECT_PRI_ERROR,
-                    String.format("给task分配extents失败,分配的extents为0,请确认表里有数据."));
-        }
+    /**
+     * 在已有连接上查询表的extents并分配给各个task, 连接由调用方关闭
+     */
+    static ArrayList<JSONObject> buildRowIDRangeByNumber(Connection conn,String owner,String table,int eachTableShouldSplittedNumber,String directMode,int subQueryCnt)
+    {
+        String rowidQuerySQL="select " +
+                "dbms_rowid.rowid_create(1,o.data_object_id,t.RELATIVE_FNO,t.block_id,0) rowidstart, " +
+                "dbms_rowid.rowid_create(1,o.data_object_id,t.RELATIVE_FNO,t.block_id+t.blocks,0) rowidend, " +
+                "o.data_object_id, " +
+                "t.RELATIVE_FNO, " +
+                "t.block_id, " +
+                "t.blocks " +
+                "from dba_extents t " +
+                "left join dba_objects o on o.object_name=t.segment_name " +
+                "and o.owner=t.owner " +
+                "and o.OBJECT_TYPE like 'TABLE%'" +
+                "and (o.SUBOBJECT_NAME=t.PARTITION_NAME or (o.SUBOBJECT_NAME is null and t.PARTITION_NAME is null)) " +
+                "where t.owner =? and t.segment_name=? " +
+                "order by 3,4,5";
 
         PreparedStatement ps=null;
         ResultSet rs=null;
+        List<OracleExtent> extents=new ArrayList<OracleExtent>();
+        long totalBlocks=0;
         try {
             ps=conn.prepareStatement(rowidQuerySQL);
             ps.setString(1,owner.toUpperCase());
             ps.setString(2,table.toUpperCase());
             rs = ps.executeQuery();
+            while(rs.next())
+            {
+                long dataObjectId=rs.getLong(3);
+                OracleExtent extent=new OracleExtent(rs.getString(1),rs.getString(2),
+                        rs.wasNull()?null:dataObjectId,rs.getLong(4),rs.getLong(5),rs.getLong(6));
+                extents.add(extent);
+                totalBlocks+=extent.blocks;
+            }
         }
         catch(Exception e)
         {
             LOG.error("查询表ROWID失败: ",e);
-            DBUtil.closeDBResources(ps, conn);
             throw DataXException.asDataXException(DBUtilErrorCode.ORACLE_QUERY_SELECT_PRI_ERROR,
                     String.format("查询表 "+owner.toUpperCase()+"."+table.toUpperCase()+" 的ROWID失败,请确认连接用户是否有查询DBA_EXTENTS,DBA_OBJECTS视图和执行dbms_rowid.rowid_create包的权限."));
         }
+        finally {
+            DBUtil.closeDBResources(rs, ps, null);
+        }
+
+        if(extents.isEmpty() || totalBlocks<=0)
+        {
+            throw DataXException.asDataXException(DBUtilErrorCode.ORACLE_QUERY_SELECT_PRI_ERROR,
+                    String.format("给task分配extents失败,分配的extents为0,请确认表里有数据."));
+        }
 
-        ArrayList<JSONObject> result=null;
+        //计算出每个split对应多少个block
+        long blocksPerSplit=(totalBlocks+eachTableShouldSplittedNumber-1)/eachTableShouldSplittedNumber;
+
+        LOG.info("查询表extents数据成功,表里一共有 "+extents.size()+" 个extents, "+totalBlocks+" 个block,将会有 "+eachTableShouldSplittedNumber+" 个task, 每个task将分配到约 "+blocksPerSplit+" 个block.");
 
         try {
             if(directMode.equals("range"))
             {
-                result=assignExtentsByRange(rs,extentsPerSplit);
+                return assignExtentsByRange(assignExtentsByBlocks(conn,extents,blocksPerSplit));
             }
             else if(directMode.equals("union"))
             {
-                result=assignExtentsByUnionAll(rs,subQueryCnt,extentsPerSplit);
+                return assignExtentsByUnionAll(assignExtentsByBlocks(conn,extents,blocksPerSplit),subQueryCnt);
             }
             else
             {
@@ -882,11 +893,6 @@ public final class DBUtil {
             throw DataXException.asDataXException(DBUtilErrorCode.ORACLE_QUERY_SQL_ERROR,
                     String.format("给Task分配extents失败: "+e.getMessage()));
         }
-        finally {
-            DBUtil.closeDBResources(rs, ps, conn);
-        }
-
-        return result;
     }
 
     public static boolean isOracleMaster(final String url, final String user, final String pass) {
@@ -0,0 +1,15 @@
+package com.alibaba.datax.plugin.rdbms.writer;
+
+import com.alibaba.datax.common.element.Column;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 目的表某一列的参数绑定方式, 每个 task 开始写入时根据表的元数据为每一列生成一个,
+ * 逐行写入时直接调用, 不再按字段类型做 switch 判断。
+ */
+public interface ColumnBinder {
+
+    void bind(PreparedStatement preparedStatement, Column column) throws SQLException;
+}
@@ -17,6 +17,7 @@ import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -198,6 +199,7 @@ public class CommonRdbmsWriter {
         protected String writeMode;
         protected boolean emptyAsNull;
         protected Triple<List<String>, List<Integer>, List<String>> resultSetMetaData;
+        protected ColumnBinder[] columnBinders;
 
         public Task(DataBaseType dataBaseType) {
             this.dataBaseType = dataBaseType;
@@ -267,6 +269,7 @@ public class CommonRdbmsWriter {
                     this.table, StringUtils.join(this.columns, ","));
             // 写数据库的SQL语句
             calcWriteRecordSql();
+            this.columnBinders = createColumnBinders();
 
             List<Record> writeBuffer = new ArrayList<Record>(this.batchSize);
             int bufferBytes = 0;
@@ -397,17 +400,203 @@ public class CommonRdbmsWriter {
             }
         }
 
-        // 直接使用了两个类变量：columnNumber,resultSetMetaData
+        // 直接使用了两个类变量：columnNumber,columnBinders
         protected PreparedStatement fillPreparedStatement(PreparedStatement preparedStatement, Record record)
                 throws SQLException {
+            if (null == this.columnBinders) {
+                this.columnBinders = createColumnBinders();
+            }
             for (int i = 0; i < this.columnNumber; i++) {
-                int columnSqltype = this.resultSetMetaData.getMiddle().get(i);
-                preparedStatement = fillPreparedStatementColumnType(preparedStatement, i, columnSqltype, record.getColumn(i));
+                this.columnBinders[i].bind(preparedStatement, record.getColumn(i));
             }
 
             return preparedStatement;
         }
 
+        /**
+         * 根据 resultSetMetaData 为每一列生成 ColumnBinder。
+         * 子类重写了 fillPreparedStatementColumnType 时仍然逐个单元格调用它, 保持子类的写入行为不变
+         */
+        protected ColumnBinder[] createColumnBinders() {
+            boolean columnTypeFillOverridden = isColumnTypeFillOverridden();
+            ColumnBinder[] binders = new ColumnBinder[this.columnNumber];
+            for (int i = 0; i < this.columnNumber; i++) {
+                int columnSqltype = this.resultSetMetaData.getMiddle().get(i);
+                binders[i] = columnTypeFillOverridden ? new ColumnTypeFillBinder(i, columnSqltype)
+                        : createColumnBinder(i, columnSqltype);
+            }
+            return binders;
+        }
+
+        private boolean isColumnTypeFillOverridden() {
+            for (Class<?> clazz = this.getClass(); clazz != Task.class; clazz = clazz.getSuperclass()) {
+                try {
+                    clazz.getDeclaredMethod("fillPreparedStatementColumnType", PreparedStatement.class,
+                            int.class, int.class, Column.class);
+                    return true;
+                } catch (NoSuchMethodException ignored) {
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 与 fillPreparedStatementColumnType 的处理方式一致, 字段类型相关的判断在这里一次完成
+         */
+        protected ColumnBinder createColumnBinder(final int columnIndex, final int columnSqltype) {
+            final int parameterIndex = columnIndex + 1;
+            switch (columnSqltype) {
+                case Types.CHAR:
+                case Types.NCHAR:
+                case Types.CLOB:
+                case Types.NCLOB:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.BOOLEAN:
+                    return new StringBinder(parameterIndex);
+
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                case Types.FLOAT:
+                case Types.REAL:
+                case Types.DOUBLE:
+                    if (!this.emptyAsNull) {
+                        return new StringBinder(parameterIndex);
+                    }
+                    return new ColumnBinder() {
+                        @Override
+                        public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                            String strValue = column.asString();
+                            preparedStatement.setString(parameterIndex, "".equals(strValue) ? null : strValue);
+                        }
+                    };
+
+                //tinyint is a little special in some database like mysql {boolean->tinyint(1)}
+                case Types.TINYINT:
+                    return new ColumnBinder() {
+                        @Override
+                        public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                            Long longValue = column.asLong();
+                            preparedStatement.setString(parameterIndex, null == longValue ? null : longValue.toString());
+                        }
+                    };
+
+                // for mysql bug, see http://bugs.mysql.com/bug.php?id=35115
+                case Types.DATE:
+                    if (this.resultSetMetaData.getRight().get(columnIndex).equalsIgnoreCase("year")) {
+                        return new ColumnBinder() {
+                            @Override
+                            public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                                BigInteger year = column.asBigInteger();
+                                if (null == year) {
+                                    preparedStatement.setString(parameterIndex, null);
+                                } else {
+                                    preparedStatement.setInt(parameterIndex, year.intValue());
+                                }
+                            }
+                        };
+                    }
+                    return new ColumnBinder() {
+                        @Override
+                        public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                            java.util.Date utilDate = asDate(column, "Date");
+                            preparedStatement.setDate(parameterIndex,
+                                    null == utilDate ? null : new java.sql.Date(utilDate.getTime()));
+                        }
+                    };
+
+                case Types.TIME:
+                    return new ColumnBinder() {
+                        @Override
+                        public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                            java.util.Date utilDate = asDate(column, "TIME");
+                            preparedStatement.setTime(parameterIndex,
+                                    null == utilDate ? null : new java.sql.Time(utilDate.getTime()));
+                        }
+                    };
+
+                case Types.TIMESTAMP:
+                    return new ColumnBinder() {
+                        @Override
+                        public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                            java.util.Date utilDate = asDate(column, "TIMESTAMP");
+                            preparedStatement.setTimestamp(parameterIndex,
+                                    null == utilDate ? null : new java.sql.Timestamp(utilDate.getTime()));
+                        }
+                    };
+
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.BLOB:
+                case Types.LONGVARBINARY:
+                    return new ColumnBinder() {
+                        @Override
+                        public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                            preparedStatement.setBytes(parameterIndex, column.asBytes());
+                        }
+                    };
+
+                // warn: bit(1) -> Types.BIT 可使用setBoolean
+                // warn: bit(>1) -> Types.VARBINARY 可使用setBytes
+                case Types.BIT:
+                    if (this.dataBaseType != DataBaseType.MySql) {
+                        return new StringBinder(parameterIndex);
+                    }
+                    return new ColumnBinder() {
+                        @Override
+                        public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                            preparedStatement.setBoolean(parameterIndex, column.asBoolean());
+                        }
+                    };
+
+                default:
+                    // 与逐行判断时一样, 直到真正写入数据时才报错
+                    return new ColumnTypeFillBinder(columnIndex, columnSqltype);
+            }
+        }
+
+        private static java.util.Date asDate(Column column, String typeName) throws SQLException {
+            try {
+                return column.asDate();
+            } catch (DataXException e) {
+                throw new SQLException(String.format(
+                        "%s 类型转换错误：[%s]", typeName, column));
+            }
+        }
+
+        private static class StringBinder implements ColumnBinder {
+            private final int parameterIndex;
+
+            StringBinder(int parameterIndex) {
+                this.parameterIndex = parameterIndex;
+            }
+
+            @Override
+            public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                preparedStatement.setString(this.parameterIndex, column.asString());
+            }
+        }
+
+        private class ColumnTypeFillBinder implements ColumnBinder {
+            private final int columnIndex;
+            private final int columnSqltype;
+
+            ColumnTypeFillBinder(int columnIndex, int columnSqltype) {
+                this.columnIndex = columnIndex;
+                this.columnSqltype = columnSqltype;
+            }
+
+            @Override
+            public void bind(PreparedStatement preparedStatement, Column column) throws SQLException {
+                fillPreparedStatementColumnType(preparedStatement, this.columnIndex, this.columnSqltype, column);
+            }
+        }
+
         protected PreparedStatement fillPreparedStatementColumnType(PreparedStatement preparedStatement, int columnIndex, int columnSqltype, Column column) throws SQLException {
             java.util.Date utilDate;
             switch (columnSqltype) {
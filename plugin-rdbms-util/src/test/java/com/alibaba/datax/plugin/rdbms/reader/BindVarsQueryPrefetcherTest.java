@@ -0,0 +1,243 @@
+package com.alibaba.datax.plugin.rdbms.reader;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.fastjson.JSONArray;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用假的 JDBC 连接验证预先执行查询的顺序、连接占用以及 close 时的资源释放
+ */
+public class BindVarsQueryPrefetcherTest {
+    private static final String SQL = "select * from t where rowid between ? and ?";
+
+    @Test
+    public void testResultsInOrderWithBoundedConnections() throws Exception {
+        for (int depth : new int[]{0, 1, 3}) {
+            FakeDatabase db = new FakeDatabase(20, null);
+            Connection taskConnection = db.newConnection();
+            BindVarsQueryPrefetcher prefetcher = newPrefetcher(db, taskConnection, 10, depth);
+            for (int i = 0; i < 10; i++) {
+                ResultSet rs = prefetcher.next();
+                Assert.assertNotNull(rs);
+                Assert.assertEquals("begin" + i, rs.getString(1));
+                // 读取当前结果集时, 后面的查询可以同时执行
+                Thread.sleep(20);
+            }
+            Assert.assertNull(prefetcher.next());
+            prefetcher.close();
+
+            Assert.assertEquals(10, db.executed.get());
+            Assert.assertTrue("depth=" + depth, db.maxOpenResults.get() <= depth + 1);
+            Assert.assertTrue("depth=" + depth, db.connections.size() <= depth + 1);
+            if (depth > 0) {
+                Assert.assertTrue("depth=" + depth, db.maxOpenResults.get() > 1);
+            }
+            Assert.assertEquals(0, db.openResults.get());
+            // 只关闭额外创建的连接, reader task 自己的连接由调用方关闭
+            Assert.assertEquals(db.connections.size() - 1, db.closedConnections.get());
+            Assert.assertFalse(taskConnection.isClosed());
+            Assert.assertFalse(db.closedWhileQuerying.get());
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForInFlightQueries() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        FakeDatabase db = new FakeDatabase(0, release);
+        BindVarsQueryPrefetcher prefetcher = newPrefetcher(db, db.newConnection(), 10, 3);
+
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException ignored) {
+                }
+                release.countDown();
+            }
+        });
+        releaser.start();
+        // 第一个查询立即返回, 其余 3 个查询仍在执行时关闭
+        ResultSet first = prefetcher.next();
+        Assert.assertEquals("begin0", first.getString(1));
+        while (db.executed.get() < 4) {
+            Thread.sleep(10);
+        }
+        prefetcher.close();
+        releaser.join();
+
+        Assert.assertFalse(db.closedWhileQuerying.get());
+        Assert.assertEquals(0, db.openResults.get());
+        Assert.assertEquals(db.connections.size() - 1, db.closedConnections.get());
+        Assert.assertEquals(4, db.executed.get());
+    }
+
+    @Test
+    public void testQueryFailure() throws Exception {
+        FakeDatabase db = new FakeDatabase(0, null);
+        db.failAt = 2;
+        BindVarsQueryPrefetcher prefetcher = newPrefetcher(db, db.newConnection(), 10, 2);
+        try {
+            for (int i = 0; i < 10; i++) {
+                prefetcher.next();
+            }
+            Assert.fail();
+        } catch (DataXException e) {
+            Assert.assertTrue(e.getMessage().contains("有绑定变量,执行SQL语句出错"));
+        } finally {
+            prefetcher.close();
+        }
+        Assert.assertEquals(0, db.openResults.get());
+        Assert.assertEquals(db.connections.size() - 1, db.closedConnections.get());
+    }
+
+    private static BindVarsQueryPrefetcher newPrefetcher(final FakeDatabase db, Connection connection, int queries,
+                                                         int depth) {
+        JSONArray bindVarsArr = new JSONArray();
+        for (int i = 0; i < queries; i++) {
+            JSONArray bindVars = new JSONArray();
+            bindVars.add("begin" + i);
+            bindVars.add("end" + i);
+            bindVarsArr.add(bindVars);
+        }
+        return new BindVarsQueryPrefetcher(connection, new Callable<Connection>() {
+            @Override
+            public Connection call() {
+                return db.newConnection();
+            }
+        }, SQL, bindVarsArr, 2, 1024, depth, 0, 0);
+    }
+
+    /**
+     * 每个查询执行 queryMillis 毫秒(或除第一个查询外等待 release), 结果集的第一列为绑定的第一个值
+     */
+    private static class FakeDatabase {
+        private final long queryMillis;
+        private final CountDownLatch release;
+        private final List<Connection> connections = Collections.synchronizedList(new ArrayList<Connection>());
+        private final AtomicInteger executed = new AtomicInteger();
+        private final AtomicInteger openResults = new AtomicInteger();
+        private final AtomicInteger maxOpenResults = new AtomicInteger();
+        private final AtomicInteger closedConnections = new AtomicInteger();
+        private final AtomicBoolean closedWhileQuerying = new AtomicBoolean();
+        private volatile int failAt = -1;
+
+        FakeDatabase(long queryMillis, CountDownLatch release) {
+            this.queryMillis = queryMillis;
+            this.release = release;
+        }
+
+        Connection newConnection() {
+            final AtomicBoolean closed = new AtomicBoolean();
+            final AtomicInteger running = new AtomicInteger();
+            Connection connection = (Connection) proxy(Connection.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("prepareStatement".equals(method.getName())) {
+                        return newStatement(closed, running);
+                    } else if ("close".equals(method.getName())) {
+                        if (running.get() > 0) {
+                            closedWhileQuerying.set(true);
+                        }
+                        if (closed.compareAndSet(false, true)) {
+                            closedConnections.incrementAndGet();
+                        }
+                    } else if ("isClosed".equals(method.getName())) {
+                        return closed.get();
+                    }
+                    return null;
+                }
+            });
+            this.connections.add(connection);
+            return connection;
+        }
+
+        private PreparedStatement newStatement(final AtomicBoolean connectionClosed, final AtomicInteger running) {
+            final String[] firstBindValue = new String[1];
+            return (PreparedStatement) proxy(PreparedStatement.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+                    if ("setString".equals(method.getName()) && Integer.valueOf(1).equals(args[0])) {
+                        firstBindValue[0] = (String) args[1];
+                    } else if ("executeQuery".equals(method.getName())) {
+                        running.incrementAndGet();
+                        try {
+                            int idx = executed.getAndIncrement();
+                            awaitIgnoringInterrupt(idx);
+                            if (connectionClosed.get()) {
+                                throw new SQLException("connection closed");
+                            }
+                            if (idx == failAt) {
+                                throw new SQLException("query failed");
+                            }
+                            int open = openResults.incrementAndGet();
+                            for (int max = maxOpenResults.get(); open > max; max = maxOpenResults.get()) {
+                                if (maxOpenResults.compareAndSet(max, open)) {
+                                    break;
+                                }
+                            }
+                            return newResultSet((PreparedStatement) proxy, firstBindValue[0]);
+                        } finally {
+                            running.decrementAndGet();
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+
+        /**
+         * 与多数 JDBC 驱动一样, 执行中的查询不响应线程中断
+         */
+        private void awaitIgnoringInterrupt(int idx) {
+            if (null != release && 0 == idx) {
+                return;
+            }
+            long deadline = System.currentTimeMillis() + (null == release ? queryMillis : 5000);
+            while (System.currentTimeMillis() < deadline && (null == release || release.getCount() > 0)) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+
+        private ResultSet newResultSet(final PreparedStatement statement, final String value) {
+            final AtomicBoolean closed = new AtomicBoolean();
+            return (ResultSet) proxy(ResultSet.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("getStatement".equals(method.getName())) {
+                        return statement;
+                    } else if ("getString".equals(method.getName())) {
+                        return value;
+                    } else if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                        openResults.decrementAndGet();
+                    }
+                    return null;
+                }
+            });
+        }
+
+        private static Object proxy(Class<?> type, InvocationHandler handler) {
+            return Proxy.newProxyInstance(BindVarsQueryPrefetcherTest.class.getClassLoader(), new Class<?>[]{type},
+                    handler);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.alibaba.datax.plugin.rdbms.reader;
+
+import com.alibaba.datax.common.element.BoolColumn;
+import com.alibaba.datax.common.element.BytesColumn;
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.ColumnCast;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
+import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 预先生成的 ColumnExtractor 与之前逐个单元格按字段类型 switch 读取的结果(类型、值、byteSize)必须一致
+ */
+public class ColumnExtractorTest {
+    private static final String[] INTEGERS = new String[]{"0", "7", "-1", "-128", "127", "32767", "-2147483648",
+            "2147483647", "9223372036854775807", "-9223372036854775808", null};
+    private static final String[] DECIMALS = new String[]{"1.5", "-0.001", "0", "1E+10", "12345678901234567890.12",
+            null};
+    private static final String[] STRINGS = new String[]{"abc", "中文", "", " ", null};
+
+    @BeforeClass
+    public static void beforeClass() {
+        ColumnCast.bind(Configuration.newDefault());
+    }
+
+    @Test
+    public void testIntegerTypes() throws Exception {
+        for (int type : new int[]{Types.SMALLINT, Types.TINYINT, Types.INTEGER, Types.BIGINT}) {
+            for (String value : INTEGERS) {
+                assertSameColumn(type, "T", true, null, value);
+            }
+        }
+        for (String value : new String[]{"0", "9223372036854775807", "9223372036854775808",
+                "18446744073709551615", null}) {
+            assertSameColumn(Types.BIGINT, "BIGINT UNSIGNED", false, null, value);
+        }
+    }
+
+    @Test
+    public void testStringTypes() throws Exception {
+        for (int type : new int[]{Types.CHAR, Types.NCHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NVARCHAR,
+                Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB}) {
+            for (String encoding : new String[]{null, "", "UTF-8", "GBK"}) {
+                for (String value : STRINGS) {
+                    assertSameColumn(type, "T", true, encoding, value);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecimalTypes() throws Exception {
+        for (int type : new int[]{Types.NUMERIC, Types.DECIMAL, Types.FLOAT, Types.REAL, Types.DOUBLE}) {
+            for (String value : DECIMALS) {
+                assertSameColumn(type, "T", true, null, value);
+            }
+        }
+    }
+
+    @Test
+    public void testDateTypes() throws Exception {
+        for (String value : new String[]{"2016-12-01", null}) {
+            assertSameColumn(Types.DATE, "DATE", true, null, value);
+        }
+        for (String value : new String[]{"2016", null}) {
+            assertSameColumn(Types.DATE, "YEAR", true, null, value);
+        }
+        for (String value : new String[]{"10:00:00", null}) {
+            assertSameColumn(Types.TIME, "TIME", true, null, value);
+        }
+        for (String value : new String[]{"2016-12-01 10:00:00.123", null}) {
+            assertSameColumn(Types.TIMESTAMP, "TIMESTAMP", true, null, value);
+        }
+    }
+
+    @Test
+    public void testOtherTypes() throws Exception {
+        for (int type : new int[]{Types.BINARY, Types.VARBINARY, Types.BLOB, Types.LONGVARBINARY}) {
+            for (String value : STRINGS) {
+                assertSameColumn(type, "T", true, null, value);
+            }
+        }
+        for (int type : new int[]{Types.BOOLEAN, Types.BIT}) {
+            for (String value : new String[]{"true", "false", null}) {
+                assertSameColumn(type, "T", true, null, value);
+            }
+        }
+        for (String value : STRINGS) {
+            assertSameColumn(Types.NULL, "NULL", true, null, value);
+        }
+    }
+
+    @Test
+    public void testUnsupportedTypeFailsOnExtract() throws Exception {
+        ResultSetMetaData metaData = metaData(Types.ARRAY, "ARRAY", true);
+        // 生成时不报错, 读取到数据时才报错, 错误信息与之前一致
+        ColumnExtractor extractor = new CommonRdbmsReader.Task(DataBaseType.MySql)
+                .createColumnExtractor(metaData, 1, null);
+        String legacyMessage = null;
+        try {
+            legacyExtract(resultSet(Types.ARRAY, "x"), metaData, null);
+        } catch (DataXException e) {
+            Assert.assertEquals(DBUtilErrorCode.UNSUPPORTED_TYPE, e.getErrorCode());
+            legacyMessage = e.getMessage();
+        }
+        Assert.assertNotNull(legacyMessage);
+        try {
+            extractor.extract(resultSet(Types.ARRAY, "x"));
+            Assert.fail();
+        } catch (DataXException e) {
+            Assert.assertEquals(legacyMessage, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDecimalLength() {
+        for (long value : new long[]{0, 1, -1, 9, 10, -10, 99, 100, 999999999, 1000000000, Long.MAX_VALUE,
+                Long.MIN_VALUE, Long.MIN_VALUE + 1, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            Assert.assertEquals(String.valueOf(value), String.valueOf(value).length(),
+                    CommonRdbmsReader.Task.DecimalSizedLongColumn.decimalLength(value));
+        }
+    }
+
+    private static void assertSameColumn(int type, String typeName, boolean signed, String encoding, String value)
+            throws Exception {
+        String context = String.format("type=%s(%s), signed=%s, encoding=%s, value=%s", type, typeName, signed,
+                encoding, value);
+        ResultSetMetaData metaData = metaData(type, typeName, signed);
+        Column expected = legacyExtract(resultSet(type, value), metaData, encoding);
+        Column actual = new CommonRdbmsReader.Task(DataBaseType.MySql).createColumnExtractor(metaData, 1, encoding)
+                .extract(resultSet(type, value));
+
+        Assert.assertEquals(context, expected.getType(), actual.getType());
+        Assert.assertEquals(context, expected.getByteSize(), actual.getByteSize());
+        if (expected.getRawData() instanceof byte[]) {
+            Assert.assertTrue(context, Arrays.equals((byte[]) expected.getRawData(), (byte[]) actual.getRawData()));
+        } else {
+            Assert.assertEquals(context, expected.getRawData(), actual.getRawData());
+        }
+    }
+
+    private static ResultSetMetaData metaData(int type, String typeName, boolean signed) throws SQLException {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnType(1)).thenReturn(type);
+        when(metaData.getColumnTypeName(1)).thenReturn(typeName);
+        when(metaData.isSigned(1)).thenReturn(signed);
+        when(metaData.getColumnName(1)).thenReturn("c");
+        when(metaData.getColumnClassName(1)).thenReturn("java.lang.Object");
+        return metaData;
+    }
+
+    /**
+     * 按驱动的行为模拟一个单元格: 各个 getXxx 返回同一个值的不同表示, NULL 时 getLong/getInt 返回 0 且 wasNull 为 true
+     */
+    private static ResultSet resultSet(int type, String value) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn(value);
+        when(rs.getObject(1)).thenReturn(value);
+        when(rs.wasNull()).thenReturn(null == value);
+        when(rs.getBytes(1)).thenReturn(null == value ? null : value.getBytes("UTF-8"));
+        when(rs.getBoolean(1)).thenReturn("true".equals(value));
+        if (null == value) {
+            when(rs.getLong(1)).thenReturn(0L);
+            when(rs.getInt(1)).thenReturn(0);
+            return rs;
+        }
+        if (value.matches("-?\\d+")) {
+            BigInteger integer = new BigInteger(value);
+            if (integer.bitLength() < 64) {
+                when(rs.getLong(1)).thenReturn(integer.longValue());
+            } else {
+                when(rs.getLong(1)).thenThrow(new SQLException("out of range: " + value));
+            }
+            if (integer.bitLength() < 32) {
+                when(rs.getInt(1)).thenReturn(integer.intValue());
+            }
+        }
+        if (Types.DATE == type && value.length() == 10) {
+            when(rs.getDate(1)).thenReturn(java.sql.Date.valueOf(value));
+        } else if (Types.TIME == type) {
+            when(rs.getTime(1)).thenReturn(java.sql.Time.valueOf(value));
+        } else if (Types.TIMESTAMP == type) {
+            when(rs.getTimestamp(1)).thenReturn(java.sql.Timestamp.valueOf(value));
+        }
+        return rs;
+    }
+
+    /**
+     * 改为 ColumnExtractor 之前 buildRecord 中逐个单元格的读取方式
+     */
+    private static Column legacyExtract(ResultSet rs, ResultSetMetaData metaData, String mandatoryEncoding)
+            throws Exception {
+        int i = 1;
+        switch (metaData.getColumnType(i)) {
+
+        case Types.CHAR:
+        case Types.NCHAR:
+        case Types.VARCHAR:
+        case Types.LONGVARCHAR:
+        case Types.NVARCHAR:
+        case Types.LONGNVARCHAR:
+            String rawData;
+            if (StringUtils.isBlank(mandatoryEncoding)) {
+                rawData = rs.getString(i);
+            } else {
+                rawData = new String((rs.getBytes(i) == null ? new byte[0] : rs.getBytes(i)), mandatoryEncoding);
+            }
+            return new StringColumn(rawData);
+
+        case Types.CLOB:
+        case Types.NCLOB:
+            return new StringColumn(rs.getString(i));
+
+        case Types.SMALLINT:
+        case Types.TINYINT:
+        case Types.INTEGER:
+        case Types.BIGINT:
+            return new LongColumn(rs.getString(i));
+
+        case Types.NUMERIC:
+        case Types.DECIMAL:
+        case Types.FLOAT:
+        case Types.REAL:
+        case Types.DOUBLE:
+            return new DoubleColumn(rs.getString(i));
+
+        case Types.TIME:
+            return new DateColumn(rs.getTime(i));
+
+        case Types.DATE:
+            if (metaData.getColumnTypeName(i).equalsIgnoreCase("year")) {
+                return new LongColumn(rs.getInt(i));
+            }
+            return new DateColumn(rs.getDate(i));
+
+        case Types.TIMESTAMP:
+            return new DateColumn(rs.getTimestamp(i));
+
+        case Types.BINARY:
+        case Types.VARBINARY:
+        case Types.BLOB:
+        case Types.LONGVARBINARY:
+            return new BytesColumn(rs.getBytes(i));
+
+        case Types.BOOLEAN:
+        case Types.BIT:
+            return new BoolColumn(rs.getBoolean(i));
+
+        case Types.NULL:
+            String stringData = null;
+            if (rs.getObject(i) != null) {
+                stringData = rs.getObject(i).toString();
+            }
+            return new StringColumn(stringData);
+
+        default:
+            throw DataXException.asDataXException(DBUtilErrorCode.UNSUPPORTED_TYPE, String.format(
+                    "您的配置文件中的列配置信息有误. 因为DataX 不支持数据库读取这种字段类型. 字段名:[%s], 字段名称:[%s], 字段Java类型:[%s]. 请尝试使用数据库函数将其转换datax支持的类型 或者不同步该字段 .",
+                    metaData.getColumnName(i), metaData.getColumnType(i), metaData.getColumnClassName(i)));
+        }
+    }
+}
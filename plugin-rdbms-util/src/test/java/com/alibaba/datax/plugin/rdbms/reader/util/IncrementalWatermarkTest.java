@@ -0,0 +1,232 @@
+package com.alibaba.datax.plugin.rdbms.reader.util;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.rdbms.reader.Constant;
+import com.alibaba.datax.plugin.rdbms.reader.Key;
+import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IncrementalWatermarkTest {
+    private static final String JDBC_URL = "jdbc:mysql://127.0.0.1:3306/test";
+    private static final String TABLE = "orders";
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void before() throws IOException {
+        this.dir = File.createTempFile("watermark", "");
+        this.dir.delete();
+        this.dir.mkdirs();
+        this.file = new File(this.dir, "orders.watermark.json");
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(this.dir);
+    }
+
+    @Test
+    public void testPendingThenCommit() {
+        IncrementalWatermark watermark = IncrementalWatermark.from(DataBaseType.MySql, readerConfig());
+        Configuration slice = Configuration.newDefault();
+        watermark.restrict(slice, JDBC_URL, TABLE, max("number", "100"));
+        Assert.assertEquals("id <= 100", slice.getString(Key.WHERE));
+        watermark.savePending();
+
+        Configuration saved = Configuration.from(this.file);
+        Assert.assertTrue(saved.getListConfiguration("watermarks").isEmpty());
+        Assert.assertEquals("100", saved.getString("pending[0].value"));
+
+        // 没有 commit 的水位不作为下次的下界
+        IncrementalWatermark rerun = IncrementalWatermark.from(DataBaseType.MySql, readerConfig());
+        slice = Configuration.newDefault();
+        rerun.restrict(slice, JDBC_URL, TABLE, max("number", "120"));
+        Assert.assertEquals("id <= 120", slice.getString(Key.WHERE));
+        rerun.savePending();
+        rerun.commit();
+
+        saved = Configuration.from(this.file);
+        Assert.assertEquals("120", saved.getString("watermarks[0].value"));
+        Assert.assertTrue(saved.getListConfiguration("pending").isEmpty());
+
+        IncrementalWatermark next = IncrementalWatermark.from(DataBaseType.MySql, readerConfig());
+        slice = Configuration.newDefault();
+        next.restrict(slice, JDBC_URL, TABLE, max("number", "150"));
+        Assert.assertEquals("id > 120 AND id <= 150", slice.getString(Key.WHERE));
+    }
+
+    @Test
+    public void testPendingCommittedWithoutSplit() {
+        IncrementalWatermark watermark = IncrementalWatermark.from(DataBaseType.MySql, readerConfig());
+        watermark.restrict(Configuration.newDefault(), JDBC_URL, TABLE, max("number", "100"));
+        watermark.savePending();
+
+        // 断点续传跳过 split 时, post 使上次的 pending 水位生效
+        IncrementalWatermark resumed = IncrementalWatermark.from(DataBaseType.MySql, readerConfig());
+        resumed.commit();
+        Assert.assertEquals("100", Configuration.from(this.file).getString("watermarks[0].value"));
+    }
+
+    @Test
+    public void testWhereNarrowing() {
+        IncrementalWatermark watermark = IncrementalWatermark.from(DataBaseType.MySql, readerConfig());
+        Configuration slice = Configuration.newDefault();
+        slice.set(Key.WHERE, "status = 1 OR status = 2");
+        watermark.restrict(slice, JDBC_URL, TABLE, max("number", "100"));
+        Assert.assertEquals("(status = 1 OR status = 2) AND id <= 100", slice.getString(Key.WHERE));
+
+        // 没有数据时本次不抽取
+        slice = Configuration.newDefault();
+        slice.set(Key.WHERE, "status = 1");
+        watermark.restrict(slice, JDBC_URL, "empty_table", null);
+        Assert.assertEquals("(status = 1) AND 1 = 0", slice.getString(Key.WHERE));
+
+        watermark.savePending();
+        Assert.assertEquals(1, Configuration.from(this.file).getListConfiguration("pending").size());
+    }
+
+    @Test
+    public void testTimestampLiteral() {
+        writeCommitted("timestamp", "2016-12-01 10:00:00.0");
+
+        IncrementalWatermark mysql = IncrementalWatermark.from(DataBaseType.MySql, readerConfig());
+        Configuration slice = Configuration.newDefault();
+        mysql.restrict(slice, JDBC_URL, TABLE, max("timestamp", "2016-12-02 10:00:00.5"));
+        Assert.assertEquals("id > '2016-12-01 10:00:00.0' AND id <= '2016-12-02 10:00:00.5'",
+                slice.getString(Key.WHERE));
+
+        IncrementalWatermark oracle = IncrementalWatermark.from(DataBaseType.Oracle, readerConfig());
+        slice = Configuration.newDefault();
+        oracle.restrict(slice, JDBC_URL, TABLE, max("timestamp", "2016-12-02 10:00:00.5"));
+        Assert.assertEquals("id > TO_TIMESTAMP('2016-12-01 10:00:00.0', 'YYYY-MM-DD HH24:MI:SS.FF')"
+                + " AND id <= TO_TIMESTAMP('2016-12-02 10:00:00.5', 'YYYY-MM-DD HH24:MI:SS.FF')",
+                slice.getString(Key.WHERE));
+    }
+
+    @Test
+    public void testTamperedNumber() {
+        writeCommitted("number", "1 OR 1=1");
+        assertRejected();
+    }
+
+    @Test
+    public void testTamperedTimestamp() {
+        writeCommitted("timestamp", "2016-12-01 10:00:00' OR '1'='1");
+        assertRejected();
+    }
+
+    @Test
+    public void testReadMaxTimestamp() throws SQLException {
+        ResultSet rs = resultSet(Types.TIMESTAMP, "TIMESTAMP");
+        // oracle 驱动的 getObject 返回 oracle.sql.TIMESTAMP, 不是 java.util.Date
+        when(rs.getObject(1)).thenReturn(new Object());
+        when(rs.getTimestamp(1)).thenReturn(Timestamp.valueOf("2016-12-01 10:00:00.123"));
+
+        Configuration current = IncrementalWatermark.readMax(rs, JDBC_URL, TABLE, "id");
+        Assert.assertEquals("timestamp", current.getString("type"));
+        Assert.assertEquals("2016-12-01 10:00:00.123", current.getString("value"));
+    }
+
+    @Test
+    public void testReadMaxDate() throws SQLException {
+        ResultSet rs = resultSet(Types.DATE, "DATE");
+        when(rs.getTimestamp(1)).thenReturn(Timestamp.valueOf("2016-12-01 00:00:00"));
+
+        Configuration current = IncrementalWatermark.readMax(rs, JDBC_URL, TABLE, "id");
+        Assert.assertEquals("timestamp", current.getString("type"));
+        Assert.assertEquals("2016-12-01 00:00:00.0", current.getString("value"));
+    }
+
+    @Test
+    public void testReadMaxNumeric() throws SQLException {
+        ResultSet rs = resultSet(Types.NUMERIC, "NUMBER");
+        when(rs.getBigDecimal(1)).thenReturn(new BigDecimal("1E+3"));
+
+        Configuration current = IncrementalWatermark.readMax(rs, JDBC_URL, TABLE, "id");
+        Assert.assertEquals("number", current.getString("type"));
+        Assert.assertEquals("1000", current.getString("value"));
+        Assert.assertEquals(JDBC_URL, current.getString("jdbcUrl"));
+        Assert.assertEquals(TABLE, current.getString("table"));
+        Assert.assertEquals("id", current.getString("column"));
+    }
+
+    @Test
+    public void testReadMaxNull() throws SQLException {
+        ResultSet rs = resultSet(Types.BIGINT, "BIGINT");
+        when(rs.getBigDecimal(1)).thenReturn(null);
+        Assert.assertNull(IncrementalWatermark.readMax(rs, JDBC_URL, TABLE, "id"));
+    }
+
+    @Test(expected = DataXException.class)
+    public void testReadMaxUnsupportedType() throws SQLException {
+        ResultSet rs = resultSet(Types.VARCHAR, "VARCHAR");
+        IncrementalWatermark.readMax(rs, JDBC_URL, TABLE, "id");
+    }
+
+    private void assertRejected() {
+        IncrementalWatermark watermark = IncrementalWatermark.from(DataBaseType.MySql, readerConfig());
+        try {
+            watermark.restrict(Configuration.newDefault(), JDBC_URL, TABLE, max("number", "100"));
+            Assert.fail("篡改过的水位不应拼进 sql");
+        } catch (DataXException e) {
+            Assert.assertTrue(e.getMessage().contains("不合法"));
+        }
+    }
+
+    private void writeCommitted(String type, String value) {
+        Configuration saved = Configuration.newDefault();
+        saved.set("watermarks[0]", max(type, value));
+        try {
+            FileUtils.writeStringToFile(this.file, saved.toJSON(), "UTF-8");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Configuration readerConfig() {
+        Configuration config = Configuration.newDefault();
+        config.set(Constant.IS_TABLE_MODE, true);
+        config.set(Key.INCREMENT_COLUMN, "id");
+        config.set(Key.WATERMARK_FILE, this.file.getAbsolutePath());
+        config.set(Key.USERNAME, "test");
+        config.set(Key.PASSWORD, "test");
+        return config;
+    }
+
+    private static Configuration max(String type, String value) {
+        Configuration current = Configuration.newDefault();
+        current.set("jdbcUrl", JDBC_URL);
+        current.set("table", TABLE);
+        current.set("column", "id");
+        current.set("type", type);
+        current.set("value", value);
+        return current;
+    }
+
+    private static ResultSet resultSet(int columnType, String columnTypeName) throws SQLException {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnType(1)).thenReturn(columnType);
+        when(metaData.getColumnTypeName(1)).thenReturn(columnTypeName);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        return rs;
+    }
+}
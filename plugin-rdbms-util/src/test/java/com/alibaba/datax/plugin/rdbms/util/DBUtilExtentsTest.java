@@ -0,0 +1,312 @@
+package com.alibaba.datax.plugin.rdbms.util;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.plugin.rdbms.reader.Key;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用假的 dba_extents 查询和 dbms_rowid.rowid_create 验证 oracle direct 模式下 extents 的分配:
+ * 每个 task 分到的 block 数均衡, ROWID 区间之间既不重叠也没有遗漏。
+ * 假的 ROWID 为 "对象id.文件号.block号" 的定长字符串, 字符串顺序即 ROWID 顺序。
+ */
+public class DBUtilExtentsTest {
+
+    @Test
+    public void testManySmallExtents() {
+        List<long[]> extents = new ArrayList<long[]>();
+        for (int i = 0; i < 50; i++) {
+            // {对象id, 文件号, 起始block, block数}
+            extents.add(new long[]{100, 1 + i % 3, 128 + (i / 3) * 8, 8});
+        }
+        sortByRowID(extents);
+        for (int splitNumber : new int[]{1, 3, 7, 50, 64}) {
+            assertRange(extents, splitNumber);
+            for (int subQueryCnt : new int[]{1, 4, 100}) {
+                assertUnionAll(extents, splitNumber, subQueryCnt);
+            }
+        }
+    }
+
+    @Test
+    public void testLargeExtentsAreSplitOnBlockBoundaries() {
+        List<long[]> extents = Arrays.asList(new long[]{100, 1, 128, 1024}, new long[]{100, 1, 2048, 128},
+                new long[]{100, 2, 8, 3000}, new long[]{101, 1, 16, 5});
+        for (int splitNumber : new int[]{1, 2, 10, 33}) {
+            FakeOracle oracle = assertRange(extents, splitNumber);
+            // rowid_create 只 prepare 一次, 所有语句都关闭
+            Assert.assertTrue(oracle.rowidPrepared.get() <= 1);
+            Assert.assertEquals(oracle.prepared.get(), oracle.closedStatements.get());
+            if (splitNumber > 1) {
+                Assert.assertTrue(oracle.rowidCreated.get() > 0);
+            }
+            for (int subQueryCnt : new int[]{1, 3}) {
+                assertUnionAll(extents, splitNumber, subQueryCnt);
+            }
+        }
+    }
+
+    @Test
+    public void testMoreSplitsThanBlocks() {
+        List<long[]> extents = Arrays.asList(new long[]{100, 1, 8, 2}, new long[]{100, 1, 16, 2});
+        List<JSONObject> splits = assertRange(extents, 10).result;
+        // 每个 task 一个 block
+        Assert.assertEquals(4, splits.size());
+    }
+
+    @Test
+    public void testEmptyTable() {
+        FakeOracle oracle = new FakeOracle(new ArrayList<long[]>());
+        try {
+            DBUtil.buildRowIDRangeByNumber(oracle.connection, "u", "t", 4, "range", 10);
+            Assert.fail();
+        } catch (DataXException e) {
+            Assert.assertEquals(DBUtilErrorCode.ORACLE_QUERY_SELECT_PRI_ERROR, e.getErrorCode());
+        }
+        Assert.assertEquals(oracle.prepared.get(), oracle.closedStatements.get());
+    }
+
+    @Test
+    public void testUnsupportedDirectMode() {
+        FakeOracle oracle = new FakeOracle(Arrays.asList(new long[]{100, 1, 8, 2}));
+        try {
+            DBUtil.buildRowIDRangeByNumber(oracle.connection, "u", "t", 4, "unknown", 10);
+            Assert.fail();
+        } catch (DataXException e) {
+            Assert.assertEquals(DBUtilErrorCode.ORACLE_QUERY_SQL_ERROR, e.getErrorCode());
+        }
+    }
+
+    private static FakeOracle assertRange(List<long[]> extents, int splitNumber) {
+        FakeOracle oracle = new FakeOracle(extents);
+        oracle.result = DBUtil.buildRowIDRangeByNumber(oracle.connection, "u", "t", splitNumber, "range", 10);
+        String context = "splitNumber=" + splitNumber;
+
+        List<String[]> ranges = new ArrayList<String[]>();
+        for (JSONObject split : oracle.result) {
+            Assert.assertEquals(">=", split.getString("startopt"));
+            Assert.assertEquals("<", split.getString("endopt"));
+            ranges.add(new String[]{split.getString("start"), split.getString("end")});
+        }
+        // 相邻 task 的区间不重叠, 且覆盖从第一个 extent 开始到最后一个 extent 结束的全部 ROWID
+        Assert.assertEquals(context, startRowID(extents.get(0)), ranges.get(0)[0]);
+        Assert.assertEquals(context, endRowID(extents.get(extents.size() - 1)), ranges.get(ranges.size() - 1)[1]);
+        for (int i = 1; i < ranges.size(); i++) {
+            Assert.assertTrue(context, ranges.get(i - 1)[1].compareTo(ranges.get(i)[0]) <= 0);
+        }
+
+        List<List<String[]>> rangesPerSplit = new ArrayList<List<String[]>>();
+        for (String[] range : ranges) {
+            rangesPerSplit.add(Collections.singletonList(range));
+        }
+        assertBalancedAndExactlyCovered(context, extents, splitNumber, rangesPerSplit);
+        return oracle;
+    }
+
+    private static void assertUnionAll(List<long[]> extents, int splitNumber, int subQueryCnt) {
+        FakeOracle oracle = new FakeOracle(extents);
+        List<JSONObject> result = DBUtil.buildRowIDRangeByNumber(oracle.connection, "u", "t", splitNumber, "union",
+                subQueryCnt);
+        String context = "splitNumber=" + splitNumber + ", subQueryCnt=" + subQueryCnt;
+
+        List<List<String[]>> rangesPerSplit = new ArrayList<List<String[]>>();
+        for (JSONObject split : result) {
+            Assert.assertEquals(context, subQueryCnt * 2, split.getIntValue(Key.BIND_VAL_CNT));
+            JSONArray binds = split.getJSONArray(Key.BINDS);
+            List<String[]> ranges = new ArrayList<String[]>();
+            for (int i = 0; i < binds.size(); i++) {
+                JSONArray bind = binds.getJSONArray(i);
+                // 除最后一次绑定外, 每次绑定都是 subQueryCnt 对 ROWID
+                Assert.assertTrue(context, bind.size() % 2 == 0 && bind.size() <= subQueryCnt * 2);
+                if (i < binds.size() - 1) {
+                    Assert.assertEquals(context, subQueryCnt * 2, bind.size());
+                }
+                for (int j = 0; j < bind.size(); j += 2) {
+                    String start = bind.getString(j);
+                    String end = bind.getString(j + 1);
+                    Assert.assertTrue(context, start.compareTo(end) < 0);
+                    if (!ranges.isEmpty()) {
+                        Assert.assertTrue(context, ranges.get(ranges.size() - 1)[1].compareTo(start) <= 0);
+                    }
+                    ranges.add(new String[]{start, end});
+                }
+            }
+            rangesPerSplit.add(ranges);
+        }
+        assertBalancedAndExactlyCovered(context, extents, splitNumber, rangesPerSplit);
+    }
+
+    /**
+     * 每个 block 恰好被一个 task 的一个区间覆盖; 除最后一个 task 外每个 task 都分到 ceil(总block数/splitNumber) 个 block
+     */
+    private static void assertBalancedAndExactlyCovered(String context, List<long[]> extents, int splitNumber,
+                                                        List<List<String[]>> rangesPerSplit) {
+        long totalBlocks = 0;
+        for (long[] extent : extents) {
+            totalBlocks += extent[3];
+        }
+        long blocksPerSplit = (totalBlocks + splitNumber - 1) / splitNumber;
+        Assert.assertTrue(context, rangesPerSplit.size() <= splitNumber);
+
+        long[] covered = new long[rangesPerSplit.size()];
+        for (long[] extent : extents) {
+            for (long block = extent[2]; block < extent[2] + extent[3]; block++) {
+                String rowID = rowID(extent[0], extent[1], block);
+                int hits = 0;
+                for (int s = 0; s < rangesPerSplit.size(); s++) {
+                    for (String[] range : rangesPerSplit.get(s)) {
+                        if (range[0].compareTo(rowID) <= 0 && rowID.compareTo(range[1]) < 0) {
+                            covered[s]++;
+                            hits++;
+                        }
+                    }
+                }
+                Assert.assertEquals(context + ", block=" + rowID, 1, hits);
+            }
+        }
+        for (int s = 0; s < covered.length - 1; s++) {
+            Assert.assertEquals(context + ", split=" + s, blocksPerSplit, covered[s]);
+        }
+        long last = covered[covered.length - 1];
+        Assert.assertTrue(context, last > 0 && last <= blocksPerSplit);
+    }
+
+    private static void sortByRowID(List<long[]> extents) {
+        Collections.sort(extents, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return rowID(a[0], a[1], a[2]).compareTo(rowID(b[0], b[1], b[2]));
+            }
+        });
+    }
+
+    private static String startRowID(long[] extent) {
+        return rowID(extent[0], extent[1], extent[2]);
+    }
+
+    private static String endRowID(long[] extent) {
+        return rowID(extent[0], extent[1], extent[2] + extent[3]);
+    }
+
+    private static String rowID(long dataObjectId, long relativeFno, long blockId) {
+        return String.format("%08d.%04d.%010d", dataObjectId, relativeFno, blockId);
+    }
+
+    /**
+     * dba_extents 查询返回给定的 extents, rowid_create 返回假的 ROWID
+     */
+    private static class FakeOracle {
+        private final List<long[]> extents;
+        private final AtomicInteger prepared = new AtomicInteger();
+        private final AtomicInteger closedStatements = new AtomicInteger();
+        private final AtomicInteger rowidPrepared = new AtomicInteger();
+        private final AtomicInteger rowidCreated = new AtomicInteger();
+        private final Connection connection;
+        private List<JSONObject> result;
+
+        FakeOracle(List<long[]> extents) {
+            this.extents = extents;
+            this.connection = (Connection) proxy(Connection.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("prepareStatement".equals(method.getName())) {
+                        prepared.incrementAndGet();
+                        String sql = (String) args[0];
+                        if (sql.contains("from dba_extents")) {
+                            return extentStatement();
+                        }
+                        Assert.assertEquals("select dbms_rowid.rowid_create(1,?,?,?,0) from dual", sql);
+                        rowidPrepared.incrementAndGet();
+                        return rowidStatement();
+                    }
+                    return null;
+                }
+            });
+        }
+
+        private PreparedStatement extentStatement() {
+            return (PreparedStatement) proxy(PreparedStatement.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("executeQuery".equals(method.getName())) {
+                        return extentResultSet();
+                    } else if ("close".equals(method.getName())) {
+                        closedStatements.incrementAndGet();
+                    }
+                    return null;
+                }
+            });
+        }
+
+        private ResultSet extentResultSet() {
+            final int[] row = new int[]{-1};
+            return (ResultSet) proxy(ResultSet.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    String name = method.getName();
+                    if ("next".equals(name)) {
+                        return ++row[0] < extents.size();
+                    } else if ("wasNull".equals(name)) {
+                        return false;
+                    }
+                    if ("getString".equals(name)) {
+                        long[] extent = extents.get(row[0]);
+                        return Integer.valueOf(1).equals(args[0]) ? startRowID(extent) : endRowID(extent);
+                    } else if ("getLong".equals(name)) {
+                        // 第3列起依次为 data_object_id, RELATIVE_FNO, block_id, blocks
+                        return extents.get(row[0])[(Integer) args[0] - 3];
+                    }
+                    return null;
+                }
+            });
+        }
+
+        private PreparedStatement rowidStatement() {
+            final long[] params = new long[3];
+            return (PreparedStatement) proxy(PreparedStatement.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("setLong".equals(method.getName())) {
+                        params[(Integer) args[0] - 1] = (Long) args[1];
+                    } else if ("executeQuery".equals(method.getName())) {
+                        rowidCreated.incrementAndGet();
+                        final String rowID = rowID(params[0], params[1], params[2]);
+                        return proxy(ResultSet.class, new InvocationHandler() {
+                            @Override
+                            public Object invoke(Object proxy, Method method, Object[] args) {
+                                if ("next".equals(method.getName())) {
+                                    return true;
+                                } else if ("getString".equals(method.getName())) {
+                                    return rowID;
+                                }
+                                return null;
+                            }
+                        });
+                    } else if ("close".equals(method.getName())) {
+                        closedStatements.incrementAndGet();
+                    }
+                    return null;
+                }
+            });
+        }
+
+        private static Object proxy(Class<?> type, InvocationHandler handler) {
+            return Proxy.newProxyInstance(DBUtilExtentsTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+}
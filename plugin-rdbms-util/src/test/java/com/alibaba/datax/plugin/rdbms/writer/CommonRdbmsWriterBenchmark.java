@@ -0,0 +1,135 @@
+package com.alibaba.datax.plugin.rdbms.writer;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 逐个单元格调用 fillPreparedStatementColumnType 与预先生成 ColumnBinder 两种方式填充 PreparedStatement 的吞吐对比,
+ * PreparedStatement 为不做任何事情的代理, 只衡量 DataX 这一侧的开销。直接运行 main 方法:
+ *
+ * <pre>
+ * java -cp ... CommonRdbmsWriterBenchmark [行数] [轮数]
+ * </pre>
+ */
+public class CommonRdbmsWriterBenchmark {
+    private static final List<String> NAMES = Arrays.asList("id", "name", "price", "gmt_create", "status", "biz_date");
+    private static final List<Integer> TYPES = Arrays.asList(Types.BIGINT, Types.VARCHAR, Types.DECIMAL,
+            Types.TIMESTAMP, Types.TINYINT, Types.DATE);
+    private static final List<String> TYPE_NAMES = Arrays.asList("BIGINT", "VARCHAR", "DECIMAL", "DATETIME",
+            "TINYINT", "DATE");
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        CommonRdbmsWriter.Task task = new CommonRdbmsWriter.Task(DataBaseType.MySql);
+        task.columnNumber = NAMES.size();
+        task.emptyAsNull = true;
+        task.resultSetMetaData = new ImmutableTriple<List<String>, List<Integer>, List<String>>(NAMES, TYPES,
+                TYPE_NAMES);
+        task.columnBinders = task.createColumnBinders();
+
+        PreparedStatement preparedStatement = (PreparedStatement) Proxy.newProxyInstance(
+                CommonRdbmsWriterBenchmark.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return null;
+                    }
+                });
+        List<Record> records = generate(rows);
+        System.out.println(String.format("rows=%d, columns=%d", rows, NAMES.size()));
+
+        for (int round = 0; round < rounds; round++) {
+            long legacy = run(task, preparedStatement, records, true);
+            long binder = run(task, preparedStatement, records, false);
+            System.out.println(String.format(
+                    "round %d: per-cell switch %d ms (%.0f rows/s), ColumnBinder %d ms (%.0f rows/s)",
+                    round, legacy, rows * 1000.0 / legacy, binder, rows * 1000.0 / binder));
+        }
+    }
+
+    private static long run(CommonRdbmsWriter.Task task, PreparedStatement preparedStatement,
+                            List<Record> records, boolean legacy) throws SQLException {
+        long start = System.currentTimeMillis();
+        for (Record record : records) {
+            if (legacy) {
+                // ColumnBinder 之前 fillPreparedStatement 的实现
+                for (int i = 0; i < task.columnNumber; i++) {
+                    int columnSqltype = task.resultSetMetaData.getMiddle().get(i);
+                    task.fillPreparedStatementColumnType(preparedStatement, i, columnSqltype, record.getColumn(i));
+                }
+            } else {
+                task.fillPreparedStatement(preparedStatement, record);
+            }
+        }
+        return Math.max(1, System.currentTimeMillis() - start);
+    }
+
+    private static List<Record> generate(int rows) {
+        Random random = new Random(0);
+        List<Record> records = new ArrayList<Record>(rows);
+        for (int i = 0; i < rows; i++) {
+            BenchmarkRecord record = new BenchmarkRecord();
+            record.addColumn(new LongColumn(random.nextLong()));
+            record.addColumn(new StringColumn("name-" + random.nextInt(100000)));
+            record.addColumn(new DoubleColumn(random.nextDouble() * 10000));
+            record.addColumn(new DateColumn(1500000000000L + random.nextInt()));
+            record.addColumn(new LongColumn(random.nextInt(2)));
+            record.addColumn(new DateColumn(new java.sql.Date(1500000000000L + random.nextInt())));
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static class BenchmarkRecord implements Record {
+        private final List<Column> columns = new ArrayList<Column>();
+
+        @Override
+        public void addColumn(Column column) {
+            this.columns.add(column);
+        }
+
+        @Override
+        public void setColumn(int i, Column column) {
+            this.columns.set(i, column);
+        }
+
+        @Override
+        public Column getColumn(int i) {
+            return this.columns.get(i);
+        }
+
+        @Override
+        public int getColumnNumber() {
+            return this.columns.size();
+        }
+
+        @Override
+        public int getByteSize() {
+            return 0;
+        }
+
+        @Override
+        public int getMemorySize() {
+            return 0;
+        }
+    }
+}
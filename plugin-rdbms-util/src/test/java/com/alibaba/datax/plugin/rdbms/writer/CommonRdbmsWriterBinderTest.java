@@ -0,0 +1,196 @@
+package com.alibaba.datax.plugin.rdbms.writer;
+
+import com.alibaba.datax.common.element.BoolColumn;
+import com.alibaba.datax.common.element.BytesColumn;
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.ColumnCast;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 预先生成的 ColumnBinder 与逐个单元格调用 fillPreparedStatementColumnType 对 PreparedStatement 的调用必须完全一致
+ */
+public class CommonRdbmsWriterBinderTest {
+    private static final int[] TYPES = new int[]{Types.CHAR, Types.NCHAR, Types.CLOB, Types.NCLOB, Types.VARCHAR,
+            Types.LONGVARCHAR, Types.NVARCHAR, Types.LONGNVARCHAR, Types.BOOLEAN, Types.SMALLINT, Types.INTEGER,
+            Types.BIGINT, Types.NUMERIC, Types.DECIMAL, Types.FLOAT, Types.REAL, Types.DOUBLE, Types.TINYINT,
+            Types.DATE, Types.TIME, Types.TIMESTAMP, Types.BINARY, Types.VARBINARY, Types.BLOB,
+            Types.LONGVARBINARY, Types.BIT, Types.ARRAY};
+
+    private static List<Column> columns;
+
+    @BeforeClass
+    public static void beforeClass() {
+        ColumnCast.bind(Configuration.newDefault());
+        columns = Arrays.<Column>asList(
+                new StringColumn("12"), new StringColumn(""), new StringColumn(null), new StringColumn("abc"),
+                new StringColumn("2016-12-01 10:00:00"), new StringColumn("true"),
+                new LongColumn(1L), new LongColumn(2016L), new LongColumn((Long) null),
+                new DoubleColumn(3.5), new DoubleColumn((Double) null),
+                new DateColumn(1480557600123L), new DateColumn((Long) null),
+                new BoolColumn(true), new BoolColumn(false), new BoolColumn((Boolean) null),
+                new BytesColumn(new byte[]{1, 2, 3}), new BytesColumn(null));
+    }
+
+    @Test
+    public void testSameCallsAsColumnTypeFill() throws SQLException {
+        int cases = 0;
+        for (DataBaseType dataBaseType : new DataBaseType[]{DataBaseType.MySql, DataBaseType.Oracle}) {
+            for (boolean emptyAsNull : new boolean[]{true, false}) {
+                for (int type : TYPES) {
+                    for (String typeName : type == Types.DATE ? new String[]{"DATE", "YEAR"} : new String[]{"T"}) {
+                        CommonRdbmsWriter.Task task = newTask(new CommonRdbmsWriter.Task(dataBaseType), type,
+                                typeName, emptyAsNull);
+                        for (Column column : columns) {
+                            String context = String.format("%s, emptyAsNull=%s, type=%s(%s), column=%s[%s]",
+                                    dataBaseType, emptyAsNull, type, typeName, column.getType(), column.getRawData());
+                            Assert.assertEquals(context, fillByColumnType(task, type, column),
+                                    fillByBinder(task, column));
+                            cases++;
+                        }
+                    }
+                }
+            }
+        }
+        Assert.assertEquals(2 * 2 * (TYPES.length + 1) * columns.size(), cases);
+    }
+
+    @Test
+    public void testBitDependsOnDataBaseType() throws SQLException {
+        Column column = new LongColumn(1L);
+        CommonRdbmsWriter.Task mysql = newTask(new CommonRdbmsWriter.Task(DataBaseType.MySql), Types.BIT, "BIT",
+                true);
+        Assert.assertEquals(Collections.singletonList("setBoolean(1, Boolean:true)"), fillByBinder(mysql, column));
+        CommonRdbmsWriter.Task oracle = newTask(new CommonRdbmsWriter.Task(DataBaseType.Oracle), Types.BIT, "BIT",
+                true);
+        Assert.assertEquals(Collections.singletonList("setString(1, String:1)"), fillByBinder(oracle, column));
+    }
+
+    @Test
+    public void testEmptyAsNull() throws SQLException {
+        Column column = new StringColumn("");
+        CommonRdbmsWriter.Task task = newTask(new CommonRdbmsWriter.Task(DataBaseType.MySql), Types.BIGINT,
+                "BIGINT", true);
+        Assert.assertEquals(Collections.singletonList("setString(1, null)"), fillByBinder(task, column));
+        task = newTask(new CommonRdbmsWriter.Task(DataBaseType.MySql), Types.BIGINT, "BIGINT", false);
+        Assert.assertEquals(Collections.singletonList("setString(1, String:)"), fillByBinder(task, column));
+    }
+
+    @Test
+    public void testOverriddenColumnTypeFill() throws SQLException {
+        // 子类(包括其子类)重写了 fillPreparedStatementColumnType 时, 每个单元格仍然调用重写后的方法
+        CommonRdbmsWriter.Task[] tasks = new CommonRdbmsWriter.Task[]{new OverridingTask(),
+                new OverridingTask() {
+                }};
+        for (CommonRdbmsWriter.Task task : tasks) {
+            newTask(task, Types.VARCHAR, "VARCHAR", true);
+            Assert.assertEquals(Arrays.asList("setNull(1, Integer:12)", "setString(1, String:abc)"),
+                    fillByBinder(task, new StringColumn("abc")));
+        }
+
+        // 没有重写时使用预先生成的 ColumnBinder
+        CommonRdbmsWriter.Task task = newTask(new CommonRdbmsWriter.Task(DataBaseType.MySql) {
+        }, Types.VARCHAR, "VARCHAR", true);
+        Assert.assertEquals(Collections.singletonList("setString(1, String:abc)"),
+                fillByBinder(task, new StringColumn("abc")));
+        Assert.assertFalse(task.createColumnBinders()[0].getClass().getName().endsWith("ColumnTypeFillBinder"));
+    }
+
+    private static CommonRdbmsWriter.Task newTask(CommonRdbmsWriter.Task task, int type, String typeName,
+                                                  boolean emptyAsNull) {
+        task.columnNumber = 1;
+        task.emptyAsNull = emptyAsNull;
+        task.resultSetMetaData = new ImmutableTriple<List<String>, List<Integer>, List<String>>(
+                Collections.singletonList("c"), Collections.singletonList(type), Collections.singletonList(typeName));
+        task.columnBinders = null;
+        return task;
+    }
+
+    private static List<String> fillByBinder(CommonRdbmsWriter.Task task, Column column) {
+        List<String> calls = new ArrayList<String>();
+        Record record = mock(Record.class);
+        when(record.getColumn(0)).thenReturn(column);
+        try {
+            task.fillPreparedStatement(recording(calls), record);
+        } catch (Exception e) {
+            calls.add(e.getClass().getName() + ": " + e.getMessage());
+        }
+        return calls;
+    }
+
+    private static List<String> fillByColumnType(CommonRdbmsWriter.Task task, int type, Column column) {
+        List<String> calls = new ArrayList<String>();
+        try {
+            task.fillPreparedStatementColumnType(recording(calls), 0, type, column);
+        } catch (Exception e) {
+            calls.add(e.getClass().getName() + ": " + e.getMessage());
+        }
+        return calls;
+    }
+
+    /**
+     * 记录每次 setXxx 调用的方法名和参数(包括参数类型)
+     */
+    private static PreparedStatement recording(final List<String> calls) {
+        return (PreparedStatement) Proxy.newProxyInstance(CommonRdbmsWriterBinderTest.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        StringBuilder call = new StringBuilder(method.getName()).append('(').append(args[0]);
+                        for (int i = 1; i < args.length; i++) {
+                            Object arg = args[i];
+                            call.append(", ");
+                            if (null == arg) {
+                                call.append("null");
+                            } else if (arg instanceof byte[]) {
+                                call.append("byte[]:").append(Arrays.toString((byte[]) arg));
+                            } else if (arg instanceof java.util.Date) {
+                                call.append(arg.getClass().getSimpleName()).append(':')
+                                        .append(((java.util.Date) arg).getTime());
+                            } else {
+                                call.append(arg.getClass().getSimpleName()).append(':').append(arg);
+                            }
+                        }
+                        calls.add(call.append(')').toString());
+                        return null;
+                    }
+                });
+    }
+
+    private static class OverridingTask extends CommonRdbmsWriter.Task {
+        OverridingTask() {
+            super(DataBaseType.MySql);
+        }
+
+        @Override
+        protected PreparedStatement fillPreparedStatementColumnType(PreparedStatement preparedStatement,
+                                                                    int columnIndex, int columnSqltype,
+                                                                    Column column) throws SQLException {
+            preparedStatement.setNull(columnIndex + 1, Types.VARCHAR);
+            return super.fillPreparedStatementColumnType(preparedStatement, columnIndex, columnSqltype, column);
+        }
+    }
+}
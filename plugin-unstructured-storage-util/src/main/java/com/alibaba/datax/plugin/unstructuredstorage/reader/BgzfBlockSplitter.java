@@ -0,0 +1,138 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 按 member 切分 BGZF(blocked gzip, 如 bgzip 的输出) 压缩流。
+ *
+ * BGZF 文件由多个独立的 gzip member 首尾拼接而成, 每个 member 的头部扩展字段中带有
+ * "BC" 子字段记录了 member 的总长度(BSIZE + 1), 因此不需要解压就能切分。
+ * 普通 gzip 文件没有这样的长度信息, 只能顺序解压。
+ */
+public class BgzfBlockSplitter implements CompressedBlockSplitter {
+	// ID1 ID2 CM FLG MTIME(4) XFL OS XLEN(2)
+	private static final int FIXED_HEADER_LENGTH = 12;
+	private static final int FLAG_EXTRA = 0x04;
+
+	private final InputStream in;
+
+	public BgzfBlockSplitter(InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * 探测流是否为 BGZF 格式, 要求流支持 mark/reset, 探测后流位置不变
+	 */
+	public static boolean isBgzf(InputStream in) throws IOException {
+		if (!in.markSupported()) {
+			return false;
+		}
+		in.mark(FIXED_HEADER_LENGTH + 0xFFFF);
+		try {
+			byte[] header = new byte[FIXED_HEADER_LENGTH];
+			if (IOUtils.read(in, header) < FIXED_HEADER_LENGTH) {
+				return false;
+			}
+			int extraLength = checkHeader(header);
+			if (extraLength < 0) {
+				return false;
+			}
+			byte[] extra = new byte[extraLength];
+			if (IOUtils.read(in, extra) < extraLength) {
+				return false;
+			}
+			return blockSize(extra) > 0;
+		} finally {
+			in.reset();
+		}
+	}
+
+	@Override
+	public byte[] nextBlock() throws IOException {
+		byte[] header = new byte[FIXED_HEADER_LENGTH];
+		int length = IOUtils.read(this.in, header);
+		if (0 == length) {
+			return null;
+		}
+		if (length < FIXED_HEADER_LENGTH) {
+			throw new EOFException("BGZF 数据不完整, member 头部被截断");
+		}
+		int extraLength = checkHeader(header);
+		if (extraLength < 0) {
+			throw new IOException("不是合法的 BGZF 格式, member 头部不正确");
+		}
+		byte[] extra = new byte[extraLength];
+		IOUtils.readFully(this.in, extra);
+		int blockSize = blockSize(extra);
+		if (blockSize <= FIXED_HEADER_LENGTH + extraLength) {
+			throw new IOException("不是合法的 BGZF 格式, 缺少 BC 扩展字段");
+		}
+
+		byte[] block = new byte[blockSize];
+		System.arraycopy(header, 0, block, 0, FIXED_HEADER_LENGTH);
+		System.arraycopy(extra, 0, block, FIXED_HEADER_LENGTH, extraLength);
+		IOUtils.readFully(this.in, block, FIXED_HEADER_LENGTH + extraLength,
+				blockSize - FIXED_HEADER_LENGTH - extraLength);
+		return block;
+	}
+
+	@Override
+	public byte[] decompress(byte[] block) throws IOException {
+		GzipCompressorInputStream gzip = new GzipCompressorInputStream(
+				new ByteArrayInputStream(block));
+		try {
+			// BGZF 单个 member 解压后不超过 64KB
+			ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+			IOUtils.copy(gzip, out);
+			return out.toByteArray();
+		} finally {
+			gzip.close();
+		}
+	}
+
+	@Override
+	public byte[] merge(byte[] block, byte[] next) {
+		// member 长度记录在头部的扩展字段中, 不会误判切分点
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+	/**
+	 * @return 扩展字段长度, 不是带扩展字段的 gzip member 时返回 -1
+	 */
+	private static int checkHeader(byte[] header) {
+		if ((header[0] & 0xFF) != 0x1F || (header[1] & 0xFF) != 0x8B
+				|| header[2] != 8 || (header[3] & FLAG_EXTRA) == 0) {
+			return -1;
+		}
+		return (header[10] & 0xFF) | ((header[11] & 0xFF) << 8);
+	}
+
+	/**
+	 * @return BC 子字段记录的 member 总长度, 没有 BC 子字段时返回 -1
+	 */
+	private static int blockSize(byte[] extra) {
+		int i = 0;
+		while (i + 4 <= extra.length) {
+			int subfieldLength = (extra[i + 2] & 0xFF)
+					| ((extra[i + 3] & 0xFF) << 8);
+			if ('B' == extra[i] && 'C' == extra[i + 1] && 2 == subfieldLength
+					&& i + 6 <= extra.length) {
+				return ((extra[i + 4] & 0xFF) | ((extra[i + 5] & 0xFF) << 8)) + 1;
+			}
+			i += 4 + subfieldLength;
+		}
+		return -1;
+	}
+}
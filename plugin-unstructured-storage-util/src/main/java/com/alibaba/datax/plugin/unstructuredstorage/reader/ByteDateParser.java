@@ -0,0 +1,149 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import java.text.DateFormat;
+import java.util.Calendar;
+
+/**
+ * 由定长数字日期格式(如 yyyy-MM-dd HH:mm:ss, yyyyMMdd)编译出的字节级日期解析器,
+ * 供 fastParser 模式对配置了 format 的 date 列直接从字节解析时间戳。
+ *
+ * 只处理长度、分隔符、数值范围都完全匹配的输入, 其余情况返回 NOT_PARSED,
+ * 由调用方回退到 SimpleDateFormat, 因此解析结果与原有逻辑保持一致。
+ */
+public class ByteDateParser {
+	public static final long NOT_PARSED = Long.MIN_VALUE;
+
+	private static final int LITERAL = -1;
+
+	// 每个位置对应的 Calendar 字段, 字面量位置为 LITERAL
+	private final int[] fields;
+	private final byte[] literals;
+	private final Calendar calendar;
+
+	private ByteDateParser(int[] fields, byte[] literals, Calendar calendar) {
+		this.fields = fields;
+		this.literals = literals;
+		this.calendar = calendar;
+	}
+
+	/**
+	 * @return 格式中包含非定长数字字段(如 MMM, EEE, 'T')时返回 null
+	 */
+	public static ByteDateParser compile(String pattern, DateFormat dateFormat) {
+		if (null == pattern || null == dateFormat || pattern.isEmpty()) {
+			return null;
+		}
+		int length = pattern.length();
+		int[] fields = new int[length];
+		byte[] literals = new byte[length];
+		int i = 0;
+		while (i < length) {
+			char c = pattern.charAt(i);
+			if (!Character.isLetter(c)) {
+				if (c > 0x7F || c == '\'') {
+					return null;
+				}
+				fields[i] = LITERAL;
+				literals[i] = (byte) c;
+				i++;
+				continue;
+			}
+			int j = i;
+			while (j < length && pattern.charAt(j) == c) {
+				j++;
+			}
+			int field = calendarField(c, j - i);
+			if (field == LITERAL) {
+				return null;
+			}
+			for (int k = i; k < j; k++) {
+				fields[k] = field;
+			}
+			i = j;
+		}
+		Calendar calendar = (Calendar) dateFormat.getCalendar().clone();
+		return new ByteDateParser(fields, literals, calendar);
+	}
+
+	private static int calendarField(char letter, int count) {
+		switch (letter) {
+		case 'y':
+			return count == 4 ? Calendar.YEAR : LITERAL;
+		case 'M':
+			return count == 2 ? Calendar.MONTH : LITERAL;
+		case 'd':
+			return count == 2 ? Calendar.DAY_OF_MONTH : LITERAL;
+		case 'H':
+			return count == 2 ? Calendar.HOUR_OF_DAY : LITERAL;
+		case 'm':
+			return count == 2 ? Calendar.MINUTE : LITERAL;
+		case 's':
+			return count == 2 ? Calendar.SECOND : LITERAL;
+		case 'S':
+			return count == 3 ? Calendar.MILLISECOND : LITERAL;
+		default:
+			return LITERAL;
+		}
+	}
+
+	/**
+	 * @return 毫秒时间戳, 输入与格式不完全匹配时返回 NOT_PARSED
+	 */
+	public long parse(byte[] bytes, int start, int end) {
+		if (end - start != this.fields.length) {
+			return NOT_PARSED;
+		}
+		int year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0, millis = 0;
+		int i = 0;
+		while (i < this.fields.length) {
+			int field = this.fields[i];
+			if (field == LITERAL) {
+				if (bytes[start + i] != this.literals[i]) {
+					return NOT_PARSED;
+				}
+				i++;
+				continue;
+			}
+			int value = 0;
+			while (i < this.fields.length && this.fields[i] == field) {
+				byte b = bytes[start + i];
+				if (b < '0' || b > '9') {
+					return NOT_PARSED;
+				}
+				value = value * 10 + (b - '0');
+				i++;
+			}
+			switch (field) {
+			case Calendar.YEAR:
+				year = value;
+				break;
+			case Calendar.MONTH:
+				month = value;
+				break;
+			case Calendar.DAY_OF_MONTH:
+				day = value;
+				break;
+			case Calendar.HOUR_OF_DAY:
+				hour = value;
+				break;
+			case Calendar.MINUTE:
+				minute = value;
+				break;
+			case Calendar.SECOND:
+				second = value;
+				break;
+			default:
+				millis = value;
+				break;
+			}
+		}
+		if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23
+				|| minute > 59 || second > 59) {
+			return NOT_PARSED;
+		}
+		this.calendar.clear();
+		this.calendar.set(year, month - 1, day, hour, minute, second);
+		this.calendar.set(Calendar.MILLISECOND, millis);
+		return this.calendar.getTimeInMillis();
+	}
+}
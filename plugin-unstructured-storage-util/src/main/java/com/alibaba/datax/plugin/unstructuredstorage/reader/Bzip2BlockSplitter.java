@@ -0,0 +1,301 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 按 bzip2 压缩块切分压缩流。
+ *
+ * bzip2 的每个压缩块以 48 位魔数 0x314159265359 开头(按位对齐, 不一定在字节边界), 块之间没有依赖。
+ * 切分时按位扫描魔数, 把每个压缩块重新包装成只含一个块的独立 bzip2 stream:
+ * "BZh" + 块大小级别 + 压缩块 + 结束魔数 0x177245385090 + 组合CRC(单块时等于块CRC),
+ * 这样每个块都可以交给 BZip2CompressorInputStream 独立解压并完成CRC校验。
+ * 同时支持多个 bzip2 stream 首尾拼接的文件(如 pbzip2 的输出)。
+ *
+ * 魔数也可能恰好出现在压缩数据中: 结束魔数之后必须紧跟 stream 尾和下一个 stream 头(或文件结束), 切分时直接校验;
+ * 块魔数无法在切分时确认, 误判的块解压(CRC校验)会失败, 由 ReadAheadInputStream 通过 merge 与其后的块合并后重新解压。
+ */
+public class Bzip2BlockSplitter implements CompressedBlockSplitter {
+	private static final long BLOCK_MAGIC = 0x314159265359L;
+	private static final long EOS_MAGIC = 0x177245385090L;
+	private static final long MAGIC_MASK = 0xFFFFFFFFFFFFL;
+	private static final int MAGIC_BITS = 48;
+	// "BZh" + 块大小级别
+	private static final int HEADER_BITS = 32;
+	// 结束魔数 + 组合CRC
+	private static final int TRAILER_BITS = MAGIC_BITS + 32;
+
+	private final InputStream in;
+
+	private int bitBuffer;
+	private int bitCount;
+	// 当前 stream 的块大小级别 '1'~'9', 0 表示需要读取新的 stream 头
+	private int level;
+
+	public Bzip2BlockSplitter(InputStream in) {
+		this.in = new BufferedInputStream(in, 1 << 16);
+	}
+
+	@Override
+	public byte[] nextBlock() throws IOException {
+		while (0 == this.level) {
+			// stream 头总是从字节边界开始
+			int first = this.in.read();
+			if (first < 0) {
+				return null;
+			}
+			int level = this.readHeader(first);
+			long magic = this.readBits(MAGIC_BITS);
+			if (EOS_MAGIC == magic) {
+				// 空的 stream
+				this.skipStreamTrailer();
+				continue;
+			}
+			if (BLOCK_MAGIC != magic) {
+				throw new IOException("bzip2 压缩块魔数不正确, 文件可能已损坏");
+			}
+			this.level = level;
+		}
+
+		long blockCrc = this.readBits(32);
+		BitWriter out = new BitWriter(this.level * 100000 / 2);
+		out.writeByte('B');
+		out.writeByte('Z');
+		out.writeByte('h');
+		out.writeByte(this.level);
+		out.writeBits(BLOCK_MAGIC, MAGIC_BITS);
+		out.writeBits(blockCrc, 32);
+
+		long window = 0;
+		long bodyBits = 0;
+		while (true) {
+			int bit = this.readBit();
+			if (bit < 0) {
+				throw new EOFException("bzip2 数据不完整, 缺少结束标记");
+			}
+			out.writeBit(bit);
+			window = ((window << 1) | bit) & MAGIC_MASK;
+			if (++bodyBits < MAGIC_BITS) {
+				continue;
+			}
+			if (BLOCK_MAGIC == window) {
+				// 下一个块的魔数已经读出, 下次直接从块CRC开始
+				out.truncate(MAGIC_BITS);
+				break;
+			}
+			if (EOS_MAGIC == window && this.isStreamEnd()) {
+				out.truncate(MAGIC_BITS);
+				this.skipStreamTrailer();
+				this.level = 0;
+				break;
+			}
+		}
+		out.writeBits(EOS_MAGIC, MAGIC_BITS);
+		out.writeBits(blockCrc, 32);
+		return out.toByteArray();
+	}
+
+	@Override
+	public byte[] decompress(byte[] block) throws IOException {
+		BZip2CompressorInputStream bzip2 = new BZip2CompressorInputStream(
+				new ByteArrayInputStream(block));
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(
+					block.length * 4);
+			IOUtils.copy(bzip2, out);
+			return out.toByteArray();
+		} finally {
+			bzip2.close();
+		}
+	}
+
+	/**
+	 * 去掉 block 的结束标记, 补回被误判为块魔数的 48 位, 接上 next 去掉 stream 头后的全部数据
+	 */
+	@Override
+	public byte[] merge(byte[] block, byte[] next) throws IOException {
+		int level = block[3] - '0';
+		long blockEnd = bodyEnd(block);
+		long nextEnd = bodyEnd(next);
+		// 单个块解压前不超过 level * 100000 字节, 哈夫曼码长不超过 20 位, 压缩块不会超过其 2.5 倍
+		if ((blockEnd + nextEnd) / 8 > level * 100000L * 5 / 2) {
+			return null;
+		}
+		BitWriter out = new BitWriter(block.length + next.length);
+		out.writeBits(block, 0, blockEnd);
+		out.writeBits(next, HEADER_BITS, nextEnd);
+		out.writeBits(EOS_MAGIC, MAGIC_BITS);
+		out.writeBits(readBits(block, HEADER_BITS + MAGIC_BITS, 32), 32);
+		return out.toByteArray();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+	private int readHeader(int first) throws IOException {
+		int z = this.in.read();
+		int h = this.in.read();
+		int level = this.in.read();
+		if ('B' != first || 'Z' != z || 'h' != h || level < '1' || level > '9') {
+			throw new IOException("不是合法的 bzip2 格式, stream 头不正确");
+		}
+		this.bitCount = 0;
+		return level;
+	}
+
+	/**
+	 * 跳过结束魔数之后的组合CRC以及填充到字节边界的位
+	 */
+	private void skipStreamTrailer() throws IOException {
+		this.readBits(32);
+		this.bitCount = 0;
+	}
+
+	/**
+	 * 在扫描到结束魔数时调用, 预读其后的组合CRC、填充位和下一个 stream 的头, 不消费任何数据
+	 *
+	 * @return 是否确实是 stream 的结束, 否则只是压缩数据中恰好出现了结束魔数
+	 */
+	private boolean isStreamEnd() throws IOException {
+		int bitBuffer = this.bitBuffer;
+		int bitCount = this.bitCount;
+		// 组合CRC 4 字节 + stream 头 4 字节 + 魔数 6 字节
+		this.in.mark(16);
+		try {
+			this.readBits(32);
+			this.bitCount = 0;
+			int first = this.in.read();
+			if (first < 0) {
+				return true;
+			}
+			int z = this.in.read();
+			int h = this.in.read();
+			int level = this.in.read();
+			if ('B' != first || 'Z' != z || 'h' != h || level < '1'
+					|| level > '9') {
+				return false;
+			}
+			long magic = this.readBits(MAGIC_BITS);
+			return BLOCK_MAGIC == magic || EOS_MAGIC == magic;
+		} catch (EOFException e) {
+			return false;
+		} finally {
+			this.in.reset();
+			this.bitBuffer = bitBuffer;
+			this.bitCount = bitCount;
+		}
+	}
+
+	private int readBit() throws IOException {
+		if (0 == this.bitCount) {
+			int b = this.in.read();
+			if (b < 0) {
+				return -1;
+			}
+			this.bitBuffer = b;
+			this.bitCount = 8;
+		}
+		this.bitCount--;
+		return (this.bitBuffer >>> this.bitCount) & 1;
+	}
+
+	private long readBits(int n) throws IOException {
+		long result = 0;
+		for (int i = 0; i < n; i++) {
+			int bit = this.readBit();
+			if (bit < 0) {
+				throw new EOFException("bzip2 数据不完整");
+			}
+			result = (result << 1) | bit;
+		}
+		return result;
+	}
+
+	/**
+	 * @return nextBlock 生成的压缩块中, 结束魔数之前的位数
+	 */
+	private static long bodyEnd(byte[] block) throws IOException {
+		long blockCrc = readBits(block, HEADER_BITS + MAGIC_BITS, 32);
+		// 末尾最多有 7 个填充位
+		for (int padding = 0; padding < 8; padding++) {
+			long end = block.length * 8L - padding;
+			if (end - TRAILER_BITS < HEADER_BITS + MAGIC_BITS + 32) {
+				break;
+			}
+			if (EOS_MAGIC == readBits(block, end - TRAILER_BITS, MAGIC_BITS)
+					&& blockCrc == readBits(block, end - 32, 32)) {
+				return end - TRAILER_BITS;
+			}
+		}
+		throw new IOException("bzip2 压缩块缺少结束标记");
+	}
+
+	private static long readBits(byte[] bytes, long from, int n) {
+		long result = 0;
+		for (long i = from; i < from + n; i++) {
+			result = (result << 1)
+					| ((bytes[(int) (i >>> 3)] >>> (7 - (int) (i & 7))) & 1);
+		}
+		return result;
+	}
+
+	/**
+	 * 按位写入的缓冲区, 支持回退最后若干位
+	 */
+	private static class BitWriter {
+		private byte[] buffer;
+		private long bitLength;
+
+		private BitWriter(int initialSize) {
+			this.buffer = new byte[Math.max(initialSize, 64)];
+		}
+
+		private void writeBit(int bit) {
+			int index = (int) (this.bitLength >>> 3);
+			if (index >= this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+			}
+			if (0 != bit) {
+				this.buffer[index] |= (byte) (0x80 >>> (int) (this.bitLength & 7));
+			}
+			this.bitLength++;
+		}
+
+		private void writeBits(long value, int n) {
+			for (int i = n - 1; i >= 0; i--) {
+				this.writeBit((int) ((value >>> i) & 1));
+			}
+		}
+
+		private void writeBits(byte[] bytes, long from, long to) {
+			for (long i = from; i < to; i++) {
+				this.writeBit((bytes[(int) (i >>> 3)] >>> (7 - (int) (i & 7))) & 1);
+			}
+		}
+
+		private void writeByte(int value) {
+			this.writeBits(value, 8);
+		}
+
+		private void truncate(int n) {
+			for (long i = this.bitLength - n; i < this.bitLength; i++) {
+				this.buffer[(int) (i >>> 3)] &= (byte) ~(0x80 >>> (int) (i & 7));
+			}
+			this.bitLength -= n;
+		}
+
+		private byte[] toByteArray() {
+			return Arrays.copyOf(this.buffer, (int) ((this.bitLength + 7) >>> 3));
+		}
+	}
+}
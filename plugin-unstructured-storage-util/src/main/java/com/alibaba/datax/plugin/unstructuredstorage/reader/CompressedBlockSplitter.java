@@ -0,0 +1,30 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import java.io.IOException;
+
+/**
+ * 将压缩流切分为可以独立解压的压缩块, 供 ReadAheadInputStream 并行解压。
+ *
+ * nextBlock 只在预读线程上顺序调用, decompress 会在多个解压线程上并发调用, 实现不能依赖可变状态。
+ */
+public interface CompressedBlockSplitter {
+
+	/**
+	 * @return 下一个可独立解压的压缩块, 流结束时返回 null
+	 */
+	byte[] nextBlock() throws IOException;
+
+	/**
+	 * @return 压缩块解压后的完整内容
+	 */
+	byte[] decompress(byte[] block) throws IOException;
+
+	/**
+	 * 压缩块解压失败时, 把它与紧随其后的压缩块合并成一个压缩块重新解压, 用于切分点误判的情况(如 bzip2 的块魔数恰好出现在压缩数据中)
+	 *
+	 * @return 合并后的压缩块, 该格式不会误判切分点或合并后已不可能是合法的压缩块时返回 null
+	 */
+	byte[] merge(byte[] block, byte[] next) throws IOException;
+
+	void close() throws IOException;
+}
@@ -10,4 +10,14 @@ public class Constant {
 	public static final String DEFAULT_NULL_FORMAT = "\\N";
 	
     public static final Integer DEFAULT_BUFFER_SIZE = 8192;
+
+    public static final boolean DEFAULT_FAST_PARSER = false;
+
+    public static final boolean DEFAULT_READ_AHEAD = false;
+
+    public static final int DEFAULT_READ_AHEAD_QUEUE_SIZE = 4;
+
+    public static final int DEFAULT_READ_AHEAD_BLOCK_SIZE = 256 * 1024;
+
+    public static final int DEFAULT_DECOMPRESS_THREADS = 1;
 }
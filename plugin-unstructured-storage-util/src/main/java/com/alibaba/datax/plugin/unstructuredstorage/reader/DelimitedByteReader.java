@@ -0,0 +1,480 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * 基于字节的分隔符文本解析器, 供 fastParser 模式使用。
+ *
+ * 直接在一块可复用的 ByteBuffer 上切分记录和字段, 字段只记录在缓冲区中的起止位置,
+ * 只有真正需要 String 的字段才会按 charset 解码。解析规则与 CsvReader 的默认行为保持一致:
+ * 支持文本限定符(默认双引号, 引号内可包含分隔符和换行), 支持双写限定符或反斜杠两种转义方式,
+ * 支持去除字段首尾空白和跳过空行。
+ *
+ * 注意: 仅适用于 ASCII 兼容且多字节序列中不会出现 ASCII 字节的编码(UTF-8, US-ASCII, ISO-8859-1),
+ * 分隔符、限定符必须是 ASCII 字符。
+ */
+public class DelimitedByteReader implements Closeable {
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+	private static final byte SPACE = ' ';
+	private static final byte TAB = '\t';
+	private static final byte BACKSLASH = '\\';
+
+	// 18 位以内的十进制整数一定不会溢出 long
+	private static final int MAX_SAFE_LONG_DIGITS = 18;
+
+	private final InputStream in;
+	private final Charset charset;
+	private final byte delimiter;
+	private final byte textQualifier;
+	private final boolean useTextQualifier;
+	private final boolean backslashEscape;
+	private final boolean trimWhitespace;
+	private final boolean skipEmptyRecords;
+
+	private ByteBuffer buffer;
+	private byte[] buf;
+	// [recordStart, limit) 为缓冲区中尚未消费的数据
+	private int recordStart;
+	private int limit;
+	private boolean eof;
+
+	private int fieldCount;
+	private int[] fieldStart = new int[16];
+	private int[] fieldEnd = new int[16];
+	private boolean[] fieldComplex = new boolean[16];
+
+	public DelimitedByteReader(InputStream in, Charset charset, int bufferSize,
+			char delimiter, char textQualifier, boolean useTextQualifier,
+			boolean backslashEscape, boolean trimWhitespace,
+			boolean skipEmptyRecords) {
+		if (delimiter > 0x7F || textQualifier > 0x7F) {
+			throw new IllegalArgumentException(String.format(
+					"分隔符[%s]和文本限定符[%s]必须为ASCII字符", delimiter,
+					textQualifier));
+		}
+		this.in = in;
+		this.charset = charset;
+		this.delimiter = (byte) delimiter;
+		this.textQualifier = (byte) textQualifier;
+		this.useTextQualifier = useTextQualifier;
+		this.backslashEscape = backslashEscape;
+		this.trimWhitespace = trimWhitespace;
+		this.skipEmptyRecords = skipEmptyRecords;
+		this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 1));
+		this.buf = this.buffer.array();
+	}
+
+	/**
+	 * 跳过当前位置开始的一个物理行(不识别文本限定符), 与 BufferedReader.readLine 语义一致
+	 *
+	 * @return 被跳过的行内容, 已到达流末尾时返回 null
+	 */
+	public String skipLine() throws IOException {
+		int p = this.recordStart;
+		while (true) {
+			if (p >= this.limit) {
+				int consumed = p - this.recordStart;
+				if (!this.fill()) {
+					if (this.recordStart == this.limit) {
+						return null;
+					}
+					String line = this.decode(this.recordStart, this.limit);
+					this.recordStart = this.limit;
+					return line;
+				}
+				p = this.recordStart + consumed;
+				continue;
+			}
+			byte b = this.buf[p];
+			if (b == LF || b == CR) {
+				String line = this.decode(this.recordStart, p);
+				if (b == CR) {
+					if (p + 1 >= this.limit && !this.eof) {
+						int consumed = p - this.recordStart;
+						this.fill();
+						p = this.recordStart + consumed;
+					}
+					if (p + 1 < this.limit && this.buf[p + 1] == LF) {
+						p++;
+					}
+				}
+				this.recordStart = p + 1;
+				return line;
+			}
+			p++;
+		}
+	}
+
+	/**
+	 * 读取下一条记录, 成功后可通过 getFieldCount/getString 等方法访问各字段
+	 *
+	 * @return 已到达流末尾时返回 false
+	 */
+	public boolean nextRecord() throws IOException {
+		while (true) {
+			if (this.eof && this.recordStart >= this.limit) {
+				this.fieldCount = 0;
+				return false;
+			}
+			int end = this.scanRecord();
+			if (end < 0) {
+				// 缓冲区中的记录不完整, 补充数据后从记录开头重新扫描;
+				// 流已结束时剩余数据作为最后一条记录
+				this.fill();
+				continue;
+			}
+			int rawStart = this.recordStart;
+			this.recordStart = end;
+			if (this.skipEmptyRecords && this.fieldCount == 1
+					&& this.fieldStart[0] == this.fieldEnd[0]
+					&& !this.fieldComplex[0] && this.isBlankLine(rawStart)) {
+				continue;
+			}
+			for (int i = 0; i < this.fieldCount; i++) {
+				if (this.fieldComplex[i]) {
+					this.unescape(i);
+				}
+			}
+			return true;
+		}
+	}
+
+	public int getFieldCount() {
+		return this.fieldCount;
+	}
+
+	public int getFieldLength(int index) {
+		return this.fieldEnd[index] - this.fieldStart[index];
+	}
+
+	public String getString(int index) {
+		return this.decode(this.fieldStart[index], this.fieldEnd[index]);
+	}
+
+	public String[] getValues() {
+		String[] values = new String[this.fieldCount];
+		for (int i = 0; i < this.fieldCount; i++) {
+			values[i] = this.getString(i);
+		}
+		return values;
+	}
+
+	/**
+	 * 比较字段内容与给定字节序列是否完全相同, 用于 nullFormat 判断, 不产生解码
+	 */
+	public boolean fieldEquals(int index, byte[] value) {
+		if (null == value) {
+			return false;
+		}
+		int start = this.fieldStart[index];
+		int length = this.fieldEnd[index] - start;
+		if (length != value.length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (this.buf[start + i] != value[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 字段是否为可以直接按 long 解析且不会溢出的十进制整数(可选正负号 + 1~18 位数字)
+	 */
+	public boolean isPlainLong(int index) {
+		int p = this.fieldStart[index];
+		int end = this.fieldEnd[index];
+		if (p < end && (this.buf[p] == '-' || this.buf[p] == '+')) {
+			p++;
+		}
+		int digits = end - p;
+		if (digits <= 0 || digits > MAX_SAFE_LONG_DIGITS) {
+			return false;
+		}
+		for (; p < end; p++) {
+			byte b = this.buf[p];
+			if (b < '0' || b > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 调用前需通过 isPlainLong 确认字段格式
+	 */
+	public long getLong(int index) {
+		int p = this.fieldStart[index];
+		int end = this.fieldEnd[index];
+		boolean negative = false;
+		if (this.buf[p] == '-') {
+			negative = true;
+			p++;
+		} else if (this.buf[p] == '+') {
+			p++;
+		}
+		long result = 0;
+		for (; p < end; p++) {
+			result = result * 10 + (this.buf[p] - '0');
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * 供类型转换直接访问字段字节, 配合 getFieldStart/getFieldEnd 使用, 调用方不得修改
+	 */
+	public byte[] getBuffer() {
+		return this.buf;
+	}
+
+	public int getFieldStart(int index) {
+		return this.fieldStart[index];
+	}
+
+	public int getFieldEnd(int index) {
+		return this.fieldEnd[index];
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+	/**
+	 * 从 recordStart 开始扫描一条完整记录, 记录各字段位置
+	 *
+	 * @return 下一条记录的起始位置; 缓冲区数据不足以确定记录结尾时返回 -1
+	 */
+	private int scanRecord() {
+		this.fieldCount = 0;
+		int p = this.recordStart;
+		while (true) {
+			if (this.trimWhitespace) {
+				while (p < this.limit && this.isWhitespace(this.buf[p])) {
+					p++;
+				}
+			}
+			if (p >= this.limit && !this.eof) {
+				return -1;
+			}
+
+			int start = p;
+			int end;
+			boolean complex = false;
+			if (p < this.limit && this.useTextQualifier
+					&& this.buf[p] == this.textQualifier) {
+				// 带文本限定符的字段, 扫描到闭合限定符为止
+				int q = p + 1;
+				int closeAt = -1;
+				while (closeAt < 0) {
+					if (q >= this.limit) {
+						if (!this.eof) {
+							return -1;
+						}
+						// 未闭合的限定符, 剩余数据全部属于该字段
+						break;
+					}
+					byte b = this.buf[q];
+					if (this.backslashEscape && b == BACKSLASH) {
+						if (q + 1 >= this.limit && !this.eof) {
+							return -1;
+						}
+						complex = true;
+						q += 2;
+					} else if (b == this.textQualifier) {
+						if (!this.backslashEscape) {
+							if (q + 1 >= this.limit && !this.eof) {
+								return -1;
+							}
+							if (q + 1 < this.limit
+									&& this.buf[q + 1] == this.textQualifier) {
+								complex = true;
+								q += 2;
+								continue;
+							}
+						}
+						closeAt = q;
+						q++;
+					} else {
+						q++;
+					}
+				}
+				if (q > this.limit) {
+					q = this.limit;
+				}
+				int contentEnd = closeAt < 0 ? q : closeAt;
+				// 与 CsvReader 一致, 闭合限定符之后到分隔符之间的内容被丢弃
+				while (q < this.limit && !this.isFieldEnd(this.buf[q])) {
+					q++;
+				}
+				if (q >= this.limit && !this.eof) {
+					return -1;
+				}
+				// 需要反转义的字段保留开头的限定符, 由 unescape 处理
+				if (!complex) {
+					start = p + 1;
+				}
+				end = contentEnd;
+				p = q;
+			} else {
+				// 与 CsvReader 一致, 反斜杠转义只在文本限定符内生效
+				while (p < this.limit && !this.isFieldEnd(this.buf[p])) {
+					p++;
+				}
+				if (p >= this.limit && !this.eof) {
+					return -1;
+				}
+				end = p;
+				if (this.trimWhitespace) {
+					while (end > start && this.isWhitespace(this.buf[end - 1])) {
+						end--;
+					}
+				}
+			}
+			this.addField(start, end, complex);
+
+			if (p >= this.limit) {
+				// 流末尾
+				return p;
+			}
+			byte b = this.buf[p];
+			if (b == this.delimiter) {
+				p++;
+				continue;
+			}
+			// 行结束: LF, CR 或 CRLF
+			if (b == CR) {
+				if (p + 1 >= this.limit && !this.eof) {
+					return -1;
+				}
+				if (p + 1 < this.limit && this.buf[p + 1] == LF) {
+					p++;
+				}
+			}
+			return p + 1;
+		}
+	}
+
+	/**
+	 * 对含转义字符的限定符字段做原地反转义, 结果不会比原始数据更长
+	 */
+	private void unescape(int index) {
+		// 字段范围为 [开头限定符, 闭合限定符)
+		int r = this.fieldStart[index] + 1;
+		int end = this.fieldEnd[index];
+		int w = this.fieldStart[index];
+		while (r < end) {
+			byte b = this.buf[r];
+			if (this.backslashEscape && b == BACKSLASH && r + 1 < end) {
+				this.buf[w++] = this.escapedByte(this.buf[r + 1]);
+				r += 2;
+			} else if (!this.backslashEscape && b == this.textQualifier
+					&& r + 1 < end && this.buf[r + 1] == this.textQualifier) {
+				this.buf[w++] = b;
+				r += 2;
+			} else {
+				this.buf[w++] = b;
+				r++;
+			}
+		}
+		this.fieldEnd[index] = w;
+	}
+
+	private byte escapedByte(byte b) {
+		switch (b) {
+		case 'n':
+			return LF;
+		case 'r':
+			return CR;
+		case 't':
+			return TAB;
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		default:
+			return b;
+		}
+	}
+
+	private void addField(int start, int end, boolean complex) {
+		if (this.fieldCount == this.fieldStart.length) {
+			int newLength = this.fieldCount * 2;
+			int[] newStart = new int[newLength];
+			int[] newEnd = new int[newLength];
+			boolean[] newComplex = new boolean[newLength];
+			System.arraycopy(this.fieldStart, 0, newStart, 0, this.fieldCount);
+			System.arraycopy(this.fieldEnd, 0, newEnd, 0, this.fieldCount);
+			System.arraycopy(this.fieldComplex, 0, newComplex, 0,
+					this.fieldCount);
+			this.fieldStart = newStart;
+			this.fieldEnd = newEnd;
+			this.fieldComplex = newComplex;
+		}
+		this.fieldStart[this.fieldCount] = start;
+		this.fieldEnd[this.fieldCount] = end;
+		this.fieldComplex[this.fieldCount] = complex;
+		this.fieldCount++;
+	}
+
+	private boolean isBlankLine(int rawStart) {
+		if (rawStart >= this.limit) {
+			return true;
+		}
+		byte b = this.buf[rawStart];
+		return b == LF || b == CR;
+	}
+
+	private boolean isFieldEnd(byte b) {
+		return b == this.delimiter || b == LF || b == CR;
+	}
+
+	private boolean isWhitespace(byte b) {
+		return (b == SPACE || b == TAB) && b != this.delimiter;
+	}
+
+	private String decode(int start, int end) {
+		return new String(this.buf, start, end - start, this.charset);
+	}
+
+	/**
+	 * 将未消费的数据移动到缓冲区头部(必要时扩容)并从流中补充数据
+	 *
+	 * @return 流已结束且没有读到新数据时返回 false
+	 */
+	private boolean fill() throws IOException {
+		if (this.eof) {
+			return false;
+		}
+		if (this.recordStart > 0) {
+			this.buffer.limit(this.limit);
+			this.buffer.position(this.recordStart);
+			this.buffer.compact();
+			this.limit -= this.recordStart;
+			this.recordStart = 0;
+		} else if (this.limit == this.buf.length) {
+			// 单条记录超过了缓冲区大小
+			ByteBuffer larger = ByteBuffer.allocate(this.buf.length * 2);
+			larger.put(this.buf, 0, this.limit);
+			this.buffer = larger;
+			this.buf = larger.array();
+		}
+		int read;
+		do {
+			read = this.in.read(this.buf, this.limit, this.buf.length
+					- this.limit);
+		} while (read == 0);
+		if (read < 0) {
+			this.eof = true;
+			return false;
+		}
+		this.limit += read;
+		return true;
+	}
+}
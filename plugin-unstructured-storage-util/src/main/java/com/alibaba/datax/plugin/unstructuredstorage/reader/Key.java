@@ -28,4 +28,12 @@ public class Key {
 
 	public static final String CSV_READER_CONFIG = "csvReaderConfig";
 
+	public static final String FAST_PARSER = "fastParser";
+
+	public static final String READ_AHEAD = "readAhead";
+
+	public static final String READ_AHEAD_QUEUE_SIZE = "readAheadQueueSize";
+
+	public static final String DECOMPRESS_THREADS = "decompressThreads";
+
 }
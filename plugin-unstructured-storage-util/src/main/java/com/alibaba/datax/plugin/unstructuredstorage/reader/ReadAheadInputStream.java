@@ -0,0 +1,327 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 预读输入流: 由后台预读线程产生数据块放入有界队列, 读取方只从队列中按顺序取数据,
+ * 使解压与记录解析、发送运行在不同线程上。
+ *
+ * 两种工作方式:
+ * 1. 顺序预读: 预读线程从源流(通常是解压流)读满一个数据块后入队, 数据块缓冲区在读取方用完后回收复用;
+ * 2. 并行解压: 预读线程通过 CompressedBlockSplitter 切出可独立解压的压缩块, 提交到解压线程池,
+ * 按提交顺序把 Future 入队, 读取方按顺序等待解压结果; 压缩块解压失败时, 读取方把它与其后的压缩块合并后重新解压,
+ * 以应对切分点误判。
+ *
+ * 队列长度限制了预读的数据块个数, 读取方消费慢时预读线程阻塞, 内存占用有上限。
+ */
+public class ReadAheadInputStream extends InputStream {
+	private static final Logger LOG = LoggerFactory
+			.getLogger(ReadAheadInputStream.class);
+
+	private static final Block EOF = new Block(new byte[0], 0);
+
+	private final BlockingQueue<Future<Block>> filled;
+	// 顺序预读模式下回收的数据块缓冲区
+	private final BlockingQueue<byte[]> free;
+	private final Thread producer;
+	private final ExecutorService decompressExecutor;
+	private final InputStream source;
+	private final CompressedBlockSplitter splitter;
+
+	private volatile boolean closed;
+	private Block current;
+	private int position;
+
+	/**
+	 * 顺序预读
+	 */
+	public ReadAheadInputStream(InputStream source, int blockSize,
+			int queueSize, String name) {
+		this(source, null, blockSize, queueSize, 0, name);
+	}
+
+	/**
+	 * 并行解压
+	 */
+	public ReadAheadInputStream(CompressedBlockSplitter splitter,
+			int queueSize, int decompressThreads, String name) {
+		this(null, splitter, 0, queueSize, decompressThreads, name);
+	}
+
+	private ReadAheadInputStream(final InputStream source,
+			final CompressedBlockSplitter splitter, final int blockSize,
+			int queueSize, int decompressThreads, String name) {
+		this.source = source;
+		this.splitter = splitter;
+		this.filled = new ArrayBlockingQueue<Future<Block>>(Math.max(
+				queueSize, 1));
+		this.free = new ArrayBlockingQueue<byte[]>(Math.max(queueSize, 1) + 2);
+		if (null != splitter) {
+			this.decompressExecutor = Executors.newFixedThreadPool(Math.max(
+					decompressThreads, 1), new ThreadFactoryBuilder()
+					.setNameFormat("decompress-" + name + "-%d")
+					.setDaemon(true).build());
+		} else {
+			this.decompressExecutor = null;
+		}
+
+		this.producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (null != splitter) {
+						ReadAheadInputStream.this.splitBlocks();
+					} else {
+						ReadAheadInputStream.this.readBlocks(blockSize);
+					}
+				} catch (InterruptedException e) {
+					// close 时中断, 直接退出
+				} catch (Throwable t) {
+					ReadAheadInputStream.this.fail(t);
+				}
+			}
+		}, "readAhead-" + name);
+		this.producer.setDaemon(true);
+		this.producer.start();
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!this.ensureBlock()) {
+			return -1;
+		}
+		return this.current.data[this.position++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!this.ensureBlock()) {
+			return -1;
+		}
+		int n = Math.min(len, this.current.length - this.position);
+		System.arraycopy(this.current.data, this.position, b, off, n);
+		this.position += n;
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		if (null == this.current || EOF == this.current) {
+			return 0;
+		}
+		return this.current.length - this.position;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.producer.interrupt();
+		if (null != this.decompressExecutor) {
+			this.decompressExecutor.shutdownNow();
+		}
+		if (null != this.splitter) {
+			this.splitter.close();
+		} else {
+			this.source.close();
+		}
+	}
+
+	/**
+	 * @return 已读到流末尾时返回 false
+	 */
+	private boolean ensureBlock() throws IOException {
+		while (null == this.current || this.position >= this.current.length) {
+			if (EOF == this.current) {
+				return false;
+			}
+			if (null != this.current && null == this.splitter) {
+				this.free.offer(this.current.data);
+			}
+			this.current = this.takeBlock();
+			if (null != this.current.error) {
+				this.current = this.recover(this.current);
+			}
+			this.position = 0;
+		}
+		return true;
+	}
+
+	private Block takeBlock() throws IOException {
+		try {
+			return this.filled.take().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("等待预读数据时被中断");
+		} catch (ExecutionException e) {
+			this.current = EOF;
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * 依次与其后解压同样失败的压缩块合并后重新解压, 直到解压成功; 无法再合并时抛出原来的解压错误
+	 */
+	private Block recover(Block failed) throws IOException {
+		byte[] merged = failed.compressed;
+		int merges = 0;
+		while (true) {
+			Block next = this.takeBlock();
+			if (null != next.compressed) {
+				merged = this.splitter.merge(merged, next.compressed);
+			} else {
+				merged = null;
+			}
+			if (null == merged) {
+				this.current = EOF;
+				throw failed.error;
+			}
+			merges++;
+			try {
+				byte[] data = decompress(this.splitter, merged);
+				LOG.warn(String.format(
+						"压缩块解压失败, 与其后 %s 个压缩块合并后解压成功", merges));
+				return new Block(data, data.length);
+			} catch (IOException e) {
+				// 继续与下一个压缩块合并
+			}
+		}
+	}
+
+	private void readBlocks(int blockSize) throws IOException,
+			InterruptedException {
+		while (!this.closed) {
+			byte[] buffer = this.free.poll();
+			if (null == buffer) {
+				buffer = new byte[blockSize];
+			}
+			int length = IOUtils.read(this.source, buffer);
+			if (length > 0) {
+				this.filled.put(completed(new Block(buffer, length)));
+			}
+			if (length < buffer.length) {
+				this.filled.put(completed(EOF));
+				return;
+			}
+		}
+	}
+
+	private void splitBlocks() throws IOException, InterruptedException {
+		long blocks = 0;
+		try {
+			while (!this.closed) {
+				final byte[] compressed = this.splitter.nextBlock();
+				if (null == compressed) {
+					this.filled.put(completed(EOF));
+					LOG.info(String.format("并行解压完成, 共解压 %s 个压缩块", blocks));
+					return;
+				}
+				blocks++;
+				this.filled.put(this.decompressExecutor
+						.submit(new Callable<Block>() {
+							@Override
+							public Block call() throws Exception {
+								try {
+									byte[] data = decompress(
+											ReadAheadInputStream.this.splitter,
+											compressed);
+									return new Block(data, data.length);
+								} catch (IOException e) {
+									// 可能是切分点误判, 由读取方与其后的压缩块合并后重试
+									return new Block(compressed, e);
+								}
+							}
+						}));
+			}
+		} finally {
+			this.decompressExecutor.shutdown();
+		}
+	}
+
+	private void fail(final Throwable t) {
+		FutureTask<Block> failed = new FutureTask<Block>(new Callable<Block>() {
+			@Override
+			public Block call() throws Exception {
+				if (t instanceof Exception) {
+					throw (Exception) t;
+				}
+				throw new IOException(t);
+			}
+		});
+		failed.run();
+		try {
+			this.filled.put(failed);
+		} catch (InterruptedException e) {
+			// close 时中断, 读取方已不再需要数据
+		}
+	}
+
+	/**
+	 * 损坏的压缩数据可能使解压抛出运行时异常, 统一转换为 IOException
+	 */
+	private static byte[] decompress(CompressedBlockSplitter splitter,
+			byte[] compressed) throws IOException {
+		try {
+			return splitter.decompress(compressed);
+		} catch (RuntimeException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static Future<Block> completed(final Block block) {
+		FutureTask<Block> task = new FutureTask<Block>(new Callable<Block>() {
+			@Override
+			public Block call() {
+				return block;
+			}
+		});
+		task.run();
+		return task;
+	}
+
+	private static class Block {
+		private final byte[] data;
+		private final int length;
+		// 解压失败时保留压缩块和解压错误
+		private final byte[] compressed;
+		private final IOException error;
+
+		private Block(byte[] data, int length) {
+			this.data = data;
+			this.length = length;
+			this.compressed = null;
+			this.error = null;
+		}
+
+		private Block(byte[] compressed, IOException error) {
+			this.data = null;
+			this.length = 0;
+			this.compressed = compressed;
+			this.error = error;
+		}
+	}
+}
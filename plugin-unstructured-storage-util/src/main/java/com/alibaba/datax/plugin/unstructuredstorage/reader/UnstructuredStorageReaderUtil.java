@@ -24,18 +24,34 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 import java.text.DateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class UnstructuredStorageReaderUtil {
 	private static final Logger LOG = LoggerFactory
 			.getLogger(UnstructuredStorageReaderUtil.class);
 	public static HashMap<String, Object> csvReaderConfigMap;
 
+	// fastParser 按字节切分, 只支持多字节序列中不会出现 ASCII 字节的编码
+	private static final Set<String> FAST_PARSER_CHARSETS = new HashSet<String>(
+			Arrays.asList("UTF-8", "US-ASCII", "ISO-8859-1"));
+
+	// fastParser 支持(或与解析结果无关)的 csvReaderConfig 配置项
+	private static final Set<String> FAST_PARSER_CSV_CONFIGS = new HashSet<String>(
+			Arrays.asList("delimiter", "textQualifier", "useTextQualifier",
+					"escapeMode", "trimWhitespace", "skipEmptyRecords",
+					"useComments", "comment", "caseSensitive",
+					"safetySwitch", "captureRawRecord"));
+
 	private UnstructuredStorageReaderUtil() {
 
 	}
@@ -111,47 +127,47 @@ public class UnstructuredStorageReaderUtil {
 		}
 
 		BufferedReader reader = null;
+		InputStream decompressedStream = null;
 		int bufferSize = readerSliceConfig.getInt(Key.BUFFER_SIZE,
 				Constant.DEFAULT_BUFFER_SIZE);
 
+		boolean readAhead = null != compress
+				&& readerSliceConfig.getBool(Key.READ_AHEAD,
+						Constant.DEFAULT_READ_AHEAD);
+		if (readAhead && "gzip".equalsIgnoreCase(compress)) {
+			// 探测 BGZF 格式需要 mark/reset
+			inputStream = new BufferedInputStream(inputStream, bufferSize);
+		}
+
 		// compress logic
 		try {
-			if (null == compress) {
-				reader = new BufferedReader(new InputStreamReader(inputStream,
-						encoding), bufferSize);
+			InputStream parallelStream = readAhead ? UnstructuredStorageReaderUtil
+					.openParallelDecompressStream(inputStream, compress,
+							context, readerSliceConfig) : null;
+			if (null != parallelStream) {
+				decompressedStream = parallelStream;
+			} else if (null == compress) {
+				decompressedStream = inputStream;
 			} else {
 				// TODO compress
 				if ("lzo_deflate".equalsIgnoreCase(compress)) {
-					LzoInputStream lzoInputStream = new LzoInputStream(
-							inputStream, new LzoDecompressor1x_safe());
-					reader = new BufferedReader(new InputStreamReader(
-							lzoInputStream, encoding));
+					decompressedStream = new LzoInputStream(inputStream,
+							new LzoDecompressor1x_safe());
 				} else if ("lzo".equalsIgnoreCase(compress)) {
-					LzoInputStream lzopInputStream = new ExpandLzopInputStream(
-							inputStream);
-					reader = new BufferedReader(new InputStreamReader(
-							lzopInputStream, encoding));
+					decompressedStream = new ExpandLzopInputStream(inputStream);
 				} else if ("gzip".equalsIgnoreCase(compress)) {
-					CompressorInputStream compressorInputStream = new GzipCompressorInputStream(
+					decompressedStream = new GzipCompressorInputStream(
 							inputStream);
-					reader = new BufferedReader(new InputStreamReader(
-							compressorInputStream, encoding), bufferSize);
 				} else if ("bzip2".equalsIgnoreCase(compress)) {
-					CompressorInputStream compressorInputStream = new BZip2CompressorInputStream(
+					decompressedStream = new BZip2CompressorInputStream(
 							inputStream);
-					reader = new BufferedReader(new InputStreamReader(
-							compressorInputStream, encoding), bufferSize);
 				} else if ("hadoop-snappy".equalsIgnoreCase(compress)) {
 					CompressionCodec snappyCodec = new SnappyCodec();
-					InputStream snappyInputStream = snappyCodec.createInputStream(
+					decompressedStream = snappyCodec.createInputStream(
 							inputStream);
-					reader = new BufferedReader(new InputStreamReader(
-							snappyInputStream, encoding));
 				} else if ("framing-snappy".equalsIgnoreCase(compress)) {
-					InputStream snappyInputStream = new SnappyFramedInputStream(
+					decompressedStream = new SnappyFramedInputStream(
 							inputStream);
-					reader = new BufferedReader(new InputStreamReader(
-							snappyInputStream, encoding));
 				}/* else if ("lzma".equalsIgnoreCase(compress)) {
 					CompressorInputStream compressorInputStream = new LZMACompressorInputStream(
 							inputStream);
@@ -199,10 +215,7 @@ public class UnstructuredStorageReaderUtil {
 							tarArchiveInputStream, encoding));
 				}*/
 				else if ("zip".equalsIgnoreCase(compress)) {
-					ZipCycleInputStream zipCycleInputStream = new ZipCycleInputStream(
-							inputStream);
-					reader = new BufferedReader(new InputStreamReader(
-							zipCycleInputStream, encoding), bufferSize);
+					decompressedStream = new ZipCycleInputStream(inputStream);
 				} else {
 					throw DataXException
 							.asDataXException(
@@ -211,8 +224,25 @@ public class UnstructuredStorageReaderUtil {
 											"文件压缩格式 , 不支持您配置的文件压缩格式: [%s]", compress));
 				}
 			}
-			UnstructuredStorageReaderUtil.doReadFromStream(reader, context,
-					readerSliceConfig, recordSender, taskPluginCollector);
+			if (readAhead && null == parallelStream) {
+				decompressedStream = new ReadAheadInputStream(
+						decompressedStream,
+						Constant.DEFAULT_READ_AHEAD_BLOCK_SIZE,
+						readerSliceConfig.getInt(Key.READ_AHEAD_QUEUE_SIZE,
+								Constant.DEFAULT_READ_AHEAD_QUEUE_SIZE),
+						context);
+			}
+			if (UnstructuredStorageReaderUtil.isFastParserEnabled(
+					readerSliceConfig, encoding)) {
+				UnstructuredStorageReaderUtil.doFastReadFromStream(
+						decompressedStream, context, readerSliceConfig,
+						recordSender, taskPluginCollector);
+			} else {
+				reader = new BufferedReader(new InputStreamReader(
+						decompressedStream, encoding), bufferSize);
+				UnstructuredStorageReaderUtil.doReadFromStream(reader, context,
+						readerSliceConfig, recordSender, taskPluginCollector);
+			}
 		} catch (UnsupportedEncodingException uee) {
 			throw DataXException
 					.asDataXException(
@@ -232,10 +262,38 @@ public class UnstructuredStorageReaderUtil {
 					String.format("流读取错误 : [%s]", context), e);
 		} finally {
 			IOUtils.closeQuietly(reader);
+			IOUtils.closeQuietly(decompressedStream);
 		}
 
 	}
 
+	/**
+	 * 压缩格式可以不解压就切分成独立压缩块时(bzip2, BGZF 格式的 gzip), 返回按压缩块并行解压的预读流,
+	 * 否则返回 null, 由调用方使用顺序解压。
+	 */
+	private static InputStream openParallelDecompressStream(
+			InputStream inputStream, String compress, String context,
+			Configuration readerSliceConfig) throws IOException {
+		CompressedBlockSplitter splitter = null;
+		if ("bzip2".equalsIgnoreCase(compress)) {
+			splitter = new Bzip2BlockSplitter(inputStream);
+		} else if ("gzip".equalsIgnoreCase(compress)
+				&& BgzfBlockSplitter.isBgzf(inputStream)) {
+			splitter = new BgzfBlockSplitter(inputStream);
+		}
+		if (null == splitter) {
+			return null;
+		}
+		int decompressThreads = readerSliceConfig.getInt(
+				Key.DECOMPRESS_THREADS, Constant.DEFAULT_DECOMPRESS_THREADS);
+		LOG.info(String.format("文件[%s]按压缩块并行解压, 解压线程数[%s]", context,
+				decompressThreads));
+		return new ReadAheadInputStream(splitter, readerSliceConfig.getInt(
+				Key.READ_AHEAD_QUEUE_SIZE,
+				Constant.DEFAULT_READ_AHEAD_QUEUE_SIZE), decompressThreads,
+				context);
+	}
+
 	public static void doReadFromStream(BufferedReader reader, String context,
 										Configuration readerSliceConfig, RecordSender recordSender,
 										TaskPluginCollector taskPluginCollector) {
@@ -400,74 +458,8 @@ public class UnstructuredStorageReaderUtil {
 					if (columnValue.equals(nullFormat)) {
 						columnValue = null;
 					}
-					switch (type) {
-						case STRING:
-							columnGenerated = new StringColumn(columnValue);
-							break;
-						case LONG:
-							try {
-								columnGenerated = new LongColumn(columnValue);
-							} catch (Exception e) {
-								throw new IllegalArgumentException(String.format(
-										"类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
-										"LONG"));
-							}
-							break;
-						case DOUBLE:
-							try {
-								columnGenerated = new DoubleColumn(columnValue);
-							} catch (Exception e) {
-								throw new IllegalArgumentException(String.format(
-										"类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
-										"DOUBLE"));
-							}
-							break;
-						case BOOLEAN:
-							try {
-								columnGenerated = new BoolColumn(columnValue);
-							} catch (Exception e) {
-								throw new IllegalArgumentException(String.format(
-										"类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
-										"BOOLEAN"));
-							}
-
-							break;
-						case DATE:
-							try {
-								if (columnValue == null) {
-									Date date = null;
-									columnGenerated = new DateColumn(date);
-								} else {
-									String formatString = columnConfig.getFormat();
-									//if (null != formatString) {
-									if (StringUtils.isNotBlank(formatString)) {
-										// 用户自己配置的格式转换, 脏数据行为出现变化
-										DateFormat format = columnConfig
-												.getDateFormat();
-										columnGenerated = new DateColumn(
-												format.parse(columnValue));
-									} else {
-										// 框架尝试转换
-										columnGenerated = new DateColumn(
-												new StringColumn(columnValue)
-														.asDate());
-									}
-								}
-							} catch (Exception e) {
-								throw new IllegalArgumentException(String.format(
-										"类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
-										"DATE"));
-							}
-							break;
-						default:
-							String errorMessage = String.format(
-									"您配置的列类型暂不支持 : [%s]", columnType);
-							LOG.error(errorMessage);
-							throw DataXException
-									.asDataXException(
-											UnstructuredStorageReaderErrorCode.NOT_SUPPORT_TYPE,
-											errorMessage);
-					}
+					columnGenerated = UnstructuredStorageReaderUtil.convertColumn(
+							columnConfig, type, columnValue);
 
 					record.addColumn(columnGenerated);
 
@@ -491,6 +483,370 @@ public class UnstructuredStorageReaderUtil {
 		return record;
 	}
 
+	/**
+	 * fastParser 模式: 由 DelimitedByteReader 在字节层面切分记录, 只对需要输出的字段解码,
+	 * long 列和配置了定长数字 format 的 date 列直接由字节转换, 不产生中间 String
+	 */
+	public static void doFastReadFromStream(InputStream inputStream,
+			String context, Configuration readerSliceConfig,
+			RecordSender recordSender, TaskPluginCollector taskPluginCollector) {
+		String encoding = readerSliceConfig.getString(Key.ENCODING,
+				Constant.DEFAULT_ENCODING);
+		String delimiterInStr = readerSliceConfig
+				.getString(Key.FIELD_DELIMITER);
+		if (null != delimiterInStr && 1 != delimiterInStr.length()) {
+			throw DataXException.asDataXException(
+					UnstructuredStorageReaderErrorCode.ILLEGAL_VALUE,
+					String.format("仅仅支持单字符切分, 您配置的切分为 : [%s]", delimiterInStr));
+		}
+		if (null == delimiterInStr) {
+			LOG.warn(String.format("您没有配置列分隔符, 使用默认值[%s]",
+					Constant.DEFAULT_FIELD_DELIMITER));
+		}
+		char fieldDelimiter = readerSliceConfig.getChar(Key.FIELD_DELIMITER,
+				Constant.DEFAULT_FIELD_DELIMITER);
+		Boolean skipHeader = readerSliceConfig.getBool(Key.SKIP_HEADER,
+				Constant.DEFAULT_SKIP_HEADER);
+		// warn: no default value '\N'
+		String nullFormat = readerSliceConfig.getString(Key.NULL_FORMAT);
+		int bufferSize = readerSliceConfig.getInt(Key.BUFFER_SIZE,
+				Constant.DEFAULT_BUFFER_SIZE);
+		List<ColumnEntry> column = UnstructuredStorageReaderUtil
+				.getListColumnEntry(readerSliceConfig, Key.COLUMN);
+
+		DelimitedByteReader byteReader = null;
+		try {
+			Charset charset = Charset.forName(encoding);
+			byteReader = UnstructuredStorageReaderUtil
+					.createDelimitedByteReader(inputStream, charset,
+							bufferSize, fieldDelimiter);
+			if (skipHeader) {
+				String fetchLine = byteReader.skipLine();
+				LOG.info(String.format("Header line %s has been skiped.",
+						fetchLine));
+			}
+			byte[] nullFormatBytes = null == nullFormat ? null : nullFormat
+					.getBytes(charset);
+			// 列类型和日期格式只解析一次, 避免逐行查找
+			int columnSize = null == column ? 0 : column.size();
+			Type[] columnTypes = new Type[columnSize];
+			ByteDateParser[] dateParsers = new ByteDateParser[columnSize];
+			for (int i = 0; i < columnSize; i++) {
+				ColumnEntry columnConfig = column.get(i);
+				columnTypes[i] = UnstructuredStorageReaderUtil
+						.getColumnType(columnConfig);
+				if (Type.DATE == columnTypes[i]
+						&& StringUtils.isNotBlank(columnConfig.getFormat())) {
+					dateParsers[i] = ByteDateParser.compile(
+							columnConfig.getFormat(),
+							columnConfig.getDateFormat());
+				}
+			}
+			while (byteReader.nextRecord()) {
+				UnstructuredStorageReaderUtil.transportOneRecord(recordSender,
+						column, columnTypes, dateParsers, byteReader,
+						nullFormat, nullFormatBytes, taskPluginCollector);
+			}
+		} catch (IOException ioe) {
+			throw DataXException.asDataXException(
+					UnstructuredStorageReaderErrorCode.READ_FILE_IO_ERROR,
+					String.format("读取文件错误 : [%s]", context), ioe);
+		} catch (Exception e) {
+			throw DataXException.asDataXException(
+					UnstructuredStorageReaderErrorCode.RUNTIME_EXCEPTION,
+					String.format("运行时异常 : %s", e.getMessage()), e);
+		} finally {
+			IOUtils.closeQuietly(byteReader);
+		}
+	}
+
+	/**
+	 * fastParser 模式下的 transportOneRecord, 转换规则与脏数据行为与 String[] 版本一致
+	 */
+	private static Record transportOneRecord(RecordSender recordSender,
+			List<ColumnEntry> columnConfigs, Type[] columnTypes,
+			ByteDateParser[] dateParsers, DelimitedByteReader byteReader,
+			String nullFormat,
+			byte[] nullFormatBytes, TaskPluginCollector taskPluginCollector) {
+		Record record = recordSender.createRecord();
+		Column columnGenerated = null;
+		int fieldCount = byteReader.getFieldCount();
+
+		// 创建都为String类型column的record
+		if (null == columnConfigs || columnConfigs.size() == 0) {
+			for (int i = 0; i < fieldCount; i++) {
+				if (byteReader.fieldEquals(i, nullFormatBytes)) {
+					columnGenerated = new StringColumn(null);
+				} else {
+					columnGenerated = new StringColumn(byteReader.getString(i));
+				}
+				record.addColumn(columnGenerated);
+			}
+			recordSender.sendToWriter(record);
+			return record;
+		}
+
+		try {
+			for (int c = 0; c < columnConfigs.size(); c++) {
+				ColumnEntry columnConfig = columnConfigs.get(c);
+				String columnType = columnConfig.getType();
+				Integer columnIndex = columnConfig.getIndex();
+				String columnConst = columnConfig.getValue();
+
+				if (null == columnIndex && null == columnConst) {
+					throw DataXException.asDataXException(
+							UnstructuredStorageReaderErrorCode.NO_INDEX_VALUE,
+							"由于您配置了type, 则至少需要配置 index 或 value");
+				}
+				if (null != columnIndex && null != columnConst) {
+					throw DataXException.asDataXException(
+							UnstructuredStorageReaderErrorCode.MIXED_INDEX_VALUE,
+							"您混合配置了index, value, 每一列同时仅能选择其中一种");
+				}
+
+				// 常量列没有对应的字节, 直接复用 String 版本的转换逻辑
+				if (null == columnIndex) {
+					Type type = UnstructuredStorageReaderUtil.resolveColumnType(
+							columnTypes[c], columnType);
+					String columnValue = columnConst.equals(nullFormat) ? null
+							: columnConst;
+					record.addColumn(UnstructuredStorageReaderUtil
+							.convertColumn(columnConfig, type, columnValue));
+					continue;
+				}
+
+				if (columnIndex >= fieldCount) {
+					String message = String.format(
+							"您尝试读取的列越界,源文件该行有 [%s] 列,您尝试读取第 [%s] 列, 数据详情[%s]",
+							fieldCount, columnIndex + 1,
+							StringUtils.join(byteReader.getValues(), ","));
+					LOG.warn(message);
+					throw new IndexOutOfBoundsException(message);
+				}
+
+				Type type = UnstructuredStorageReaderUtil.resolveColumnType(
+						columnTypes[c], columnType);
+				boolean isNull = byteReader.fieldEquals(columnIndex,
+						nullFormatBytes);
+				if (!isNull && Type.LONG == type
+						&& byteReader.isPlainLong(columnIndex)) {
+					columnGenerated = new LongColumn(
+							byteReader.getLong(columnIndex));
+				} else if (!isNull && Type.DATE == type
+						&& null != dateParsers[c]) {
+					long stamp = dateParsers[c].parse(byteReader.getBuffer(),
+							byteReader.getFieldStart(columnIndex),
+							byteReader.getFieldEnd(columnIndex));
+					if (ByteDateParser.NOT_PARSED != stamp) {
+						columnGenerated = new DateColumn(stamp);
+					} else {
+						columnGenerated = UnstructuredStorageReaderUtil
+								.convertColumn(columnConfig, type,
+										byteReader.getString(columnIndex));
+					}
+				} else {
+					columnGenerated = UnstructuredStorageReaderUtil
+							.convertColumn(columnConfig, type, isNull ? null
+									: byteReader.getString(columnIndex));
+				}
+				record.addColumn(columnGenerated);
+			}
+			recordSender.sendToWriter(record);
+		} catch (IllegalArgumentException iae) {
+			taskPluginCollector.collectDirtyRecord(record, iae.getMessage());
+		} catch (IndexOutOfBoundsException ioe) {
+			taskPluginCollector.collectDirtyRecord(record, ioe.getMessage());
+		} catch (Exception e) {
+			if (e instanceof DataXException) {
+				throw (DataXException) e;
+			}
+			// 每一种转换失败都是脏数据处理,包括数字格式 & 日期格式
+			taskPluginCollector.collectDirtyRecord(record, e.getMessage());
+		}
+
+		return record;
+	}
+
+	/**
+	 * @return 类型配置不合法时返回 null, 由 resolveColumnType 在逐行转换时按原有逻辑报错
+	 */
+	private static Type getColumnType(ColumnEntry columnConfig) {
+		try {
+			return Type.valueOf(columnConfig.getType().toUpperCase());
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static Type resolveColumnType(Type compiledType, String columnType) {
+		if (null != compiledType) {
+			return compiledType;
+		}
+		return Type.valueOf(columnType.toUpperCase());
+	}
+
+	/**
+	 * fastParser 仅在配置开启、编码为 ASCII 兼容编码、且 csvReaderConfig 中没有字节解析器
+	 * 不支持的配置项时生效, 否则回退到 CsvReader
+	 */
+	private static boolean isFastParserEnabled(Configuration readerSliceConfig,
+			String encoding) {
+		if (!readerSliceConfig.getBool(Key.FAST_PARSER,
+				Constant.DEFAULT_FAST_PARSER)) {
+			return false;
+		}
+		String charsetName;
+		try {
+			charsetName = Charset.forName(encoding).name();
+		} catch (Exception e) {
+			return false;
+		}
+		if (!FAST_PARSER_CHARSETS.contains(charsetName)) {
+			LOG.warn(String.format(
+					"fastParser 仅支持 %s 编码, 您配置的编码为[%s], 将使用CsvReader读取",
+					FAST_PARSER_CHARSETS, encoding));
+			return false;
+		}
+		char fieldDelimiter = readerSliceConfig.getChar(Key.FIELD_DELIMITER,
+				Constant.DEFAULT_FIELD_DELIMITER);
+		if (fieldDelimiter > 0x7F) {
+			LOG.warn(String.format(
+					"fastParser 仅支持ASCII分隔符, 您配置的分隔符为[%s], 将使用CsvReader读取",
+					fieldDelimiter));
+			return false;
+		}
+		if (null != UnstructuredStorageReaderUtil.csvReaderConfigMap) {
+			for (Map.Entry<String, Object> entry : UnstructuredStorageReaderUtil.csvReaderConfigMap
+					.entrySet()) {
+				String value = String.valueOf(entry.getValue());
+				boolean supported = FAST_PARSER_CSV_CONFIGS.contains(entry
+						.getKey());
+				if ("useComments".equals(entry.getKey())) {
+					supported = !Boolean.valueOf(value);
+				} else if ("escapeMode".equals(entry.getKey())) {
+					supported = String.valueOf(CsvReader.ESCAPE_MODE_DOUBLED)
+							.equals(value)
+							|| String.valueOf(CsvReader.ESCAPE_MODE_BACKSLASH)
+									.equals(value);
+				} else if ("textQualifier".equals(entry.getKey())
+						|| "delimiter".equals(entry.getKey())) {
+					supported = !value.isEmpty() && value.charAt(0) <= 0x7F;
+				}
+				if (!supported) {
+					LOG.warn(String.format(
+							"fastParser 不支持csvReaderConfig配置项[%s=%s], 将使用CsvReader读取",
+							entry.getKey(), value));
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 按 csvReaderConfig 创建 DelimitedByteReader, 配置项含义与 CsvReader 一致
+	 */
+	private static DelimitedByteReader createDelimitedByteReader(
+			InputStream inputStream, Charset charset, int bufferSize,
+			char fieldDelimiter) {
+		char delimiter = fieldDelimiter;
+		char textQualifier = '"';
+		boolean useTextQualifier = true;
+		boolean backslashEscape = false;
+		boolean trimWhitespace = true;
+		boolean skipEmptyRecords = true;
+		if (null != UnstructuredStorageReaderUtil.csvReaderConfigMap) {
+			for (Map.Entry<String, Object> entry : UnstructuredStorageReaderUtil.csvReaderConfigMap
+					.entrySet()) {
+				String key = entry.getKey();
+				String value = String.valueOf(entry.getValue());
+				if ("delimiter".equals(key)) {
+					delimiter = value.charAt(0);
+				} else if ("textQualifier".equals(key)) {
+					textQualifier = value.charAt(0);
+				} else if ("useTextQualifier".equals(key)) {
+					useTextQualifier = Boolean.valueOf(value);
+				} else if ("escapeMode".equals(key)) {
+					backslashEscape = String.valueOf(
+							CsvReader.ESCAPE_MODE_BACKSLASH).equals(value);
+				} else if ("trimWhitespace".equals(key)) {
+					trimWhitespace = Boolean.valueOf(value);
+				} else if ("skipEmptyRecords".equals(key)) {
+					skipEmptyRecords = Boolean.valueOf(value);
+				}
+			}
+		}
+		return new DelimitedByteReader(inputStream, charset, bufferSize,
+				delimiter, textQualifier, useTextQualifier, backslashEscape,
+				trimWhitespace, skipEmptyRecords);
+	}
+
+	private static Column convertColumn(ColumnEntry columnConfig, Type type,
+			String columnValue) {
+		switch (type) {
+			case STRING:
+				return new StringColumn(columnValue);
+			case LONG:
+				try {
+					return new LongColumn(columnValue);
+				} catch (Exception e) {
+					throw new IllegalArgumentException(String.format(
+							"类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
+							"LONG"));
+				}
+			case DOUBLE:
+				try {
+					return new DoubleColumn(columnValue);
+				} catch (Exception e) {
+					throw new IllegalArgumentException(String.format(
+							"类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
+							"DOUBLE"));
+				}
+			case BOOLEAN:
+				try {
+					return new BoolColumn(columnValue);
+				} catch (Exception e) {
+					throw new IllegalArgumentException(String.format(
+							"类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
+							"BOOLEAN"));
+				}
+			case DATE:
+				try {
+					if (columnValue == null) {
+						Date date = null;
+						return new DateColumn(date);
+					} else {
+						String formatString = columnConfig.getFormat();
+						//if (null != formatString) {
+						if (StringUtils.isNotBlank(formatString)) {
+							// 用户自己配置的格式转换, 脏数据行为出现变化
+							DateFormat format = columnConfig
+									.getDateFormat();
+							return new DateColumn(
+									format.parse(columnValue));
+						} else {
+							// 框架尝试转换
+							return new DateColumn(
+									new StringColumn(columnValue)
+											.asDate());
+						}
+					}
+				} catch (Exception e) {
+					throw new IllegalArgumentException(String.format(
+							"类型转换错误, 无法将[%s] 转换为[%s]", columnValue,
+							"DATE"));
+				}
+			default:
+				String errorMessage = String.format(
+						"您配置的列类型暂不支持 : [%s]", columnConfig.getType());
+				LOG.error(errorMessage);
+				throw DataXException
+						.asDataXException(
+								UnstructuredStorageReaderErrorCode.NOT_SUPPORT_TYPE,
+								errorMessage);
+		}
+	}
+
 	public static List<ColumnEntry> getListColumnEntry(
 			Configuration configuration, final String path) {
 		List<JSONObject> lists = configuration.getList(path, JSONObject.class);
@@ -0,0 +1,333 @@
+package com.alibaba.datax.plugin.unstructuredstorage.writer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 异步压缩输出流: 写入方只把编码后的字节拷贝到可复用的数据块中, 压缩与写出在后台线程完成。
+ *
+ * 两种工作方式:
+ * 1. 顺序压缩(compressThreads 为 1, 或压缩格式为 bzip2/不压缩): 后台写出线程按顺序把数据块写入
+ * GzipCompressorOutputStream/BZip2CompressorOutputStream, 输出与同步写出完全相同;
+ * 2. 并行压缩(gzip 且 compressThreads 大于 1): 每个数据块在压缩线程池中独立压缩成一个 BGZF 格式的 gzip member
+ * (头部扩展字段 "BC" 记录 member 长度), 写出线程按提交顺序写出, 最后追加 BGZF 的空结束 member。
+ * 多个 gzip member 首尾拼接仍是合法的 gzip 文件, gzip -d / zcat 可以直接解压,
+ * DataX 读取时开启 readAhead 可以按 member 并行解压。
+ *
+ * 队列长度限制了未写出的数据块个数, 压缩或写出慢时写入方阻塞, 内存占用有上限。
+ */
+public class AsyncCompressOutputStream extends OutputStream {
+	private static final Logger LOG = LoggerFactory
+			.getLogger(AsyncCompressOutputStream.class);
+
+	// 与 bgzip 保持一致, 保证压缩后的 member 不超过 BGZF 的 64KB 上限
+	public static final int BGZF_BLOCK_SIZE = 0xFF00;
+
+	private static final byte[] BGZF_EOF = new byte[] { 0x1F, (byte) 0x8B, 8,
+			4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0, 0x1B, 0, 3,
+			0, 0, 0, 0, 0, 0, 0, 0, 0 };
+
+	private static final Block EOF = new Block(new byte[0], 0);
+
+	private final OutputStream target;
+	// 顺序压缩时包装 target 的压缩流, 并行压缩时为 null
+	private final OutputStream sequentialStream;
+	private final boolean parallel;
+	private final int blockSize;
+
+	private final BlockingQueue<Future<Block>> filled;
+	private final BlockingQueue<byte[]> free;
+	private final BlockingQueue<Deflater> deflaters;
+	private final ExecutorService compressExecutor;
+	private final Thread writerThread;
+
+	private volatile Throwable error;
+	private boolean closed;
+	private byte[] current;
+	private int position;
+	private long blocks;
+
+	public AsyncCompressOutputStream(OutputStream target, String compress,
+			int blockSize, int compressThreads, int queueSize, String name)
+			throws IOException {
+		this.target = target;
+		this.parallel = "gzip".equalsIgnoreCase(compress) && compressThreads > 1;
+		this.blockSize = this.parallel ? BGZF_BLOCK_SIZE : blockSize;
+		int capacity = Math.max(queueSize, 1);
+		this.filled = new ArrayBlockingQueue<Future<Block>>(capacity);
+		this.free = new ArrayBlockingQueue<byte[]>(capacity + compressThreads
+				+ 2);
+		if (this.parallel) {
+			this.sequentialStream = null;
+			this.deflaters = new ArrayBlockingQueue<Deflater>(compressThreads);
+			this.compressExecutor = Executors.newFixedThreadPool(
+					compressThreads, new ThreadFactoryBuilder()
+							.setNameFormat("compress-" + name + "-%d")
+							.setDaemon(true).build());
+		} else {
+			this.deflaters = null;
+			this.compressExecutor = null;
+			if ("gzip".equalsIgnoreCase(compress)) {
+				this.sequentialStream = new GzipCompressorOutputStream(target);
+			} else if ("bzip2".equalsIgnoreCase(compress)) {
+				this.sequentialStream = new BZip2CompressorOutputStream(target);
+			} else {
+				this.sequentialStream = target;
+			}
+		}
+
+		this.writerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					AsyncCompressOutputStream.this.writeBlocks();
+				} catch (InterruptedException e) {
+					// 出错关闭时中断, 直接退出
+				} catch (Throwable t) {
+					AsyncCompressOutputStream.this.error = t;
+					// 唤醒可能阻塞在队列上的写入方
+					AsyncCompressOutputStream.this.filled.clear();
+				}
+			}
+		}, "asyncWrite-" + name);
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		this.ensureBuffer();
+		this.current[this.position++] = (byte) b;
+		if (this.position == this.blockSize) {
+			this.submit();
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			this.ensureBuffer();
+			int n = Math.min(len, this.blockSize - this.position);
+			System.arraycopy(b, off, this.current, this.position, n);
+			this.position += n;
+			off += n;
+			len -= n;
+			if (this.position == this.blockSize) {
+				this.submit();
+			}
+		}
+	}
+
+	/**
+	 * 压缩流无法在任意位置刷新, 这里只检查后台线程是否出错, 数据在数据块写满或 close 时写出
+	 */
+	@Override
+	public void flush() throws IOException {
+		this.checkError();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			if (null == this.error) {
+				if (this.position > 0) {
+					this.submit();
+				}
+				this.put(completed(EOF));
+				this.writerThread.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("等待压缩数据写出时被中断");
+		} finally {
+			this.writerThread.interrupt();
+			if (null != this.compressExecutor) {
+				this.compressExecutor.shutdownNow();
+				Deflater deflater;
+				while (null != (deflater = this.deflaters.poll())) {
+					deflater.end();
+				}
+			}
+			if (null == this.error) {
+				this.sequentialStreamOrTarget().close();
+			} else {
+				this.target.close();
+			}
+		}
+		this.checkError();
+		LOG.info(String.format("异步压缩写出完成, 共写出 %s 个数据块", this.blocks));
+	}
+
+	private OutputStream sequentialStreamOrTarget() {
+		return null != this.sequentialStream ? this.sequentialStream
+				: this.target;
+	}
+
+	private void ensureBuffer() throws IOException {
+		if (this.closed) {
+			throw new IOException("输出流已关闭");
+		}
+		if (null == this.current) {
+			this.current = this.free.poll();
+			if (null == this.current) {
+				this.current = new byte[this.blockSize];
+			}
+			this.position = 0;
+		}
+	}
+
+	private void submit() throws IOException {
+		final Block block = new Block(this.current, this.position);
+		this.current = null;
+		this.position = 0;
+		this.blocks++;
+		if (this.parallel) {
+			this.put(this.compressExecutor.submit(new Callable<Block>() {
+				@Override
+				public Block call() throws Exception {
+					return AsyncCompressOutputStream.this.compress(block);
+				}
+			}));
+		} else {
+			this.put(completed(block));
+		}
+	}
+
+	private void put(Future<Block> future) throws IOException {
+		try {
+			while (!this.filled.offer(future, 100, TimeUnit.MILLISECONDS)) {
+				this.checkError();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("等待压缩队列时被中断");
+		}
+		this.checkError();
+	}
+
+	private void checkError() throws IOException {
+		Throwable t = this.error;
+		if (null == t) {
+			return;
+		}
+		if (t instanceof ExecutionException) {
+			t = t.getCause();
+		}
+		if (t instanceof IOException) {
+			throw (IOException) t;
+		}
+		throw new IOException(t);
+	}
+
+	private void writeBlocks() throws InterruptedException, IOException,
+			ExecutionException {
+		OutputStream out = this.sequentialStreamOrTarget();
+		while (true) {
+			Block block = this.filled.take().get();
+			if (EOF == block) {
+				if (this.parallel) {
+					this.target.write(BGZF_EOF);
+				}
+				return;
+			}
+			out.write(block.data, 0, block.length);
+			if (!this.parallel) {
+				this.free.offer(block.data);
+			}
+		}
+	}
+
+	/**
+	 * 把一个数据块压缩为一个 BGZF member
+	 */
+	private Block compress(Block block) {
+		Deflater deflater = this.deflaters.poll();
+		if (null == deflater) {
+			deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		}
+		try {
+			// deflate 对不可压缩数据的膨胀不超过 5 字节每 16KB
+			byte[] member = new byte[block.length + (block.length >>> 10) + 64];
+			deflater.setInput(block.data, 0, block.length);
+			deflater.finish();
+			int length = 18;
+			while (!deflater.finished()) {
+				if (length == member.length) {
+					member = Arrays.copyOf(member, member.length * 2);
+				}
+				length += deflater.deflate(member, length, member.length
+						- length);
+			}
+			CRC32 crc = new CRC32();
+			crc.update(block.data, 0, block.length);
+			this.free.offer(block.data);
+
+			if (member.length < length + 8) {
+				member = Arrays.copyOf(member, length + 8);
+			}
+			writeIntLE(member, length, (int) crc.getValue());
+			writeIntLE(member, length + 4, block.length);
+			length += 8;
+			System.arraycopy(BGZF_EOF, 0, member, 0, 16);
+			member[16] = (byte) ((length - 1) & 0xFF);
+			member[17] = (byte) (((length - 1) >>> 8) & 0xFF);
+			return new Block(member, length);
+		} finally {
+			deflater.reset();
+			if (!this.deflaters.offer(deflater)) {
+				deflater.end();
+			}
+		}
+	}
+
+	private static void writeIntLE(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value & 0xFF);
+		bytes[offset + 1] = (byte) ((value >>> 8) & 0xFF);
+		bytes[offset + 2] = (byte) ((value >>> 16) & 0xFF);
+		bytes[offset + 3] = (byte) ((value >>> 24) & 0xFF);
+	}
+
+	private static Future<Block> completed(final Block block) {
+		FutureTask<Block> task = new FutureTask<Block>(new Callable<Block>() {
+			@Override
+			public Block call() {
+				return block;
+			}
+		});
+		task.run();
+		return task;
+	}
+
+	private static class Block {
+		private final byte[] data;
+		private final int length;
+
+		private Block(byte[] data, int length) {
+			this.data = data;
+			this.length = length;
+		}
+	}
+}
@@ -16,4 +16,12 @@ public class Constant {
 	public static final Long MAX_FILE_SIZE = 1024 * 1024 * 10 * 10000L;
 	
 	public static final String DEFAULT_SUFFIX = "";
+
+	public static final boolean DEFAULT_ASYNC_COMPRESS = false;
+
+	public static final int DEFAULT_COMPRESS_THREADS = 1;
+
+	public static final int DEFAULT_COMPRESS_QUEUE_SIZE = 4;
+
+	public static final int DEFAULT_COMPRESS_BLOCK_SIZE = 256 * 1024;
 }
@@ -35,4 +35,16 @@ public class Key {
     
     // writer file type suffix, like .txt  .csv
     public static final String SUFFIX = "suffix";
+
+    // writer max record count per file, roll to a new file when reached
+    public static final String MAX_RECORDS_PER_FILE = "maxRecordsPerFile";
+
+    // compress and write in background threads
+    public static final String ASYNC_COMPRESS = "asyncCompress";
+
+    // gzip block-parallel compress threads when asyncCompress
+    public static final String COMPRESS_THREADS = "compressThreads";
+
+    // max pending blocks when asyncCompress
+    public static final String COMPRESS_QUEUE_SIZE = "compressQueueSize";
 }
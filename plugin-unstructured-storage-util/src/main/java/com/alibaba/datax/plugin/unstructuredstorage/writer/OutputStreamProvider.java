@@ -0,0 +1,18 @@
+package com.alibaba.datax.plugin.unstructuredstorage.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 按文件滚动序号打开输出流, 供 writeToStream 在单个 task 内滚动写出多个文件。
+ * 返回的输出流由 writeToStream 负责关闭。
+ */
+public interface OutputStreamProvider {
+
+    /**
+     * @param rollingNumber
+     *            从 0 开始的文件序号, 0 表示第一个文件
+     */
+    public OutputStream open(int rollingNumber) throws IOException;
+
+}
@@ -13,11 +13,11 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
-import org.apache.commons.compress.compressors.CompressorOutputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -179,7 +179,33 @@ public class UnstructuredStorageWriterUtil {
     }
 
     public static void writeToStream(RecordReceiver lineReceiver,
-            OutputStream outputStream, Configuration config, String context,
+            final OutputStream outputStream, Configuration config,
+            String context, TaskPluginCollector taskPluginCollector) {
+        // 调用方只提供了一个输出流, 不做文件滚动
+        UnstructuredStorageWriterUtil.writeToStream(lineReceiver,
+                new OutputStreamProvider() {
+                    @Override
+                    public OutputStream open(int rollingNumber) {
+                        return outputStream;
+                    }
+                }, false, config, context, taskPluginCollector);
+    }
+
+    /**
+     * 配置了 maxFileSize 或 maxRecordsPerFile 时, 当前文件达到上限后关闭并通过 outputStreamProvider
+     * 打开下一个文件继续写出, 每个文件都会写出 header
+     */
+    public static void writeToStream(RecordReceiver lineReceiver,
+            OutputStreamProvider outputStreamProvider, Configuration config,
+            String context, TaskPluginCollector taskPluginCollector) {
+        UnstructuredStorageWriterUtil.writeToStream(lineReceiver,
+                outputStreamProvider, true, config, context,
+                taskPluginCollector);
+    }
+
+    private static void writeToStream(RecordReceiver lineReceiver,
+            OutputStreamProvider outputStreamProvider, boolean rolling,
+            Configuration config, String context,
             TaskPluginCollector taskPluginCollector) {
         String encoding = config.getString(Key.ENCODING,
                 Constant.DEFAULT_ENCODING);
@@ -189,37 +215,11 @@ public class UnstructuredStorageWriterUtil {
                     Constant.DEFAULT_ENCODING));
             encoding = Constant.DEFAULT_ENCODING;
         }
-        String compress = config.getString(Key.COMPRESS);
 
-        BufferedWriter writer = null;
-        // compress logic
         try {
-            if (null == compress) {
-                writer = new BufferedWriter(new OutputStreamWriter(
-                        outputStream, encoding));
-            } else {
-                // TODO more compress
-                if ("gzip".equalsIgnoreCase(compress)) {
-                    CompressorOutputStream compressorOutputStream = new GzipCompressorOutputStream(
-                            outputStream);
-                    writer = new BufferedWriter(new OutputStreamWriter(
-                            compressorOutputStream, encoding));
-                } else if ("bzip2".equalsIgnoreCase(compress)) {
-                    CompressorOutputStream compressorOutputStream = new BZip2CompressorOutputStream(
-                            outputStream);
-                    writer = new BufferedWriter(new OutputStreamWriter(
-                            compressorOutputStream, encoding));
-                } else {
-                    throw DataXException
-                            .asDataXException(
-                                    UnstructuredStorageWriterErrorCode.ILLEGAL_VALUE,
-                                    String.format(
-                                            "仅支持 gzip, bzip2 文件压缩格式 , 不支持您配置的文件压缩格式: [%s]",
-                                            compress));
-                }
-            }
-            UnstructuredStorageWriterUtil.doWriteToStream(lineReceiver, writer,
-                    context, config, taskPluginCollector);
+            UnstructuredStorageWriterUtil.doWriteToStream(lineReceiver,
+                    outputStreamProvider, rolling, encoding, context, config,
+                    taskPluginCollector);
         } catch (UnsupportedEncodingException uee) {
             throw DataXException
                     .asDataXException(
@@ -233,13 +233,46 @@ public class UnstructuredStorageWriterUtil {
             throw DataXException.asDataXException(
                     UnstructuredStorageWriterErrorCode.Write_FILE_IO_ERROR,
                     String.format("流写入错误 : [%s]", context), e);
-        } finally {
-            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * 按 compress 配置包装输出流, 开启 asyncCompress 时压缩与写出在后台线程进行
+     */
+    public static OutputStream openCompressStream(OutputStream outputStream,
+            Configuration config, String context) throws IOException {
+        String compress = config.getString(Key.COMPRESS);
+        if (null != compress && !"gzip".equalsIgnoreCase(compress)
+                && !"bzip2".equalsIgnoreCase(compress)) {
+            throw DataXException
+                    .asDataXException(
+                            UnstructuredStorageWriterErrorCode.ILLEGAL_VALUE,
+                            String.format(
+                                    "仅支持 gzip, bzip2 文件压缩格式 , 不支持您配置的文件压缩格式: [%s]",
+                                    compress));
+        }
+        if (config.getBool(Key.ASYNC_COMPRESS, Constant.DEFAULT_ASYNC_COMPRESS)) {
+            return new AsyncCompressOutputStream(outputStream, compress,
+                    Constant.DEFAULT_COMPRESS_BLOCK_SIZE, config.getInt(
+                            Key.COMPRESS_THREADS,
+                            Constant.DEFAULT_COMPRESS_THREADS), config.getInt(
+                            Key.COMPRESS_QUEUE_SIZE,
+                            Constant.DEFAULT_COMPRESS_QUEUE_SIZE), context);
+        }
+        if (null == compress) {
+            return outputStream;
+        }
+        // TODO more compress
+        if ("gzip".equalsIgnoreCase(compress)) {
+            return new GzipCompressorOutputStream(outputStream);
+        } else {
+            return new BZip2CompressorOutputStream(outputStream);
         }
     }
 
     private static void doWriteToStream(RecordReceiver lineReceiver,
-            BufferedWriter writer, String contex, Configuration config,
+            OutputStreamProvider outputStreamProvider, boolean rolling,
+            String encoding, String contex, Configuration config,
             TaskPluginCollector taskPluginCollector) throws IOException {
 
         String nullFormat = config.getString(Key.NULL_FORMAT);
@@ -270,23 +303,79 @@ public class UnstructuredStorageWriterUtil {
         char fieldDelimiter = config.getChar(Key.FIELD_DELIMITER,
                 Constant.DEFAULT_FIELD_DELIMITER);
 
-        UnstructuredWriter unstructuredWriter = TextCsvWriterManager
-                .produceUnstructuredWriter(fileFormat, fieldDelimiter, writer);
-
         List<String> headers = config.getList(Key.HEADER, String.class);
-        if (null != headers && !headers.isEmpty()) {
-            unstructuredWriter.writeOneRecord(headers);
+
+        // maxFileSize 单位为MB, 按写出的未压缩数据量计算
+        long maxFileSize = 0;
+        long maxRecordsPerFile = 0;
+        if (rolling) {
+            maxFileSize = config.getLong(Key.MAX_FILE_SIZE, 0) * 1024 * 1024;
+            maxRecordsPerFile = config.getLong(Key.MAX_RECORDS_PER_FILE, 0);
         }
 
-        Record record = null;
-        while ((record = lineReceiver.getFromReader()) != null) {
-            UnstructuredStorageWriterUtil.transportOneRecord(record,
-                    nullFormat, dateParse, taskPluginCollector,
-                    unstructuredWriter);
+        int rollingNumber = 0;
+        long recordsInFile = 0;
+        CountingOutputStream countingStream = null;
+        UnstructuredWriter unstructuredWriter = null;
+        try {
+            Record record = null;
+            while ((record = lineReceiver.getFromReader()) != null) {
+                if (null == unstructuredWriter) {
+                    countingStream = new CountingOutputStream(
+                            UnstructuredStorageWriterUtil.openCompressStream(
+                                    outputStreamProvider.open(rollingNumber),
+                                    config, contex));
+                    unstructuredWriter = UnstructuredStorageWriterUtil
+                            .openUnstructuredWriter(countingStream, encoding,
+                                    fileFormat, fieldDelimiter, headers);
+                }
+
+                UnstructuredStorageWriterUtil.transportOneRecord(record,
+                        nullFormat, dateParse, taskPluginCollector,
+                        unstructuredWriter);
+                recordsInFile++;
+
+                if ((maxRecordsPerFile > 0 && recordsInFile >= maxRecordsPerFile)
+                        || (maxFileSize > 0 && countingStream.getByteCount() >= maxFileSize)) {
+                    LOG.info(String.format(
+                            "[%s] 第 %s 个文件已写出 %s 条记录, 滚动到下一个文件",
+                            contex, rollingNumber, recordsInFile));
+                    unstructuredWriter.close();
+                    unstructuredWriter = null;
+                    rollingNumber++;
+                    recordsInFile = 0;
+                }
+            }
+
+            // 没有收到数据时仍然创建文件(写出header), 与原有行为保持一致
+            if (null == unstructuredWriter && 0 == rollingNumber) {
+                unstructuredWriter = UnstructuredStorageWriterUtil
+                        .openUnstructuredWriter(UnstructuredStorageWriterUtil
+                                .openCompressStream(
+                                        outputStreamProvider.open(0), config,
+                                        contex), encoding, fileFormat,
+                                fieldDelimiter, headers);
+            }
+            if (null != unstructuredWriter) {
+                unstructuredWriter.close();
+                unstructuredWriter = null;
+            }
+        } finally {
+            IOUtils.closeQuietly(unstructuredWriter);
         }
+    }
 
-        // warn:由调用方控制流的关闭
-        // IOUtils.closeQuietly(unstructuredWriter);
+    private static UnstructuredWriter openUnstructuredWriter(
+            OutputStream outputStream, String encoding, String fileFormat,
+            char fieldDelimiter, List<String> headers) throws IOException {
+        UnstructuredWriter unstructuredWriter = TextCsvWriterManager
+                .produceUnstructuredWriter(fileFormat, fieldDelimiter,
+                        new BufferedWriter(new OutputStreamWriter(outputStream,
+                                encoding)));
+        if (null != headers && !headers.isEmpty()) {
+            unstructuredWriter.writeOneRecord(headers);
+        }
+        return unstructuredWriter;
     }
 
     /**
@@ -0,0 +1,115 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.plugin.RecordSender;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试用 RecordSender/TaskPluginCollector, 收集发送的记录和脏数据; keep 为 false 时只计数
+ */
+public class CollectingRecordSender extends TaskPluginCollector implements
+		RecordSender {
+	private final boolean keep;
+	private final List<Record> records = new ArrayList<Record>();
+	private final List<Record> dirtyRecords = new ArrayList<Record>();
+	private long count;
+
+	public CollectingRecordSender(boolean keep) {
+		this.keep = keep;
+	}
+
+	public List<Record> getRecords() {
+		return this.records;
+	}
+
+	public List<Record> getDirtyRecords() {
+		return this.dirtyRecords;
+	}
+
+	public long getCount() {
+		return this.count;
+	}
+
+	@Override
+	public Record createRecord() {
+		return new SimpleRecord();
+	}
+
+	@Override
+	public void sendToWriter(Record record) {
+		this.count++;
+		if (this.keep) {
+			this.records.add(record);
+		}
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void terminate() {
+	}
+
+	@Override
+	public void shutdown() {
+	}
+
+	@Override
+	public void collectDirtyRecord(Record dirtyRecord, Throwable t,
+			String errorMessage) {
+		this.dirtyRecords.add(dirtyRecord);
+	}
+
+	@Override
+	public void collectMessage(String key, String value) {
+	}
+
+	public static class SimpleRecord implements Record {
+		private final List<Column> columns = new ArrayList<Column>();
+
+		@Override
+		public void addColumn(Column column) {
+			this.columns.add(column);
+		}
+
+		@Override
+		public void setColumn(int i, Column column) {
+			this.columns.set(i, column);
+		}
+
+		@Override
+		public Column getColumn(int i) {
+			return this.columns.get(i);
+		}
+
+		@Override
+		public int getColumnNumber() {
+			return this.columns.size();
+		}
+
+		@Override
+		public int getByteSize() {
+			return 0;
+		}
+
+		@Override
+		public int getMemorySize() {
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (Column column : this.columns) {
+				sb.append(column.getType()).append(':')
+						.append(column.getRawData()).append('|');
+			}
+			return sb.toString();
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import com.alibaba.datax.common.element.ColumnCast;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import com.csvreader.CsvReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class DelimitedByteReaderTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String[] INPUTS = new String[] {
+			"a,b,c\n1,2,3\n",
+			"a,b,c\r\n1,2,3",
+			"a,b,c\r1,2,3\r",
+			"a,,c,\n,\n",
+			"  a , b\t,c  \n",
+			"\"a,b\",\"c\"\"d\",\"e\nf\"\n",
+			"\" a \" , \"\" ,x\n",
+			"\n\nline\n\n",
+			"中文,字段,测试\n数据,\"引号,中文\",结束\n",
+			"a\"b,c\"\"d\n",
+			"\"unclosed,field\nnext",
+			"\"ab\"cd,e\n\"ab\" ,x\n",
+			"tail,without,newline" };
+
+	@BeforeClass
+	public static void beforeClass() {
+		ColumnCast.bind(Configuration.newDefault());
+	}
+
+	@After
+	public void after() {
+		UnstructuredStorageReaderUtil.csvReaderConfigMap = null;
+	}
+
+	@Test
+	public void testSameAsCsvReader() throws IOException {
+		for (String input : INPUTS) {
+			// 极小的缓冲区用于覆盖记录跨缓冲区和缓冲区扩容的情况
+			for (int bufferSize : new int[] { 1, 7, 8192 }) {
+				Assert.assertEquals(input, readWithCsvReader(input, ',', false),
+						readWithByteReader(input, ',', false, bufferSize));
+			}
+		}
+	}
+
+	@Test
+	public void testBackslashEscapeSameAsCsvReader() throws IOException {
+		String[] inputs = new String[] { "a\\,b,c\n", "\"a\\\"b\",c\\\\d\n",
+				"\"x\\ty\",z\n" };
+		for (String input : inputs) {
+			Assert.assertEquals(input, readWithCsvReader(input, ',', true),
+					readWithByteReader(input, ',', true, 8192));
+		}
+	}
+
+	@Test
+	public void testTabDelimiter() throws IOException {
+		String input = "a\tb\t\tc\n 1 \t2\n";
+		Assert.assertEquals(readWithCsvReader(input, '\t', false),
+				readWithByteReader(input, '\t', false, 8192));
+	}
+
+	@Test
+	public void testPlainLong() throws IOException {
+		DelimitedByteReader reader = newReader(
+				"123,-45,+6,007,1.5,,9999999999999999999,abc\n", ',', false, 64);
+		Assert.assertTrue(reader.nextRecord());
+		Assert.assertTrue(reader.isPlainLong(0));
+		Assert.assertEquals(123L, reader.getLong(0));
+		Assert.assertEquals(-45L, reader.getLong(1));
+		Assert.assertEquals(6L, reader.getLong(2));
+		Assert.assertEquals(7L, reader.getLong(3));
+		Assert.assertFalse(reader.isPlainLong(4));
+		Assert.assertFalse(reader.isPlainLong(5));
+		Assert.assertFalse(reader.isPlainLong(6));
+		Assert.assertFalse(reader.isPlainLong(7));
+	}
+
+	@Test
+	public void testByteDateParser() throws Exception {
+		String[] patterns = new String[] { "yyyy-MM-dd HH:mm:ss", "yyyyMMdd",
+				"yyyy/MM/dd HH:mm:ss.SSS" };
+		String[] values = new String[] { "2016-02-29 23:59:58", "20160131",
+				"2016/12/01 01:02:03.456" };
+		for (int i = 0; i < patterns.length; i++) {
+			ColumnEntry entry = new ColumnEntry();
+			entry.setFormat(patterns[i]);
+			ByteDateParser parser = ByteDateParser.compile(patterns[i],
+					entry.getDateFormat());
+			Assert.assertNotNull(parser);
+			byte[] bytes = values[i].getBytes(UTF8);
+			Assert.assertEquals(entry.getDateFormat().parse(values[i])
+					.getTime(), parser.parse(bytes, 0, bytes.length));
+		}
+
+		ColumnEntry entry = new ColumnEntry();
+		entry.setFormat("yyyy-MM-dd");
+		ByteDateParser parser = ByteDateParser.compile("yyyy-MM-dd",
+				entry.getDateFormat());
+		byte[] bytes = "2016-1-01".getBytes(UTF8);
+		Assert.assertEquals(ByteDateParser.NOT_PARSED,
+				parser.parse(bytes, 0, bytes.length));
+		Assert.assertNull(ByteDateParser.compile("dd MMM yyyy",
+				entry.getDateFormat()));
+	}
+
+	@Test
+	public void testFastParserSameRecords() {
+		String data = "id,name,score,birthday,flag\n"
+				+ "1,张三,90.5,2016-01-01 10:00:00,true\n"
+				+ "2,\\N,abc,2016-01-02 11:00:00,false\n"
+				+ "x3,李四,70,2016-1-3,true\n"
+				+ "4,\"王,五\",60,bad,true\n"
+				+ "5,short\n"
+				+ "12345678901234567890,n,1,2016-01-05 00:00:00,false\n";
+		String column = "[{\"index\":0,\"type\":\"long\"},"
+				+ "{\"index\":1,\"type\":\"string\"},"
+				+ "{\"index\":2,\"type\":\"double\"},"
+				+ "{\"index\":3,\"type\":\"date\",\"format\":\"yyyy-MM-dd HH:mm:ss\"},"
+				+ "{\"index\":4,\"type\":\"boolean\"},"
+				+ "{\"value\":\"const\",\"type\":\"string\"}]";
+		for (String columnConf : new String[] { column, "[\"*\"]" }) {
+			CollectingRecordSender legacy = read(data, columnConf, false);
+			CollectingRecordSender fast = read(data, columnConf, true);
+			Assert.assertEquals(toStrings(legacy.getRecords()),
+					toStrings(fast.getRecords()));
+			Assert.assertEquals(toStrings(legacy.getDirtyRecords()),
+					toStrings(fast.getDirtyRecords()));
+		}
+	}
+
+	@Test
+	public void testFastParserFallbackOnUnsupportedConfig() {
+		UnstructuredStorageReaderUtil.csvReaderConfigMap = new HashMap<String, Object>();
+		UnstructuredStorageReaderUtil.csvReaderConfigMap.put("useComments",
+				true);
+		String data = "#comment\n1,2\n";
+		CollectingRecordSender legacy = read(data, "[\"*\"]", false);
+		CollectingRecordSender fast = read(data, "[\"*\"]", true);
+		Assert.assertEquals(1, legacy.getRecords().size());
+		Assert.assertEquals(toStrings(legacy.getRecords()),
+				toStrings(fast.getRecords()));
+	}
+
+	private static CollectingRecordSender read(String data, String column,
+			boolean fastParser) {
+		Configuration configuration = Configuration.newDefault();
+		configuration.set(Key.FIELD_DELIMITER, ",");
+		configuration.set(Key.SKIP_HEADER, true);
+		configuration.set(Key.NULL_FORMAT, "\\N");
+		configuration.set(Key.FAST_PARSER, fastParser);
+		configuration.set(Key.COLUMN, Configuration.from(column).getInternal());
+		CollectingRecordSender sender = new CollectingRecordSender(true);
+		UnstructuredStorageReaderUtil.readFromStream(new ByteArrayInputStream(
+				data.getBytes(UTF8)), "test", configuration, sender, sender);
+		return sender;
+	}
+
+	private static List<String> toStrings(List<Record> records) {
+		List<String> result = new ArrayList<String>();
+		for (Record record : records) {
+			result.add(record.toString());
+		}
+		return result;
+	}
+
+	private static DelimitedByteReader newReader(String input, char delimiter,
+			boolean backslashEscape, int bufferSize) {
+		return new DelimitedByteReader(new ByteArrayInputStream(
+				input.getBytes(UTF8)), UTF8, bufferSize, delimiter, '"', true,
+				backslashEscape, true, true);
+	}
+
+	private static List<List<String>> readWithByteReader(String input,
+			char delimiter, boolean backslashEscape, int bufferSize)
+			throws IOException {
+		DelimitedByteReader reader = newReader(input, delimiter,
+				backslashEscape, bufferSize);
+		List<List<String>> result = new ArrayList<List<String>>();
+		while (reader.nextRecord()) {
+			List<String> row = new ArrayList<String>();
+			for (String value : reader.getValues()) {
+				row.add(value);
+			}
+			result.add(row);
+		}
+		return result;
+	}
+
+	private static List<List<String>> readWithCsvReader(String input,
+			char delimiter, boolean backslashEscape) throws IOException {
+		CsvReader csvReader = new CsvReader(new StringReader(input));
+		csvReader.setDelimiter(delimiter);
+		if (backslashEscape) {
+			csvReader.setEscapeMode(CsvReader.ESCAPE_MODE_BACKSLASH);
+		}
+		List<List<String>> result = new ArrayList<List<String>>();
+		while (csvReader.readRecord()) {
+			List<String> row = new ArrayList<String>();
+			for (String value : csvReader.getValues()) {
+				row.add(value);
+			}
+			result.add(row);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,277 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import com.alibaba.datax.common.element.ColumnCast;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+public class ReadAheadInputStreamTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static byte[] data;
+
+	@BeforeClass
+	public static void beforeClass() {
+		ColumnCast.bind(Configuration.newDefault());
+		// 超过 bzip2 级别1的 100KB 块大小, 保证切出多个压缩块
+		Random random = new Random(20161201L);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			sb.append(i).append(',').append("name_")
+					.append(random.nextInt(100000)).append(',')
+					.append(random.nextLong()).append('\n');
+		}
+		data = sb.toString().getBytes(UTF8);
+	}
+
+	@Test
+	public void testSequentialReadAhead() throws IOException {
+		ReadAheadInputStream in = new ReadAheadInputStream(
+				new ByteArrayInputStream(data), 1000, 2, "test");
+		Assert.assertArrayEquals(data, readFully(in));
+	}
+
+	@Test
+	public void testBzip2Blocks() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(bzip2(Arrays.copyOfRange(data, 0, data.length / 2)));
+		out.write(bzip2(new byte[0]));
+		out.write(bzip2(Arrays.copyOfRange(data, data.length / 2, data.length)));
+		byte[] compressed = out.toByteArray();
+
+		Bzip2BlockSplitter splitter = new Bzip2BlockSplitter(
+				new ByteArrayInputStream(compressed));
+		int blocks = 0;
+		while (null != splitter.nextBlock()) {
+			blocks++;
+		}
+		Assert.assertTrue(blocks > 2);
+
+		ReadAheadInputStream in = new ReadAheadInputStream(
+				new Bzip2BlockSplitter(new ByteArrayInputStream(compressed)),
+				2, 3, "test");
+		Assert.assertArrayEquals(data, readFully(in));
+	}
+
+	@Test
+	public void testBzip2EmbeddedBlockMagic() throws IOException {
+		// 每个块的压缩数据中两次出现块魔数, 间隔超过误判的块CRC的 32 位
+		byte[] plain = embeddedMagicData(new int[] { 0x3141, 0x5926, 0x5359,
+				0xFFFF, 0xFFFF, 0xFFFF, 0x3141, 0x5926, 0x5359 });
+		byte[] compressed = bzip2(plain);
+
+		Bzip2BlockSplitter splitter = new Bzip2BlockSplitter(
+				new ByteArrayInputStream(compressed));
+		int blocks = 0;
+		while (null != splitter.nextBlock()) {
+			blocks++;
+		}
+		Assert.assertEquals(9, blocks);
+
+		ReadAheadInputStream in = new ReadAheadInputStream(
+				new Bzip2BlockSplitter(new ByteArrayInputStream(compressed)),
+				2, 3, "test");
+		Assert.assertArrayEquals(plain, readFully(in));
+	}
+
+	@Test
+	public void testBzip2EmbeddedEndOfStreamMagic() throws IOException {
+		byte[] plain = embeddedMagicData(new int[] { 0x1772, 0x4538, 0x5090 });
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(bzip2(plain));
+		out.write(bzip2(plain));
+
+		ReadAheadInputStream in = new ReadAheadInputStream(
+				new Bzip2BlockSplitter(new ByteArrayInputStream(
+						out.toByteArray())), 2, 3, "test");
+		byte[] expected = new byte[plain.length * 2];
+		System.arraycopy(plain, 0, expected, 0, plain.length);
+		System.arraycopy(plain, 0, expected, plain.length, plain.length);
+		Assert.assertArrayEquals(expected, readFully(in));
+	}
+
+	@Test
+	public void testBgzfBlocks() throws IOException {
+		byte[] compressed = bgzf(data);
+		Assert.assertTrue(BgzfBlockSplitter.isBgzf(new BufferedInputStream(
+				new ByteArrayInputStream(compressed))));
+		Assert.assertFalse(BgzfBlockSplitter.isBgzf(new BufferedInputStream(
+				new ByteArrayInputStream(gzip(data)))));
+
+		ReadAheadInputStream in = new ReadAheadInputStream(
+				new BgzfBlockSplitter(new ByteArrayInputStream(compressed)), 2,
+				3, "test");
+		Assert.assertArrayEquals(data, readFully(in));
+	}
+
+	@Test
+	public void testCorruptedBzip2() throws IOException {
+		byte[] compressed = bzip2(data);
+		compressed[compressed.length / 2] ^= 0x55;
+		ReadAheadInputStream in = new ReadAheadInputStream(
+				new Bzip2BlockSplitter(new ByteArrayInputStream(compressed)),
+				2, 2, "test");
+		try {
+			readFully(in);
+			Assert.fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testReadFromStreamSameRecords() throws IOException {
+		// 原有的 gzip 解压只读取第一个 member, 这里与未压缩的数据对比
+		List<String> expected = read(data, null, false);
+		Assert.assertEquals(20000, expected.size());
+		String[][] inputs = new String[][] { { "bzip2", null }, { "gzip", null },
+				{ "gzip", "bgzf" } };
+		for (String[] input : inputs) {
+			byte[] compressed;
+			if ("bzip2".equals(input[0])) {
+				compressed = bzip2(data);
+			} else if (null == input[1]) {
+				compressed = gzip(data);
+			} else {
+				compressed = bgzf(data);
+			}
+			Assert.assertEquals(expected, read(compressed, input[0], true));
+		}
+	}
+
+	private static List<String> read(byte[] bytes, String compress,
+			boolean readAhead) {
+		Configuration configuration = Configuration.newDefault();
+		configuration.set(Key.FIELD_DELIMITER, ",");
+		configuration.set(Key.COMPRESS, compress);
+		configuration.set(Key.READ_AHEAD, readAhead);
+		configuration.set(Key.DECOMPRESS_THREADS, 2);
+		configuration.set(Key.COLUMN, Configuration.from("[\"*\"]")
+				.getInternal());
+		CollectingRecordSender sender = new CollectingRecordSender(true);
+		UnstructuredStorageReaderUtil.readFromStream(new ByteArrayInputStream(
+				bytes), "test", configuration, sender, sender);
+		Assert.assertTrue(sender.getDirtyRecords().isEmpty());
+		List<String> result = new ArrayList<String>();
+		for (Record record : sender.getRecords()) {
+			result.add(record.toString());
+		}
+		return result;
+	}
+
+	/**
+	 * bzip2 块头部的字节使用表: 先是 16 位表示每 16 个字节值一组是否出现, 再对出现的每组用 16 位表示组内各字节值是否出现。
+	 * 按 words 选取出现的字节值, 使每个块的压缩数据中依次包含这些 16 位的值, 用来构造压缩数据中出现魔数的文件
+	 *
+	 * @return 3 个 bzip2 级别1的块大小的数据
+	 */
+	private static byte[] embeddedMagicData(int[] words) {
+		List<Integer> values = new ArrayList<Integer>();
+		for (int group = 0; group < 16; group++) {
+			int word = group < words.length ? words[group] : 0xFFFF;
+			for (int i = 0; i < 16; i++) {
+				if (0 != ((word >>> (15 - i)) & 1)) {
+					values.add(group * 16 + i);
+				}
+			}
+		}
+		Random random = new Random(20161201L);
+		byte[] plain = new byte[250000];
+		int previous = -1;
+		for (int i = 0; i < plain.length; i++) {
+			// 不产生连续相同的字节, 避免游程编码写入其他字节值
+			int value;
+			do {
+				value = values.get(random.nextInt(values.size()));
+			} while (value == previous);
+			plain[i] = (byte) value;
+			previous = value;
+		}
+		return plain;
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		try {
+			return IOUtils.toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static byte[] bzip2(byte[] plain) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BZip2CompressorOutputStream bzip2 = new BZip2CompressorOutputStream(
+				out, 1);
+		bzip2.write(plain);
+		bzip2.close();
+		return out.toByteArray();
+	}
+
+	private static byte[] gzip(byte[] plain) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GzipCompressorOutputStream gzip = new GzipCompressorOutputStream(out);
+		gzip.write(plain);
+		gzip.close();
+		return out.toByteArray();
+	}
+
+	/**
+	 * 按 bgzip 的格式写出: 每个 member 不超过 64KB 原始数据, 最后是一个空的 EOF member
+	 */
+	private static byte[] bgzf(byte[] plain) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int chunk = 0xFF00;
+		for (int offset = 0; offset < plain.length; offset += chunk) {
+			writeBgzfMember(out, plain, offset,
+					Math.min(chunk, plain.length - offset));
+		}
+		writeBgzfMember(out, plain, 0, 0);
+		return out.toByteArray();
+	}
+
+	private static void writeBgzfMember(ByteArrayOutputStream out,
+			byte[] plain, int offset, int length) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(plain, offset, length);
+		deflater.finish();
+		byte[] deflated = new byte[length + 1024];
+		int deflatedLength = deflater.deflate(deflated);
+		deflater.end();
+
+		CRC32 crc = new CRC32();
+		crc.update(plain, offset, length);
+		int blockSize = 18 + deflatedLength + 8;
+		out.write(new byte[] { 0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0,
+				(byte) 0xFF, 6, 0, 'B', 'C', 2, 0,
+				(byte) ((blockSize - 1) & 0xFF),
+				(byte) ((blockSize - 1) >>> 8) }, 0, 18);
+		out.write(deflated, 0, deflatedLength);
+		writeIntLE(out, (int) crc.getValue());
+		writeIntLE(out, length);
+	}
+
+	private static void writeIntLE(ByteArrayOutputStream out, int value) {
+		out.write(value & 0xFF);
+		out.write((value >>> 8) & 0xFF);
+		out.write((value >>> 16) & 0xFF);
+		out.write((value >>> 24) & 0xFF);
+	}
+}
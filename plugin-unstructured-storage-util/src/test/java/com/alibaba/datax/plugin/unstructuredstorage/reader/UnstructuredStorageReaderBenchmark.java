@@ -0,0 +1,80 @@
+package com.alibaba.datax.plugin.unstructuredstorage.reader;
+
+import com.alibaba.datax.common.element.ColumnCast;
+import com.alibaba.datax.common.util.Configuration;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * CsvReader 与 fastParser 两种读取方式的吞吐对比, 直接运行 main 方法:
+ *
+ * <pre>
+ * java -cp ... UnstructuredStorageReaderBenchmark [行数] [轮数]
+ * </pre>
+ */
+public class UnstructuredStorageReaderBenchmark {
+	private static final String COLUMN = "[{\"index\":0,\"type\":\"long\"},"
+			+ "{\"index\":1,\"type\":\"string\"},"
+			+ "{\"index\":2,\"type\":\"double\"},"
+			+ "{\"index\":3,\"type\":\"date\",\"format\":\"yyyy-MM-dd HH:mm:ss\"},"
+			+ "{\"index\":4,\"type\":\"long\"},"
+			+ "{\"index\":5,\"type\":\"string\"}]";
+
+	public static void main(String[] args) {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		ColumnCast.bind(Configuration.newDefault());
+		byte[] data = generate(rows);
+		System.out.println(String.format("rows=%d, bytes=%d", rows, data.length));
+
+		for (String column : new String[] { COLUMN, "[\"*\"]" }) {
+			System.out.println("column: " + column);
+			for (int round = 0; round < rounds; round++) {
+				long legacy = run(data, column, false);
+				long fast = run(data, column, true);
+				System.out.println(String.format(
+						"round %d: CsvReader %d ms (%.0f rows/s), fastParser %d ms (%.0f rows/s)",
+						round, legacy, rows * 1000.0 / legacy, fast, rows * 1000.0
+								/ fast));
+			}
+		}
+	}
+
+	private static long run(byte[] data, String column, boolean fastParser) {
+		Configuration configuration = Configuration.newDefault();
+		configuration.set(Key.FIELD_DELIMITER, ",");
+		configuration.set(Key.FAST_PARSER, fastParser);
+		configuration.set(Key.COLUMN, Configuration.from(column).getInternal());
+		CollectingRecordSender sender = new CollectingRecordSender(false);
+		long start = System.currentTimeMillis();
+		UnstructuredStorageReaderUtil.readFromStream(new ByteArrayInputStream(
+				data), "benchmark", configuration, sender, sender);
+		long cost = Math.max(1, System.currentTimeMillis() - start);
+		if (!sender.getDirtyRecords().isEmpty()) {
+			throw new IllegalStateException("unexpected dirty records: "
+					+ sender.getDirtyRecords().size());
+		}
+		return cost;
+	}
+
+	private static byte[] generate(int rows) {
+		Random random = new Random(20161201L);
+		StringBuilder sb = new StringBuilder(rows * 80);
+		for (int i = 0; i < rows; i++) {
+			sb.append(i).append(',');
+			sb.append("name_").append(random.nextInt(100000)).append(',');
+			sb.append(random.nextInt(100000)).append('.')
+					.append(random.nextInt(100)).append(',');
+			sb.append(String.format("2016-%02d-%02d %02d:%02d:%02d",
+					1 + random.nextInt(12), 1 + random.nextInt(28),
+					random.nextInt(24), random.nextInt(60), random.nextInt(60)))
+					.append(',');
+			sb.append(random.nextLong() % 1000000000L).append(',');
+			sb.append("\"quoted, 中文 ").append(random.nextInt(1000))
+					.append('"').append('\n');
+		}
+		return sb.toString().getBytes(Charset.forName("UTF-8"));
+	}
+}
@@ -0,0 +1,168 @@
+package com.alibaba.datax.plugin.unstructuredstorage.writer;
+
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.plugin.RecordReceiver;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.unstructuredstorage.reader.BgzfBlockSplitter;
+import com.alibaba.datax.plugin.unstructuredstorage.reader.CollectingRecordSender;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class AsyncCompressOutputStreamTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static byte[] data;
+
+	@BeforeClass
+	public static void beforeClass() {
+		Random random = new Random(20161201L);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			sb.append(i).append(',').append("name_")
+					.append(random.nextInt(100000)).append(',')
+					.append(random.nextLong()).append('\n');
+		}
+		data = sb.toString().getBytes(UTF8);
+	}
+
+	@Test
+	public void testSequentialSameAsSync() throws IOException {
+		ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+		OutputStream sync = new GzipCompressorOutputStream(gzip);
+		sync.write(data);
+		sync.close();
+		Assert.assertArrayEquals(gzip.toByteArray(),
+				writeAsync("gzip", 1, 1000));
+
+		ByteArrayOutputStream bzip2 = new ByteArrayOutputStream();
+		sync = new BZip2CompressorOutputStream(bzip2);
+		sync.write(data);
+		sync.close();
+		Assert.assertArrayEquals(bzip2.toByteArray(),
+				writeAsync("bzip2", 4, 1000));
+
+		Assert.assertArrayEquals(data, writeAsync(null, 1, 1000));
+	}
+
+	@Test
+	public void testParallelGzip() throws IOException {
+		byte[] compressed = writeAsync("gzip", 4, 7);
+		Assert.assertTrue(BgzfBlockSplitter.isBgzf(new BufferedInputStream(
+				new ByteArrayInputStream(compressed))));
+		GzipCompressorInputStream in = new GzipCompressorInputStream(
+				new ByteArrayInputStream(compressed), true);
+		Assert.assertArrayEquals(data, IOUtils.toByteArray(in));
+
+		// 按 member 切分后逐个解压
+		BgzfBlockSplitter splitter = new BgzfBlockSplitter(
+				new ByteArrayInputStream(compressed));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] block;
+		while (null != (block = splitter.nextBlock())) {
+			out.write(splitter.decompress(block));
+		}
+		Assert.assertArrayEquals(data, out.toByteArray());
+	}
+
+	@Test
+	public void testRollingByRecordCount() throws IOException {
+		Configuration config = Configuration.newDefault();
+		config.set(Key.FIELD_DELIMITER, ",");
+		config.set(Key.HEADER, Arrays.asList("id", "name"));
+		config.set(Key.MAX_RECORDS_PER_FILE, 4);
+		config.set(Key.COMPRESS, "bzip2");
+		config.set(Key.ASYNC_COMPRESS, true);
+
+		final List<ByteArrayOutputStream> files = new ArrayList<ByteArrayOutputStream>();
+		UnstructuredStorageWriterUtil.writeToStream(records(10),
+				new OutputStreamProvider() {
+					@Override
+					public OutputStream open(int rollingNumber) {
+						Assert.assertEquals(files.size(), rollingNumber);
+						ByteArrayOutputStream out = new ByteArrayOutputStream();
+						files.add(out);
+						return out;
+					}
+				}, config, "test", new CollectingRecordSender(false));
+
+		Assert.assertEquals(3, files.size());
+		int id = 0;
+		for (ByteArrayOutputStream file : files) {
+			String[] lines = new String(
+					IOUtils.toByteArray(new BZip2CompressorInputStream(
+							new ByteArrayInputStream(file.toByteArray()))),
+					UTF8).split(IOUtils.LINE_SEPARATOR);
+			Assert.assertEquals("id,name", lines[0]);
+			for (int i = 1; i < lines.length; i++) {
+				Assert.assertEquals(id + ",name_" + id, lines[i]);
+				id++;
+			}
+		}
+		Assert.assertEquals(10, id);
+	}
+
+	@Test
+	public void testNoRollingForSingleStream() {
+		Configuration config = Configuration.newDefault();
+		config.set(Key.MAX_RECORDS_PER_FILE, 4);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		UnstructuredStorageWriterUtil.writeToStream(records(10), out, config,
+				"test", new CollectingRecordSender(false));
+		Assert.assertEquals(10,
+				new String(out.toByteArray(), UTF8)
+						.split(IOUtils.LINE_SEPARATOR).length);
+	}
+
+	private static byte[] writeAsync(String compress, int threads, int chunk)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AsyncCompressOutputStream async = new AsyncCompressOutputStream(out,
+				compress, 4096, threads, 2, "test");
+		for (int offset = 0; offset < data.length; offset += chunk) {
+			async.write(data, offset, Math.min(chunk, data.length - offset));
+		}
+		async.close();
+		return out.toByteArray();
+	}
+
+	private static RecordReceiver records(int count) {
+		List<Record> records = new ArrayList<Record>();
+		for (int i = 0; i < count; i++) {
+			Record record = new CollectingRecordSender.SimpleRecord();
+			record.addColumn(new LongColumn(i));
+			record.addColumn(new StringColumn("name_" + i));
+			records.add(record);
+		}
+		final Iterator<Record> iterator = records.iterator();
+		return new RecordReceiver() {
+			@Override
+			public Record getFromReader() {
+				return iterator.hasNext() ? iterator.next() : null;
+			}
+
+			@Override
+			public void shutdown() {
+			}
+		};
+	}
+}
@@ -18,6 +18,15 @@ public class Constant {
     public static final String MIXUP_FUNCTION_PATTERN = "\\s*(.*)\\s*,\\s*(.*)\\s*";
     public static final String MIXUP_FUNCTION_PARAM1 = "mixupParam1";
     public static final String MIXUP_FUNCTION_PARAM2 = "mixupParam2";
+
+    public static final String MODE_GENERATOR = "generator";
+    // generator 模式下随机列的取值个数、zipf 分布的倾斜度(0为均匀分布)以及 null 值比例
+    public static final String CARDINALITY = "cardinality";
+    public static final String SKEW = "skew";
+    public static final String NULL_RATIO = "nullRatio";
+    public static final int DEFAULT_CARDINALITY = 10000;
+    public static final int MAX_CARDINALITY = 10000000;
+    public static final String SLICE_INDEX = "sliceIndex";
     
     
 }
@@ -9,4 +9,19 @@ public class Key {
 
     public static final String SLICE_RECORD_COUNT = "sliceRecordCount";
 
+    /**
+     * 为 generator 时每列的取值预先生成到取值池中, 每行从池中抽取, 用于压测 writer; 不配置时逐行构造 record
+     */
+    public static final String MODE = "mode";
+
+    /**
+     * generator 模式的随机种子, 相同的配置与种子生成的数据完全相同, 默认为0
+     */
+    public static final String SEED = "seed";
+
+    /**
+     * generator 模式下每个 task 每秒发送的 record 数上限, 默认为0不限制
+     */
+    public static final String RECORD_RATE = "recordRate";
+
 }
@@ -0,0 +1,111 @@
+package com.alibaba.datax.plugin.reader.streamreader;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * generator 模式下的 record 生成器: 每列的取值在 task 开始时预先生成到取值池中, 每行只按分布从池中抽取已有的 Column 对象,
+ * 不再逐行构造随机字符串。抽取使用 xorshift64* 伪随机数, 相同的配置与种子生成的数据完全相同。
+ * 非线程安全, 只能由 reader task 线程使用。
+ */
+class RecordGenerator {
+
+	private final ColumnSampler[] samplers;
+
+	private long state;
+
+	RecordGenerator(List<ColumnSampler> samplers, long seed) {
+		this.samplers = samplers.toArray(new ColumnSampler[samplers.size()]);
+		// splitmix64 打散种子, xorshift 的状态不能为0
+		long z = seed + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		this.state = z == 0 ? 0x9E3779B97F4A7C15L : z;
+	}
+
+	void fill(Record record) {
+		for (ColumnSampler sampler : this.samplers) {
+			record.addColumn(sampler.sample(this));
+		}
+	}
+
+	private long nextLong() {
+		long x = this.state;
+		x ^= x >>> 12;
+		x ^= x << 25;
+		x ^= x >>> 27;
+		this.state = x;
+		return x * 0x2545F4914F6CDD1DL;
+	}
+
+	/**
+	 * [0, 1) 之间的随机数
+	 */
+	private double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * [0, bound) 之间的随机数
+	 */
+	private int nextInt(int bound) {
+		return (int) (((nextLong() >>> 33) * bound) >>> 31);
+	}
+
+	/**
+	 * 一列的取值池及其抽取分布
+	 */
+	static class ColumnSampler {
+		private final Column[] pool;
+
+		/**
+		 * 取值池中各个下标的累计权重, 为 null 时均匀抽取
+		 */
+		private final double[] cumulativeWeights;
+
+		private final double nullRatio;
+
+		private final Column nullColumn;
+
+		/**
+		 * @param skew 为0时均匀抽取; 大于0时按 zipf 分布抽取, 池中第 k 个取值的权重为 1/(k+1)^skew
+		 */
+		ColumnSampler(Column[] pool, double skew, double nullRatio, Column nullColumn) {
+			this.pool = pool;
+			this.nullRatio = nullRatio;
+			this.nullColumn = nullColumn;
+			if (skew > 0 && pool.length > 1) {
+				this.cumulativeWeights = new double[pool.length];
+				double total = 0;
+				for (int i = 0; i < pool.length; i++) {
+					total += 1.0 / Math.pow(i + 1, skew);
+					this.cumulativeWeights[i] = total;
+				}
+			} else {
+				this.cumulativeWeights = null;
+			}
+		}
+
+		private Column sample(RecordGenerator generator) {
+			if (this.nullRatio > 0 && generator.nextDouble() < this.nullRatio) {
+				return this.nullColumn;
+			}
+			if (this.pool.length == 1) {
+				return this.pool[0];
+			}
+			if (null == this.cumulativeWeights) {
+				return this.pool[generator.nextInt(this.pool.length)];
+			}
+			double target = generator.nextDouble() * this.cumulativeWeights[this.cumulativeWeights.length - 1];
+			int index = Arrays.binarySearch(this.cumulativeWeights, target);
+			if (index < 0) {
+				index = -index - 1;
+			}
+			return this.pool[Math.min(index, this.pool.length - 1)];
+		}
+	}
+}
@@ -18,6 +18,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -47,6 +48,43 @@ public class StreamReader extends Reader {
 						"参数[sliceRecordCount]不能小于1.");
 			}
 
+			dealGenerator(this.originalConfig);
+		}
+
+		private void dealGenerator(Configuration originalConfig) {
+			String mode = originalConfig.getString(Key.MODE);
+			if (StringUtils.isBlank(mode)) {
+				return;
+			}
+			if (!Constant.MODE_GENERATOR.equalsIgnoreCase(mode)) {
+				throw DataXException.asDataXException(StreamReaderErrorCode.ILLEGAL_VALUE,
+						String.format("不支持的参数[mode]:%s, 仅支持%s", mode, Constant.MODE_GENERATOR));
+			}
+			originalConfig.set(Key.MODE, Constant.MODE_GENERATOR);
+			// 非整数的seed在这里报错; 未配置时固定为0并写回, split出的各个task使用同一个seed构造取值池
+			originalConfig.set(Key.SEED, originalConfig.getLong(Key.SEED, 0L));
+			if (originalConfig.getLong(Key.RECORD_RATE, 0L) < 0) {
+				throw DataXException.asDataXException(StreamReaderErrorCode.ILLEGAL_VALUE,
+						"参数[recordRate]不能小于0.");
+			}
+
+			for (String eachColumn : originalConfig.getList(Key.COLUMN, String.class)) {
+				Configuration eachColumnConfig = Configuration.from(eachColumn);
+				int cardinality = eachColumnConfig.getInt(Constant.CARDINALITY, Constant.DEFAULT_CARDINALITY);
+				if (cardinality < 1 || cardinality > Constant.MAX_CARDINALITY) {
+					throw DataXException.asDataXException(StreamReaderErrorCode.ILLEGAL_VALUE,
+							String.format("参数[cardinality]需要在1到%s之间:%s", Constant.MAX_CARDINALITY, eachColumn));
+				}
+				if (eachColumnConfig.getDouble(Constant.SKEW, 0D) < 0) {
+					throw DataXException.asDataXException(StreamReaderErrorCode.ILLEGAL_VALUE,
+							String.format("参数[skew]不能小于0:%s", eachColumn));
+				}
+				double nullRatio = eachColumnConfig.getDouble(Constant.NULL_RATIO, 0D);
+				if (nullRatio < 0 || nullRatio > 1) {
+					throw DataXException.asDataXException(StreamReaderErrorCode.ILLEGAL_VALUE,
+							String.format("参数[nullRatio]需要在0到1之间:%s", eachColumn));
+				}
+			}
 		}
 
 		private void dealColumn(Configuration originalConfig) {
@@ -176,7 +214,10 @@ public class StreamReader extends Reader {
 			List<Configuration> configurations = new ArrayList<Configuration>();
 
 			for (int i = 0; i < adviceNumber; i++) {
-				configurations.add(this.originalConfig.clone());
+				Configuration sliceConfig = this.originalConfig.clone();
+				// generator 模式下各个 task 的取值池相同, 抽取的随机序列不同
+				sliceConfig.set(Constant.SLICE_INDEX, i);
+				configurations.add(sliceConfig);
 			}
 			return configurations;
 		}
@@ -200,7 +241,12 @@ public class StreamReader extends Reader {
 		private long sliceRecordCount;
 		
 		private boolean haveMixupFunction;
-		
+
+		private boolean generatorMode;
+
+		private long recordRate;
+
+		private RecordGenerator recordGenerator;
 
 		@Override
 		public void init() {
@@ -212,14 +258,36 @@ public class StreamReader extends Reader {
 					.getLong(Key.SLICE_RECORD_COUNT);
             this.haveMixupFunction = this.readerSliceConfig.getBool(
                     Constant.HAVE_MIXUP_FUNCTION, false);
+			this.generatorMode = Constant.MODE_GENERATOR.equals(this.readerSliceConfig.getString(Key.MODE));
+			this.recordRate = this.readerSliceConfig.getLong(Key.RECORD_RATE, 0L);
 		}
 
 		@Override
 		public void prepare() {
+			if (!this.generatorMode) {
+				return;
+			}
+			long seed = this.readerSliceConfig.getLong(Key.SEED, 0L);
+			Random poolRandom = new Random(seed);
+			List<RecordGenerator.ColumnSampler> samplers = new ArrayList<RecordGenerator.ColumnSampler>();
+			try {
+				for (String eachColumn : this.columns) {
+					samplers.add(this.buildColumnSampler(Configuration.from(eachColumn), poolRandom));
+				}
+			} catch (Exception e) {
+				throw DataXException.asDataXException(StreamReaderErrorCode.ILLEGAL_VALUE,
+						"构造取值池失败.", e);
+			}
+			this.recordGenerator = new RecordGenerator(samplers,
+					seed + this.readerSliceConfig.getInt(Constant.SLICE_INDEX, 0));
 		}
 
 		@Override
 		public void startRead(RecordSender recordSender) {
+			if (this.generatorMode) {
+				this.startGenerate(recordSender);
+				return;
+			}
 			Record oneRecord = buildOneRecord(recordSender, this.columns);
 			while (this.sliceRecordCount > 0) {
                 if (this.haveMixupFunction) {
@@ -238,6 +306,112 @@ public class StreamReader extends Reader {
 		public void destroy() {
 		}
 		
+		/**
+		 * 从取值池中抽取列值生成 record, 配置了 recordRate 时按速率发送
+		 */
+		private void startGenerate(RecordSender recordSender) {
+			long rateCheckInterval = Math.max(1L, Math.min(1024L, this.recordRate / 100));
+			long startNanos = System.nanoTime();
+			for (long sent = 1; sent <= this.sliceRecordCount; sent++) {
+				Record record = recordSender.createRecord();
+				this.recordGenerator.fill(record);
+				recordSender.sendToWriter(record);
+				if (this.recordRate > 0 && sent % rateCheckInterval == 0) {
+					long aheadMillis = (long) (sent * 1000D / this.recordRate)
+							- (System.nanoTime() - startNanos) / 1000000L;
+					if (aheadMillis > 0) {
+						try {
+							Thread.sleep(aheadMillis);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+					}
+				}
+			}
+		}
+
+		private RecordGenerator.ColumnSampler buildColumnSampler(Configuration eachColumnConfig, Random random) throws Exception {
+			Type columnType = Type.valueOf(eachColumnConfig.getString(
+					Constant.TYPE).toUpperCase());
+			Column[] pool;
+			if (StringUtils.isBlank(eachColumnConfig.getString(Constant.RANDOM))) {
+				pool = new Column[] { this.buildOneColumn(eachColumnConfig) };
+			} else {
+				long param1Int = eachColumnConfig.getLong(Constant.MIXUP_FUNCTION_PARAM1, 0L);
+				long param2Int = eachColumnConfig.getLong(Constant.MIXUP_FUNCTION_PARAM2, 1L);
+				pool = new Column[eachColumnConfig.getInt(Constant.CARDINALITY, Constant.DEFAULT_CARDINALITY)];
+				for (int i = 0; i < pool.length; i++) {
+					pool[i] = this.buildRandomColumn(columnType, param1Int, param2Int, random);
+				}
+			}
+			return new RecordGenerator.ColumnSampler(pool,
+					eachColumnConfig.getDouble(Constant.SKEW, 0D),
+					eachColumnConfig.getDouble(Constant.NULL_RATIO, 0D),
+					this.buildNullColumn(columnType));
+		}
+
+		/**
+		 * 与 buildOneColumn 中 random 混淆函数的取值范围相同, 但使用指定的 Random 以便结果可重现
+		 */
+		private Column buildRandomColumn(Type columnType, long param1Int, long param2Int, Random random) throws Exception {
+			switch (columnType) {
+			case STRING:
+				return new StringColumn(RandomStringUtils.random((int) nextLong(random, param1Int, param2Int + 1),
+						0, 0, true, true, null, random));
+			case LONG:
+				return new LongColumn(nextLong(random, param1Int, param2Int + 1));
+			case DOUBLE:
+				return new DoubleColumn(param1Int + (param2Int + 1 - param1Int) * random.nextDouble());
+			case DATE:
+				return new DateColumn(new Date(nextLong(random, param1Int, param2Int + 1)));
+			case BOOL:
+				if (param1Int == param2Int) {
+					param1Int = 0;
+					param2Int = 1;
+				}
+				if (param1Int == 0) {
+					return new BoolColumn(true);
+				} else if (param2Int == 0) {
+					return new BoolColumn(false);
+				} else {
+					long randomInt = nextLong(random, 0, param1Int + param2Int + 1);
+					return new BoolColumn(randomInt <= param1Int ? false : true);
+				}
+			case BYTES:
+				return new BytesColumn(RandomStringUtils.random((int) nextLong(random, param1Int, param2Int + 1),
+						0, 0, true, true, null, random).getBytes());
+			default:
+				// in fact,never to be here
+				throw new Exception(String.format("不支持类型[%s]",
+						columnType.name()));
+			}
+		}
+
+		private Column buildNullColumn(Type columnType) {
+			switch (columnType) {
+			case LONG:
+				return new LongColumn();
+			case DOUBLE:
+				return new DoubleColumn();
+			case DATE:
+				return new DateColumn();
+			case BOOL:
+				return new BoolColumn();
+			case BYTES:
+				return new BytesColumn();
+			default:
+				return new StringColumn();
+			}
+		}
+
+		/**
+		 * [startInclusive, endExclusive) 之间的随机数
+		 */
+		private static long nextLong(Random random, long startInclusive, long endExclusive) {
+			return startInclusive + (long) ((endExclusive - startInclusive) * random.nextDouble());
+		}
+
 		private Column buildOneColumn(Configuration eachColumnConfig) throws Exception {
 		    String columnValue = eachColumnConfig
                     .getString(Constant.VALUE);
@@ -0,0 +1,184 @@
+package com.alibaba.datax.plugin.reader.streamreader;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.RecordSender;
+import com.alibaba.datax.common.util.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * generator 模式下相同的配置与种子生成完全相同的数据
+ */
+public class StreamReaderGeneratorTest {
+	private static final String COLUMNS = "[{\"type\":\"long\",\"random\":\"0,100000\",\"cardinality\":50,\"skew\":1.2},"
+			+ "{\"type\":\"string\",\"random\":\"5,20\",\"cardinality\":200,\"nullRatio\":0.1},"
+			+ "{\"type\":\"double\",\"random\":\"0,10\",\"cardinality\":1000},"
+			+ "{\"type\":\"bool\",\"random\":\"1,3\"},"
+			+ "{\"type\":\"string\",\"value\":\"const\"}]";
+
+	@Test
+	public void testSameSeedGeneratesSameRecords() {
+		List<Configuration> slices = split(jobConfig("42"), 2);
+		List<String> first = generate(slices.get(0));
+		Assert.assertEquals(500, first.size());
+		Assert.assertEquals(first, generate(slices.get(0)));
+		// 重新 split 出的 task 也相同
+		Assert.assertEquals(first, generate(split(jobConfig("42"), 2).get(0)));
+
+		// 各个 task 的取值池相同但抽取序列不同
+		List<String> second = generate(slices.get(1));
+		Assert.assertEquals(second, generate(split(jobConfig("42"), 2).get(1)));
+		Assert.assertFalse(first.equals(second));
+
+		// 种子不同时数据不同
+		Assert.assertFalse(first.equals(generate(split(jobConfig("43"), 2).get(0))));
+	}
+
+	@Test
+	public void testSeedDefaultsToZero() {
+		Configuration slice = split(jobConfig(null), 1).get(0);
+		Assert.assertEquals(Long.valueOf(0L), slice.getLong(Key.SEED));
+		Assert.assertEquals(generate(slice), generate(split(jobConfig("0"), 1).get(0)));
+	}
+
+	@Test
+	public void testSeedMustBeInteger() {
+		try {
+			split(jobConfig("\"abc\""), 1);
+			Assert.fail();
+		} catch (DataXException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains(Key.SEED));
+		}
+	}
+
+	@Test
+	public void testRecordGeneratorIsDeterministic() {
+		Column[] pool = new Column[100];
+		for (int i = 0; i < pool.length; i++) {
+			pool[i] = new LongColumn((long) i);
+		}
+		List<RecordGenerator.ColumnSampler> samplers = Arrays.asList(
+				new RecordGenerator.ColumnSampler(pool, 0D, 0D, new LongColumn()),
+				new RecordGenerator.ColumnSampler(pool, 1.5D, 0.2D, new LongColumn()),
+				new RecordGenerator.ColumnSampler(new Column[]{new StringColumn("a")}, 0D, 0.5D, new StringColumn()));
+
+		RecordGenerator a = new RecordGenerator(samplers, 7L);
+		RecordGenerator b = new RecordGenerator(samplers, 7L);
+		RecordGenerator c = new RecordGenerator(samplers, 8L);
+		boolean differs = false;
+		for (int i = 0; i < 1000; i++) {
+			Record recordA = new ListRecord();
+			Record recordB = new ListRecord();
+			Record recordC = new ListRecord();
+			a.fill(recordA);
+			b.fill(recordB);
+			c.fill(recordC);
+			Assert.assertEquals(3, recordA.getColumnNumber());
+			for (int j = 0; j < 3; j++) {
+				// 从同一个取值池中抽取, 相同种子抽到的是同一个 Column 对象
+				Assert.assertSame(recordA.getColumn(j), recordB.getColumn(j));
+				differs |= recordA.getColumn(j) != recordC.getColumn(j);
+			}
+		}
+		Assert.assertTrue(differs);
+	}
+
+	private static Configuration jobConfig(String seed) {
+		Configuration configuration = Configuration.from("{\"column\":" + COLUMNS + "}");
+		configuration.set(Key.SLICE_RECORD_COUNT, 500);
+		configuration.set(Key.MODE, "generator");
+		if (null != seed) {
+			configuration.set(Key.SEED, Configuration.from("{\"v\":" + seed + "}").get("v"));
+		}
+		return configuration;
+	}
+
+	private static List<Configuration> split(Configuration jobConfig, int adviceNumber) {
+		StreamReader.Job job = new StreamReader.Job();
+		job.setPluginJobConf(jobConfig);
+		job.init();
+		return job.split(adviceNumber);
+	}
+
+	/**
+	 * 运行一个 task, 返回每条 record 各列的类型和取值
+	 */
+	private static List<String> generate(Configuration sliceConfig) {
+		StreamReader.Task task = new StreamReader.Task();
+		task.setPluginJobConf(sliceConfig.clone());
+		task.init();
+		task.prepare();
+		final List<String> rows = new ArrayList<String>();
+		task.startRead(new RecordSender() {
+			@Override
+			public Record createRecord() {
+				return new ListRecord();
+			}
+
+			@Override
+			public void sendToWriter(Record record) {
+				StringBuilder row = new StringBuilder();
+				for (int i = 0; i < record.getColumnNumber(); i++) {
+					Column column = record.getColumn(i);
+					row.append(column.getType()).append(':').append(column.getRawData()).append('|');
+				}
+				rows.add(row.toString());
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void terminate() {
+			}
+
+			@Override
+			public void shutdown() {
+			}
+		});
+		return rows;
+	}
+
+	private static class ListRecord implements Record {
+		private final List<Column> columns = new ArrayList<Column>();
+
+		@Override
+		public void addColumn(Column column) {
+			this.columns.add(column);
+		}
+
+		@Override
+		public void setColumn(int i, Column column) {
+			this.columns.set(i, column);
+		}
+
+		@Override
+		public Column getColumn(int i) {
+			return this.columns.get(i);
+		}
+
+		@Override
+		public int getColumnNumber() {
+			return this.columns.size();
+		}
+
+		@Override
+		public int getByteSize() {
+			return 0;
+		}
+
+		@Override
+		public int getMemorySize() {
+			return 0;
+		}
+	}
+}
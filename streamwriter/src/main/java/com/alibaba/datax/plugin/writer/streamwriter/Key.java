@@ -13,4 +13,11 @@ public class Key {
 
     public static final String SLEEP_TIME = "sleepTime";
 
+    /**
+     * 为 discard 时只消费 record 不做格式化, 结束时输出吞吐、各列字节数和延迟分布, 用于压测 reader 和 channel
+     */
+    public static final String MODE = "mode";
+
+    public static final String MODE_DISCARD = "discard";
+
 }
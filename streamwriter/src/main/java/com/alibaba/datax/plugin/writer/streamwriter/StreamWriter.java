@@ -3,9 +3,11 @@ package com.alibaba.datax.plugin.writer.streamwriter;
 
 import com.alibaba.datax.common.element.Column;
 import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.TimedRecord;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordReceiver;
 import com.alibaba.datax.common.spi.Writer;
+import com.alibaba.datax.common.statistics.LatencyHistogram;
 import com.alibaba.datax.common.util.Configuration;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -15,6 +17,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class StreamWriter extends Writer {
@@ -34,6 +37,12 @@ public class StreamWriter extends Writer {
             if(StringUtils.isNoneBlank(path) && StringUtils.isNoneBlank(fileName)) {
                 validateParameter(path, fileName);
             }
+
+            String mode = this.originalConfig.getString(Key.MODE, null);
+            if (StringUtils.isNotBlank(mode) && !Key.MODE_DISCARD.equalsIgnoreCase(mode)) {
+                throw DataXException.asDataXException(StreamWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的mode: [%s] 不合法, 目前只支持 %s.", mode, Key.MODE_DISCARD));
+            }
         }
 
         private void validateParameter(String path, String fileName) {
@@ -117,6 +126,7 @@ public class StreamWriter extends Writer {
         private long recordNumBeforSleep;
         private long sleepTime;
 
+        private boolean discard;
 
 
         @Override
@@ -137,6 +147,7 @@ public class StreamWriter extends Writer {
             if(sleepTime <0) {
                 throw DataXException.asDataXException(StreamWriterErrorCode.CONFIG_INVALID_EXCEPTION, "sleep 不能为负值");
             }
+            this.discard = Key.MODE_DISCARD.equalsIgnoreCase(this.writerSliceConfig.getString(Key.MODE, null));
 
         }
 
@@ -147,6 +158,10 @@ public class StreamWriter extends Writer {
         @Override
         public void startWrite(RecordReceiver recordReceiver) {
 
+                if (this.discard) {
+                    discard(recordReceiver);
+                    return;
+                }
 
                 if(StringUtils.isNoneBlank(path) && StringUtils.isNoneBlank(fileName)) {
                     writeToFile(recordReceiver,path, fileName, recordNumBeforSleep, sleepTime);
@@ -171,6 +186,64 @@ public class StreamWriter extends Writer {
                 }
         }
 
+        /**
+         * 只消费 record 不做格式化, 结束时输出吞吐、各列的字节数以及 record 从 reader 调用 sendToWriter 到 writer 收到的延迟分布。
+         * 延迟只统计框架采样打点(core.transport.exchanger.latencySampleInterval)的 record。
+         */
+        private void discard(RecordReceiver recordReceiver) {
+            LatencyHistogram latency = new LatencyHistogram();
+            long[] columnBytes = new long[0];
+            long[] columnNulls = new long[0];
+            long recordCount = 0;
+            long byteCount = 0;
+
+            long startNanos = System.nanoTime();
+            long lastSendNanoTime = 0;
+            Record record;
+            while ((record = recordReceiver.getFromReader()) != null) {
+                if (record instanceof TimedRecord) {
+                    // reader 重复发送同一个 record 对象时, 多个引用带有相同的时刻, 只统计一次;
+                    // 统计后清零, 使 reader 之后可以再次对该对象打点
+                    TimedRecord timedRecord = (TimedRecord) record;
+                    long sendNanoTime = timedRecord.getSendNanoTime();
+                    if (sendNanoTime != 0 && sendNanoTime != lastSendNanoTime) {
+                        lastSendNanoTime = sendNanoTime;
+                        latency.recordValue(System.nanoTime() - sendNanoTime);
+                        timedRecord.compareAndSetSendNanoTime(sendNanoTime, 0L);
+                    }
+                }
+
+                int columnNumber = record.getColumnNumber();
+                if (columnNumber > columnBytes.length) {
+                    columnBytes = Arrays.copyOf(columnBytes, columnNumber);
+                    columnNulls = Arrays.copyOf(columnNulls, columnNumber);
+                }
+                for (int i = 0; i < columnNumber; i++) {
+                    Column column = record.getColumn(i);
+                    if (null == column || null == column.getRawData()) {
+                        columnNulls[i]++;
+                    } else {
+                        columnBytes[i] += column.getByteSize();
+                    }
+                }
+                recordCount++;
+                byteCount += record.getByteSize();
+            }
+            double seconds = Math.max(1L, System.nanoTime() - startNanos) / 1000000000D;
+
+            LOG.info(String.format("taskId[%d] 共收到 %d 条 record, %d 字节, 耗时 %.3fs, 速度 %.0f records/s, %.3f MB/s",
+                    getTaskId(), recordCount, byteCount, seconds, recordCount / seconds,
+                    byteCount / seconds / 1024 / 1024));
+            LOG.info(String.format("taskId[%d] record 从 reader 发出到 writer 收到的延迟(采样): %s",
+                    getTaskId(), latency.toMillisSummary()));
+            for (int i = 0; i < columnBytes.length; i++) {
+                LOG.info(String.format("taskId[%d] 第%d列: %d 字节(占 %.1f%%), 平均每个非空值 %.1f 字节, null %d 个",
+                        getTaskId(), i, columnBytes[i], 0 == byteCount ? 0 : columnBytes[i] * 100D / byteCount,
+                        recordCount == columnNulls[i] ? 0 : (double) columnBytes[i] / (recordCount - columnNulls[i]),
+                        columnNulls[i]));
+            }
+        }
+
         private void writeToFile(RecordReceiver recordReceiver, String path, String fileName,
                                  long recordNumBeforSleep, long sleepTime) {
 
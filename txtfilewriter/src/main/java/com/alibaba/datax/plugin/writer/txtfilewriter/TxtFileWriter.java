@@ -4,6 +4,7 @@ import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordReceiver;
 import com.alibaba.datax.common.spi.Writer;
 import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.unstructuredstorage.writer.OutputStreamProvider;
 import com.alibaba.datax.plugin.unstructuredstorage.writer.UnstructuredStorageWriterUtil;
 
 import org.apache.commons.io.FileUtils;
@@ -284,32 +285,32 @@ public class TxtFileWriter extends Writer {
         @Override
         public void startWrite(RecordReceiver lineReceiver) {
             LOG.info("begin do write...");
-            String fileFullPath = this.buildFilePath();
-            LOG.info(String.format("write to file : [%s]", fileFullPath));
-
-            OutputStream outputStream = null;
             try {
-                File newFile = new File(fileFullPath);
-                newFile.createNewFile();
-                outputStream = new FileOutputStream(newFile);
+                // 配置了 maxFileSize 或 maxRecordsPerFile 时按序号滚动写出多个文件
                 UnstructuredStorageWriterUtil.writeToStream(lineReceiver,
-                        outputStream, this.writerSliceConfig, this.fileName,
+                        new OutputStreamProvider() {
+                            @Override
+                            public OutputStream open(int rollingNumber)
+                                    throws IOException {
+                                String fileFullPath = Task.this
+                                        .buildFilePath(rollingNumber);
+                                LOG.info(String.format(
+                                        "write to file : [%s]", fileFullPath));
+                                File newFile = new File(fileFullPath);
+                                newFile.createNewFile();
+                                return new FileOutputStream(newFile);
+                            }
+                        }, this.writerSliceConfig, this.fileName,
                         this.getTaskPluginCollector());
             } catch (SecurityException se) {
                 throw DataXException.asDataXException(
                         TxtFileWriterErrorCode.SECURITY_NOT_ENOUGH,
                         String.format("您没有权限创建文件  : [%s]", this.fileName));
-            } catch (IOException ioe) {
-                throw DataXException.asDataXException(
-                        TxtFileWriterErrorCode.Write_FILE_IO_ERROR,
-                        String.format("无法创建待写文件 : [%s]", this.fileName), ioe);
-            } finally {
-                IOUtils.closeQuietly(outputStream);
             }
             LOG.info("end do write");
         }
 
-        private String buildFilePath() {
+        private String buildFilePath(int rollingNumber) {
             boolean isEndWithSeparator = false;
             switch (IOUtils.DIR_SEPARATOR) {
             case IOUtils.DIR_SEPARATOR_UNIX:
@@ -326,7 +327,11 @@ public class TxtFileWriter extends Writer {
             if (!isEndWithSeparator) {
                 this.path = this.path + IOUtils.DIR_SEPARATOR;
             }
-            return String.format("%s%s", this.path, this.fileName);
+            if (0 == rollingNumber) {
+                return String.format("%s%s", this.path, this.fileName);
+            }
+            return String.format("%s%s_%s", this.path, this.fileName,
+                    rollingNumber);
         }
 
         @Override